@@ -0,0 +1,425 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.cassandra.cache;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.google.common.annotations.VisibleForTesting;
+
+import org.apache.cassandra.config.DatabaseDescriptor;
+import org.apache.cassandra.db.RowIndexEntry;
+import org.apache.cassandra.db.TypeSizes;
+import org.apache.cassandra.io.ISerializer;
+import org.apache.cassandra.io.sstable.Component;
+import org.apache.cassandra.io.sstable.Descriptor;
+import org.apache.cassandra.io.sstable.IndexInfo;
+import org.apache.cassandra.schema.TableId;
+import org.caffinitas.ohc.DirectValueAccess;
+import org.caffinitas.ohc.OHCache;
+import org.caffinitas.ohc.OHCacheBuilder;
+
+/**
+ * Key cache keeping its entries off-heap, in the hash tables of OHC, rather than as objects on heap.
+ *
+ * Entries are stored compactly: the key is the partition key prefixed by an int identifying its sstable, in place
+ * of the table id, index name and sstable descriptor of {@link KeyCacheKey}, and the value is the same int followed
+ * by the fixed layout of {@link RowIndexEntry#serializeCompact}, that is the type and position of the entry, followed
+ * by the fields of the shallow entries. A hit reads that layout in place, without decoding the vints of the key cache
+ * saved format.
+ *
+ * The sstables are given their id the first time one of their entries is added. The ids of the sstables that no
+ * longer exist are dropped once enough sstables have been registered, and their entries, unreachable from then on,
+ * are left for the eviction to reclaim.
+ */
+public class OHCKeyCacheProvider implements CacheProvider<KeyCacheKey, RowIndexEntry>
+{
+    public ICache<KeyCacheKey, RowIndexEntry> create()
+    {
+        return new OHCKeyCache(DatabaseDescriptor.getKeyCacheSizeInMiB() * 1024 * 1024);
+    }
+
+    @VisibleForTesting
+    static class OHCKeyCache implements ICache<KeyCacheKey, RowIndexEntry>
+    {
+        private final SSTableIds sstables;
+        private final ValueSerializer valueSerializer;
+        private final OHCache<KeyCacheKey, Value> ohCache;
+
+        OHCKeyCache(long capacity)
+        {
+            this(capacity, new SSTableIds());
+        }
+
+        @VisibleForTesting
+        OHCKeyCache(long capacity, SSTableIds sstables)
+        {
+            this.sstables = sstables;
+            this.valueSerializer = new ValueSerializer(sstables);
+            OHCacheBuilder<KeyCacheKey, Value> builder = OHCacheBuilder.newBuilder();
+            builder.capacity(capacity)
+                   .keySerializer(new KeySerializer(sstables))
+                   .valueSerializer(valueSerializer)
+                   .throwOOME(true);
+            this.ohCache = builder.build();
+        }
+
+        public long capacity()
+        {
+            return ohCache.capacity();
+        }
+
+        public void setCapacity(long capacity)
+        {
+            ohCache.setCapacity(capacity);
+        }
+
+        public void put(KeyCacheKey key, RowIndexEntry value)
+        {
+            ohCache.put(key, new Value(sstables.register(key, value), value));
+        }
+
+        public boolean putIfAbsent(KeyCacheKey key, RowIndexEntry value)
+        {
+            return ohCache.putIfAbsent(key, new Value(sstables.register(key, value), value));
+        }
+
+        public boolean replace(KeyCacheKey key, RowIndexEntry old, RowIndexEntry value)
+        {
+            SSTableIds.SSTable sstable = sstables.register(key, value);
+            return ohCache.addOrReplace(key, new Value(sstable, old), new Value(sstable, value));
+        }
+
+        public RowIndexEntry get(KeyCacheKey key)
+        {
+            if (sstables.get(key.desc) == null)
+                return null;
+
+            try (DirectValueAccess value = ohCache.getDirect(key))
+            {
+                return value == null ? null : valueSerializer.deserializeEntry(value.buffer());
+            }
+            catch (IOException e)
+            {
+                throw new RuntimeException(e);
+            }
+        }
+
+        public void remove(KeyCacheKey key)
+        {
+            if (sstables.get(key.desc) != null)
+                ohCache.remove(key);
+        }
+
+        public int size()
+        {
+            return (int) ohCache.size();
+        }
+
+        public long weightedSize()
+        {
+            return ohCache.memUsed();
+        }
+
+        public void clear()
+        {
+            ohCache.clear();
+        }
+
+        public Iterator<KeyCacheKey> hotKeyIterator(int n)
+        {
+            return new KeyIterator(ohCache.hotKeyIterator(n));
+        }
+
+        public Iterator<KeyCacheKey> keyIterator()
+        {
+            return new KeyIterator(ohCache.keyIterator());
+        }
+
+        public boolean containsKey(KeyCacheKey key)
+        {
+            return sstables.get(key.desc) != null && ohCache.containsKey(key);
+        }
+
+        /**
+         * Skips the keys of the sstables whose id was dropped, which the key serializer deserializes as {@code null}.
+         */
+        private class KeyIterator implements Iterator<KeyCacheKey>
+        {
+            private final Iterator<KeyCacheKey> keys;
+            private KeyCacheKey next;
+            private KeyCacheKey last;
+
+            private KeyIterator(Iterator<KeyCacheKey> keys)
+            {
+                this.keys = keys;
+            }
+
+            public boolean hasNext()
+            {
+                while (next == null && keys.hasNext())
+                    next = keys.next();
+                return next != null;
+            }
+
+            public KeyCacheKey next()
+            {
+                if (!hasNext())
+                    throw new NoSuchElementException();
+                last = next;
+                next = null;
+                return last;
+            }
+
+            public void remove()
+            {
+                if (last == null)
+                    throw new IllegalStateException();
+                OHCKeyCache.this.remove(last);
+                last = null;
+            }
+        }
+    }
+
+    /**
+     * The ids given to the sstables of the cached entries.
+     */
+    @VisibleForTesting
+    static class SSTableIds
+    {
+        private static final int NO_ID = -1;
+        private static final int MIN_PRUNE_THRESHOLD = 1024;
+
+        private final AtomicInteger nextId = new AtomicInteger();
+        private final ConcurrentMap<Descriptor, SSTable> byDescriptor = new ConcurrentHashMap<>();
+        private final ConcurrentMap<Integer, SSTable> byId = new ConcurrentHashMap<>();
+        private final int minPruneThreshold;
+        private volatile int pruneThreshold;
+
+        SSTableIds()
+        {
+            this(MIN_PRUNE_THRESHOLD);
+        }
+
+        @VisibleForTesting
+        SSTableIds(int minPruneThreshold)
+        {
+            this.minPruneThreshold = minPruneThreshold;
+            this.pruneThreshold = minPruneThreshold;
+        }
+
+        static class SSTable
+        {
+            final int id;
+            final TableId tableId;
+            final String indexName;
+            final Descriptor desc;
+            // set by the first indexed entry added, as the entries only keep their IndexInfo serialized
+            volatile ISerializer<IndexInfo> idxInfoSerializer;
+
+            private SSTable(int id, TableId tableId, String indexName, Descriptor desc)
+            {
+                this.id = id;
+                this.tableId = tableId;
+                this.indexName = indexName;
+                this.desc = desc;
+            }
+        }
+
+        SSTable get(Descriptor desc)
+        {
+            return byDescriptor.get(desc);
+        }
+
+        SSTable get(int id)
+        {
+            return byId.get(id);
+        }
+
+        int id(Descriptor desc)
+        {
+            SSTable sstable = byDescriptor.get(desc);
+            return sstable == null ? NO_ID : sstable.id;
+        }
+
+        @SuppressWarnings("unchecked")
+        SSTable register(KeyCacheKey key, RowIndexEntry entry)
+        {
+            SSTable sstable = byDescriptor.get(key.desc);
+            if (sstable == null)
+            {
+                sstable = byDescriptor.computeIfAbsent(key.desc, desc -> {
+                    SSTable registered = new SSTable(nextId.getAndIncrement(), key.tableId, key.indexName, desc);
+                    byId.put(registered.id, registered);
+                    return registered;
+                });
+                maybePrune();
+            }
+
+            if (sstable.idxInfoSerializer == null && entry.indexInfoSerializer() != null)
+                sstable.idxInfoSerializer = (ISerializer<IndexInfo>) entry.indexInfoSerializer();
+            return sstable;
+        }
+
+        /**
+         * Drops the ids of the sstables whose data file is gone, once the sstables registered have doubled since the
+         * last time we did.
+         */
+        private void maybePrune()
+        {
+            if (byDescriptor.size() < pruneThreshold)
+                return;
+
+            synchronized (this)
+            {
+                if (byDescriptor.size() < pruneThreshold)
+                    return;
+
+                byDescriptor.values().removeIf(sstable -> {
+                    if (sstable.desc.fileFor(Component.DATA).exists())
+                        return false;
+                    byId.remove(sstable.id);
+                    return true;
+                });
+                pruneThreshold = Math.max(minPruneThreshold, 2 * byDescriptor.size());
+            }
+        }
+
+        @VisibleForTesting
+        int size()
+        {
+            return byDescriptor.size();
+        }
+    }
+
+    /**
+     * Serializes the keys as the id of their sstable followed by the partition key. The keys of unregistered sstables
+     * are serialized with an id no sstable has, so they are never found, and deserialized as {@code null}.
+     */
+    private static class KeySerializer implements org.caffinitas.ohc.CacheSerializer<KeyCacheKey>
+    {
+        private final SSTableIds sstables;
+
+        private KeySerializer(SSTableIds sstables)
+        {
+            this.sstables = sstables;
+        }
+
+        public void serialize(KeyCacheKey key, ByteBuffer buf)
+        {
+            buf.putInt(sstables.id(key.desc));
+            buf.put(key.key);
+        }
+
+        public KeyCacheKey deserialize(ByteBuffer buf)
+        {
+            SSTableIds.SSTable sstable = sstables.get(buf.getInt());
+            if (sstable == null)
+                return null;
+
+            byte[] key = new byte[buf.remaining()];
+            buf.get(key);
+            return new KeyCacheKey(sstable.tableId, sstable.indexName, sstable.desc, key);
+        }
+
+        public int serializedSize(KeyCacheKey key)
+        {
+            return TypeSizes.INT_SIZE + key.key.length;
+        }
+    }
+
+    /**
+     * A cached entry along with the sstable it belongs to, whose id the value is prefixed with.
+     */
+    private static class Value
+    {
+        private final SSTableIds.SSTable sstable;
+        private final RowIndexEntry entry;
+
+        private Value(SSTableIds.SSTable sstable, RowIndexEntry entry)
+        {
+            this.sstable = sstable;
+            this.entry = entry;
+        }
+    }
+
+    /**
+     * Serializes the values as the id of their sstable followed by the compact layout of the entry, so that the
+     * entry is read with the {@link IndexInfo} serializer of its sstable. The values of the sstables whose id was
+     * dropped are deserialized as {@code null}.
+     */
+    private static class ValueSerializer implements org.caffinitas.ohc.CacheSerializer<Value>
+    {
+        private final SSTableIds sstables;
+
+        private ValueSerializer(SSTableIds sstables)
+        {
+            this.sstables = sstables;
+        }
+
+        public void serialize(Value value, ByteBuffer buf)
+        {
+            buf.putInt(value.sstable.id);
+            try
+            {
+                value.entry.serializeCompact(buf);
+            }
+            catch (IOException e)
+            {
+                throw new RuntimeException(e);
+            }
+        }
+
+        public Value deserialize(ByteBuffer buf)
+        {
+            SSTableIds.SSTable sstable = sstables.get(buf.getInt());
+            return sstable == null ? null : new Value(sstable, deserializeEntry(sstable, buf));
+        }
+
+        /**
+         * Reads the entry of a value in place, without wrapping it with its sstable.
+         */
+        RowIndexEntry deserializeEntry(ByteBuffer buf)
+        {
+            SSTableIds.SSTable sstable = sstables.get(buf.getInt());
+            return sstable == null ? null : deserializeEntry(sstable, buf);
+        }
+
+        private static RowIndexEntry deserializeEntry(SSTableIds.SSTable sstable, ByteBuffer buf)
+        {
+            try
+            {
+                return RowIndexEntry.deserializeCompact(buf, sstable.idxInfoSerializer);
+            }
+            catch (IOException e)
+            {
+                throw new RuntimeException(e);
+            }
+        }
+
+        public int serializedSize(Value value)
+        {
+            return TypeSizes.INT_SIZE + value.entry.compactSerializedSize();
+        }
+    }
+}
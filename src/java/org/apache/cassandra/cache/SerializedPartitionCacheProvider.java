@@ -0,0 +1,378 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.cassandra.cache;
+
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.primitives.Ints;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+
+import org.apache.cassandra.concurrent.ImmediateExecutor;
+import org.apache.cassandra.concurrent.ScheduledExecutors;
+import org.apache.cassandra.config.DatabaseDescriptor;
+import org.apache.cassandra.db.ColumnFamilyStore;
+import org.apache.cassandra.db.partitions.CachedPartition;
+import org.apache.cassandra.db.partitions.SerializedCachedPartition;
+import org.apache.cassandra.io.util.DataOutputBufferFixed;
+import org.apache.cassandra.io.util.Memory;
+import org.apache.cassandra.schema.Schema;
+import org.apache.cassandra.schema.TableId;
+import org.apache.cassandra.schema.TableMetadata;
+import org.apache.cassandra.utils.FBUtilities;
+import org.apache.cassandra.utils.concurrent.OpOrder;
+
+/**
+ * Row cache keeping partitions off-heap in their serialized form, and serving hits without deserializing them.
+ *
+ * Unlike {@link SerializingCacheProvider} and {@link OHCProvider}, which deserialize the whole cached partition on
+ * every hit, a hit returns a {@link SerializedCachedPartition} reading its rows straight from the off-heap memory.
+ * This makes caching the head of large partitions (time series for instance) cheap in terms of heap and GC.
+ *
+ * Since reads access the off-heap memory directly, the memory of an entry that is evicted, invalidated or replaced
+ * is only freed once the reads that may be using it are done, that is after a barrier on the table read ordering.
+ */
+public class SerializedPartitionCacheProvider implements CacheProvider<RowCacheKey, IRowCacheEntry>
+{
+    public ICache<RowCacheKey, IRowCacheEntry> create()
+    {
+        return new SerializedPartitionCache(DatabaseDescriptor.getRowCacheSizeInMiB() * 1024 * 1024);
+    }
+
+    @VisibleForTesting
+    static class SerializedPartitionCache implements ICache<RowCacheKey, IRowCacheEntry>
+    {
+        private static final Logger logger = LoggerFactory.getLogger(SerializedPartitionCache.class);
+
+        private final Cache<RowCacheKey, IRowCacheEntry> cache;
+
+        SerializedPartitionCache(long capacity)
+        {
+            this.cache = Caffeine.newBuilder()
+                                 .weigher((RowCacheKey key, IRowCacheEntry entry) -> entry instanceof Slot ? Ints.checkedCast(((Slot) entry).memory.size()) : 1)
+                                 .maximumWeight(capacity)
+                                 .executor(ImmediateExecutor.INSTANCE)
+                                 .removalListener((RowCacheKey key, IRowCacheEntry entry, RemovalCause cause) -> {
+                                     if (entry instanceof Slot)
+                                         ((Slot) entry).release();
+                                 })
+                                 .build();
+        }
+
+        private IRowCacheEntry toEntry(RowCacheKey key, IRowCacheEntry value)
+        {
+            if (value instanceof RowCacheSentinel)
+                return value;
+
+            CachedPartition partition = (CachedPartition) value;
+            long serializedSize = SerializedCachedPartition.serializedSize(partition);
+            if (serializedSize > Integer.MAX_VALUE)
+                throw new IllegalArgumentException(String.format("Unable to allocate %s", FBUtilities.prettyPrintMemory(serializedSize)));
+
+            Memory memory;
+            try
+            {
+                memory = Memory.allocate(serializedSize);
+            }
+            catch (OutOfMemoryError e)
+            {
+                return null;
+            }
+
+            try (DataOutputBufferFixed out = new DataOutputBufferFixed(memory.asByteBuffer(0, (int) serializedSize).order(ByteOrder.BIG_ENDIAN)))
+            {
+                SerializedCachedPartition.serialize(partition, out);
+            }
+            catch (IOException e)
+            {
+                memory.free();
+                throw new RuntimeException(e);
+            }
+            catch (Throwable t)
+            {
+                memory.free();
+                throw t;
+            }
+            return new Slot(key.tableId, memory);
+        }
+
+        /**
+         * Frees an entry that was never visible in the cache.
+         */
+        private static void discard(IRowCacheEntry entry)
+        {
+            if (entry instanceof Slot)
+                ((Slot) entry).memory.free();
+        }
+
+        public long capacity()
+        {
+            return cache.policy().eviction().get().getMaximum();
+        }
+
+        public void setCapacity(long capacity)
+        {
+            cache.policy().eviction().get().setMaximum(capacity);
+        }
+
+        public int size()
+        {
+            return cache.asMap().size();
+        }
+
+        public long weightedSize()
+        {
+            return cache.policy().eviction().get().weightedSize().getAsLong();
+        }
+
+        public void clear()
+        {
+            cache.invalidateAll();
+        }
+
+        public IRowCacheEntry get(RowCacheKey key)
+        {
+            IRowCacheEntry entry = cache.getIfPresent(key);
+            if (!(entry instanceof Slot))
+                return entry;
+
+            TableMetadata metadata = Schema.instance.getTableMetadata(key.tableId);
+            return metadata == null ? null : ((Slot) entry).open(metadata);
+        }
+
+        public void put(RowCacheKey key, IRowCacheEntry value)
+        {
+            IRowCacheEntry entry = toEntry(key, value);
+            if (entry == null)
+                return; // out of memory.  never mind.
+
+            try
+            {
+                cache.put(key, entry);
+            }
+            catch (Throwable t)
+            {
+                discard(entry);
+                throw t;
+            }
+        }
+
+        public boolean putIfAbsent(RowCacheKey key, IRowCacheEntry value)
+        {
+            IRowCacheEntry entry = toEntry(key, value);
+            if (entry == null)
+                return false; // out of memory.  never mind.
+
+            IRowCacheEntry old;
+            try
+            {
+                old = cache.asMap().putIfAbsent(key, entry);
+            }
+            catch (Throwable t)
+            {
+                discard(entry);
+                throw t;
+            }
+
+            if (old != null)
+                discard(entry);
+            return old == null;
+        }
+
+        public boolean replace(RowCacheKey key, IRowCacheEntry oldToReplace, IRowCacheEntry value)
+        {
+            IRowCacheEntry old = cache.getIfPresent(key);
+            if (old == null)
+                return false;
+
+            boolean matches = old instanceof Slot ? ((Slot) old).view == oldToReplace : old.equals(oldToReplace);
+            if (!matches)
+                return false;
+
+            IRowCacheEntry entry = toEntry(key, value);
+            if (entry == null)
+                return false; // out of memory.  never mind.
+
+            boolean success;
+            try
+            {
+                success = cache.asMap().replace(key, old, entry);
+            }
+            catch (Throwable t)
+            {
+                discard(entry);
+                throw t;
+            }
+
+            if (!success)
+                discard(entry);
+            return success;
+        }
+
+        public void remove(RowCacheKey key)
+        {
+            cache.invalidate(key);
+        }
+
+        public Iterator<RowCacheKey> keyIterator()
+        {
+            return cache.asMap().keySet().iterator();
+        }
+
+        public Iterator<RowCacheKey> hotKeyIterator(int n)
+        {
+            return cache.policy().eviction().get().hottest(n).keySet().iterator();
+        }
+
+        public boolean containsKey(RowCacheKey key)
+        {
+            return cache.asMap().containsKey(key);
+        }
+
+        /**
+         * The cached serialized partition, along with the last view opened on it so that its header is only decoded
+         * again if the table metadata changes.
+         */
+        private static class Slot implements IRowCacheEntry
+        {
+            private final TableId tableId;
+            private final Memory memory;
+            private volatile SerializedCachedPartition view;
+
+            private Slot(TableId tableId, Memory memory)
+            {
+                this.tableId = tableId;
+                this.memory = memory;
+            }
+
+            private SerializedCachedPartition open(TableMetadata metadata)
+            {
+                SerializedCachedPartition current = view;
+                if (current != null && current.metadata() == metadata)
+                    return current;
+
+                try
+                {
+                    current = SerializedCachedPartition.open(memory, metadata);
+                }
+                catch (IOException e)
+                {
+                    logger.trace("Cannot open cached partition, we will fallback to read from disk ", e);
+                    return null;
+                }
+                view = current;
+                return current;
+            }
+
+            /**
+             * Frees the memory once the reads that may have obtained this entry from the cache are done.
+             */
+            private void release()
+            {
+                ColumnFamilyStore cfs = Schema.instance.getColumnFamilyStoreInstance(tableId);
+                if (cfs == null)
+                {
+                    memory.free();
+                    return;
+                }
+
+                OpOrder.Barrier barrier = cfs.readOrdering.newBarrier();
+                barrier.issue();
+                PendingReleases.instance.add(barrier, memory);
+            }
+        }
+
+        /**
+         * The memory of the removed entries waiting for the reads started before their removal to finish. Rather than
+         * blocking a shared thread on the barrier of each entry, the barriers are checked by a task scheduled as long as
+         * some memory is waiting to be freed.
+         */
+        @VisibleForTesting
+        static class PendingReleases
+        {
+            private static final long CHECK_INTERVAL_MILLIS = 10;
+
+            static final PendingReleases instance = new PendingReleases();
+
+            private final Queue<PendingRelease> pending = new ConcurrentLinkedQueue<>();
+            private final AtomicBoolean scheduled = new AtomicBoolean();
+
+            private void add(OpOrder.Barrier barrier, Memory memory)
+            {
+                // most of the time, no read was using the entry and it can be freed right away
+                if (barrier.getSyncPoint().isFinished())
+                {
+                    memory.free();
+                    return;
+                }
+
+                pending.add(new PendingRelease(barrier, memory));
+                maybeSchedule();
+            }
+
+            private void maybeSchedule()
+            {
+                if (scheduled.compareAndSet(false, true))
+                    ScheduledExecutors.scheduledFastTasks.schedule(this::releaseFinished, CHECK_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+            }
+
+            private void releaseFinished()
+            {
+                scheduled.set(false);
+                for (PendingRelease release : pending)
+                {
+                    // remove() only succeeds once, should the checks of two tasks overlap
+                    if (release.barrier.getSyncPoint().isFinished() && pending.remove(release))
+                        release.memory.free();
+                }
+
+                if (!pending.isEmpty())
+                    maybeSchedule();
+            }
+
+            @VisibleForTesting
+            int size()
+            {
+                return pending.size();
+            }
+        }
+
+        private static class PendingRelease
+        {
+            private final OpOrder.Barrier barrier;
+            private final Memory memory;
+
+            private PendingRelease(OpOrder.Barrier barrier, Memory memory)
+            {
+                this.barrier = barrier;
+                this.memory = memory;
+            }
+        }
+    }
+}
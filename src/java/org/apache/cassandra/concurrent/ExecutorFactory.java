@@ -58,6 +58,9 @@ import static org.apache.cassandra.utils.Shared.Scope.SIMULATION;
  *
  * Supports shared executors via sub-factory {@code localAware().withJMX()}
  * using {@link LocalAwareSubFactoryWithJMX#shared(String, int, ExecutorPlus.MaximumPoolSizeListener)}
+ *
+ * Supports executors running on virtual threads via sub-factory {@code localAware().withJMX()}
+ * using {@link LocalAwareSubFactoryWithJMX#virtual(String, int, ExecutorPlus.MaximumPoolSizeListener)}
  */
 @Shared(scope = SIMULATION, inner = INTERFACES)
 public interface ExecutorFactory extends ExecutorBuilderFactory.Jmxable<ExecutorPlus, SequentialExecutorPlus>
@@ -65,6 +68,15 @@ public interface ExecutorFactory extends ExecutorBuilderFactory.Jmxable<Executor
     public interface LocalAwareSubFactoryWithJMX extends ExecutorBuilderFactory<LocalAwareExecutorPlus, LocalAwareSequentialExecutorPlus>
     {
         LocalAwareExecutorPlus shared(String name, int threads, ExecutorPlus.MaximumPoolSizeListener onSetMaxSize);
+
+        /**
+         * An executor running each of its tasks on a virtual thread, at most {@code concurrency} at a time, if
+         * the JVM supports virtual threads, or else the equivalent {@link #shared} executor
+         */
+        default LocalAwareExecutorPlus virtual(String name, int concurrency, ExecutorPlus.MaximumPoolSizeListener onSetMaxSize)
+        {
+            return shared(name, concurrency, onSetMaxSize);
+        }
     }
 
     public interface LocalAwareSubFactory extends ExecutorBuilderFactory<LocalAwareExecutorPlus, LocalAwareSequentialExecutorPlus>
@@ -234,6 +246,14 @@ public interface ExecutorFactory extends ExecutorBuilderFactory.Jmxable<Executor
                         {
                             return SharedExecutorPool.SHARED.newExecutor(threads, onSetMaxSize, jmxPath, name);
                         }
+
+                        public LocalAwareExecutorPlus virtual(String name, int concurrency, ExecutorPlus.MaximumPoolSizeListener onSetMaxSize)
+                        {
+                            if (!VirtualThreadFactory.isSupported())
+                                return shared(name, concurrency, onSetMaxSize);
+
+                            return ThreadPoolExecutorBuilder.<VirtualThreadExecutorPlus>virtualJmx(builder -> new VirtualThreadExecutorPlus(builder, onSetMaxSize), contextClassLoader, threadGroup, uncaughtExceptionHandler, name, concurrency, jmxPath).build();
+                        }
                     };
                 }
             };
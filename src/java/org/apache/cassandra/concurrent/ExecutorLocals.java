@@ -20,19 +20,20 @@ package org.apache.cassandra.concurrent;
 
 import io.netty.util.concurrent.FastThreadLocal;
 import org.apache.cassandra.service.ClientWarn;
+import org.apache.cassandra.service.ResourceAccounting;
 import org.apache.cassandra.tracing.TraceState;
 import org.apache.cassandra.utils.Closeable;
 import org.apache.cassandra.utils.WithResources;
 
 /*
- * This class only knows about Tracing and ClientWarn, so if any different executor locals are added, it must be
+ * This class only knows about Tracing, ClientWarn and ResourceAccounting, so if any different executor locals are added, it must be
  * updated.
  *
  * We don't enumerate the ExecutorLocal.all array each time because it would be much slower.
  */
 public class ExecutorLocals implements WithResources, Closeable
 {
-    private static final ExecutorLocals none = new ExecutorLocals(null, null);
+    private static final ExecutorLocals none = new ExecutorLocals(null, null, null);
     private static final FastThreadLocal<ExecutorLocals> locals = new FastThreadLocal<ExecutorLocals>()
     {
         @Override
@@ -45,24 +46,26 @@ public class ExecutorLocals implements WithResources, Closeable
     public static class Impl
     {
         @SuppressWarnings("resource")
-        protected static void set(TraceState traceState, ClientWarn.State clientWarnState)
+        protected static void set(TraceState traceState, ClientWarn.State clientWarnState, ResourceAccounting.State resourceAccountingState)
         {
-            if (traceState == null && clientWarnState == null) locals.set(none);
-            else locals.set(new ExecutorLocals(traceState, clientWarnState));
+            if (traceState == null && clientWarnState == null && resourceAccountingState == null) locals.set(none);
+            else locals.set(new ExecutorLocals(traceState, clientWarnState, resourceAccountingState));
         }
     }
 
     public final TraceState traceState;
     public final ClientWarn.State clientWarnState;
+    public final ResourceAccounting.State resourceAccountingState;
 
-    protected ExecutorLocals(TraceState traceState, ClientWarn.State clientWarnState)
+    protected ExecutorLocals(TraceState traceState, ClientWarn.State clientWarnState, ResourceAccounting.State resourceAccountingState)
     {
         this.traceState = traceState;
         this.clientWarnState = clientWarnState;
+        this.resourceAccountingState = resourceAccountingState;
     }
 
     /**
-     * @return an ExecutorLocals object which has the current trace state and client warn state.
+     * @return an ExecutorLocals object which has the current trace state, client warn state and resource accounting state.
      */
     public static ExecutorLocals current()
     {
@@ -83,7 +86,7 @@ public class ExecutorLocals implements WithResources, Closeable
     public static ExecutorLocals create(TraceState traceState)
     {
         ExecutorLocals current = locals.get();
-        return current.traceState == traceState ? current : new ExecutorLocals(traceState, current.clientWarnState);
+        return current.traceState == traceState ? current : new ExecutorLocals(traceState, current.clientWarnState, current.resourceAccountingState);
     }
 
     public static void clear()
@@ -92,13 +95,18 @@ public class ExecutorLocals implements WithResources, Closeable
     }
 
     /**
-     * Overwrite current locals, and return the previous ones
+     * Overwrite current locals, and return the previous ones.
+     *
+     * If the resources used by a request are accounted, and the current thread is not already working for it, the
+     * resources the thread uses until the returned locals are closed are accounted to the request.
      */
     public Closeable get()
     {
         ExecutorLocals old = current();
         if (old != this)
             locals.set(this);
+        if (resourceAccountingState != null && old.resourceAccountingState != resourceAccountingState)
+            return resourceAccountingState.measure(old);
         return old;
     }
 
@@ -68,6 +68,12 @@ public class NamedThreadFactory implements ThreadFactory
             ThreadGroup threadGroup = this.threadGroup == null ? null : new ThreadGroup(this.threadGroup, name);
             return new NamedThreadFactory(name, threadPriority, contextClassLoader, threadGroup, uncaughtExceptionHandler);
         }
+
+        VirtualThreadFactory newVirtualThreadFactory(String name)
+        {
+            ThreadGroup threadGroup = this.threadGroup == null ? null : new ThreadGroup(this.threadGroup, name);
+            return new VirtualThreadFactory(name, contextClassLoader, threadGroup, uncaughtExceptionHandler);
+        }
     }
 
     public final String id;
@@ -174,6 +180,14 @@ public class NamedThreadFactory implements ThreadFactory
         return thread;
     }
 
+    /**
+     * @return whether the current thread was created by this factory
+     */
+    boolean isCurrentThreadMember()
+    {
+        return Thread.currentThread().getThreadGroup() == threadGroup;
+    }
+
     @Override
     public String toString()
     {
@@ -0,0 +1,56 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.cassandra.concurrent;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.apache.cassandra.concurrent.ExecutorFactory.Global.executorFactory;
+
+/**
+ * A fixed set of single threaded executors, or shards, each executing the tasks submitted to it in order.
+ *
+ * Used by the stages with partition affinity (see {@link Stage#shardCount()}) so that the requests on the partitions
+ * of a given shard of the local ranges are always executed by the same thread.
+ */
+public class ShardedExecutor
+{
+    private final LocalAwareExecutorPlus[] shards;
+
+    ShardedExecutor(String name, String jmxType, int shardCount)
+    {
+        this.shards = new LocalAwareExecutorPlus[shardCount];
+        for (int i = 0; i < shardCount; i++)
+            shards[i] = executorFactory().localAware().withJmx(jmxType).sequential(name + "-Shard-" + i);
+    }
+
+    public int shardCount()
+    {
+        return shards.length;
+    }
+
+    public void execute(ExecutorLocals locals, Runnable task, int shard)
+    {
+        shards[shard].execute(locals, task);
+    }
+
+    List<ExecutorPlus> executors()
+    {
+        return Arrays.asList(shards);
+    }
+}
@@ -17,7 +17,9 @@
  */
 package org.apache.cassandra.concurrent;
 
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.Callable;
@@ -58,8 +60,10 @@ public enum Stage
     ;
 
     public final String jmxName;
+    private final String jmxType;
     private final Supplier<ExecutorPlus> executorSupplier;
     private volatile ExecutorPlus executor;
+    private volatile ShardedExecutor shardedExecutor;
     /** Set true if this executor should be gracefully shutdown before stopping
      * the commitlog allocator. Tasks on executors that issue mutations may
      * block indefinitely waiting for a new commitlog segment, preventing a
@@ -71,6 +75,7 @@ public enum Stage
     {
         this.shutdownBeforeCommitlog = shutdownBeforeCommitlog;
         this.jmxName = jmxName;
+        this.jmxType = jmxType;
         this.executorSupplier = () -> executorSupplier.init(jmxName, jmxType, numThreads.getAsInt(), onSetMaximumPoolSize);
     }
 
@@ -129,6 +134,63 @@ public enum Stage
     public Future<?> submit(Runnable task) { return executor().submit(task); }
     public <T> Future<T> submit(Runnable task, T result) { return executor().submit(task, result); }
 
+    /**
+     * Executes the provided task on the thread of the given shard, see {@link #shardCount()}, or on any thread of
+     * the stage if {@code shard} is negative.
+     */
+    public void execute(ExecutorLocals locals, Runnable task, int shard)
+    {
+        if (shard < 0)
+            execute(locals, task);
+        else
+            shardedExecutor().execute(locals, task, shard);
+    }
+
+    /**
+     * @return the number of threads the requests on single partitions are sharded between when the stage has
+     * partition affinity, see {@code partition_affine_stages_enabled}, or 0 otherwise
+     */
+    public int shardCount()
+    {
+        ShardedExecutor sharded = shardedExecutor();
+        return sharded == null ? 0 : sharded.shardCount();
+    }
+
+    private boolean isPartitionAffine()
+    {
+        return (this == READ || this == MUTATION) && DatabaseDescriptor.getPartitionAffineStagesEnabled();
+    }
+
+    private ShardedExecutor shardedExecutor()
+    {
+        if (!isPartitionAffine())
+            return null;
+
+        if (shardedExecutor == null)
+        {
+            synchronized (this)
+            {
+                if (shardedExecutor == null)
+                {
+                    // one thread per core, like the default number of shards of the sharded memtable
+                    shardedExecutor = new ShardedExecutor(jmxName, jmxType, FBUtilities.getAvailableProcessors());
+                }
+            }
+        }
+        return shardedExecutor;
+    }
+
+    private List<ExecutorPlus> allExecutors()
+    {
+        ShardedExecutor sharded = shardedExecutor;
+        if (sharded == null)
+            return Collections.singletonList(executor());
+
+        List<ExecutorPlus> executors = new ArrayList<>(sharded.executors());
+        executors.add(executor());
+        return executors;
+    }
+
     public ExecutorPlus executor()
     {
         if (executor == null)
@@ -147,7 +209,7 @@ public enum Stage
     private static List<ExecutorPlus> executors()
     {
         return Stream.of(Stage.values())
-                     .map(Stage::executor)
+                     .flatMap(stage -> stage.allExecutors().stream())
                      .collect(Collectors.toList());
     }
 
@@ -155,7 +217,7 @@ public enum Stage
     {
         return Stream.of(Stage.values())
                      .filter(stage -> stage.shutdownBeforeCommitlog)
-                     .map(Stage::executor)
+                     .flatMap(stage -> stage.allExecutors().stream())
                      .collect(Collectors.toList());
     }
 
@@ -222,6 +284,12 @@ public enum Stage
 
     static LocalAwareExecutorPlus multiThreadedLowSignalStage(String jmxName, String jmxType, int numThreads, LocalAwareExecutorPlus.MaximumPoolSizeListener onSetMaximumPoolSize)
     {
+        if (DatabaseDescriptor.useVirtualThreads(jmxName))
+            return executorFactory()
+                    .localAware()
+                    .withJmx(jmxType)
+                    .virtual(jmxName, numThreads, onSetMaximumPoolSize);
+
         return executorFactory()
                 .localAware()
                 .withJmx(jmxType)
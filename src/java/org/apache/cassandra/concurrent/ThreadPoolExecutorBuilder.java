@@ -64,11 +64,19 @@ public class ThreadPoolExecutorBuilder<E extends ExecutorPlus> extends MetaFacto
         return new ThreadPoolExecutorJMXAdapter.Builder<>(pooled(constructor, contextClassLoader, threadGroup, uncaughtExceptionHandler, name, threads), jmxPath);
     }
 
+    static <E extends ThreadPoolExecutorPlus> ExecutorBuilder<E> virtualJmx(Function<ThreadPoolExecutorBuilder<E>, E> constructor, ClassLoader contextClassLoader, ThreadGroup threadGroup, UncaughtExceptionHandler uncaughtExceptionHandler, String name, int concurrency, String jmxPath)
+    {
+        ThreadPoolExecutorBuilder<E> result = new ThreadPoolExecutorBuilder<>(constructor, contextClassLoader, threadGroup, uncaughtExceptionHandler, name, concurrency);
+        result.withVirtualThreads();
+        return new ThreadPoolExecutorJMXAdapter.Builder<>(result, jmxPath);
+    }
+
     private final Function<ThreadPoolExecutorBuilder<E>, E> constructor;
     private final String name;
     private final int threads;
     private int threadPriority = NORM_PRIORITY;
     private Integer queueLimit;
+    private boolean virtualThreads;
 
     private long keepAlive = 1;
     private TimeUnit keepAliveUnits = MINUTES;
@@ -134,6 +142,13 @@ public class ThreadPoolExecutorBuilder<E extends ExecutorPlus> extends MetaFacto
         return this;
     }
 
+    // run the tasks on virtual threads, see VirtualThreadFactory
+    public ThreadPoolExecutorBuilder<E> withVirtualThreads()
+    {
+        this.virtualThreads = true;
+        return this;
+    }
+
     public ThreadPoolExecutorBuilder<E> withRejectedExecutionHandler(RejectedExecutionHandler rejectedExecutionHandler)
     {
         this.rejectedExecutionHandler = rejectedExecutionHandler;
@@ -154,6 +169,8 @@ public class ThreadPoolExecutorBuilder<E extends ExecutorPlus> extends MetaFacto
 
     NamedThreadFactory newThreadFactory()
     {
+        if (virtualThreads)
+            return newVirtualThreadFactory(name);
         return newThreadFactory(name, threadPriority);
     }
 
@@ -102,7 +102,7 @@ public class ThreadPoolExecutorPlus extends ThreadPoolExecutorBase implements Ex
     @Override
     public boolean inExecutor()
     {
-        return Thread.currentThread().getThreadGroup() == getThreadFactory().threadGroup;
+        return getThreadFactory().isCurrentThreadMember();
     }
 
     @Override
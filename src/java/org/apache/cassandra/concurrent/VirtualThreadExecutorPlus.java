@@ -0,0 +1,52 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.cassandra.concurrent;
+
+/**
+ * A {@link LocalAwareThreadPoolExecutorPlus} running its tasks on virtual threads, see {@link VirtualThreadFactory}.
+ *
+ * Virtual threads being cheap, the pool is sized by the maximum number of tasks that may run concurrently, which may
+ * be far larger than would be sensible with platform threads. Its threads are created on demand and time out when idle,
+ * and its core and maximum pool sizes are kept equal, like the concurrency of a {@link SEPExecutor}.
+ */
+public class VirtualThreadExecutorPlus extends LocalAwareThreadPoolExecutorPlus
+{
+    private final MaximumPoolSizeListener maximumPoolSizeListener;
+
+    VirtualThreadExecutorPlus(ThreadPoolExecutorBuilder<? extends VirtualThreadExecutorPlus> builder, MaximumPoolSizeListener maximumPoolSizeListener)
+    {
+        super(builder);
+        this.maximumPoolSizeListener = maximumPoolSizeListener;
+    }
+
+    @Override
+    public void setMaximumPoolSize(int maximumPoolSize)
+    {
+        if (maximumPoolSize < getCorePoolSize())
+        {
+            setCorePoolSize(maximumPoolSize);
+            super.setMaximumPoolSize(maximumPoolSize);
+        }
+        else
+        {
+            super.setMaximumPoolSize(maximumPoolSize);
+            setCorePoolSize(maximumPoolSize);
+        }
+        maximumPoolSizeListener.onUpdateMaximumPoolSize(maximumPoolSize);
+    }
+}
@@ -0,0 +1,136 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.cassandra.concurrent;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+
+import com.google.common.annotations.VisibleForTesting;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import io.netty.util.concurrent.FastThreadLocal;
+
+/**
+ * A {@link NamedThreadFactory} creating virtual threads, on JVMs supporting them (JDK 21 onwards).
+ *
+ * Virtual threads are not {@link io.netty.util.concurrent.FastThreadLocalThread}s, so the {@link FastThreadLocal}s
+ * they use are removed explicitly when they terminate, as for the platform threads we create.
+ *
+ * A virtual thread blocking while it holds a monitor, or waiting on one, pins its carrier thread, so the pools running
+ * on virtual threads could stall with only a few such threads. The paths of the request stages that block on a lock
+ * (the paxos state and prepare, the hints buffers, the paxos repair history load and the prepared statement upgrade
+ * check) therefore use {@link java.util.concurrent.locks.ReentrantLock}s rather than monitors. The loads of the
+ * Caffeine caches, like the chunk and authentication caches, still happen within a monitor however, which is why
+ * {@code virtual_thread_pools} is experimental.
+ */
+public class VirtualThreadFactory extends NamedThreadFactory
+{
+    private static final Logger logger = LoggerFactory.getLogger(VirtualThreadFactory.class);
+
+    // Thread.ofVirtual().name(name).unstarted(runnable), looked up reflectively since we build against older JDKs
+    private static final MethodHandle newVirtualThread = newVirtualThreadHandle();
+
+    // virtual threads all belong to the same thread group, so we track the factory of the current thread instead
+    private static final ThreadLocal<VirtualThreadFactory> currentFactory = new ThreadLocal<>();
+
+    VirtualThreadFactory(String id, ClassLoader contextClassLoader, ThreadGroup threadGroup, Thread.UncaughtExceptionHandler uncaughtExceptionHandler)
+    {
+        super(id, Thread.NORM_PRIORITY, contextClassLoader, threadGroup, uncaughtExceptionHandler);
+    }
+
+    /**
+     * @return whether the JVM supports virtual threads
+     */
+    public static boolean isSupported()
+    {
+        return newVirtualThread != null;
+    }
+
+    @Override
+    protected Thread newThread(ThreadGroup threadGroup, Runnable runnable, String name)
+    {
+        return setupThread(newVirtualThread(globalPrefix() + name, wrap(runnable)));
+    }
+
+    /**
+     * @return {@code runnable}, run as a thread of this factory
+     */
+    @VisibleForTesting
+    Runnable wrap(Runnable runnable)
+    {
+        return () -> {
+            currentFactory.set(this);
+            try
+            {
+                runnable.run();
+            }
+            finally
+            {
+                FastThreadLocal.removeAll();
+                currentFactory.remove();
+            }
+        };
+    }
+
+    @Override
+    boolean isCurrentThreadMember()
+    {
+        return currentFactory.get() == this;
+    }
+
+    private static Thread newVirtualThread(String name, Runnable runnable)
+    {
+        try
+        {
+            return (Thread) newVirtualThread.invoke(name, runnable);
+        }
+        catch (Throwable t)
+        {
+            throw new IllegalStateException("Unable to create virtual thread " + name, t);
+        }
+    }
+
+    private static MethodHandle newVirtualThreadHandle()
+    {
+        try
+        {
+            MethodHandles.Lookup lookup = MethodHandles.publicLookup();
+            Class<?> builder = Class.forName("java.lang.Thread$Builder");
+            MethodHandle ofVirtual = lookup.findStatic(Thread.class, "ofVirtual", MethodType.methodType(Class.forName("java.lang.Thread$Builder$OfVirtual")))
+                                           .asType(MethodType.methodType(builder));
+            MethodHandle name = lookup.findVirtual(builder, "name", MethodType.methodType(builder, String.class));
+            MethodHandle unstarted = lookup.findVirtual(builder, "unstarted", MethodType.methodType(Thread.class, Runnable.class));
+
+            // unstarted(name(ofVirtual(), threadName), runnable)
+            MethodHandle named = MethodHandles.collectArguments(name, 0, ofVirtual);
+            MethodHandle handle = MethodHandles.collectArguments(unstarted, 0, named)
+                                               .asType(MethodType.methodType(Thread.class, String.class, Runnable.class));
+
+            // virtual threads are a preview feature of some JDKs, in which case they can only be used if enabled
+            handle.invoke("probe", (Runnable) () -> {});
+            return handle;
+        }
+        catch (Throwable t)
+        {
+            logger.trace("Virtual threads are not supported by this JVM", t);
+            return null;
+        }
+    }
+}
@@ -162,7 +162,10 @@ public class Config
     public int concurrent_reads = 32;
     public int concurrent_writes = 32;
     public int concurrent_counter_writes = 32;
+    public volatile boolean counter_write_combining_enabled = false;
     public int concurrent_materialized_view_writes = 32;
+    public boolean partition_affine_stages_enabled = false;
+    public Set<String> virtual_thread_pools = Collections.emptySet();
     public int available_processors = -1;
 
     @Deprecated
@@ -194,6 +197,8 @@ public class Config
 
     public volatile boolean use_offheap_merkle_trees = true;
 
+    public volatile boolean repair_partition_hashes_enabled = false;
+
     public int storage_port = 7000;
     public int ssl_storage_port = 7001;
     public String listen_address;
@@ -258,6 +263,9 @@ public class Config
     @Replaces(oldName = "internode_streaming_tcp_user_timeout_in_ms", converter = Converters.MILLIS_DURATION_INT, deprecated = true)
     public volatile SmallestDurationMilliseconds internode_streaming_tcp_user_timeout = new SmallestDurationMilliseconds("300s"); // 5 minutes
 
+    // How long mutations to the same replica are held to be sent together in a single message. 0 disables batching.
+    public volatile DurationSpec internode_mutation_batch_window = new DurationSpec("0us");
+
     public boolean start_native_transport = true;
     public int native_transport_port = 9042;
     public Integer native_transport_port_ssl = null;
@@ -338,6 +346,7 @@ public class Config
 
     public volatile DataRateSpec entire_sstable_stream_throughput_outbound = new DataRateSpec("24MiB/s");
     public volatile DataRateSpec entire_sstable_inter_dc_stream_throughput_outbound = new DataRateSpec("24MiB/s");
+    public volatile DataRateSpec peer_stream_throughput_outbound = new DataRateSpec("0MiB/s");
 
     public String[] data_file_directories = new String[0];
 
@@ -432,6 +441,7 @@ public class Config
     public SmallestDataStorageMebibytes key_cache_size = null;
     @Replaces(oldName = "key_cache_save_period", converter = Converters.SECONDS_CUSTOM_DURATION, deprecated = true)
     public volatile SmallestDurationSeconds key_cache_save_period = new SmallestDurationSeconds("4h");
+    public String key_cache_class_name = "org.apache.cassandra.cache.CaffeineKeyCacheProvider";
 
     public String row_cache_class_name = "org.apache.cassandra.cache.OHCProvider";
     @Replaces(oldName = "row_cache_size_in_mb", converter = Converters.MEBIBYTES_DATA_STORAGE_LONG, deprecated = true)
@@ -476,6 +486,8 @@ public class Config
     @Deprecated
     public boolean buffer_pool_use_heap_if_exhausted;
 
+    public boolean buffer_pool_numa_aware = false;
+
     public DiskOptimizationStrategy disk_optimization_strategy = DiskOptimizationStrategy.ssd;
 
     public double disk_optimization_estimate_percentile = 0.95;
@@ -509,6 +521,11 @@ public class Config
     @Replaces(oldName = "gc_warn_threshold_in_ms", converter = Converters.MILLIS_DURATION_INT, deprecated = true)
     public SmallestDurationMilliseconds gc_warn_threshold = new SmallestDurationMilliseconds("1s");
 
+    public SmallestDurationMilliseconds stack_sampler_interval = new SmallestDurationMilliseconds("1s");
+
+    public volatile boolean resource_accounting_enabled = false;
+    public volatile int resource_accounting_tracked_statements = 100;
+
     // TTL for different types of trace events.
     @Replaces(oldName = "tracetype_query_ttl", converter = Converters.SECONDS_DURATION, deprecated=true)
     public SmallestDurationSeconds trace_type_query_ttl = new SmallestDurationSeconds("1d");
@@ -619,6 +636,7 @@ public class Config
     public volatile ParameterizedClass back_pressure_strategy;
 
     public volatile int concurrent_validations;
+    public volatile int concurrent_validation_subranges = 1;
     public RepairCommandPoolFullStrategy repair_command_pool_full_strategy = RepairCommandPoolFullStrategy.queue;
     public int repair_command_pool_size = concurrent_validations;
 
@@ -685,6 +703,13 @@ public class Config
      */
     public volatile boolean snapshot_on_repaired_data_mismatch = false;
 
+    /**
+     * If true, the replicas of the single partition aggregation queries compute the aggregates of the groups of rows
+     * they read, and return these rather than the rows, when the aggregates can be merged afterwards. This is only
+     * done once all the nodes of the cluster are known to support it.
+     */
+    public volatile boolean aggregation_pushdown_enabled = false;
+
     /**
      * Number of seconds to set nowInSec into the future when performing validation previews against repaired data
      * this (attempts) to prevent a race where validations on different machines are started on different sides of
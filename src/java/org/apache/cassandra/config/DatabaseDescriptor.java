@@ -57,6 +57,7 @@ import org.apache.cassandra.auth.IAuthorizer;
 import org.apache.cassandra.auth.IInternodeAuthenticator;
 import org.apache.cassandra.auth.INetworkAuthorizer;
 import org.apache.cassandra.auth.IRoleManager;
+import org.apache.cassandra.concurrent.VirtualThreadFactory;
 import org.apache.cassandra.config.Config.CommitLogSync;
 import org.apache.cassandra.config.Config.PaxosOnLinearizabilityViolation;
 import org.apache.cassandra.config.Config.PaxosStatePurging;
@@ -112,6 +113,11 @@ public class DatabaseDescriptor
      */
     private static final int MAX_NUM_TOKENS = 1536;
 
+    /**
+     * The thread pools that may run on virtual threads, see {@code virtual_thread_pools}
+     */
+    private static final Set<String> VIRTUAL_THREAD_POOLS = ImmutableSet.of("ReadStage", "MutationStage", "CounterMutationStage", "ViewMutationStage", "Native-Transport-Requests");
+
     private static Config conf;
 
     /**
@@ -487,6 +493,19 @@ public class DatabaseDescriptor
         if (conf.concurrent_replicates != null)
             logger.warn("concurrent_replicates has been deprecated and should be removed from cassandra.yaml");
 
+        for (String pool : conf.virtual_thread_pools)
+        {
+            if (!VIRTUAL_THREAD_POOLS.contains(pool))
+                throw new ConfigurationException("virtual_thread_pools must be a list of " + VIRTUAL_THREAD_POOLS + ", but contains " + pool, false);
+        }
+        if (!conf.virtual_thread_pools.isEmpty() && !VirtualThreadFactory.isSupported())
+            logger.warn("virtual_thread_pools is set, but virtual threads are not supported by this JVM; {} will run on platform threads", conf.virtual_thread_pools);
+        else if (!conf.virtual_thread_pools.isEmpty())
+            logger.warn("virtual_thread_pools is experimental and is not recommended for production use; {} will run on virtual threads", conf.virtual_thread_pools);
+
+        if (conf.resource_accounting_tracked_statements < 1)
+            throw new ConfigurationException("resource_accounting_tracked_statements must be at least 1, but was " + conf.resource_accounting_tracked_statements, false);
+
         if (conf.networking_cache_size == null)
             conf.networking_cache_size = SmallestDataStorageMebibytes.inMebibytes(Math.min(128, (int) (Runtime.getRuntime().maxMemory() / (16 * 1048576))));
 
@@ -1937,6 +1956,35 @@ public class DatabaseDescriptor
         conf.concurrent_counter_writes = concurrent_counter_writes;
     }
 
+    public static boolean getCounterWriteCombiningEnabled()
+    {
+        return conf.counter_write_combining_enabled;
+    }
+
+    public static void setCounterWriteCombiningEnabled(boolean enabled)
+    {
+        conf.counter_write_combining_enabled = enabled;
+    }
+
+    public static boolean getPartitionAffineStagesEnabled()
+    {
+        return conf.partition_affine_stages_enabled;
+    }
+
+    @VisibleForTesting
+    public static void setPartitionAffineStagesEnabled(boolean enabled)
+    {
+        conf.partition_affine_stages_enabled = enabled;
+    }
+
+    /**
+     * @return whether the thread pool of the given name runs its tasks on virtual threads, see {@code virtual_thread_pools}
+     */
+    public static boolean useVirtualThreads(String pool)
+    {
+        return conf.virtual_thread_pools.contains(pool);
+    }
+
     public static int getConcurrentViewWriters()
     {
         return conf.concurrent_materialized_view_writes;
@@ -2009,6 +2057,16 @@ public class DatabaseDescriptor
         conf.concurrent_validations = value;
     }
 
+    public static int getConcurrentValidationSubranges()
+    {
+        return conf.concurrent_validation_subranges;
+    }
+
+    public static void setConcurrentValidationSubranges(int value)
+    {
+        conf.concurrent_validation_subranges = Math.max(1, value);
+    }
+
     public static int getConcurrentViewBuilders()
     {
         return conf.concurrent_materialized_view_builders;
@@ -2094,6 +2152,21 @@ public class DatabaseDescriptor
         conf.entire_sstable_inter_dc_stream_throughput_outbound = DataRateSpec.inMebibytesPerSecond(value);
     }
 
+    public static double getPeerStreamThroughputOutboundMebibytesPerSec()
+    {
+        return conf.peer_stream_throughput_outbound.toMebibytesPerSecond();
+    }
+
+    public static int getPeerStreamThroughputOutboundMebibytesPerSecAsInt()
+    {
+        return conf.peer_stream_throughput_outbound.toMebibytesPerSecondAsInt();
+    }
+
+    public static void setPeerStreamThroughputOutboundMebibytesPerSec(int value)
+    {
+        conf.peer_stream_throughput_outbound = DataRateSpec.inMebibytesPerSecond(value);
+    }
+
     /**
      * Checks if the local system data must be stored in a specific location which supports redundancy.
      *
@@ -2426,6 +2499,16 @@ public class DatabaseDescriptor
         conf.internode_streaming_tcp_user_timeout = SmallestDurationMilliseconds.inMilliseconds(value);
     }
 
+    public static long getInternodeMutationBatchWindow(TimeUnit unit)
+    {
+        return conf.internode_mutation_batch_window.to(unit);
+    }
+
+    public static void setInternodeMutationBatchWindow(long value, TimeUnit unit)
+    {
+        conf.internode_mutation_batch_window = new DurationSpec(value, unit);
+    }
+
     public static int getInternodeMaxMessageSizeInBytes()
     {
         return conf.internode_max_message_size.toBytesAsInt();
@@ -3094,6 +3177,11 @@ public class DatabaseDescriptor
         return conf.file_cache_round_up;
     }
 
+    public static boolean getBufferPoolNumaAware()
+    {
+        return conf.buffer_pool_numa_aware;
+    }
+
     public static DiskOptimizationStrategy getDiskOptimizationStrategy()
     {
         return diskOptimizationStrategy;
@@ -3169,6 +3257,11 @@ public class DatabaseDescriptor
         conf.key_cache_keys_to_save = keyCacheKeysToSave;
     }
 
+    public static String getKeyCacheClassName()
+    {
+        return conf.key_cache_class_name;
+    }
+
     public static String getRowCacheClassName()
     {
         return conf.row_cache_class_name;
@@ -3334,6 +3427,16 @@ public class DatabaseDescriptor
         conf.repair_session_space = SmallestDataStorageMebibytes.inMebibytes(sizeInMiB);
     }
 
+    public static boolean getRepairPartitionHashesEnabled()
+    {
+        return conf.repair_partition_hashes_enabled;
+    }
+
+    public static void setRepairPartitionHashesEnabled(boolean enabled)
+    {
+        conf.repair_partition_hashes_enabled = enabled;
+    }
+
     public static int getPaxosRepairParallelism()
     {
         return conf.paxos_repair_parallelism;
@@ -3509,6 +3612,36 @@ public class DatabaseDescriptor
         return conf.gc_warn_threshold.toMilliseconds();
     }
 
+    public static long getStackSamplerInterval(TimeUnit unit)
+    {
+        return conf.stack_sampler_interval.to(unit);
+    }
+
+    public static void setStackSamplerInterval(long interval, TimeUnit unit)
+    {
+        conf.stack_sampler_interval = SmallestDurationMilliseconds.inMilliseconds(unit.toMillis(interval));
+    }
+
+    public static boolean isResourceAccountingEnabled()
+    {
+        return conf.resource_accounting_enabled;
+    }
+
+    public static void setResourceAccountingEnabled(boolean enabled)
+    {
+        conf.resource_accounting_enabled = enabled;
+    }
+
+    public static int getResourceAccountingTrackedStatements()
+    {
+        return conf.resource_accounting_tracked_statements;
+    }
+
+    public static void setResourceAccountingTrackedStatements(int trackedStatements)
+    {
+        conf.resource_accounting_tracked_statements = trackedStatements;
+    }
+
     public static boolean isCDCEnabled()
     {
         return conf.cdc_enabled;
@@ -3685,6 +3818,16 @@ public class DatabaseDescriptor
         conf.repaired_data_tracking_for_partition_reads_enabled = enabled;
     }
 
+    public static boolean getAggregationPushdownEnabled()
+    {
+        return conf.aggregation_pushdown_enabled;
+    }
+
+    public static void setAggregationPushdownEnabled(boolean enabled)
+    {
+        conf.aggregation_pushdown_enabled = enabled;
+    }
+
     public static boolean snapshotOnRepairedDataMismatch()
     {
         return conf.snapshot_on_repaired_data_mismatch;
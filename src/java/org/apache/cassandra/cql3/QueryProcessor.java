@@ -23,6 +23,7 @@ import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.stream.Collectors;
 
 import com.github.benmanes.caffeine.cache.Cache;
@@ -633,12 +634,15 @@ public class QueryProcessor implements QueryHandler
     }
 
     private volatile boolean newPreparedStatementBehaviour = false;
+    // not the monitor, as the requests waiting on the gossip stage below may run on virtual threads, see VirtualThreadFactory
+    private final ReentrantLock newPreparedStatementBehaviourLock = new ReentrantLock();
     public boolean useNewPreparedStatementBehaviour()
     {
         if (newPreparedStatementBehaviour || DatabaseDescriptor.getForceNewPreparedStatementBehaviour())
             return true;
 
-        synchronized (this)
+        newPreparedStatementBehaviourLock.lock();
+        try
         {
             CassandraVersion minVersion = Gossiper.instance.getMinVersion(DatabaseDescriptor.getWriteRpcTimeout(TimeUnit.MILLISECONDS), TimeUnit.MILLISECONDS);
             if (minVersion != null &&
@@ -652,6 +656,10 @@ public class QueryProcessor implements QueryHandler
 
             return newPreparedStatementBehaviour;
         }
+        finally
+        {
+            newPreparedStatementBehaviourLock.unlock();
+        }
     }
 
     /**
@@ -27,8 +27,11 @@ import com.google.common.collect.Iterators;
 import com.google.common.collect.Lists;
 
 import org.apache.cassandra.cql3.*;
+import org.apache.cassandra.cql3.functions.AggregateFunction;
 import org.apache.cassandra.cql3.functions.Function;
 import org.apache.cassandra.cql3.selection.Selector.InputRow;
+import org.apache.cassandra.db.aggregation.AggregationSpecification;
+import org.apache.cassandra.db.aggregation.PartialAggregation;
 import org.apache.cassandra.db.filter.ColumnFilter;
 import org.apache.cassandra.db.marshal.UTF8Type;
 import org.apache.cassandra.exceptions.InvalidRequestException;
@@ -267,6 +270,22 @@ public abstract class Selection
 
     public abstract Selectors newSelectors(QueryOptions options);
 
+    /**
+     * Returns the aggregates of this selection in a form the replicas can compute, if the selection is made of such
+     * aggregates (see {@link PartialAggregation#isDecomposable}) and of columns only.
+     *
+     * @param options the query options
+     * @param aggregationSpec the specification of the groups of rows to aggregate
+     * @param includeStaticOnlyPartitions whether the partitions without rows count as one row of their static content
+     * @return the aggregates of this selection for the replicas to compute, or {@code null} if they can't.
+     */
+    public PartialAggregation newPartialAggregation(QueryOptions options,
+                                                    AggregationSpecification aggregationSpec,
+                                                    boolean includeStaticOnlyPartitions)
+    {
+        return null;
+    }
+
     /**
      * @return the list of CQL3 columns value this SelectionClause needs.
      */
@@ -566,6 +585,50 @@ public abstract class Selection
             return factories.doesAggregation();
         }
 
+        @Override
+        public PartialAggregation newPartialAggregation(QueryOptions options,
+                                                        AggregationSpecification aggregationSpec,
+                                                        boolean includeStaticOnlyPartitions)
+        {
+            if (isJson || collectTimestamps || collectTTLs || !factories.doesAggregation())
+                return null;
+
+            List<Selector> selectors = factories.newInstances(options);
+            List<AggregateFunction> functions = new ArrayList<>(selectors.size());
+            List<ColumnMetadata> arguments = new ArrayList<>(selectors.size());
+            for (Selector selector : selectors)
+            {
+                // the columns take the value of the first row of each group
+                if (selector instanceof SimpleSelector && !((SimpleSelector) selector).column.isComplex())
+                {
+                    functions.add(null);
+                    arguments.add(((SimpleSelector) selector).column);
+                    continue;
+                }
+
+                if (!(selector instanceof AggregateFunctionSelector))
+                    return null;
+
+                AggregateFunctionSelector aggregate = (AggregateFunctionSelector) selector;
+                if (!PartialAggregation.isDecomposable(aggregate.fun) || aggregate.argSelectors.size() > 1)
+                    return null;
+
+                if (aggregate.argSelectors.isEmpty())
+                {
+                    arguments.add(null);
+                }
+                else
+                {
+                    Selector argument = aggregate.argSelectors.get(0);
+                    if (!(argument instanceof SimpleSelector) || ((SimpleSelector) argument).column.isComplex())
+                        return null;
+                    arguments.add(((SimpleSelector) argument).column);
+                }
+                functions.add(aggregate.fun);
+            }
+            return new PartialAggregation(aggregationSpec, functions, arguments, includeStaticOnlyPartitions);
+        }
+
         public Selectors newSelectors(final QueryOptions options) throws InvalidRequestException
         {
             return new Selectors()
@@ -32,7 +32,9 @@ import org.slf4j.LoggerFactory;
 import org.apache.cassandra.audit.AuditLogContext;
 import org.apache.cassandra.audit.AuditLogEntryType;
 import org.apache.cassandra.auth.Permission;
+import org.apache.cassandra.config.DatabaseDescriptor;
 import org.apache.cassandra.db.guardrails.Guardrails;
+import org.apache.cassandra.gms.Gossiper;
 import org.apache.cassandra.schema.ColumnMetadata;
 import org.apache.cassandra.schema.Schema;
 import org.apache.cassandra.schema.SchemaConstants;
@@ -51,6 +53,7 @@ import org.apache.cassandra.cql3.selection.Selector;
 import org.apache.cassandra.db.*;
 import org.apache.cassandra.db.aggregation.AggregationSpecification;
 import org.apache.cassandra.db.aggregation.GroupMaker;
+import org.apache.cassandra.db.aggregation.PartialAggregation;
 import org.apache.cassandra.db.filter.*;
 import org.apache.cassandra.db.marshal.CollectionType;
 import org.apache.cassandra.db.marshal.CompositeType;
@@ -267,6 +270,18 @@ public class SelectStatement implements CQLStatement.SingleKeyspaceCqlStatement
         if (aggregationSpec == null && (pageSize <= 0 || (query.limits().count() <= pageSize)))
             return execute(query, options, state.getClientState(), selectors, nowInSec, userLimit, null, queryStartNanoTime);
 
+        PartialAggregation partialAggregation = getPartialAggregation(query, options, aggregationSpec);
+        if (partialAggregation != null)
+            return execute(state,
+                           (SinglePartitionReadCommand.Group) query,
+                           partialAggregation,
+                           options,
+                           pageSize,
+                           userLimit,
+                           userPerPartitionLimit,
+                           aggregationSpec,
+                           queryStartNanoTime);
+
         QueryPager pager = getPager(query, options);
 
         return execute(state,
@@ -450,6 +465,90 @@ public class SelectStatement implements CQLStatement.SingleKeyspaceCqlStatement
         return msg;
     }
 
+    /**
+     * Returns the aggregates of the query for the replicas to compute, if the query aggregates the rows of some
+     * partitions in a way they can, and all the nodes can.
+     */
+    private PartialAggregation getPartialAggregation(ReadQuery query,
+                                                     QueryOptions options,
+                                                     AggregationSpecification aggregationSpec)
+    {
+        if (!DatabaseDescriptor.getAggregationPushdownEnabled()
+            || aggregationSpec == null
+            || !(query instanceof SinglePartitionReadCommand.Group)
+            || options.getConsistency().isSerialConsistency()
+            || parameters.isDistinct
+            || parameters.isJson
+            || needsPostQueryOrdering())
+            return null;
+
+        // The nodes of the previous releases would not read the partial aggregation of the commands, and misread them
+        if (Gossiper.instance.hasNodesWithReleaseVersionLowerThan(SystemKeyspace.CURRENT_VERSION.familyLowerBound.get()))
+            return null;
+
+        return selection.newPartialAggregation(options,
+                                               aggregationSpec,
+                                               restrictions.returnStaticContentOnPartitionWithNoRows());
+    }
+
+    /**
+     * Executes an aggregation query by having the replicas aggregate the rows of each page of its partitions, and
+     * merging the aggregates they return, rather than the rows.
+     */
+    private ResultMessage.Rows execute(QueryState state,
+                                       SinglePartitionReadCommand.Group group,
+                                       PartialAggregation partialAggregation,
+                                       QueryOptions options,
+                                       int pageSize,
+                                       int userLimit,
+                                       int userPerPartitionLimit,
+                                       AggregationSpecification aggregationSpec,
+                                       long queryStartNanoTime)
+    {
+        Guardrails.pageSize.guard(pageSize, table(), false, state.getClientState());
+
+        if (restrictions.keyIsInRelation())
+            warn("Aggregation query used on multiple partition keys (IN restriction)");
+
+        // We page internally even if the user has turned paging off, as for the rows
+        if (pageSize <= 0)
+            pageSize = DEFAULT_PAGE_SIZE;
+
+        // The limits of a query with GROUP BY count groups, that the replicas can't tell at the end of a page, so
+        // they read pages of rows, and the merger applies the limits to the groups
+        boolean isGroupBy = aggregationSpec != AggregationSpecification.AGGREGATE_EVERYTHING;
+        PartialAggregation.Merger merger = partialAggregation.newMerger(isGroupBy ? userLimit : DataLimits.NO_LIMIT,
+                                                                        isGroupBy ? userPerPartitionLimit : DataLimits.NO_LIMIT,
+                                                                        options.getProtocolVersion());
+        for (SinglePartitionReadCommand command : group.queries)
+        {
+            DataLimits pageLimits = isGroupBy ? DataLimits.cqlLimits(pageSize) : command.limits().forPaging(pageSize);
+            SinglePartitionReadCommand pageCommand = command.withUpdatedLimit(pageLimits);
+            PartialAggregation pageAggregation = partialAggregation;
+            while (true)
+            {
+                pageCommand.setPartialAggregation(pageAggregation);
+                PartialAggregation.Result result = StorageProxy.readPartialAggregation(pageCommand,
+                                                                                       options.getConsistency(),
+                                                                                       queryStartNanoTime);
+                if (!merger.add(command.partitionKey(), result)
+                    || result.rows < pageLimits.count()
+                    || result.lastClustering == null)
+                    break;
+
+                pageCommand = command.forPaging(result.lastClustering, pageLimits);
+                pageAggregation = partialAggregation.forContinuation();
+            }
+
+            if (merger.isDone())
+                break;
+        }
+
+        ResultSet rset = new ResultSet(getResultMetadata().copy(), merger.rows());
+        rset.trim(userLimit);
+        return new ResultMessage.Rows(rset);
+    }
+
     private void warn(String msg)
     {
         logger.warn(msg);
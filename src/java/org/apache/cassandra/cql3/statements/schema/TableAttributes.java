@@ -36,6 +36,7 @@ import org.apache.cassandra.schema.TableParams;
 import org.apache.cassandra.schema.TableParams.Option;
 import org.apache.cassandra.service.reads.SpeculativeRetryPolicy;
 import org.apache.cassandra.service.reads.repair.ReadRepairStrategy;
+import org.apache.cassandra.utils.BloomFilterType;
 
 import static java.lang.String.format;
 
@@ -101,6 +102,9 @@ public final class TableAttributes extends PropertyDefinitions
         if (hasOption(Option.BLOOM_FILTER_FP_CHANCE))
             builder.bloomFilterFpChance(getDouble(Option.BLOOM_FILTER_FP_CHANCE));
 
+        if (hasOption(Option.BLOOM_FILTER_TYPE))
+            builder.bloomFilterType(BloomFilterType.fromString(getString(Option.BLOOM_FILTER_TYPE)));
+
         if (hasOption(Option.CACHING))
             builder.caching(CachingParams.fromMap(getMap(Option.CACHING)));
 
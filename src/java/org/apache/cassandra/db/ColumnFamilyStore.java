@@ -44,6 +44,7 @@ import java.util.concurrent.ExecutorService;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.function.Consumer;
 import java.util.function.Supplier;
 import java.util.regex.Pattern;
@@ -127,6 +128,7 @@ import org.apache.cassandra.io.sstable.format.SSTableFormat;
 import org.apache.cassandra.io.sstable.format.SSTableReader;
 import org.apache.cassandra.io.sstable.format.Version;
 import org.apache.cassandra.io.sstable.metadata.MetadataCollector;
+import org.apache.cassandra.io.sstable.metadata.PartitionStatsSketch;
 import org.apache.cassandra.io.util.File;
 import org.apache.cassandra.io.util.FileOutputStreamPlus;
 import org.apache.cassandra.io.util.FileUtils;
@@ -324,11 +326,15 @@ public class ColumnFamilyStore implements ColumnFamilyStoreMBean, Memtable.Owner
     @VisibleForTesting
     final DiskBoundaryManager diskBoundaryManager = new DiskBoundaryManager();
     private volatile ShardBoundaries cachedShardBoundaries = null;
+    private volatile ShardBoundaries cachedAffinityBoundaries = null;
+    private volatile TablePartitionStats cachedTablePartitionStats = null;
 
     private volatile boolean neverPurgeTombstones = false;
 
     private class PaxosRepairHistoryLoader
     {
+        // loaded by the paxos verb handlers, which may run on virtual threads, so not under the monitor
+        private final ReentrantLock lock = new ReentrantLock();
         private TablePaxosRepairHistory history;
 
         TablePaxosRepairHistory get()
@@ -336,7 +342,8 @@ public class ColumnFamilyStore implements ColumnFamilyStoreMBean, Memtable.Owner
             if (history != null)
                 return history;
 
-            synchronized (this)
+            lock.lock();
+            try
             {
                 if (history != null)
                     return history;
@@ -344,6 +351,10 @@ public class ColumnFamilyStore implements ColumnFamilyStoreMBean, Memtable.Owner
                 history = TablePaxosRepairHistory.load(keyspace.getName(), name);
                 return history;
             }
+            finally
+            {
+                lock.unlock();
+            }
         }
 
     }
@@ -1445,11 +1456,38 @@ public class ColumnFamilyStore implements ColumnFamilyStoreMBean, Memtable.Owner
 
     @Override
     public ShardBoundaries localRangeSplits(int shardCount)
+    {
+        ShardBoundaries shardBoundaries = localRangeSplits(cachedShardBoundaries, shardCount);
+        if (shardBoundaries != cachedShardBoundaries && shardBoundaries != ShardBoundaries.NONE)
+        {
+            cachedShardBoundaries = shardBoundaries;
+            logger.debug("Memtable shard boundaries for {}.{}: {}", keyspace.getName(), getTableName(), shardBoundaries);
+        }
+        return shardBoundaries;
+    }
+
+    /**
+     * Same as {@link #localRangeSplits(int)}, for the threads of the stages with partition affinity, see
+     * {@link PartitionAffinity}. The splits are cached apart from the memtable ones, so that a memtable with a
+     * different number of shards does not make both compute them again on each call.
+     */
+    public ShardBoundaries partitionAffinitySplits(int shardCount)
+    {
+        ShardBoundaries shardBoundaries = localRangeSplits(cachedAffinityBoundaries, shardCount);
+        if (shardBoundaries != cachedAffinityBoundaries && shardBoundaries != ShardBoundaries.NONE)
+            cachedAffinityBoundaries = shardBoundaries;
+        return shardBoundaries;
+    }
+
+    /**
+     * @return {@code cached} if it still splits the local ranges in {@code shardCount}, or else newly computed splits
+     */
+    private ShardBoundaries localRangeSplits(ShardBoundaries cached, int shardCount)
     {
         if (shardCount == 1 || !getPartitioner().splitter().isPresent() || SchemaConstants.isLocalSystemKeyspace(keyspace.getName()))
             return ShardBoundaries.NONE;
 
-        ShardBoundaries shardBoundaries = cachedShardBoundaries;
+        ShardBoundaries shardBoundaries = cached;
         if (shardBoundaries == null ||
             shardBoundaries.shardCount() != shardCount ||
             shardBoundaries.ringVersion != StorageService.instance.getTokenMetadata().getRingVersion())
@@ -1475,8 +1513,6 @@ public class ColumnFamilyStore implements ColumnFamilyStoreMBean, Memtable.Owner
             List<Token> boundaries = getPartitioner().splitter().get().splitOwnedRanges(shardCount, weightedRanges, false);
             shardBoundaries = new ShardBoundaries(boundaries.subList(0, boundaries.size() - 1),
                                                   versionedLocalRanges.ringVersion);
-            cachedShardBoundaries = shardBoundaries;
-            logger.debug("Memtable shard boundaries for {}.{}: {}", keyspace.getName(), getTableName(), boundaries);
         }
         return shardBoundaries;
     }
@@ -2949,6 +2985,61 @@ public class ColumnFamilyStore implements ColumnFamilyStoreMBean, Memtable.Owner
         return totalPartitions > 0 ? (int) (totalRows / totalPartitions) : 0;
     }
 
+    /**
+     * Estimates the partitions, rows and bytes held by the canonical sstables in the provided token ranges, based on
+     * their partition statistics. SSTables written without partition statistics are not accounted for.
+     *
+     * @return the estimate, or {@code null} if none of the sstables has partition statistics
+     */
+    public PartitionStatsSketch.Estimate estimatePartitionStats(Collection<Range<Token>> ranges)
+    {
+        PartitionStatsSketch.Estimate estimate = null;
+        for (SSTableReader sstable : getSSTables(SSTableSet.CANONICAL))
+        {
+            PartitionStatsSketch stats = sstable.getPartitionStats();
+            if (stats == null)
+                continue;
+
+            if (estimate == null)
+                estimate = new PartitionStatsSketch.Estimate();
+            estimate.add(stats.estimate(ranges));
+        }
+        return estimate;
+    }
+
+    /**
+     * Estimates the partitions, rows and bytes held by the whole table, like {@link #estimatePartitionStats} over the
+     * full ring. The estimate is only recomputed when the live sstables have changed since it was last computed, so
+     * this is cheap enough for the read path. The returned estimate must not be modified.
+     *
+     * @return the estimate, or {@code null} if none of the sstables has partition statistics
+     */
+    public PartitionStatsSketch.Estimate estimateTablePartitionStats()
+    {
+        Set<SSTableReader> sstables = data.getView().liveSSTables();
+        TablePartitionStats stats = cachedTablePartitionStats;
+        if (stats == null || stats.sstables != sstables)
+        {
+            Token minimum = getPartitioner().getMinimumToken();
+            stats = new TablePartitionStats(sstables, estimatePartitionStats(Collections.singleton(new Range<>(minimum, minimum))));
+            cachedTablePartitionStats = stats;
+        }
+        return stats.estimate;
+    }
+
+    private static class TablePartitionStats
+    {
+        // the live sstables of the view the estimate was computed from, compared by identity as views are immutable
+        private final Set<SSTableReader> sstables;
+        private final PartitionStatsSketch.Estimate estimate;
+
+        private TablePartitionStats(Set<SSTableReader> sstables, PartitionStatsSketch.Estimate estimate)
+        {
+            this.sstables = sstables;
+            this.estimate = estimate;
+        }
+    }
+
     public long estimateKeys()
     {
         long n = 0;
@@ -40,6 +40,7 @@ import org.apache.cassandra.exceptions.WriteTimeoutException;
 import org.apache.cassandra.io.IVersionedSerializer;
 import org.apache.cassandra.io.util.DataInputPlus;
 import org.apache.cassandra.io.util.DataOutputPlus;
+import org.apache.cassandra.cache.CounterCacheKey;
 import org.apache.cassandra.locator.AbstractReplicationStrategy;
 import org.apache.cassandra.schema.TableId;
 import org.apache.cassandra.service.CacheService;
@@ -129,20 +130,45 @@ public class CounterMutation implements IMutation
      */
     public Mutation applyCounterMutation() throws WriteTimeoutException
     {
-        Mutation.PartitionUpdateCollector resultBuilder = new Mutation.PartitionUpdateCollector(getKeyspaceName(), key());
-        Keyspace keyspace = Keyspace.open(getKeyspaceName());
+        if (DatabaseDescriptor.getCounterWriteCombiningEnabled())
+            return CounterMutationCombiner.instance.apply(this);
+
+        return applyCounterMutations(Collections.singletonList(this)).get(0);
+    }
+
+    /**
+     * Applies counter mutations to the same partition under a single acquisition of their counter locks. The current
+     * value of each counter is read once, the mutations are applied on top of it in order, and their merged result is
+     * written once.
+     *
+     * @return the resulting Mutation of each of the provided mutations, in order (for replication to other nodes)
+     */
+    static List<Mutation> applyCounterMutations(List<CounterMutation> mutations) throws WriteTimeoutException
+    {
+        CounterMutation first = mutations.get(0);
+        Keyspace keyspace = Keyspace.open(first.getKeyspaceName());
 
         List<Lock> locks = new ArrayList<>();
         Tracing.trace("Acquiring counter locks");
         try
         {
-            grabCounterLocks(keyspace, locks);
-            for (PartitionUpdate upd : getPartitionUpdates())
-                resultBuilder.add(processModifications(upd));
+            first.grabCounterLocks(keyspace, Iterables.concat(Iterables.transform(mutations, CounterMutation::getCounterLockKeys)), locks);
 
-            Mutation result = resultBuilder.build();
+            // the values written by the previous mutations of the group, which are more recent than what the cache or
+            // the CF may hold if the counter cache is disabled or has evicted them
+            Map<CounterCacheKey, ClockAndCount> updated = mutations.size() > 1 ? new HashMap<>() : null;
+            List<Mutation> results = new ArrayList<>(mutations.size());
+            for (CounterMutation cm : mutations)
+            {
+                Mutation.PartitionUpdateCollector resultBuilder = new Mutation.PartitionUpdateCollector(cm.getKeyspaceName(), cm.key());
+                for (PartitionUpdate upd : cm.getPartitionUpdates())
+                    resultBuilder.add(cm.processModifications(upd, updated));
+                results.add(resultBuilder.build());
+            }
+
+            Mutation result = results.size() == 1 ? results.get(0) : Mutation.merge(results);
             result.apply();
-            return result;
+            return results;
         }
         finally
         {
@@ -156,27 +182,32 @@ public class CounterMutation implements IMutation
         applyCounterMutation();
     }
 
-    private void grabCounterLocks(Keyspace keyspace, List<Lock> locks) throws WriteTimeoutException
+    private void grabCounterLocks(Keyspace keyspace, Iterable<Object> lockKeys, List<Lock> locks) throws WriteTimeoutException
     {
         long startTime = nanoTime();
 
-        AbstractReplicationStrategy replicationStrategy = keyspace.getReplicationStrategy();
-        for (Lock lock : LOCKS.bulkGet(getCounterLockKeys()))
+        for (Lock lock : LOCKS.bulkGet(lockKeys))
         {
             long timeout = getTimeout(NANOSECONDS) - (nanoTime() - startTime);
             try
             {
                 if (!lock.tryLock(timeout, NANOSECONDS))
-                    throw new WriteTimeoutException(WriteType.COUNTER, consistency(), 0, consistency().blockFor(replicationStrategy));
+                    throw timeoutException(keyspace);
                 locks.add(lock);
             }
             catch (InterruptedException e)
             {
-                throw new WriteTimeoutException(WriteType.COUNTER, consistency(), 0, consistency().blockFor(replicationStrategy));
+                throw timeoutException(keyspace);
             }
         }
     }
 
+    WriteTimeoutException timeoutException(Keyspace keyspace)
+    {
+        AbstractReplicationStrategy replicationStrategy = keyspace.getReplicationStrategy();
+        return new WriteTimeoutException(WriteType.COUNTER, consistency(), 0, consistency().blockFor(replicationStrategy));
+    }
+
     /**
      * Returns a wrapper for the Striped#bulkGet() call (via Keyspace#counterLocksFor())
      * Striped#bulkGet() depends on Object#hashCode(), so here we make sure that the cf id and the partition key
@@ -205,31 +236,38 @@ public class CounterMutation implements IMutation
         }));
     }
 
-    private PartitionUpdate processModifications(PartitionUpdate changes)
+    private PartitionUpdate processModifications(PartitionUpdate changes, Map<CounterCacheKey, ClockAndCount> updated)
     {
         ColumnFamilyStore cfs = Keyspace.open(getKeyspaceName()).getColumnFamilyStore(changes.metadata().id);
 
         List<PartitionUpdate.CounterMark> marks = changes.collectCounterMarks();
 
+        if (updated != null && !updated.isEmpty())
+        {
+            updateWithCurrentValuesFromPreviousUpdates(marks, cfs, updated);
+            if (marks.isEmpty())
+                return changes;
+        }
+
         if (CacheService.instance.counterCache.getCapacity() != 0)
         {
             Tracing.trace("Fetching {} counter values from cache", marks.size());
-            updateWithCurrentValuesFromCache(marks, cfs);
+            updateWithCurrentValuesFromCache(marks, cfs, updated);
             if (marks.isEmpty())
                 return changes;
         }
 
         Tracing.trace("Reading {} counter values from the CF", marks.size());
-        updateWithCurrentValuesFromCFS(marks, cfs);
+        updateWithCurrentValuesFromCFS(marks, cfs, updated);
 
         // What's remain is new counters
         for (PartitionUpdate.CounterMark mark : marks)
-            updateWithCurrentValue(mark, ClockAndCount.BLANK, cfs);
+            updateWithCurrentValue(mark, ClockAndCount.BLANK, cfs, updated);
 
         return changes;
     }
 
-    private void updateWithCurrentValue(PartitionUpdate.CounterMark mark, ClockAndCount currentValue, ColumnFamilyStore cfs)
+    private void updateWithCurrentValue(PartitionUpdate.CounterMark mark, ClockAndCount currentValue, ColumnFamilyStore cfs, Map<CounterCacheKey, ClockAndCount> updated)
     {
         long clock = Math.max(FBUtilities.timestampMicros(), currentValue.clock + 1L);
         long count = currentValue.count + CounterContext.instance().total(mark.value(), ByteBufferAccessor.instance);
@@ -237,11 +275,35 @@ public class CounterMutation implements IMutation
         mark.setValue(CounterContext.instance().createGlobal(CounterId.getLocalId(), clock, count));
 
         // Cache the newly updated value
-        cfs.putCachedCounter(key().getKey(), mark.clustering(), mark.column(), mark.path(), ClockAndCount.create(clock, count));
+        ClockAndCount newValue = ClockAndCount.create(clock, count);
+        cfs.putCachedCounter(key().getKey(), mark.clustering(), mark.column(), mark.path(), newValue);
+        if (updated != null)
+            updated.put(counterCacheKey(mark, cfs), newValue);
+    }
+
+    private CounterCacheKey counterCacheKey(PartitionUpdate.CounterMark mark, ColumnFamilyStore cfs)
+    {
+        return CounterCacheKey.create(cfs.metadata(), key().getKey(), mark.clustering(), mark.column(), mark.path());
+    }
+
+    // Updates the marks written by a previous mutation of the same group with the value that mutation wrote.
+    private void updateWithCurrentValuesFromPreviousUpdates(List<PartitionUpdate.CounterMark> marks, ColumnFamilyStore cfs, Map<CounterCacheKey, ClockAndCount> updated)
+    {
+        Iterator<PartitionUpdate.CounterMark> iter = marks.iterator();
+        while (iter.hasNext())
+        {
+            PartitionUpdate.CounterMark mark = iter.next();
+            ClockAndCount previous = updated.get(counterCacheKey(mark, cfs));
+            if (previous != null)
+            {
+                updateWithCurrentValue(mark, previous, cfs, updated);
+                iter.remove();
+            }
+        }
     }
 
     // Returns the count of cache misses.
-    private void updateWithCurrentValuesFromCache(List<PartitionUpdate.CounterMark> marks, ColumnFamilyStore cfs)
+    private void updateWithCurrentValuesFromCache(List<PartitionUpdate.CounterMark> marks, ColumnFamilyStore cfs, Map<CounterCacheKey, ClockAndCount> updated)
     {
         Iterator<PartitionUpdate.CounterMark> iter = marks.iterator();
         while (iter.hasNext())
@@ -250,14 +312,14 @@ public class CounterMutation implements IMutation
             ClockAndCount cached = cfs.getCachedCounter(key().getKey(), mark.clustering(), mark.column(), mark.path());
             if (cached != null)
             {
-                updateWithCurrentValue(mark, cached, cfs);
+                updateWithCurrentValue(mark, cached, cfs, updated);
                 iter.remove();
             }
         }
     }
 
     // Reads the missing current values from the CFS.
-    private void updateWithCurrentValuesFromCFS(List<PartitionUpdate.CounterMark> marks, ColumnFamilyStore cfs)
+    private void updateWithCurrentValuesFromCFS(List<PartitionUpdate.CounterMark> marks, ColumnFamilyStore cfs, Map<CounterCacheKey, ClockAndCount> updated)
     {
         ColumnFilter.Builder builder = ColumnFilter.selectionBuilder();
         BTreeSet.Builder<Clustering<?>> names = BTreeSet.builder(cfs.metadata().comparator);
@@ -278,14 +340,14 @@ public class CounterMutation implements IMutation
         try (ReadExecutionController controller = cmd.executionController();
              RowIterator partition = UnfilteredRowIterators.filter(cmd.queryMemtableAndDisk(cfs, controller), nowInSec))
         {
-            updateForRow(markIter, partition.staticRow(), cfs);
+            updateForRow(markIter, partition.staticRow(), cfs, updated);
 
             while (partition.hasNext())
             {
                 if (!markIter.hasNext())
                     return;
 
-                updateForRow(markIter, partition.next(), cfs);
+                updateForRow(markIter, partition.next(), cfs, updated);
             }
         }
     }
@@ -300,7 +362,7 @@ public class CounterMutation implements IMutation
         return cfs.getComparator().compare(c1, c2);
     }
 
-    private void updateForRow(PeekingIterator<PartitionUpdate.CounterMark> markIter, Row row, ColumnFamilyStore cfs)
+    private void updateForRow(PeekingIterator<PartitionUpdate.CounterMark> markIter, Row row, ColumnFamilyStore cfs, Map<CounterCacheKey, ClockAndCount> updated)
     {
         int cmp = 0;
         // If the mark is before the row, we have no value for this mark, just consume it
@@ -316,7 +378,7 @@ public class CounterMutation implements IMutation
             Cell<?> cell = mark.path() == null ? row.getCell(mark.column()) : row.getCell(mark.column(), mark.path());
             if (cell != null)
             {
-                updateWithCurrentValue(mark, CounterContext.instance().getLocalClockAndCount(cell.buffer()), cfs);
+                updateWithCurrentValue(mark, CounterContext.instance().getLocalClockAndCount(cell.buffer()), cfs, updated);
                 markIter.remove();
             }
             if (!markIter.hasNext())
@@ -0,0 +1,194 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.cassandra.db;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import com.google.common.annotations.VisibleForTesting;
+
+import org.apache.cassandra.config.DatabaseDescriptor;
+import org.apache.cassandra.exceptions.WriteTimeoutException;
+import org.apache.cassandra.utils.Pair;
+import org.apache.cassandra.utils.concurrent.AsyncPromise;
+import org.apache.cassandra.utils.concurrent.WaitQueue;
+
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+import static org.apache.cassandra.utils.Clock.Global.nanoTime;
+import static org.apache.cassandra.utils.concurrent.WaitQueue.newWaitQueue;
+
+/**
+ * Combines concurrent counter mutations to the same partition on the leader, so that a burst of increments to a hot
+ * counter is applied by a single read-modify-write instead of each increment waiting on the counter locks in turn.
+ *
+ * Mutations are queued on a stripe picked from their partition key. The first thread to find its stripe idle becomes
+ * the combiner: it drains the queue, groups the drained mutations by partition and applies each group with
+ * {@link CounterMutation#applyCounterMutations}, while the other submitters wait for their own result. A combiner
+ * steps down as soon as its own mutation is applied, and wakes up the waiters so that one of them takes over.
+ *
+ * A submitter that times out before its mutation was picked up cancels it, so that a mutation is never applied after
+ * a timeout has been reported for it.
+ */
+class CounterMutationCombiner
+{
+    static final CounterMutationCombiner instance = new CounterMutationCombiner(DatabaseDescriptor.getConcurrentCounterWriters() * 4);
+
+    // bounds the time a combining thread spends on behalf of others before it can return its own result
+    private static final int MAX_DRAINED = 128;
+
+    private final Stripe[] stripes;
+
+    @VisibleForTesting
+    CounterMutationCombiner(int stripes)
+    {
+        this.stripes = new Stripe[Math.max(1, stripes)];
+        for (int i = 0; i < this.stripes.length; i++)
+            this.stripes[i] = new Stripe();
+    }
+
+    Mutation apply(CounterMutation mutation) throws WriteTimeoutException
+    {
+        long deadline = nanoTime() + mutation.getTimeout(NANOSECONDS);
+        Stripe stripe = stripes[stripeIndex(mutation)];
+        Pending pending = new Pending(mutation);
+        stripe.queue.add(pending);
+
+        while (!pending.isDone())
+        {
+            if (stripe.tryCombine(pending))
+                continue;
+
+            WaitQueue.Signal signal = stripe.waiting.register();
+            // re-check once registered, so we cannot miss the signal of a combiner completing us or stepping down
+            if (pending.isDone() || !stripe.combining.get())
+            {
+                signal.cancel();
+                continue;
+            }
+
+            if (!signal.awaitUntilUninterruptibly(deadline))
+            {
+                signal.cancel();
+                if (pending.cancel(false))
+                    throw mutation.timeoutException(Keyspace.open(mutation.getKeyspaceName()));
+
+                // our mutation is being applied by the combiner, which can only take as long as its lock timeout
+                pending.awaitUninterruptibly();
+            }
+        }
+        return pending.syncUninterruptibly().getNow();
+    }
+
+    private int stripeIndex(CounterMutation mutation)
+    {
+        int hash = 31 * mutation.getKeyspaceName().hashCode() + mutation.key().hashCode();
+        return Math.floorMod(hash, stripes.length);
+    }
+
+    private static class Pending extends AsyncPromise<Mutation>
+    {
+        private final CounterMutation mutation;
+
+        private Pending(CounterMutation mutation)
+        {
+            this.mutation = mutation;
+        }
+    }
+
+    private static class Stripe
+    {
+        private final Queue<Pending> queue = new ConcurrentLinkedQueue<>();
+        private final AtomicBoolean combining = new AtomicBoolean();
+        private final WaitQueue waiting = newWaitQueue();
+
+        /**
+         * Combines the pending mutations of this stripe until {@code own} has been applied, unless another thread
+         * is already combining them.
+         *
+         * @return whether this thread became the combiner
+         */
+        private boolean tryCombine(Pending own)
+        {
+            if (!combining.compareAndSet(false, true))
+                return false;
+
+            try
+            {
+                while (!own.isDone() && !queue.isEmpty())
+                {
+                    combine(drain());
+                    waiting.signalAll();
+                }
+            }
+            finally
+            {
+                combining.set(false);
+                // wake up the waiters, one of which takes over if mutations are still queued
+                waiting.signalAll();
+            }
+            return true;
+        }
+
+        private List<Pending> drain()
+        {
+            List<Pending> drained = new ArrayList<>();
+            Pending pending;
+            while (drained.size() < MAX_DRAINED && (pending = queue.poll()) != null)
+            {
+                // skip the mutations whose submitter has already timed out
+                if (pending.setUncancellable())
+                    drained.add(pending);
+            }
+            return drained;
+        }
+
+        private static void combine(List<Pending> drained)
+        {
+            Map<Pair<String, DecoratedKey>, List<Pending>> byPartition = new LinkedHashMap<>();
+            for (Pending pending : drained)
+            {
+                Pair<String, DecoratedKey> partition = Pair.create(pending.mutation.getKeyspaceName(), pending.mutation.key());
+                byPartition.computeIfAbsent(partition, k -> new ArrayList<>()).add(pending);
+            }
+
+            for (List<Pending> group : byPartition.values())
+            {
+                List<CounterMutation> mutations = new ArrayList<>(group.size());
+                for (Pending pending : group)
+                    mutations.add(pending.mutation);
+
+                try
+                {
+                    List<Mutation> results = CounterMutation.applyCounterMutations(mutations);
+                    for (int i = 0; i < group.size(); i++)
+                        group.get(i).trySuccess(results.get(i));
+                }
+                catch (Throwable t)
+                {
+                    for (Pending pending : group)
+                        pending.tryFailure(t);
+                }
+            }
+        }
+    }
+}
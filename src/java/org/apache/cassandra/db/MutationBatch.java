@@ -0,0 +1,168 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.cassandra.db;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.cassandra.io.IVersionedSerializer;
+import org.apache.cassandra.io.util.DataInputBuffer;
+import org.apache.cassandra.io.util.DataInputPlus;
+import org.apache.cassandra.io.util.DataOutputPlus;
+import org.apache.cassandra.net.Message;
+import org.apache.cassandra.net.MessagingService;
+import org.apache.cassandra.utils.ByteBufferUtil;
+
+import static org.apache.cassandra.db.TypeSizes.sizeofUnsignedVInt;
+
+/**
+ * Mutations sent to the same replica within a short window, packed into a single internode message to save the
+ * per-message overhead. Unlike a {@link org.apache.cassandra.batchlog.Batch}, the mutations are independent: each is
+ * applied and acknowledged on its own, under the id of the message it would have been sent with otherwise.
+ *
+ * The creation and expiration times of the mutations are relative to the creation time of the batch message, so that
+ * they do not depend on the clock of the sender.
+ */
+public class MutationBatch
+{
+    public static final Serializer serializer = new Serializer();
+
+    public final List<Entry> entries;
+
+    private MutationBatch(List<Entry> entries)
+    {
+        this.entries = entries;
+    }
+
+    /**
+     * @return the batch of the provided {@link org.apache.cassandra.net.Verb#MUTATION_REQ} messages, whose
+     * times are relative to {@code createdAtNanos}
+     */
+    public static MutationBatch of(List<Message<Mutation>> messages, long createdAtNanos)
+    {
+        List<Entry> entries = new ArrayList<>(messages.size());
+        for (Message<Mutation> message : messages)
+        {
+            entries.add(new Entry(message.id(),
+                                  message.header.flags(),
+                                  message.createdAtNanos() - createdAtNanos,
+                                  message.expiresAtNanos() - message.createdAtNanos(),
+                                  message.payload,
+                                  null));
+        }
+        return new MutationBatch(entries);
+    }
+
+    public static class Entry
+    {
+        public final long id;
+        public final int flags;
+        public final long createdAfterNanos;
+        public final long expiresAfterNanos;
+
+        // the mutation is either decoded, or still encoded in the current messaging version, see Serializer
+        private final Mutation mutation;
+        private final ByteBuffer encodedMutation;
+
+        private Entry(long id, int flags, long createdAfterNanos, long expiresAfterNanos, Mutation mutation, ByteBuffer encodedMutation)
+        {
+            this.id = id;
+            this.flags = flags;
+            this.createdAfterNanos = createdAfterNanos;
+            this.expiresAfterNanos = expiresAfterNanos;
+            this.mutation = mutation;
+            this.encodedMutation = encodedMutation;
+        }
+
+        /**
+         * Decodes the mutation if needed, so that a mutation that cannot be deserialized, because its table was
+         * dropped for instance, only fails itself and not the whole batch.
+         */
+        public Mutation mutation() throws IOException
+        {
+            if (mutation != null)
+                return mutation;
+
+            try (DataInputBuffer in = new DataInputBuffer(encodedMutation, true))
+            {
+                return Mutation.serializer.deserialize(in, MessagingService.current_version);
+            }
+        }
+    }
+
+    public static final class Serializer implements IVersionedSerializer<MutationBatch>
+    {
+        public void serialize(MutationBatch batch, DataOutputPlus out, int version) throws IOException
+        {
+            out.writeUnsignedVInt(batch.entries.size());
+            for (Entry entry : batch.entries)
+            {
+                assert entry.mutation != null : "attempted to serialize a received batch";
+                out.writeUnsignedVInt(entry.id);
+                out.writeUnsignedVInt(entry.flags);
+                out.writeUnsignedVInt(entry.createdAfterNanos);
+                out.writeUnsignedVInt(entry.expiresAfterNanos);
+                out.writeUnsignedVInt(entry.mutation.serializedSize(version));
+                Mutation.serializer.serialize(entry.mutation, out, version);
+            }
+        }
+
+        public MutationBatch deserialize(DataInputPlus in, int version) throws IOException
+        {
+            int count = (int) in.readUnsignedVInt();
+            List<Entry> entries = new ArrayList<>(count);
+            for (int i = 0; i < count; i++)
+            {
+                long id = in.readUnsignedVInt();
+                int flags = (int) in.readUnsignedVInt();
+                long createdAfterNanos = in.readUnsignedVInt();
+                long expiresAfterNanos = in.readUnsignedVInt();
+
+                // mutations in the current version are decoded on application, others have to be decoded now
+                if (version == MessagingService.current_version)
+                {
+                    entries.add(new Entry(id, flags, createdAfterNanos, expiresAfterNanos, null, ByteBufferUtil.readWithVIntLength(in)));
+                }
+                else
+                {
+                    in.readUnsignedVInt(); // skip mutation size
+                    entries.add(new Entry(id, flags, createdAfterNanos, expiresAfterNanos, Mutation.serializer.deserialize(in, version), null));
+                }
+            }
+            return new MutationBatch(entries);
+        }
+
+        public long serializedSize(MutationBatch batch, int version)
+        {
+            long size = sizeofUnsignedVInt(batch.entries.size());
+            for (Entry entry : batch.entries)
+            {
+                int mutationSize = entry.mutation.serializedSize(version);
+                size += sizeofUnsignedVInt(entry.id)
+                        + sizeofUnsignedVInt(entry.flags)
+                        + sizeofUnsignedVInt(entry.createdAfterNanos)
+                        + sizeofUnsignedVInt(entry.expiresAfterNanos)
+                        + sizeofUnsignedVInt(mutationSize)
+                        + mutationSize;
+            }
+            return size;
+        }
+    }
+}
@@ -0,0 +1,83 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.cassandra.db;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.apache.cassandra.exceptions.RequestFailureReason;
+import org.apache.cassandra.net.IVerbHandler;
+import org.apache.cassandra.net.Message;
+import org.apache.cassandra.net.MessagingService;
+import org.apache.cassandra.net.NoPayload;
+import org.apache.cassandra.net.Verb;
+import org.apache.cassandra.utils.JVMStabilityInspector;
+
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+import static org.apache.cassandra.utils.MonotonicClock.Global.approxTime;
+
+/**
+ * Applies the mutations of a {@link MutationBatch} in turn, each as if it had been received in its own
+ * {@link Verb#MUTATION_REQ} message: expired mutations are dropped, and each mutation is acknowledged, or failed,
+ * on its own.
+ */
+public class MutationBatchVerbHandler implements IVerbHandler<MutationBatch>
+{
+    public static final MutationBatchVerbHandler instance = new MutationBatchVerbHandler();
+
+    private static final Logger logger = LoggerFactory.getLogger(MutationBatchVerbHandler.class);
+
+    public void doVerb(Message<MutationBatch> message)
+    {
+        long currentTimeNanos = approxTime.now();
+        for (MutationBatch.Entry entry : message.payload.entries)
+        {
+            long createdAtNanos = message.createdAtNanos() + entry.createdAfterNanos;
+            if (approxTime.isAfter(currentTimeNanos, createdAtNanos + entry.expiresAfterNanos))
+            {
+                MessagingService.instance().metrics.recordDroppedMessage(Verb.MUTATION_REQ, currentTimeNanos - createdAtNanos, NANOSECONDS, true);
+                continue;
+            }
+
+            try
+            {
+                MutationVerbHandler.instance.doVerb(message(message, entry, entry.mutation()));
+            }
+            catch (Throwable t)
+            {
+                JVMStabilityInspector.inspectThrowable(t);
+                logger.error("Failed to apply a mutation batched by {}", message.from(), t);
+
+                // batched mutations are always sent with a callback on failure
+                MessagingService.instance().respondWithFailure(RequestFailureReason.forException(t), message(message, entry, NoPayload.noPayload));
+            }
+        }
+    }
+
+    private static <T> Message<T> message(Message<MutationBatch> batch, MutationBatch.Entry entry, T payload)
+    {
+        long createdAtNanos = batch.createdAtNanos() + entry.createdAfterNanos;
+        return Message.builder(Verb.MUTATION_REQ, payload)
+                      .from(batch.from())
+                      .withId(entry.id)
+                      .withCreatedAt(createdAtNanos)
+                      .withExpiresAt(createdAtNanos + entry.expiresAfterNanos)
+                      .withFlags(entry.flags)
+                      .build();
+    }
+}
@@ -0,0 +1,75 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.cassandra.db;
+
+import org.apache.cassandra.concurrent.Stage;
+import org.apache.cassandra.db.memtable.ShardBoundaries;
+import org.apache.cassandra.schema.Schema;
+import org.apache.cassandra.schema.TableId;
+
+/**
+ * Picks the thread of a stage with partition affinity that executes a request, see {@link Stage#shardCount()}.
+ *
+ * The local ranges are split between the threads of the stage with {@link ColumnFamilyStore#partitionAffinitySplits},
+ * like they are split between the shards of a {@link org.apache.cassandra.db.memtable.ShardedSkipListMemtable}, so
+ * with as many memtable shards as threads, which is the default, a thread always works on the same memtable shard.
+ */
+public final class PartitionAffinity
+{
+    private PartitionAffinity()
+    {
+    }
+
+    /**
+     * @return the shard of {@code stage} that should execute the request with the provided payload, or -1 if the
+     * stage has no partition affinity or if the request is not on a single partition of a sharded table
+     */
+    public static int shard(Stage stage, Object payload)
+    {
+        int shardCount = stage.shardCount();
+        if (shardCount == 0)
+            return -1;
+
+        TableId tableId;
+        DecoratedKey key;
+        if (payload instanceof Mutation)
+        {
+            Mutation mutation = (Mutation) payload;
+            // the tables of a mutation are in the same keyspace, so they share the same local ranges
+            tableId = mutation.getTableIds().iterator().next();
+            key = mutation.key();
+        }
+        else if (payload instanceof SinglePartitionReadCommand)
+        {
+            SinglePartitionReadCommand command = (SinglePartitionReadCommand) payload;
+            tableId = command.metadata().id;
+            key = command.partitionKey();
+        }
+        else
+        {
+            return -1;
+        }
+
+        ColumnFamilyStore cfs = Schema.instance.getColumnFamilyStoreInstance(tableId);
+        if (cfs == null)
+            return -1;
+
+        ShardBoundaries boundaries = cfs.partitionAffinitySplits(shardCount);
+        return boundaries == ShardBoundaries.NONE ? -1 : boundaries.getShardForKey(key);
+    }
+}
@@ -51,6 +51,8 @@ import org.apache.cassandra.net.Verb;
 import org.apache.cassandra.schema.IndexMetadata;
 import org.apache.cassandra.schema.TableMetadata;
 import org.apache.cassandra.service.ClientState;
+import org.apache.cassandra.service.ResourceAccounting;
+import org.apache.cassandra.service.ResourceAccounting.Resource;
 import org.apache.cassandra.service.StorageProxy;
 import org.apache.cassandra.tracing.Tracing;
 
@@ -370,6 +372,7 @@ public class PartitionRangeReadCommand extends ReadCommand implements PartitionR
                     public void onScanningStarted(SSTableReader sstable)
                     {
                         sstable.incrementReadCount();
+                        ResourceAccounting.instance.record(Resource.SSTABLES_READ, 1);
                     }
                 };
     }
@@ -35,6 +35,7 @@ import org.slf4j.LoggerFactory;
 
 import io.netty.util.concurrent.FastThreadLocal;
 import org.apache.cassandra.config.*;
+import org.apache.cassandra.db.aggregation.PartialAggregation;
 import org.apache.cassandra.db.filter.*;
 import org.apache.cassandra.net.MessageFlag;
 import org.apache.cassandra.net.ParamType;
@@ -65,6 +66,8 @@ import org.apache.cassandra.schema.TableMetadata;
 import org.apache.cassandra.schema.SchemaProvider;
 import org.apache.cassandra.service.ActiveRepairService;
 import org.apache.cassandra.service.ClientWarn;
+import org.apache.cassandra.service.ResourceAccounting;
+import org.apache.cassandra.service.ResourceAccounting.Resource;
 import org.apache.cassandra.tracing.Tracing;
 import org.apache.cassandra.utils.FBUtilities;
 import org.apache.cassandra.utils.ObjectSizes;
@@ -102,6 +105,10 @@ public abstract class ReadCommand extends AbstractReadQuery
 
     private boolean trackWarnings;
 
+    // if set, the aggregates of the rows that the response should return in place of the rows
+    @Nullable
+    private PartialAggregation partialAggregation;
+
     @Nullable
     private final IndexMetadata index;
 
@@ -221,6 +228,33 @@ public abstract class ReadCommand extends AbstractReadQuery
         return this;
     }
 
+    /**
+     * The aggregates of the rows that a data response to this command returns in place of the rows, if any.
+     *
+     * @return the aggregates to return in place of the rows, or {@code null} if the rows are returned.
+     */
+    @Nullable
+    public PartialAggregation partialAggregation()
+    {
+        return partialAggregation;
+    }
+
+    /**
+     * Sets the aggregates of the rows that a data response to this command returns in place of the rows.
+     * <p>
+     * Like the digest version, this is not carried by the copies of the command, so that the digest requests made
+     * from it still return the digest of the rows.
+     *
+     * @param partialAggregation the aggregates to return in place of the rows
+     * @return this read command.
+     */
+    public ReadCommand setPartialAggregation(PartialAggregation partialAggregation)
+    {
+        assert !isDigestQuery && !acceptsTransient;
+        this.partialAggregation = partialAggregation;
+        return this;
+    }
+
     /**
      * @return Whether this query expects only a transient data response, or a full response
      */
@@ -572,6 +606,7 @@ public abstract class ReadCommand extends AbstractReadQuery
                 recordLatency(metric, nanoTime() - startTimeNanos);
 
                 metric.tombstoneScannedHistogram.update(tombstones);
+                ResourceAccounting.instance.record(Resource.TOMBSTONES_SCANNED, tombstones);
                 metric.liveScannedHistogram.update(liveRows);
 
                 boolean warnTombstones = tombstones > warningThreshold && respectTombstoneThresholds;
@@ -1013,6 +1048,16 @@ public abstract class ReadCommand extends AbstractReadQuery
             return (flags & 0x04) != 0;
         }
 
+        private static int partialAggregationFlag(boolean hasPartialAggregation)
+        {
+            return hasPartialAggregation ? 0x10 : 0;
+        }
+
+        private static boolean hasPartialAggregation(int flags)
+        {
+            return (flags & 0x10) != 0;
+        }
+
         public void serialize(ReadCommand command, DataOutputPlus out, int version) throws IOException
         {
             out.writeByte(command.kind.ordinal());
@@ -1020,8 +1065,10 @@ public abstract class ReadCommand extends AbstractReadQuery
                     digestFlag(command.isDigestQuery())
                     | indexFlag(null != command.indexMetadata())
                     | acceptsTransientFlag(command.acceptsTransient())
+                    | partialAggregationFlag(null != command.partialAggregation)
             );
-            if (command.isDigestQuery())
+            // the partial aggregation responses include the digest of the rows aggregated
+            if (command.isDigestQuery() || null != command.partialAggregation)
                 out.writeUnsignedVInt(command.digestVersion());
             command.metadata().id.serialize(out);
             out.writeInt(command.nowInSec());
@@ -1032,6 +1079,8 @@ public abstract class ReadCommand extends AbstractReadQuery
                 IndexMetadata.serializer.serialize(command.index, out, version);
 
             command.serializeSelection(out, version);
+            if (null != command.partialAggregation)
+                PartialAggregation.serializer.serialize(command.partialAggregation, out, version);
         }
 
         public ReadCommand deserialize(DataInputPlus in, int version) throws IOException
@@ -1049,7 +1098,8 @@ public abstract class ReadCommand extends AbstractReadQuery
                                               + "upgrading to 4.0");
 
             boolean hasIndex = hasIndex(flags);
-            int digestVersion = isDigest ? (int)in.readUnsignedVInt() : 0;
+            boolean hasPartialAggregation = hasPartialAggregation(flags);
+            int digestVersion = isDigest || hasPartialAggregation ? (int)in.readUnsignedVInt() : 0;
             TableMetadata metadata = schema.getExistingTableMetadata(TableId.deserialize(in));
             int nowInSec = in.readInt();
             ColumnFilter columnFilter = ColumnFilter.serializer.deserialize(in, version, metadata);
@@ -1057,7 +1107,10 @@ public abstract class ReadCommand extends AbstractReadQuery
             DataLimits limits = DataLimits.serializer.deserialize(in, version,  metadata);
             IndexMetadata index = hasIndex ? deserializeIndexMetadata(in, version, metadata) : null;
 
-            return kind.selectionDeserializer.deserialize(in, version, isDigest, digestVersion, acceptsTransient, metadata, nowInSec, columnFilter, rowFilter, limits, index);
+            ReadCommand command = kind.selectionDeserializer.deserialize(in, version, isDigest, digestVersion, acceptsTransient, metadata, nowInSec, columnFilter, rowFilter, limits, index);
+            if (hasPartialAggregation)
+                command.setPartialAggregation(PartialAggregation.serializer.deserialize(in, version, metadata));
+            return command;
         }
 
         private IndexMetadata deserializeIndexMetadata(DataInputPlus in, int version, TableMetadata metadata) throws IOException
@@ -1080,14 +1133,15 @@ public abstract class ReadCommand extends AbstractReadQuery
         public long serializedSize(ReadCommand command, int version)
         {
             return 2 // kind + flags
-                   + (command.isDigestQuery() ? TypeSizes.sizeofUnsignedVInt(command.digestVersion()) : 0)
+                   + (command.isDigestQuery() || null != command.partialAggregation ? TypeSizes.sizeofUnsignedVInt(command.digestVersion()) : 0)
                    + command.metadata().id.serializedSize()
                    + TypeSizes.sizeof(command.nowInSec())
                    + ColumnFilter.serializer.serializedSize(command.columnFilter(), version)
                    + RowFilter.serializer.serializedSize(command.rowFilter(), version)
                    + DataLimits.serializer.serializedSize(command.limits(), version, command.metadata().comparator)
                    + command.selectionSerializedSize(version)
-                   + command.indexSerializedSize(version);
+                   + command.indexSerializedSize(version)
+                   + (null != command.partialAggregation ? PartialAggregation.serializer.serializedSize(command.partialAggregation, version) : 0);
         }
     }
 }
@@ -22,6 +22,7 @@ import java.nio.ByteBuffer;
 
 import com.google.common.annotations.VisibleForTesting;
 
+import org.apache.cassandra.db.aggregation.PartialAggregation;
 import org.apache.cassandra.db.filter.ColumnFilter;
 import org.apache.cassandra.db.partitions.*;
 import org.apache.cassandra.db.rows.*;
@@ -82,6 +83,12 @@ public abstract class ReadResponse
 
     public abstract boolean isDigestResponse();
 
+    /**
+     * Returns the aggregates of a data response to a command with a partial aggregation, that it returns in place of
+     * the rows.
+     */
+    public abstract PartialAggregation.Result partialAggregation(ReadCommand command);
+
     /**
      * Creates a string of the requested partition in this read response suitable for debugging.
      */
@@ -178,6 +185,11 @@ public abstract class ReadResponse
         {
             return true;
         }
+
+        public PartialAggregation.Result partialAggregation(ReadCommand command)
+        {
+            throw new UnsupportedOperationException();
+        }
     }
 
     // built on the owning node responding to a query
@@ -185,7 +197,7 @@ public abstract class ReadResponse
     {
         private LocalDataResponse(UnfilteredPartitionIterator iter, ReadCommand command, RepairedDataInfo rdi)
         {
-            super(build(iter, command.columnFilter()),
+            super(command.partialAggregation() == null ? build(iter, command.columnFilter()) : buildPartialAggregation(iter, command),
                   rdi.getDigest(), rdi.isConclusive(),
                   MessagingService.current_version,
                   DeserializationHelper.Flag.LOCAL);
@@ -209,6 +221,30 @@ public abstract class ReadResponse
                 throw new RuntimeException(e);
             }
         }
+
+        /**
+         * Serializes the digest of the rows, followed by their aggregates.
+         */
+        private static ByteBuffer buildPartialAggregation(UnfilteredPartitionIterator iter, ReadCommand command)
+        {
+            Digest digest = Digest.forReadResponse();
+            PartialAggregation.Result result = command.partialAggregation().aggregate(iter,
+                                                                                      command.metadata(),
+                                                                                      command.nowInSec(),
+                                                                                      digest,
+                                                                                      command.digestVersion());
+            try (DataOutputBuffer buffer = new DataOutputBuffer())
+            {
+                ByteBufferUtil.writeWithVIntLength(ByteBuffer.wrap(digest.digest()), buffer);
+                result.serialize(buffer, MessagingService.current_version, command.metadata().comparator);
+                return buffer.buffer();
+            }
+            catch (IOException e)
+            {
+                // We're serializing in memory so this shouldn't happen
+                throw new RuntimeException(e);
+            }
+        }
     }
 
     // built on the coordinator node receiving a response
@@ -284,6 +320,19 @@ public abstract class ReadResponse
 
         public ByteBuffer digest(ReadCommand command)
         {
+            if (command.partialAggregation() != null)
+            {
+                try (DataInputBuffer in = new DataInputBuffer(data, true))
+                {
+                    return ByteBufferUtil.readWithVIntLength(in);
+                }
+                catch (IOException e)
+                {
+                    // We're deserializing in memory so this shouldn't happen
+                    throw new RuntimeException(e);
+                }
+            }
+
             try (UnfilteredPartitionIterator iterator = makeIterator(command))
             {
                 return makeDigest(iterator, command);
@@ -294,6 +343,21 @@ public abstract class ReadResponse
         {
             return false;
         }
+
+        public PartialAggregation.Result partialAggregation(ReadCommand command)
+        {
+            assert command.partialAggregation() != null;
+            try (DataInputBuffer in = new DataInputBuffer(data, true))
+            {
+                ByteBufferUtil.skipWithVIntLength(in);
+                return PartialAggregation.Result.deserialize(in, dataSerializationVersion, command.metadata().comparator);
+            }
+            catch (IOException e)
+            {
+                // We're deserializing in memory so this shouldn't happen
+                throw new RuntimeException(e);
+            }
+        }
     }
 
     private static class Serializer implements IVersionedSerializer<ReadResponse>
@@ -29,8 +29,10 @@ import org.apache.cassandra.db.filter.RowIndexEntryReadSizeTooLargeException;
 import org.apache.cassandra.io.ISerializer;
 import org.apache.cassandra.io.sstable.IndexInfo;
 import org.apache.cassandra.io.sstable.format.Version;
+import org.apache.cassandra.io.util.DataInputBuffer;
 import org.apache.cassandra.io.util.DataInputPlus;
 import org.apache.cassandra.io.util.DataOutputBuffer;
+import org.apache.cassandra.io.util.DataOutputBufferFixed;
 import org.apache.cassandra.io.util.DataOutputPlus;
 import org.apache.cassandra.io.util.FileDataInput;
 import org.apache.cassandra.io.util.FileHandle;
@@ -138,6 +140,9 @@ public class RowIndexEntry<T> implements IMeasurableMemory
     static final int CACHE_INDEXED = 1;
     static final int CACHE_INDEXED_SHALLOW = 2;
 
+    // the type and position that start the layout of serializeCompact
+    private static final int COMPACT_FIXED_SIZE = 1 + TypeSizes.LONG_SIZE;
+
     static final Histogram indexEntrySizeHistogram;
     static final Histogram indexInfoCountHistogram;
     static final Histogram indexInfoGetsHistogram;
@@ -459,6 +464,57 @@ public class RowIndexEntry<T> implements IMeasurableMemory
         out.writeByte(CACHE_NOT_INDEXED);
     }
 
+    /**
+     * @return the serializer of the {@link IndexInfo} objects of this entry, or {@code null} if it has none.
+     */
+    public ISerializer<T> indexInfoSerializer()
+    {
+        return null;
+    }
+
+    /**
+     * @return the size of this entry in the layout written by {@link #serializeCompact(ByteBuffer)}.
+     */
+    public int compactSerializedSize()
+    {
+        return COMPACT_FIXED_SIZE;
+    }
+
+    /**
+     * Writes this entry for the off-heap key cache. Unlike {@link #serializeForCache(DataOutputPlus)}, the fields
+     * of non-indexed and shallow entries are written with a fixed width, so {@link #deserializeCompact} reads them
+     * in place without decoding any vint.
+     */
+    public void serializeCompact(ByteBuffer out) throws IOException
+    {
+        out.put((byte) CACHE_NOT_INDEXED);
+        out.putLong(position);
+    }
+
+    /**
+     * Reads an entry written by {@link #serializeCompact(ByteBuffer)}.
+     *
+     * @param idxInfoSerializer the serializer of the {@link IndexInfo} objects of the entries of the sstable, which
+     *                          is only used by indexed entries
+     */
+    public static RowIndexEntry<IndexInfo> deserializeCompact(ByteBuffer in, ISerializer<IndexInfo> idxInfoSerializer) throws IOException
+    {
+        int offset = in.position();
+        long position = in.getLong(offset + 1);
+        switch (in.get(offset))
+        {
+            case CACHE_NOT_INDEXED:
+                return new RowIndexEntry<>(position);
+            case CACHE_INDEXED:
+                in.position(offset + COMPACT_FIXED_SIZE);
+                return new IndexedEntry(position, new DataInputBuffer(in, false), idxInfoSerializer);
+            case CACHE_INDEXED_SHALLOW:
+                return ShallowIndexedEntry.deserializeCompact(position, in, offset + COMPACT_FIXED_SIZE, idxInfoSerializer);
+            default:
+                throw new AssertionError();
+        }
+    }
+
     /**
      * An entry in the row index for a row whose columns are indexed - used for both legacy and current formats.
      */
@@ -625,6 +681,42 @@ public class RowIndexEntry<T> implements IMeasurableMemory
                 idxInfoSerializer.serialize(indexInfo, out);
         }
 
+        @Override
+        public ISerializer<IndexInfo> indexInfoSerializer()
+        {
+            return idxInfoSerializer;
+        }
+
+        @Override
+        public int compactSerializedSize()
+        {
+            long size = COMPACT_FIXED_SIZE + serializedSize(deletionTime, headerLength, columnsIndex.length);
+            for (IndexInfo indexInfo : columnsIndex)
+                size += idxInfoSerializer.serializedSize(indexInfo);
+            return Math.toIntExact(size);
+        }
+
+        /**
+         * The {@link IndexInfo} objects are kept serialized as in {@link #serializeForCache(DataOutputPlus)}, and
+         * deserialized on each read from the cache.
+         */
+        @Override
+        public void serializeCompact(ByteBuffer out) throws IOException
+        {
+            out.put((byte) CACHE_INDEXED);
+            out.putLong(position);
+
+            try (DataOutputBufferFixed dataOutput = new DataOutputBufferFixed(out))
+            {
+                dataOutput.writeUnsignedVInt(headerLength);
+                DeletionTime.serializer.serialize(deletionTime, dataOutput);
+                dataOutput.writeUnsignedVInt(columnsIndex.length);
+
+                for (IndexInfo indexInfo : columnsIndex)
+                    idxInfoSerializer.serialize(indexInfo, dataOutput);
+            }
+        }
+
         static void skipForCache(DataInputPlus in) throws IOException
         {
             in.readUnsignedVInt();
@@ -648,6 +740,9 @@ public class RowIndexEntry<T> implements IMeasurableMemory
             BASE_SIZE = ObjectSizes.measure(new ShallowIndexedEntry(0, 0, DeletionTime.LIVE, 0, 10, 0, null));
         }
 
+        // index file position, header length, deletion time, columns index count and indexed part size
+        private static final int COMPACT_FIELDS_SIZE = 3 * TypeSizes.LONG_SIZE + 3 * TypeSizes.INT_SIZE;
+
         private final long indexFilePosition;
 
         private final DeletionTime deletionTime;
@@ -765,6 +860,43 @@ public class RowIndexEntry<T> implements IMeasurableMemory
             out.writeUnsignedVInt(indexedPartSize);
         }
 
+        @Override
+        public ISerializer<IndexInfo> indexInfoSerializer()
+        {
+            return idxInfoSerializer;
+        }
+
+        @Override
+        public int compactSerializedSize()
+        {
+            return COMPACT_FIXED_SIZE + COMPACT_FIELDS_SIZE;
+        }
+
+        @Override
+        public void serializeCompact(ByteBuffer out)
+        {
+            out.put((byte) CACHE_INDEXED_SHALLOW);
+            out.putLong(position);
+
+            out.putLong(indexFilePosition);
+            out.putLong(headerLength);
+            out.putLong(deletionTime.markedForDeleteAt());
+            out.putInt(deletionTime.localDeletionTime());
+            out.putInt(columnsIndexCount);
+            out.putInt(indexedPartSize);
+        }
+
+        static ShallowIndexedEntry deserializeCompact(long dataFilePosition, ByteBuffer in, int offset, ISerializer<IndexInfo> idxInfoSerializer)
+        {
+            return new ShallowIndexedEntry(dataFilePosition,
+                                           in.getLong(offset),
+                                           new DeletionTime(in.getLong(offset + 16), in.getInt(offset + 24)),
+                                           in.getLong(offset + 8),
+                                           in.getInt(offset + 28),
+                                           in.getInt(offset + 32),
+                                           idxInfoSerializer);
+        }
+
         static void skipForCache(DataInputPlus in) throws IOException
         {
             in.readUnsignedVInt();
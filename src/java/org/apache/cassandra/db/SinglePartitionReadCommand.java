@@ -50,6 +50,7 @@ import org.apache.cassandra.schema.ColumnMetadata;
 import org.apache.cassandra.schema.IndexMetadata;
 import org.apache.cassandra.schema.TableMetadata;
 import org.apache.cassandra.service.*;
+import org.apache.cassandra.service.ResourceAccounting.Resource;
 import org.apache.cassandra.tracing.Tracing;
 import org.apache.cassandra.utils.FBUtilities;
 import org.apache.cassandra.utils.btree.BTreeSet;
@@ -659,6 +660,11 @@ public class SinglePartitionReadCommand extends ReadCommand implements SinglePar
         long minTimestamp = Long.MAX_VALUE;
         long mostRecentPartitionTombstone = Long.MIN_VALUE;
         InputCollector<UnfilteredRowIterator> inputCollector = iteratorsForPartition(view, controller);
+        // Lets the sstables skip the content shadowed by the range tombstones of the other memtables and sstables.
+        // The repaired data digest covers that content though, and only forward iteration supports skipping.
+        ShadowedDataSkipper skipper = filter.isReversed() || controller.isTrackingRepairedStatus()
+                                    ? null
+                                    : new ShadowedDataSkipper(metadata().comparator);
         try
         {
             SSTableReadMetricsCollector metricsCollector = new SSTableReadMetricsCollector();
@@ -674,7 +680,8 @@ public class SinglePartitionReadCommand extends ReadCommand implements SinglePar
 
                 // Memtable data is always considered unrepaired
                 controller.updateMinOldestUnrepairedTombstone(memtable.getMinLocalDeletionTime());
-                inputCollector.addMemtableIterator(RTBoundValidator.validate(iter, RTBoundValidator.Stage.MEMTABLE, false));
+                iter = RTBoundValidator.validate(iter, RTBoundValidator.Stage.MEMTABLE, false);
+                inputCollector.addMemtableIterator(skipper == null ? iter : skipper.track(iter));
 
                 mostRecentPartitionTombstone = Math.max(mostRecentPartitionTombstone,
                                                         iter.partitionLevelDeletion().markedForDeleteAt());
@@ -720,6 +727,8 @@ public class SinglePartitionReadCommand extends ReadCommand implements SinglePar
                     // 'iter' is added to iterators which is closed on exception, or through the closing of the final merged iterator
                     @SuppressWarnings("resource")
                     UnfilteredRowIteratorWithLowerBound iter = makeIterator(cfs, sstable, metricsCollector);
+                    if (skipper != null)
+                        iter.skipShadowedData(skipper);
                     inputCollector.addSSTableIterator(sstable, iter);
                     mostRecentPartitionTombstone = Math.max(mostRecentPartitionTombstone,
                                                             iter.partitionLevelDeletion().markedForDeleteAt());
@@ -739,6 +748,8 @@ public class SinglePartitionReadCommand extends ReadCommand implements SinglePar
                         {
                             if (!sstable.isRepaired())
                                 controller.updateMinOldestUnrepairedTombstone(sstable.getMinLocalDeletionTime());
+                            if (skipper != null)
+                                iter.skipShadowedData(skipper);
                             inputCollector.addSSTableIterator(sstable, iter);
                             includedDueToTombstones++;
                             mostRecentPartitionTombstone = Math.max(mostRecentPartitionTombstone,
@@ -827,6 +838,7 @@ public class SinglePartitionReadCommand extends ReadCommand implements SinglePar
            {
                int mergedSSTablesIterated = metricsCollector.getMergedSSTables();
                metrics.updateSSTableIterated(mergedSSTablesIterated);
+               ResourceAccounting.instance.record(Resource.SSTABLES_READ, mergedSSTablesIterated);
                Tracing.trace("Merged data from memtables and {} sstables", mergedSSTablesIterated);
            }
         }
@@ -956,6 +968,7 @@ public class SinglePartitionReadCommand extends ReadCommand implements SinglePar
         }
 
         cfs.metric.updateSSTableIterated(metricsCollector.getMergedSSTables());
+        ResourceAccounting.instance.record(Resource.SSTABLES_READ, metricsCollector.getMergedSSTables());
 
         if (result == null || result.isEmpty())
             return EmptyIterators.unfilteredRow(metadata(), partitionKey(), false);
@@ -0,0 +1,700 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.cassandra.db.aggregation;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+
+import org.apache.cassandra.cql3.functions.AggregateFcts;
+import org.apache.cassandra.cql3.functions.AggregateFunction;
+import org.apache.cassandra.cql3.functions.Function;
+import org.apache.cassandra.cql3.functions.FunctionName;
+import org.apache.cassandra.cql3.statements.SelectStatement;
+import org.apache.cassandra.db.Clustering;
+import org.apache.cassandra.db.ClusteringComparator;
+import org.apache.cassandra.db.DecoratedKey;
+import org.apache.cassandra.db.DeletionPurger;
+import org.apache.cassandra.db.Digest;
+import org.apache.cassandra.db.TypeSizes;
+import org.apache.cassandra.db.context.CounterContext;
+import org.apache.cassandra.db.marshal.AbstractType;
+import org.apache.cassandra.db.marshal.DoubleType;
+import org.apache.cassandra.db.marshal.FloatType;
+import org.apache.cassandra.db.partitions.PartitionIterator;
+import org.apache.cassandra.db.partitions.UnfilteredPartitionIterator;
+import org.apache.cassandra.db.partitions.UnfilteredPartitionIterators;
+import org.apache.cassandra.db.rows.Cell;
+import org.apache.cassandra.db.rows.Row;
+import org.apache.cassandra.db.rows.RowIterator;
+import org.apache.cassandra.db.rows.UnfilteredRowIterator;
+import org.apache.cassandra.db.transform.Transformation;
+import org.apache.cassandra.io.util.DataInputPlus;
+import org.apache.cassandra.io.util.DataOutputPlus;
+import org.apache.cassandra.schema.CQLTypeParser;
+import org.apache.cassandra.schema.ColumnMetadata;
+import org.apache.cassandra.schema.Schema;
+import org.apache.cassandra.schema.TableMetadata;
+import org.apache.cassandra.schema.Types;
+import org.apache.cassandra.transport.ProtocolVersion;
+import org.apache.cassandra.utils.ByteBufferUtil;
+
+/**
+ * The aggregates of a query that the replicas compute over the rows they read, to return them in place of the rows.
+ * <p>
+ * Only the aggregates that can be computed by parts, and the parts merged afterwards, are supported: the native
+ * count, sum (but on floating point numbers, whose sum depends on the order of the additions), min and max, of a single
+ * column or, for count(*), of none. The other outputs of the query can only be columns, that take the value of the
+ * first row of their group, as they do when the coordinator aggregates the rows.
+ * <p>
+ * The rows are grouped as the {@link AggregationSpecification} of the query groups them. As a page can end in the
+ * middle of a group, the replica returns the aggregates of each group of the page with the clustering of its first
+ * row, and the coordinator merges the groups of the pages of each partition it reads with a {@link Merger}.
+ * <p>
+ * As the aggregates alone could not be compared to the digests returned by the other replicas, the replica also
+ * returns the digest of the rows it aggregated, that a digest response would have.
+ */
+public final class PartialAggregation
+{
+    public static final Serializer serializer = new Serializer();
+
+    private final AggregationSpecification aggregationSpec;
+    // the aggregate function of each output, or null for the outputs that are a column
+    private final List<AggregateFunction> functions;
+    // the column of each output, or aggregated by its function, or null for count(*)
+    private final List<ColumnMetadata> arguments;
+    // whether the partitions without rows count as one row of their static content, as for the query results
+    private final boolean includeStaticOnlyPartitions;
+
+    public PartialAggregation(AggregationSpecification aggregationSpec,
+                              List<AggregateFunction> functions,
+                              List<ColumnMetadata> arguments,
+                              boolean includeStaticOnlyPartitions)
+    {
+        assert functions.size() == arguments.size();
+        this.aggregationSpec = aggregationSpec;
+        this.functions = functions;
+        this.arguments = arguments;
+        this.includeStaticOnlyPartitions = includeStaticOnlyPartitions;
+    }
+
+    /**
+     * Checks if the aggregates of the specified function can be computed by parts and merged.
+     *
+     * @param function the aggregate function
+     * @return {@code true} if the replicas can compute the aggregates of the function, {@code false} otherwise.
+     */
+    public static boolean isDecomposable(AggregateFunction function)
+    {
+        if (!function.isNative())
+            return false;
+
+        switch (function.name().name)
+        {
+            case "countRows":
+            case "count":
+            case "min":
+            case "max":
+                return true;
+            case "sum":
+                return !(function.returnType() instanceof FloatType || function.returnType() instanceof DoubleType);
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * Returns this aggregation, but for a page continuing a partition: as when paging rows, the partition is not
+     * counted again for its static content alone.
+     */
+    public PartialAggregation forContinuation()
+    {
+        return includeStaticOnlyPartitions
+             ? new PartialAggregation(aggregationSpec, functions, arguments, false)
+             : this;
+    }
+
+    /**
+     * Aggregates the live rows of the provided partitions, and digests them as a digest response would.
+     *
+     * @param partitions the partitions read by a replica
+     * @param metadata the table metadata
+     * @param nowInSec the query time, to tell the live rows
+     * @param digest the digest to update with the content of the partitions
+     * @param digestVersion the version of the digest
+     * @return the aggregates of the rows of the partitions.
+     */
+    public Result aggregate(UnfilteredPartitionIterator partitions,
+                            TableMetadata metadata,
+                            int nowInSec,
+                            Digest digest,
+                            int digestVersion)
+    {
+        Aggregator aggregator = new Aggregator(metadata);
+        boolean enforceStrictLiveness = metadata.enforceStrictLiveness();
+        Transformation<UnfilteredRowIterator> aggregating = new Transformation<UnfilteredRowIterator>()
+        {
+            @Override
+            protected UnfilteredRowIterator applyToPartition(UnfilteredRowIterator partition)
+            {
+                // we aggregate what the filtering of the coordinator would return, but digest the partition as is
+                Row staticRow = partition.staticRow().isEmpty()
+                              ? null
+                              : partition.staticRow().purge(DeletionPurger.PURGE_ALL, nowInSec, enforceStrictLiveness);
+                aggregator.startPartition(partition.partitionKey(), staticRow);
+                return Transformation.apply(partition, new Transformation<UnfilteredRowIterator>()
+                {
+                    @Override
+                    protected Row applyToRow(Row row)
+                    {
+                        Row live = row.purge(DeletionPurger.PURGE_ALL, nowInSec, enforceStrictLiveness);
+                        if (live != null)
+                            aggregator.addRow(live);
+                        return row;
+                    }
+
+                    @Override
+                    protected void onPartitionClose()
+                    {
+                        aggregator.endPartition();
+                    }
+                });
+            }
+        };
+
+        UnfilteredPartitionIterators.digest(Transformation.apply(partitions, aggregating), digest, digestVersion);
+        return aggregator.result();
+    }
+
+    /**
+     * Aggregates the rows of the provided partitions.
+     *
+     * @param partitions the partitions, filtered
+     * @param metadata the table metadata
+     * @return the aggregates of the rows of the partitions.
+     */
+    public Result aggregate(PartitionIterator partitions, TableMetadata metadata)
+    {
+        Aggregator aggregator = new Aggregator(metadata);
+        while (partitions.hasNext())
+        {
+            try (RowIterator partition = partitions.next())
+            {
+                aggregator.startPartition(partition.partitionKey(), partition.staticRow());
+                while (partition.hasNext())
+                    aggregator.addRow(partition.next());
+                aggregator.endPartition();
+            }
+        }
+        return aggregator.result();
+    }
+
+    /**
+     * Creates a new {@code Merger} for the groups of this aggregation.
+     *
+     * @param limit the maximum number of groups of the query
+     * @param perPartitionLimit the maximum number of groups of each partition
+     * @param protocolVersion the protocol version of the query
+     */
+    public Merger newMerger(int limit, int perPartitionLimit, ProtocolVersion protocolVersion)
+    {
+        return new Merger(limit, perPartitionLimit, protocolVersion);
+    }
+
+    /**
+     * The aggregates computed over the rows of a page, with what the coordinator needs to tell whether and where to
+     * read the next page.
+     */
+    public static final class Result
+    {
+        /**
+         * The number of rows aggregated, not counting the partitions counted for their static content.
+         */
+        public final int rows;
+
+        /**
+         * The clustering of the last row aggregated, or {@code null} if none were.
+         */
+        public final Clustering<?> lastClustering;
+
+        /**
+         * The groups of the rows aggregated, in the order of the rows.
+         */
+        public final List<Group> groups;
+
+        public Result(int rows, Clustering<?> lastClustering, List<Group> groups)
+        {
+            this.rows = rows;
+            this.lastClustering = lastClustering;
+            this.groups = groups;
+        }
+
+        public void serialize(DataOutputPlus out, int version, ClusteringComparator comparator) throws IOException
+        {
+            out.writeUnsignedVInt(rows);
+            out.writeBoolean(lastClustering != null);
+            if (lastClustering != null)
+                Clustering.serializer.serialize(lastClustering, out, version, comparator.subtypes());
+
+            out.writeUnsignedVInt(groups.size());
+            for (Group group : groups)
+                group.serialize(out, version, comparator);
+        }
+
+        public static Result deserialize(DataInputPlus in, int version, ClusteringComparator comparator) throws IOException
+        {
+            int rows = (int) in.readUnsignedVInt();
+            Clustering<?> lastClustering = in.readBoolean()
+                                         ? Clustering.serializer.deserialize(in, version, comparator.subtypes())
+                                         : null;
+
+            int size = (int) in.readUnsignedVInt();
+            List<Group> groups = new ArrayList<>(size);
+            for (int i = 0; i < size; i++)
+                groups.add(Group.deserialize(in, version, comparator));
+
+            return new Result(rows, lastClustering, groups);
+        }
+    }
+
+    /**
+     * The outputs of a group of rows, with the clustering of its first row to tell the group it is.
+     */
+    public static final class Group
+    {
+        /**
+         * The clustering of the first row of the group, or {@link Clustering#STATIC_CLUSTERING} for a partition
+         * counted for its static content.
+         */
+        public final Clustering<?> clustering;
+
+        /**
+         * The outputs, in the order of the selection.
+         */
+        public final List<ByteBuffer> values;
+
+        public Group(Clustering<?> clustering, List<ByteBuffer> values)
+        {
+            this.clustering = clustering;
+            this.values = values;
+        }
+
+        private void serialize(DataOutputPlus out, int version, ClusteringComparator comparator) throws IOException
+        {
+            out.writeBoolean(clustering == Clustering.STATIC_CLUSTERING);
+            if (clustering != Clustering.STATIC_CLUSTERING)
+                Clustering.serializer.serialize(clustering, out, version, comparator.subtypes());
+
+            out.writeUnsignedVInt(values.size());
+            for (ByteBuffer value : values)
+            {
+                out.writeBoolean(value != null);
+                if (value != null)
+                    ByteBufferUtil.writeWithVIntLength(value, out);
+            }
+        }
+
+        private static Group deserialize(DataInputPlus in, int version, ClusteringComparator comparator) throws IOException
+        {
+            Clustering<?> clustering = in.readBoolean()
+                                     ? Clustering.STATIC_CLUSTERING
+                                     : Clustering.serializer.deserialize(in, version, comparator.subtypes());
+
+            int size = (int) in.readUnsignedVInt();
+            List<ByteBuffer> values = new ArrayList<>(size);
+            for (int i = 0; i < size; i++)
+                values.add(in.readBoolean() ? ByteBufferUtil.readWithVIntLength(in) : null);
+
+            return new Group(clustering, values);
+        }
+    }
+
+    /**
+     * Accumulates the inputs of a group: the outputs with a function aggregate them, and the others keep the first.
+     */
+    private static final class Accumulator
+    {
+        // the aggregate of each output, or null for the outputs that keep their first input
+        private final List<AggregateFunction.Aggregate> aggregates;
+        private final List<ByteBuffer> firstInputs;
+        private boolean isEmpty = true;
+
+        private Accumulator(List<AggregateFunction> functions)
+        {
+            this.aggregates = new ArrayList<>(functions.size());
+            this.firstInputs = new ArrayList<>(functions.size());
+            for (AggregateFunction function : functions)
+            {
+                aggregates.add(function == null ? null : function.newAggregate());
+                firstInputs.add(null);
+            }
+        }
+
+        private void add(ProtocolVersion protocolVersion, List<List<ByteBuffer>> inputs)
+        {
+            for (int i = 0, m = aggregates.size(); i < m; i++)
+            {
+                AggregateFunction.Aggregate aggregate = aggregates.get(i);
+                if (aggregate != null)
+                    aggregate.addInput(protocolVersion, inputs.get(i));
+                else if (isEmpty)
+                    firstInputs.set(i, inputs.get(i).get(0));
+            }
+            isEmpty = false;
+        }
+
+        private List<ByteBuffer> values(ProtocolVersion protocolVersion)
+        {
+            List<ByteBuffer> values = new ArrayList<>(aggregates.size());
+            for (int i = 0, m = aggregates.size(); i < m; i++)
+            {
+                AggregateFunction.Aggregate aggregate = aggregates.get(i);
+                values.add(aggregate == null ? firstInputs.get(i) : aggregate.compute(protocolVersion));
+            }
+            return values;
+        }
+    }
+
+    /**
+     * Aggregates the rows of the partitions by group, in the order of the partitions and of their rows.
+     */
+    private final class Aggregator
+    {
+        private final TableMetadata metadata;
+        private final GroupMaker groupMaker;
+        private final List<List<ByteBuffer>> inputs;
+        private final List<Group> groups = new ArrayList<>();
+
+        private DecoratedKey partitionKey;
+        private ByteBuffer[] keyComponents;
+        private Row staticRow;
+        private boolean hasRows;
+
+        private Accumulator group;
+        private Clustering<?> groupClustering;
+
+        private int rows;
+        private Clustering<?> lastClustering;
+
+        private Aggregator(TableMetadata metadata)
+        {
+            this.metadata = metadata;
+            this.groupMaker = aggregationSpec.newGroupMaker();
+            this.inputs = new ArrayList<>(functions.size());
+            for (ColumnMetadata argument : arguments)
+                inputs.add(argument == null ? Collections.emptyList() : new ArrayList<>(1));
+        }
+
+        private void startPartition(DecoratedKey partitionKey, Row staticRow)
+        {
+            this.partitionKey = partitionKey;
+            this.keyComponents = null;
+            this.staticRow = staticRow == null || staticRow.isEmpty() ? null : staticRow;
+            this.hasRows = false;
+        }
+
+        private void addRow(Row row)
+        {
+            addInput(row.clustering(), row);
+            hasRows = true;
+            rows++;
+            lastClustering = row.clustering();
+        }
+
+        private void endPartition()
+        {
+            // If there is no rows, we include the static content if we should.
+            if (!hasRows && staticRow != null && includeStaticOnlyPartitions)
+                addInput(Clustering.STATIC_CLUSTERING, staticRow);
+        }
+
+        private void addInput(Clustering<?> clustering, Row row)
+        {
+            if (groupMaker.isNewGroup(partitionKey, clustering) || group == null)
+            {
+                endGroup();
+                group = new Accumulator(functions);
+                groupClustering = clustering;
+            }
+
+            for (int i = 0, m = arguments.size(); i < m; i++)
+            {
+                ColumnMetadata argument = arguments.get(i);
+                if (argument != null)
+                {
+                    List<ByteBuffer> input = inputs.get(i);
+                    input.clear();
+                    input.add(value(argument, row));
+                }
+            }
+            group.add(ProtocolVersion.CURRENT, inputs);
+        }
+
+        private void endGroup()
+        {
+            if (group != null)
+                groups.add(new Group(groupClustering, group.values(ProtocolVersion.CURRENT)));
+            group = null;
+        }
+
+        private ByteBuffer value(ColumnMetadata column, Row row)
+        {
+            switch (column.kind)
+            {
+                case PARTITION_KEY:
+                    if (keyComponents == null)
+                        keyComponents = SelectStatement.getComponents(metadata, partitionKey);
+                    return keyComponents[column.position()];
+                case CLUSTERING:
+                    return row.isStatic() ? null : row.clustering().bufferAt(column.position());
+                case STATIC:
+                    return staticRow == null ? null : value(staticRow.getCell(column));
+                default:
+                    return row.isStatic() ? null : value(row.getCell(column));
+            }
+        }
+
+        private <V> ByteBuffer value(Cell<V> cell)
+        {
+            if (cell == null)
+                return null;
+
+            return cell.isCounterCell()
+                 ? ByteBufferUtil.bytes(CounterContext.instance().total(cell.value(), cell.accessor()))
+                 : cell.buffer();
+        }
+
+        private Result result()
+        {
+            endGroup();
+            return new Result(rows, lastClustering, groups);
+        }
+    }
+
+    /**
+     * Merges the groups computed by parts, in the order of the partitions and of their pages, into the rows of the
+     * query.
+     */
+    public final class Merger
+    {
+        private final GroupMaker groupMaker;
+        private final List<AggregateFunction> mergeFunctions;
+        private final List<List<ByteBuffer>> inputs;
+        private final int limit;
+        private final int perPartitionLimit;
+        private final ProtocolVersion protocolVersion;
+        private final List<List<ByteBuffer>> rows = new ArrayList<>();
+
+        private Accumulator group;
+        private DecoratedKey partitionKey;
+        private int partitionGroups;
+
+        private Merger(int limit, int perPartitionLimit, ProtocolVersion protocolVersion)
+        {
+            this.groupMaker = aggregationSpec.newGroupMaker();
+            this.mergeFunctions = new ArrayList<>(functions.size());
+            this.inputs = new ArrayList<>(functions.size());
+            for (AggregateFunction function : functions)
+            {
+                mergeFunctions.add(function == null ? null : mergeFunction(function));
+                inputs.add(new ArrayList<>(1));
+            }
+            this.limit = limit;
+            this.perPartitionLimit = perPartitionLimit;
+            this.protocolVersion = protocolVersion;
+        }
+
+        /**
+         * The counts are merged by summing them, and the sums, mins and maxs by applying the same function again.
+         */
+        private AggregateFunction mergeFunction(AggregateFunction function)
+        {
+            switch (function.name().name)
+            {
+                case "countRows":
+                case "count":
+                    return AggregateFcts.sumFunctionForLong;
+                default:
+                    return function;
+            }
+        }
+
+        /**
+         * Adds the groups of a page of a partition.
+         *
+         * @param partitionKey the key of the partition the page belongs to
+         * @param result the aggregates of the page
+         * @return {@code true} if the next page of the partition is needed, {@code false} if the limit of groups of
+         * the query, or of the partition, is reached.
+         */
+        public boolean add(DecoratedKey partitionKey, Result result)
+        {
+            if (!partitionKey.equals(this.partitionKey))
+            {
+                this.partitionKey = partitionKey;
+                this.partitionGroups = 0;
+            }
+
+            for (Group page : result.groups)
+            {
+                if (groupMaker.isNewGroup(partitionKey, page.clustering) || group == null)
+                {
+                    if (group != null)
+                        rows.add(group.values(protocolVersion));
+                    group = null;
+
+                    if (isDone() || partitionGroups >= perPartitionLimit)
+                        return false;
+
+                    group = new Accumulator(mergeFunctions);
+                    partitionGroups++;
+                }
+
+                for (int i = 0, m = inputs.size(); i < m; i++)
+                {
+                    List<ByteBuffer> input = inputs.get(i);
+                    input.clear();
+                    input.add(page.values.get(i));
+                }
+                group.add(protocolVersion, inputs);
+            }
+            return true;
+        }
+
+        /**
+         * Checks if the limit of groups of the query is reached, in which case no more pages are needed.
+         */
+        public boolean isDone()
+        {
+            return rows.size() >= limit;
+        }
+
+        /**
+         * Returns the rows of the query, once all the pages are added.
+         */
+        public List<List<ByteBuffer>> rows()
+        {
+            if (group != null)
+                rows.add(group.values(protocolVersion));
+            else if (rows.isEmpty() && groupMaker.returnAtLeastOneRow())
+                rows.add(new Accumulator(mergeFunctions).values(protocolVersion));
+            group = null;
+            return rows;
+        }
+    }
+
+    public static class Serializer
+    {
+        public void serialize(PartialAggregation aggregation, DataOutputPlus out, int version) throws IOException
+        {
+            AggregationSpecification.serializer.serialize(aggregation.aggregationSpec, out, version);
+            out.writeUnsignedVInt(aggregation.functions.size());
+            for (int i = 0, m = aggregation.functions.size(); i < m; i++)
+            {
+                AggregateFunction function = aggregation.functions.get(i);
+                out.writeBoolean(function != null);
+                if (function != null)
+                {
+                    out.writeUTF(function.name().keyspace);
+                    out.writeUTF(function.name().name);
+
+                    List<AbstractType<?>> argTypes = function.argTypes();
+                    out.writeUnsignedVInt(argTypes.size());
+                    for (AbstractType<?> argType : argTypes)
+                        out.writeUTF(argType.asCQL3Type().toString());
+                }
+
+                ColumnMetadata argument = aggregation.arguments.get(i);
+                if (argument != null)
+                    ByteBufferUtil.writeWithVIntLength(argument.name.bytes, out);
+            }
+            out.writeBoolean(aggregation.includeStaticOnlyPartitions);
+        }
+
+        public PartialAggregation deserialize(DataInputPlus in, int version, TableMetadata metadata) throws IOException
+        {
+            AggregationSpecification aggregationSpec = AggregationSpecification.serializer.deserialize(in, version, metadata);
+            int size = (int) in.readUnsignedVInt();
+            List<AggregateFunction> functions = new ArrayList<>(size);
+            List<ColumnMetadata> arguments = new ArrayList<>(size);
+            for (int i = 0; i < size; i++)
+            {
+                if (!in.readBoolean())
+                {
+                    functions.add(null);
+                    arguments.add(deserializeColumn(in, metadata));
+                    continue;
+                }
+
+                FunctionName name = new FunctionName(in.readUTF(), in.readUTF());
+
+                int numberOfArguments = (int) in.readUnsignedVInt();
+                List<AbstractType<?>> argTypes = new ArrayList<>(numberOfArguments);
+                for (int j = 0; j < numberOfArguments; j++)
+                    argTypes.add(CQLTypeParser.parse(metadata.keyspace, in.readUTF(), Types.none()));
+
+                Optional<Function> function = Schema.instance.findFunction(name, argTypes);
+                if (!function.isPresent() || !function.get().isAggregate())
+                    throw new IOException(String.format("Unknown serialized aggregate function %s%s", name, argTypes));
+                functions.add((AggregateFunction) function.get());
+                arguments.add(numberOfArguments == 0 ? null : deserializeColumn(in, metadata));
+            }
+            return new PartialAggregation(aggregationSpec, functions, arguments, in.readBoolean());
+        }
+
+        private static ColumnMetadata deserializeColumn(DataInputPlus in, TableMetadata metadata) throws IOException
+        {
+            ByteBuffer columnName = ByteBufferUtil.readWithVIntLength(in);
+            ColumnMetadata column = metadata.getColumn(columnName);
+            if (column == null)
+                throw new IOException(String.format("Unknown serialized column %s in %s",
+                                                    ByteBufferUtil.bytesToHex(columnName),
+                                                    metadata));
+            return column;
+        }
+
+        public long serializedSize(PartialAggregation aggregation, int version)
+        {
+            long size = AggregationSpecification.serializer.serializedSize(aggregation.aggregationSpec, version);
+            size += TypeSizes.sizeofUnsignedVInt(aggregation.functions.size());
+            for (int i = 0, m = aggregation.functions.size(); i < m; i++)
+            {
+                AggregateFunction function = aggregation.functions.get(i);
+                size += TypeSizes.sizeof(function != null);
+                if (function != null)
+                {
+                    size += TypeSizes.sizeof(function.name().keyspace);
+                    size += TypeSizes.sizeof(function.name().name);
+
+                    List<AbstractType<?>> argTypes = function.argTypes();
+                    size += TypeSizes.sizeofUnsignedVInt(argTypes.size());
+                    for (AbstractType<?> argType : argTypes)
+                        size += TypeSizes.sizeof(argType.asCQL3Type().toString());
+                }
+
+                ColumnMetadata argument = aggregation.arguments.get(i);
+                if (argument != null)
+                    size += ByteBufferUtil.serializedSizeWithVIntLength(argument.name.bytes);
+            }
+            return size + TypeSizes.sizeof(aggregation.includeStaticOnlyPartitions);
+        }
+    }
+}
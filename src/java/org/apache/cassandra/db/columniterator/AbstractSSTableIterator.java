@@ -54,6 +54,10 @@ public abstract class AbstractSSTableIterator implements UnfilteredRowIterator
 
     protected final Slices slices;
 
+    // The slice the reader is set for, and the last item returned from it, if any
+    private Slice currentSlice;
+    private Unfiltered lastReturned;
+
     @SuppressWarnings("resource") // We need this because the analysis is not able to determine that we do close
                                   // file on every path where we created it.
     protected AbstractSSTableIterator(SSTableReader sstable,
@@ -142,7 +146,8 @@ public abstract class AbstractSSTableIterator implements UnfilteredRowIterator
 
     private Slice nextSlice()
     {
-        return slices.get(nextSliceIndex());
+        currentSlice = slices.get(nextSliceIndex());
+        return currentSlice;
     }
 
     /**
@@ -234,7 +239,45 @@ public abstract class AbstractSSTableIterator implements UnfilteredRowIterator
     public Unfiltered next()
     {
         assert reader != null;
-        return reader.next();
+        lastReturned = reader.next();
+        return lastReturned;
+    }
+
+    /**
+     * Skips the content of the current slice that sorts before the provided bound, if it is after the last returned
+     * item, without deserializing it and using the row index to seek past the index blocks it covers.
+     * <p>
+     * The range tombstone markers skipped are not returned, so this is only meant for content that is known to be
+     * shadowed, and is only done when no range tombstone is open (so the stream returned stays well-formed) and in
+     * forward order. Should be called between a {@link #next()} and the following {@link #hasNext()}.
+     *
+     * @return whether content before the bound was skipped
+     */
+    public boolean skipTo(ClusteringBound<?> bound)
+    {
+        if (reader == null || currentSlice == null || isReverseOrder() || reader.openMarker != null)
+            return false;
+
+        if (metadata.comparator.compare(bound, lastReturned == null ? currentSlice.start() : lastReturned) <= 0)
+            return false;
+
+        try
+        {
+            return reader.skipTo(bound);
+        }
+        catch (IOException e)
+        {
+            try
+            {
+                closeInternal();
+            }
+            catch (IOException suppressed)
+            {
+                e.addSuppressed(suppressed);
+            }
+            sstable.markSuspect();
+            throw new CorruptSSTableException(e, reader.file.getPath());
+        }
     }
 
     private void slice(Slice slice)
@@ -380,6 +423,13 @@ public abstract class AbstractSSTableIterator implements UnfilteredRowIterator
         // Set the reader so its hasNext/next methods return values within the provided slice
         public abstract void setForSlice(Slice slice) throws IOException;
 
+        // Skip the content of the current slice before the provided bound, which is after the last returned value,
+        // if supported. Only called when no range tombstone is open.
+        public boolean skipTo(ClusteringBound<?> bound) throws IOException
+        {
+            return false;
+        }
+
         protected abstract boolean hasNextInternal() throws IOException;
         protected abstract Unfiltered nextInternal() throws IOException;
 
@@ -98,6 +98,21 @@ public class SSTableIterator extends AbstractSSTableIterator
             next = null;
         }
 
+        @Override
+        public boolean skipTo(ClusteringBound<?> bound) throws IOException
+        {
+            // the next element is already computed, it is too late to skip it
+            if (next != null || sliceDone)
+                return false;
+
+            // if the bound is past the slice, there is nothing left to return: no range tombstone is open to be closed
+            if (metadata().comparator.compare(bound, end) >= 0)
+                sliceDone = true;
+            else
+                start = bound;
+            return true;
+        }
+
         // Skip all data that comes before the currently set slice.
         // Return what should be returned at the end of this, or null if nothing should.
         private Unfiltered handlePreSliceData() throws IOException
@@ -280,6 +295,25 @@ public class SSTableIterator extends AbstractSSTableIterator
             }
         }
 
+        @Override
+        public boolean skipTo(ClusteringBound<?> bound) throws IOException
+        {
+            if (!super.skipTo(bound))
+                return false;
+            if (sliceDone)
+                return true;
+
+            // Rather than reading through the index blocks before the bound, seek to the first one that may have
+            // content after it. That block may start with a range tombstone opened in a previous one, which we
+            // would then return at the bound.
+            int blockIdx = indexState.findBlockIndex(bound, indexState.currentBlockIdx());
+            if (blockIdx >= indexState.blocksCount())
+                sliceDone = true;
+            else if (blockIdx > indexState.currentBlockIdx())
+                indexState.setToBlock(blockIdx);
+            return true;
+        }
+
         @Override
         protected Unfiltered computeNext() throws IOException
         {
@@ -29,6 +29,12 @@ import org.slf4j.LoggerFactory;
 import org.apache.cassandra.config.Config;
 import org.apache.cassandra.db.*;
 import org.apache.cassandra.db.memtable.Memtable;
+import org.apache.cassandra.db.rows.EncodingStats;
+import org.apache.cassandra.db.rows.RangeTombstoneBoundMarker;
+import org.apache.cassandra.db.rows.RangeTombstoneBoundaryMarker;
+import org.apache.cassandra.db.rows.Row;
+import org.apache.cassandra.db.rows.Rows;
+import org.apache.cassandra.db.rows.Unfiltered;
 import org.apache.cassandra.db.rows.UnfilteredRowIterator;
 import org.apache.cassandra.io.sstable.format.SSTableReader;
 import org.apache.cassandra.io.util.FileDataInput;
@@ -58,6 +64,9 @@ public class CompactionController extends AbstractCompactionController
     private final RateLimiter limiter;
     private final long minTimestamp;
     final Map<SSTableReader, FileDataInput> openDataFiles = new HashMap<>();
+    // the files read to find the min timestamp of the overlapping partitions, distinct from the ones the shadow
+    // sources read as those are still being iterated when tombstones are evaluated
+    final Map<SSTableReader, FileDataInput> openPurgeDataFiles = new HashMap<>();
 
     protected CompactionController(ColumnFamilyStore cfs, int maxValue)
     {
@@ -239,6 +248,9 @@ public class CompactionController extends AbstractCompactionController
      * purgeable; we calculate this by checking whether the deletion time is less than the min timestamp of all SSTables
      * containing his partition and not participating in the compaction. This means there isn't any data in those
      * sstables that might still need to be suppressed by a tombstone at this timestamp.
+     * When the overlapping sstables are read to collect garbage (see {@link TombstoneOption}), we use the min timestamp
+     * of the content of the partition in them instead, so tombstones are purged once nothing older remains in this
+     * partition, even if those sstables hold older data for other partitions.
      */
     @Override
     public LongPredicate getPurgeEvaluator(DecoratedKey key)
@@ -256,7 +268,21 @@ public class CompactionController extends AbstractCompactionController
         {
             if (sstable.maybePresent(key))
             {
-                minTimestampSeen = Math.min(minTimestampSeen, sstable.getMinTimestamp());
+                if (provideTombstoneSources())
+                {
+                    // reading the partition can only lower the min timestamp if the sstable has older data
+                    if (sstable.getMinTimestamp() >= minTimestampSeen)
+                        continue;
+
+                    long partitionMinTimestamp = getPartitionMinTimestamp(sstable, key);
+                    if (partitionMinTimestamp == Long.MAX_VALUE)
+                        continue;
+                    minTimestampSeen = Math.min(minTimestampSeen, partitionMinTimestamp);
+                }
+                else
+                {
+                    minTimestampSeen = Math.min(minTimestampSeen, sstable.getMinTimestamp());
+                }
                 hasTimestamp = true;
             }
         }
@@ -286,6 +312,8 @@ public class CompactionController extends AbstractCompactionController
 
         FileUtils.closeQuietly(openDataFiles.values());
         openDataFiles.clear();
+        FileUtils.closeQuietly(openPurgeDataFiles.values());
+        openPurgeDataFiles.clear();
     }
 
     public boolean compactingRepaired()
@@ -323,6 +351,47 @@ public class CompactionController extends AbstractCompactionController
         return reader.simpleIterator(dfile, key, position, tombstoneOnly);
     }
 
+    /**
+     * @return the min timestamp of the content of the given partition in the given sstable, which is read to find it,
+     * or {@code Long.MAX_VALUE} if the sstable doesn't contain the partition
+     */
+    private long getPartitionMinTimestamp(SSTableReader reader, DecoratedKey key)
+    {
+        if (reader.isMarkedSuspect())
+            return reader.getMinTimestamp();
+
+        RowIndexEntry<?> position = reader.getPosition(key, SSTableReader.Operator.EQ);
+        if (position == null)
+            return Long.MAX_VALUE;
+
+        FileDataInput dfile = openPurgeDataFiles.computeIfAbsent(reader, this::openDataFile);
+        try (UnfilteredRowIterator partition = reader.simpleIterator(dfile, key, position, false))
+        {
+            EncodingStats.Collector collector = new EncodingStats.Collector();
+            collector.update(partition.partitionLevelDeletion());
+            if (!partition.staticRow().isEmpty())
+                Rows.collectStats(partition.staticRow(), collector);
+            while (partition.hasNext())
+            {
+                Unfiltered unfiltered = partition.next();
+                if (unfiltered.isRow())
+                {
+                    Rows.collectStats((Row) unfiltered, collector);
+                }
+                else if (unfiltered instanceof RangeTombstoneBoundaryMarker)
+                {
+                    collector.update(((RangeTombstoneBoundaryMarker) unfiltered).endDeletionTime());
+                    collector.update(((RangeTombstoneBoundaryMarker) unfiltered).startDeletionTime());
+                }
+                else
+                {
+                    collector.update(((RangeTombstoneBoundMarker) unfiltered).deletionTime());
+                }
+            }
+            return collector.get().minTimestamp;
+        }
+    }
+
     /**
      * Is overlapped sstables ignored
      *
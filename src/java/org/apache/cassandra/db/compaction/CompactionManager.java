@@ -39,6 +39,7 @@ import com.google.common.util.concurrent.RateLimiter;
 import com.google.common.util.concurrent.Uninterruptibles;
 
 import org.apache.cassandra.concurrent.ExecutorFactory;
+import org.apache.cassandra.concurrent.ExecutorPlus;
 import org.apache.cassandra.concurrent.WrappedExecutorPlus;
 import org.apache.cassandra.dht.AbstractBounds;
 import org.apache.cassandra.io.util.File;
@@ -126,6 +127,7 @@ public class CompactionManager implements CompactionManagerMBean
 
     private final CompactionExecutor executor = new CompactionExecutor();
     private final ValidationExecutor validationExecutor = new ValidationExecutor();
+    private final ValidationSubrangeExecutor validationSubrangeExecutor = new ValidationSubrangeExecutor();
     private final CompactionExecutor cacheCleanupExecutor = new CacheCleanupExecutor();
     private final CompactionExecutor viewBuildExecutor = new ViewBuildExecutor();
 
@@ -232,6 +234,7 @@ public class CompactionManager implements CompactionManagerMBean
         validationExecutor.shutdown();
         viewBuildExecutor.shutdown();
         cacheCleanupExecutor.shutdown();
+        validationSubrangeExecutor.shutdown();
 
         // interrupt compactions and validations
         for (Holder compactionHolder : active.getCompactions())
@@ -242,7 +245,7 @@ public class CompactionManager implements CompactionManagerMBean
         // wait for tasks to terminate
         // compaction tasks are interrupted above, so it shuold be fairy quick
         // until not interrupted tasks to complete.
-        for (ExecutorService exec : Arrays.asList(executor, validationExecutor, viewBuildExecutor, cacheCleanupExecutor))
+        for (ExecutorService exec : Arrays.asList(executor, validationExecutor, viewBuildExecutor, cacheCleanupExecutor, validationSubrangeExecutor))
         {
             try
             {
@@ -1972,6 +1975,29 @@ public class CompactionManager implements CompactionManagerMBean
         }
     }
 
+    private static class ValidationSubrangeExecutor extends CompactionExecutor
+    {
+        public ValidationSubrangeExecutor()
+        {
+            super(DatabaseDescriptor.getConcurrentValidationSubranges(), "ValidationSubrangeExecutor", Integer.MAX_VALUE);
+        }
+
+        public void adjustPoolSize()
+        {
+            int threads = DatabaseDescriptor.getConcurrentValidationSubranges();
+            if (threads > getCorePoolSize())
+            {
+                setMaximumPoolSize(threads);
+                setCorePoolSize(threads);
+            }
+            else
+            {
+                setCorePoolSize(threads);
+                setMaximumPoolSize(threads);
+            }
+        }
+    }
+
     private static class ViewBuildExecutor extends CompactionExecutor
     {
         public ViewBuildExecutor()
@@ -2095,6 +2121,20 @@ public class CompactionManager implements CompactionManagerMBean
         validationExecutor.adjustPoolSize();
     }
 
+    public void setConcurrentValidationSubranges(int value)
+    {
+        DatabaseDescriptor.setConcurrentValidationSubranges(value);
+        validationSubrangeExecutor.adjustPoolSize();
+    }
+
+    /**
+     * The executor shared by the validations reading their sub-ranges concurrently, see {@code concurrent_validation_subranges}.
+     */
+    public ExecutorPlus validationSubrangeExecutor()
+    {
+        return validationSubrangeExecutor;
+    }
+
     public void setConcurrentViewBuilders(int value)
     {
         if (value > viewBuildExecutor.getCorePoolSize())
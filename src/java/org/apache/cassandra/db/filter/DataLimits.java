@@ -30,6 +30,7 @@ import org.apache.cassandra.db.transform.BasePartitions;
 import org.apache.cassandra.db.transform.BaseRows;
 import org.apache.cassandra.db.transform.StoppingTransformation;
 import org.apache.cassandra.db.transform.Transformation;
+import org.apache.cassandra.io.sstable.metadata.PartitionStatsSketch;
 import org.apache.cassandra.io.util.DataInputPlus;
 import org.apache.cassandra.io.util.DataOutputPlus;
 import org.apache.cassandra.schema.TableMetadata;
@@ -453,10 +454,18 @@ public abstract class DataLimits
 
         public float estimateTotalResults(ColumnFamilyStore cfs)
         {
-            // TODO: we should start storing stats on the number of rows (instead of the number of cells, which
-            // is what getMeanColumns returns)
-            float rowsPerPartition = ((float) cfs.getMeanEstimatedCellPerPartitionCount()) / cfs.metadata().regularColumns().size();
-            return rowsPerPartition * (cfs.estimateKeys());
+            float rowsPerPartition;
+            PartitionStatsSketch.Estimate stats = cfs.estimateTablePartitionStats();
+            if (stats != null && stats.partitions() > 0)
+            {
+                rowsPerPartition = (float) stats.meanRowsPerPartition();
+            }
+            else
+            {
+                // sstables written without partition statistics only record the number of cells per partition
+                rowsPerPartition = ((float) cfs.getMeanEstimatedCellPerPartitionCount()) / cfs.metadata().regularColumns().size();
+            }
+            return Math.min(rowsPerPartition, perPartitionLimit) * (cfs.estimateKeys());
         }
 
         protected class CQLCounter extends Counter
@@ -0,0 +1,406 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.cassandra.db.partitions;
+
+import java.io.IOError;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.NavigableSet;
+
+import com.google.common.primitives.Ints;
+
+import org.apache.cassandra.db.Clustering;
+import org.apache.cassandra.db.DecoratedKey;
+import org.apache.cassandra.db.DeletionTime;
+import org.apache.cassandra.db.RegularAndStaticColumns;
+import org.apache.cassandra.db.Slices;
+import org.apache.cassandra.db.filter.ColumnFilter;
+import org.apache.cassandra.db.rows.AbstractUnfilteredRowIterator;
+import org.apache.cassandra.db.rows.DeserializationHelper;
+import org.apache.cassandra.db.rows.EncodingStats;
+import org.apache.cassandra.db.rows.Row;
+import org.apache.cassandra.db.rows.Rows;
+import org.apache.cassandra.db.rows.Unfiltered;
+import org.apache.cassandra.db.rows.UnfilteredRowIterator;
+import org.apache.cassandra.db.rows.UnfilteredRowIteratorSerializer;
+import org.apache.cassandra.db.rows.UnfilteredRowIterators;
+import org.apache.cassandra.io.util.DataInputBuffer;
+import org.apache.cassandra.io.util.DataOutputPlus;
+import org.apache.cassandra.io.util.Memory;
+import org.apache.cassandra.net.MessagingService;
+import org.apache.cassandra.schema.TableId;
+import org.apache.cassandra.schema.TableMetadata;
+
+/**
+ * A cached partition that stays in its serialized form in off-heap memory.
+ *
+ * The memory holds a flag byte followed by the partition in the {@link CachedPartition#cacheSerializer} format. Only
+ * the partition header (key, static row and serialization header) is decoded when the partition is opened: rows are
+ * decoded straight from the off-heap memory as the returned iterators are consumed, so a cache hit never builds the
+ * whole partition on heap, and a query only decodes the rows it actually reaches.
+ *
+ * Partitions carrying a partition or range deletion, and reversed queries, are served by deserializing the partition
+ * into a {@link CachedBTreePartition}, as those need the deletions to be merged with the rows.
+ *
+ * This class does not own its memory: the cache holding it is responsible for freeing it once no read can be using it
+ * anymore.
+ */
+public class SerializedCachedPartition implements CachedPartition
+{
+    private static final int HAS_DELETIONS = 0x01;
+
+    private static final int VERSION = MessagingService.current_version;
+
+    private final Memory memory;
+    private final TableMetadata metadata;
+    private final boolean hasDeletions;
+
+    private final int cachedLiveRows;
+    private final int rowsWithNonExpiringCells;
+
+    private final UnfilteredRowIteratorSerializer.Header header;
+    private final long rowsOffset;
+
+    private volatile Row lastRow;
+
+    private SerializedCachedPartition(Memory memory,
+                                      TableMetadata metadata,
+                                      boolean hasDeletions,
+                                      int cachedLiveRows,
+                                      int rowsWithNonExpiringCells,
+                                      UnfilteredRowIteratorSerializer.Header header,
+                                      long rowsOffset)
+    {
+        this.memory = memory;
+        this.metadata = metadata;
+        this.hasDeletions = hasDeletions;
+        this.cachedLiveRows = cachedLiveRows;
+        this.rowsWithNonExpiringCells = rowsWithNonExpiringCells;
+        this.header = header;
+        this.rowsOffset = rowsOffset;
+    }
+
+    public static long serializedSize(CachedPartition partition)
+    {
+        return 1 + cacheSerializer.serializedSize(partition);
+    }
+
+    public static void serialize(CachedPartition partition, DataOutputPlus out) throws IOException
+    {
+        out.writeByte(hasDeletions(partition) ? HAS_DELETIONS : 0);
+        cacheSerializer.serialize(partition, out);
+    }
+
+    private static boolean hasDeletions(CachedPartition partition)
+    {
+        if (!partition.partitionLevelDeletion().isLive())
+            return true;
+
+        if (partition instanceof AbstractBTreePartition)
+            return ((AbstractBTreePartition) partition).deletionInfo().hasRanges();
+
+        try (UnfilteredRowIterator iter = partition.unfilteredIterator())
+        {
+            while (iter.hasNext())
+            {
+                if (iter.next().isRangeTombstoneMarker())
+                    return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Opens a partition serialized by {@link #serialize}, decoding only its header.
+     */
+    public static SerializedCachedPartition open(Memory memory, TableMetadata metadata) throws IOException
+    {
+        try (DataInputBuffer in = new DataInputBuffer(buffer(memory, 0), false))
+        {
+            boolean hasDeletions = (in.readUnsignedByte() & HAS_DELETIONS) != 0;
+            in.readInt(); // createdAtInSec
+            int cachedLiveRows = in.readInt();
+            int rowsWithNonExpiringCells = in.readInt();
+            TableId.deserialize(in);
+
+            UnfilteredRowIteratorSerializer.Header header = UnfilteredRowIteratorSerializer.serializer.deserializeHeader(metadata, null, in, VERSION, DeserializationHelper.Flag.LOCAL);
+            assert !header.isReversed && header.rowEstimate >= 0;
+
+            return new SerializedCachedPartition(memory,
+                                                 metadata,
+                                                 hasDeletions,
+                                                 cachedLiveRows,
+                                                 rowsWithNonExpiringCells,
+                                                 header,
+                                                 memory.size() - in.available());
+        }
+    }
+
+    public TableMetadata metadata()
+    {
+        return metadata;
+    }
+
+    public DecoratedKey partitionKey()
+    {
+        return header.key;
+    }
+
+    public DeletionTime partitionLevelDeletion()
+    {
+        return header.isEmpty ? DeletionTime.LIVE : header.partitionDeletion;
+    }
+
+    public RegularAndStaticColumns columns()
+    {
+        return header.sHeader.columns();
+    }
+
+    public EncodingStats stats()
+    {
+        return header.sHeader.stats();
+    }
+
+    private Row staticRow()
+    {
+        return header.isEmpty ? Rows.EMPTY_STATIC_ROW : header.staticRow;
+    }
+
+    public boolean isEmpty()
+    {
+        return !hasDeletions && !hasRows() && staticRow().isEmpty();
+    }
+
+    public boolean hasRows()
+    {
+        return rowCount() > 0;
+    }
+
+    public int rowCount()
+    {
+        return header.isEmpty ? 0 : header.rowEstimate;
+    }
+
+    public int cachedLiveRows()
+    {
+        return cachedLiveRows;
+    }
+
+    public int rowsWithNonExpiringCells()
+    {
+        return rowsWithNonExpiringCells;
+    }
+
+    public Row getRow(Clustering<?> clustering)
+    {
+        if (hasDeletions)
+            return deserialize().getRow(clustering);
+
+        try (UnfilteredRowIterator iter = serializedIterator())
+        {
+            while (iter.hasNext())
+            {
+                Row row = (Row) iter.next();
+                int cmp = metadata.comparator.compare(row.clustering(), clustering);
+                if (cmp == 0)
+                    return row;
+                if (cmp > 0)
+                    break;
+            }
+        }
+        return null;
+    }
+
+    public Row lastRow()
+    {
+        if (!hasRows())
+            return null;
+
+        Row row = lastRow;
+        if (row == null)
+        {
+            try (UnfilteredRowIterator iter = serializedIterator())
+            {
+                while (iter.hasNext())
+                {
+                    Unfiltered unfiltered = iter.next();
+                    if (unfiltered.isRow())
+                        row = (Row) unfiltered;
+                }
+            }
+            lastRow = row;
+        }
+        return row;
+    }
+
+    public UnfilteredRowIterator unfilteredIterator()
+    {
+        return unfilteredIterator(ColumnFilter.selection(columns()), Slices.ALL, false);
+    }
+
+    public UnfilteredRowIterator unfilteredIterator(ColumnFilter selection, Slices slices, boolean reversed)
+    {
+        if (hasDeletions || reversed)
+            return deserialize().unfilteredIterator(selection, slices, reversed);
+
+        Row staticRow = staticRow(selection);
+        if (slices.size() == 0)
+            return UnfilteredRowIterators.noRowsIterator(metadata, partitionKey(), staticRow, DeletionTime.LIVE, false);
+
+        Slices.InOrderTester tester = slices.inOrderTester(false);
+        return new FilteringIterator(selection, staticRow)
+        {
+            protected boolean isDone()
+            {
+                return tester.isDone();
+            }
+
+            protected boolean includes(Clustering<?> clustering)
+            {
+                return tester.includes(clustering);
+            }
+        };
+    }
+
+    public UnfilteredRowIterator unfilteredIterator(ColumnFilter selection, NavigableSet<Clustering<?>> clusteringsInQueryOrder, boolean reversed)
+    {
+        if (hasDeletions || reversed)
+            return deserialize().unfilteredIterator(selection, clusteringsInQueryOrder, reversed);
+
+        Row staticRow = staticRow(selection);
+        if (clusteringsInQueryOrder.isEmpty())
+            return UnfilteredRowIterators.noRowsIterator(metadata, partitionKey(), staticRow, DeletionTime.LIVE, false);
+
+        Clustering<?> last = clusteringsInQueryOrder.last();
+        return new FilteringIterator(selection, staticRow)
+        {
+            private boolean done;
+
+            protected boolean isDone()
+            {
+                return done;
+            }
+
+            protected boolean includes(Clustering<?> clustering)
+            {
+                int cmp = metadata.comparator.compare(clustering, last);
+                done = cmp >= 0;
+                return cmp == 0 || (cmp < 0 && clusteringsInQueryOrder.contains(clustering));
+            }
+        };
+    }
+
+    private Row staticRow(ColumnFilter selection)
+    {
+        Row staticRow = staticRow();
+        if (selection.fetchedColumns().statics.isEmpty() || staticRow.isEmpty())
+            return Rows.EMPTY_STATIC_ROW;
+
+        Row row = staticRow.filter(selection, DeletionTime.LIVE, false, metadata);
+        return row == null ? Rows.EMPTY_STATIC_ROW : row;
+    }
+
+    /**
+     * @return an iterator over the unfiltered of the partition, decoded from the off-heap memory as they are consumed
+     */
+    @SuppressWarnings("resource") // the input only wraps the memory, there is nothing to release
+    private UnfilteredRowIterator serializedIterator()
+    {
+        DataInputBuffer in = new DataInputBuffer(buffer(memory, rowsOffset), false);
+        try
+        {
+            return UnfilteredRowIteratorSerializer.serializer.deserialize(in, VERSION, metadata, DeserializationHelper.Flag.LOCAL, header);
+        }
+        catch (IOException e)
+        {
+            throw new IOError(e);
+        }
+    }
+
+    /**
+     * @return a buffer sharing the memory from {@code offset} to its end
+     */
+    private static ByteBuffer buffer(Memory memory, long offset)
+    {
+        return memory.asByteBuffer(offset, Ints.checkedCast(memory.size() - offset)).order(ByteOrder.BIG_ENDIAN);
+    }
+
+    /**
+     * @return the partition fully deserialized on heap
+     */
+    private CachedPartition deserialize()
+    {
+        try (DataInputBuffer in = new DataInputBuffer(buffer(memory, 1), false))
+        {
+            return cacheSerializer.deserialize(in);
+        }
+        catch (IOException e)
+        {
+            throw new IOError(e);
+        }
+    }
+
+    /**
+     * Iterates the rows of the partition selected by a filter, in clustering order. This is only used for partitions
+     * without deletions, for which the serialized form contains nothing but rows.
+     */
+    private abstract class FilteringIterator extends AbstractUnfilteredRowIterator
+    {
+        private final ColumnFilter selection;
+        private final UnfilteredRowIterator rows;
+
+        private FilteringIterator(ColumnFilter selection, Row staticRow)
+        {
+            super(SerializedCachedPartition.this.metadata,
+                  SerializedCachedPartition.this.partitionKey(),
+                  DeletionTime.LIVE,
+                  selection.fetchedColumns(),
+                  staticRow,
+                  false,
+                  SerializedCachedPartition.this.stats());
+            this.selection = selection;
+            this.rows = serializedIterator();
+        }
+
+        protected abstract boolean isDone();
+
+        protected abstract boolean includes(Clustering<?> clustering);
+
+        protected Unfiltered computeNext()
+        {
+            while (!isDone() && rows.hasNext())
+            {
+                Row row = (Row) rows.next();
+                if (!includes(row.clustering()))
+                    continue;
+
+                Row filtered = row.filter(selection, metadata);
+                if (filtered != null)
+                    return filtered;
+            }
+            return endOfData();
+        }
+
+        @Override
+        public void close()
+        {
+            rows.close();
+        }
+    }
+}
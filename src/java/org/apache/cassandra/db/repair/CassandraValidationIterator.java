@@ -19,24 +19,41 @@
 package org.apache.cassandra.db.repair;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.ArrayDeque;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.function.LongPredicate;
 
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Preconditions;
 import com.google.common.collect.Collections2;
+import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import org.apache.cassandra.concurrent.ExecutorPlus;
+import org.apache.cassandra.config.DatabaseDescriptor;
 import org.apache.cassandra.db.ColumnFamilyStore;
 import org.apache.cassandra.db.DecoratedKey;
+import org.apache.cassandra.db.EmptyIterators;
+import org.apache.cassandra.db.PartitionPosition;
 import org.apache.cassandra.db.compaction.AbstractCompactionStrategy;
 import org.apache.cassandra.db.compaction.ActiveCompactionsTracker;
 import org.apache.cassandra.db.compaction.CompactionController;
@@ -47,20 +64,33 @@ import org.apache.cassandra.db.compaction.OperationType;
 import org.apache.cassandra.db.lifecycle.SSTableSet;
 import org.apache.cassandra.db.lifecycle.View;
 import org.apache.cassandra.db.rows.UnfilteredRowIterator;
+import org.apache.cassandra.dht.AbstractBounds;
 import org.apache.cassandra.dht.Bounds;
 import org.apache.cassandra.dht.Range;
 import org.apache.cassandra.dht.Token;
 import org.apache.cassandra.io.sstable.ISSTableScanner;
+import org.apache.cassandra.io.sstable.PartitionHashes;
 import org.apache.cassandra.io.sstable.format.SSTableReader;
+import org.apache.cassandra.io.util.FileUtils;
 import org.apache.cassandra.metrics.TopPartitionTracker;
 import org.apache.cassandra.repair.ValidationPartitionIterator;
+import org.apache.cassandra.repair.Validator;
 import org.apache.cassandra.schema.TableMetadata;
 import org.apache.cassandra.service.ActiveRepairService;
 import org.apache.cassandra.repair.NoSuchRepairSessionException;
+import org.apache.cassandra.utils.AbstractIterator;
+import org.apache.cassandra.utils.MergeIterator;
+import org.apache.cassandra.utils.MerkleTree;
+import org.apache.cassandra.utils.Throwables;
 import org.apache.cassandra.utils.TimeUUID;
+import org.apache.cassandra.utils.concurrent.Condition;
 import org.apache.cassandra.utils.concurrent.Refs;
+import org.apache.cassandra.utils.concurrent.UncheckedInterruptedException;
 
+import static org.apache.cassandra.utils.Clock.Global.nanoTime;
 import static org.apache.cassandra.utils.TimeUUID.Generator.nextTimeUUID;
+import static org.apache.cassandra.utils.concurrent.BlockingQueues.newBlockingQueue;
+import static org.apache.cassandra.utils.concurrent.Condition.newOneTimeCondition;
 
 public class CassandraValidationIterator extends ValidationPartitionIterator
 {
@@ -112,6 +142,659 @@ public class CassandraValidationIterator extends ValidationPartitionIterator
         }
     }
 
+    /**
+     * Iterates over the partitions to validate, some of which are returned with their hash already computed, in which
+     * case the returned partition is empty (see {@link ValidationPartitionIterator#precomputedHash()}).
+     */
+    private static abstract class PrecomputedHashIterator extends AbstractIterator<UnfilteredRowIterator>
+    {
+        private final TableMetadata metadata;
+
+        private MerkleTree.RowHash nextHash;
+        private MerkleTree.RowHash lastHash;
+
+        PrecomputedHashIterator(TableMetadata metadata)
+        {
+            this.metadata = metadata;
+        }
+
+        UnfilteredRowIterator precomputed(DecoratedKey key, MerkleTree.RowHash hash)
+        {
+            nextHash = hash;
+            return EmptyIterators.unfilteredRow(metadata, key, false);
+        }
+
+        UnfilteredRowIterator partition(UnfilteredRowIterator partition)
+        {
+            nextHash = null;
+            return partition;
+        }
+
+        @Override
+        public UnfilteredRowIterator next()
+        {
+            UnfilteredRowIterator next = super.next();
+            lastHash = nextHash;
+            return next;
+        }
+
+        MerkleTree.RowHash precomputedHash()
+        {
+            return lastHash;
+        }
+
+        abstract long getBytesRead();
+
+        public abstract void close();
+    }
+
+    /**
+     * Iterates over the partitions to validate using the {@link PartitionHashes} of the sstables: a partition present
+     * in a single sstable and free of tombstones and TTLs is returned with its recorded hash, and only the other
+     * partitions are read.
+     *
+     * The partitions are processed in batches of {@link #BATCH_SIZE}: the partitions of a batch that need to be read
+     * are read by a single validation compaction, over a scanner per sstable restricted to the partitions it holds
+     * amongst them, consecutive partitions of an sstable being scanned as a single range.
+     */
+    private static class PartitionHashMerger extends PrecomputedHashIterator
+    {
+        private static final int BATCH_SIZE = 1024;
+
+        private final ValidationCompactionController controller;
+        private final int nowInSec;
+        private final TopPartitionTracker.Collector topPartitionCollector;
+
+        private final List<PartitionHashes.Reader> readers;
+        private final MergeIterator<PartitionHashes.Entry, Merged> merged;
+
+        private final Deque<Merged> batch = new ArrayDeque<>(BATCH_SIZE);
+        private List<ISSTableScanner> batchScanners;
+        private CompactionIterator batchIterator;
+        // the next partition read by the batch compaction, not returned yet
+        private UnfilteredRowIterator nextRead;
+        private long batchBytesRead;
+
+        /**
+         * @return a merger over the partition hashes of {@code sstables}, or {@code null} if some of them do not have
+         * usable partition hashes
+         */
+        static PartitionHashMerger open(ColumnFamilyStore cfs,
+                                        Collection<SSTableReader> sstables,
+                                        Collection<Range<Token>> ranges,
+                                        ValidationCompactionController controller,
+                                        int nowInSec,
+                                        TopPartitionTracker.Collector topPartitionCollector)
+        {
+            List<SSTableReader> sources = new ArrayList<>(sstables.size());
+            List<PartitionHashes.Reader> readers = new ArrayList<>(sstables.size());
+            try
+            {
+                for (SSTableReader sstable : sstables)
+                {
+                    if (!sstable.hasPartitionHashes())
+                    {
+                        FileUtils.closeQuietly(readers);
+                        return null;
+                    }
+
+                    PartitionHashes.Reader reader = sstable.openPartitionHashes(ranges);
+                    readers.add(reader);
+                    sources.add(sstable);
+                    if (!reader.matches(cfs.metadata().regularAndStaticColumns()))
+                    {
+                        FileUtils.closeQuietly(readers);
+                        return null;
+                    }
+                }
+            }
+            catch (Exception e)
+            {
+                logger.warn("Unable to read partition hashes of {}.{}, validating all the data", cfs.keyspace.getName(), cfs.getTableName(), e);
+                FileUtils.closeQuietly(readers);
+                return null;
+            }
+            return new PartitionHashMerger(cfs, sources, readers, controller, nowInSec, topPartitionCollector);
+        }
+
+        private PartitionHashMerger(ColumnFamilyStore cfs,
+                                    List<SSTableReader> sstables,
+                                    List<PartitionHashes.Reader> readers,
+                                    ValidationCompactionController controller,
+                                    int nowInSec,
+                                    TopPartitionTracker.Collector topPartitionCollector)
+        {
+            super(cfs.metadata());
+            this.controller = controller;
+            this.nowInSec = nowInSec;
+            this.topPartitionCollector = topPartitionCollector;
+            this.readers = readers;
+            this.merged = MergeIterator.get(readers, Comparator.comparing(e -> e.key), new MergeIterator.Reducer<PartitionHashes.Entry, Merged>()
+            {
+                private final List<SSTableReader> holding = new ArrayList<>();
+                private PartitionHashes.Entry entry;
+
+                public void reduce(int idx, PartitionHashes.Entry current)
+                {
+                    holding.add(sstables.get(idx));
+                    entry = current;
+                }
+
+                protected Merged getReduced()
+                {
+                    return new Merged(entry, new ArrayList<>(holding));
+                }
+
+                protected void onKeyChange()
+                {
+                    holding.clear();
+                    entry = null;
+                }
+            });
+        }
+
+        protected UnfilteredRowIterator computeNext()
+        {
+            while (true)
+            {
+                if (batch.isEmpty())
+                {
+                    closeBatch();
+                    if (!nextBatch())
+                        return endOfData();
+                }
+
+                Merged next = batch.poll();
+                if (next.isPrecomputed())
+                    return precomputed(next.entry.key, next.entry.rowHash());
+
+                if (nextRead == null && batchIterator.hasNext())
+                    nextRead = batchIterator.next();
+                // the partitions are read in order, but may have been entirely purged
+                if (nextRead != null && nextRead.partitionKey().equals(next.entry.key))
+                {
+                    UnfilteredRowIterator partition = nextRead;
+                    nextRead = null;
+                    return partition(partition);
+                }
+            }
+        }
+
+        /**
+         * Reads the next batch of partition hashes, and starts the compaction reading the partitions of the batch that
+         * are not precomputed.
+         *
+         * @return whether there was any partition hash left
+         */
+        private boolean nextBatch()
+        {
+            // the ranges to scan in each sstable, and the last partition of the one being extended
+            Map<SSTableReader, List<AbstractBounds<PartitionPosition>>> ranges = new LinkedHashMap<>();
+            Map<SSTableReader, DecoratedKey> rangeStarts = new HashMap<>();
+            Map<SSTableReader, DecoratedKey> rangeEnds = new HashMap<>();
+            while (batch.size() < BATCH_SIZE && merged.hasNext())
+            {
+                Merged next = merged.next();
+                batch.add(next);
+                if (next.isPrecomputed())
+                {
+                    // the partitions read from that sstable are not consecutive anymore
+                    endRange(next.sstables.get(0), ranges, rangeStarts, rangeEnds);
+                    continue;
+                }
+
+                for (SSTableReader sstable : next.sstables)
+                {
+                    rangeStarts.putIfAbsent(sstable, next.entry.key);
+                    rangeEnds.put(sstable, next.entry.key);
+                }
+            }
+            for (SSTableReader sstable : new ArrayList<>(rangeStarts.keySet()))
+                endRange(sstable, ranges, rangeStarts, rangeEnds);
+
+            if (!ranges.isEmpty())
+            {
+                batchScanners = new ArrayList<>(ranges.size());
+                for (Map.Entry<SSTableReader, List<AbstractBounds<PartitionPosition>>> sstableRanges : ranges.entrySet())
+                    batchScanners.add(sstableRanges.getKey().getScanner(sstableRanges.getValue().iterator()));
+                batchIterator = new ValidationCompactionIterator(batchScanners, controller, nowInSec, ActiveCompactionsTracker.NOOP, topPartitionCollector);
+            }
+            return !batch.isEmpty();
+        }
+
+        private static void endRange(SSTableReader sstable,
+                                     Map<SSTableReader, List<AbstractBounds<PartitionPosition>>> ranges,
+                                     Map<SSTableReader, DecoratedKey> rangeStarts,
+                                     Map<SSTableReader, DecoratedKey> rangeEnds)
+        {
+            DecoratedKey start = rangeStarts.remove(sstable);
+            if (start != null)
+                ranges.computeIfAbsent(sstable, s -> new ArrayList<>()).add(new Bounds<>(start, rangeEnds.remove(sstable)));
+        }
+
+        long getBytesRead()
+        {
+            long bytesRead = batchBytesRead;
+            for (PartitionHashes.Reader reader : readers)
+                bytesRead += reader.getBytesRead();
+            return batchIterator == null ? bytesRead : bytesRead + batchIterator.getBytesRead();
+        }
+
+        private void closeBatch()
+        {
+            if (batchIterator == null)
+                return;
+
+            batchBytesRead += batchIterator.getBytesRead();
+            if (nextRead != null)
+                nextRead.close();
+            batchIterator.close();
+            Throwables.maybeFail(Throwables.close(null, batchScanners));
+            nextRead = null;
+            batchIterator = null;
+            batchScanners = null;
+        }
+
+        @Override
+        public void close()
+        {
+            closeBatch();
+            Throwables.maybeFail(Throwables.close(null, readers));
+        }
+
+        private static class Merged
+        {
+            private final PartitionHashes.Entry entry;
+            private final List<SSTableReader> sstables;
+
+            private Merged(PartitionHashes.Entry entry, List<SSTableReader> sstables)
+            {
+                this.entry = entry;
+                this.sstables = sstables;
+            }
+
+            private boolean isPrecomputed()
+            {
+                return sstables.size() == 1 && entry.isClean;
+            }
+        }
+    }
+
+    /**
+     * Sets how far ahead of the consumer each sub-range of a parallel validation can get, or resets it if {@code 0}.
+     */
+    @VisibleForTesting
+    public static void setMaxPendingSubrangePartitions(int partitions)
+    {
+        ParallelValidation.maxPendingPartitions = partitions > 0 ? partitions : ParallelValidation.MAX_PENDING_PARTITIONS;
+    }
+
+    /**
+     * Sets the executor running the sub-ranges of parallel validations, or resets it to the compaction manager's if
+     * {@code null}.
+     */
+    @VisibleForTesting
+    public static void setSubrangeExecutor(ExecutorPlus executor)
+    {
+        ParallelValidation.executorOverride = executor;
+    }
+
+    /**
+     * Validates sub-ranges of the ranges to validate concurrently: each sub-range is read by a validation compaction
+     * of its own on the executor shared by the validations, which also computes the partition hashes. The partitions
+     * are then returned in token order, with their hash, so the merkle trees are built exactly as by a sequential
+     * validation.
+     *
+     * At most {@code parallelism} sub-ranges are in progress at any time, and each of them only gets ahead of the
+     * consumer by a bounded number of partitions. A sub-range that got that far ahead gives its thread back, and is
+     * resubmitted once the consumer has caught up, so the sub-ranges of a validation never wait for a thread held by
+     * others that wait for their consumer.
+     *
+     * If the executor is shut down, the sub-ranges that cannot be resubmitted are stopped by the consumer thread, which
+     * then fails the validation.
+     */
+    private static class ParallelValidation extends PrecomputedHashIterator
+    {
+        private static final int MAX_PENDING_PARTITIONS = 1024;
+        private static volatile int maxPendingPartitions = MAX_PENDING_PARTITIONS;
+        private static volatile ExecutorPlus executorOverride;
+        private static final long CLOSE_TIMEOUT_MINUTES = 5;
+        private static final Object END = new Object();
+
+        private final ColumnFamilyStore cfs;
+        private final Collection<SSTableReader> sstables;
+        private final int gcBefore;
+        private final int nowInSec;
+        private final TopPartitionTracker.Collector topPartitionCollector;
+
+        private final ExecutorPlus executor;
+        private final Iterator<Range<Token>> subranges;
+        private final Deque<Subrange> running = new ArrayDeque<>();
+        private long completedBytesRead;
+
+        ParallelValidation(ColumnFamilyStore cfs,
+                           Collection<SSTableReader> sstables,
+                           List<Range<Token>> subranges,
+                           int parallelism,
+                           int gcBefore,
+                           int nowInSec,
+                           TopPartitionTracker.Collector topPartitionCollector)
+        {
+            super(cfs.metadata());
+            this.cfs = cfs;
+            this.sstables = sstables;
+            this.gcBefore = gcBefore;
+            this.nowInSec = nowInSec;
+            this.topPartitionCollector = topPartitionCollector;
+            this.subranges = subranges.iterator();
+            ExecutorPlus executor = executorOverride;
+            this.executor = executor != null ? executor : CompactionManager.instance.validationSubrangeExecutor();
+            try
+            {
+                for (int i = 0; i < parallelism; i++)
+                    submitNext();
+            }
+            catch (Throwable t)
+            {
+                close();
+                throw t;
+            }
+        }
+
+        private void submitNext()
+        {
+            if (!subranges.hasNext())
+                return;
+
+            Subrange subrange = new Subrange(subranges.next());
+            executor.execute(subrange);
+            running.add(subrange);
+        }
+
+        protected UnfilteredRowIterator computeNext()
+        {
+            while (!running.isEmpty())
+            {
+                Subrange head = running.peek();
+                Object next;
+                try
+                {
+                    next = head.queue.take();
+                }
+                catch (InterruptedException e)
+                {
+                    throw new UncheckedInterruptedException(e);
+                }
+
+                if (next instanceof HashedPartition)
+                {
+                    head.maybeResume();
+                    return precomputed(((HashedPartition) next).key, ((HashedPartition) next).hash);
+                }
+
+                running.poll();
+                completedBytesRead += head.bytesRead;
+                if (next != END)
+                    throw Throwables.unchecked((Throwable) next);
+                submitNext();
+            }
+            return endOfData();
+        }
+
+        long getBytesRead()
+        {
+            long bytesRead = completedBytesRead;
+            for (Subrange subrange : running)
+                bytesRead += subrange.bytesRead;
+            return bytesRead;
+        }
+
+        @Override
+        public void close()
+        {
+            for (Subrange subrange : running)
+                subrange.abort();
+
+            // the sstables must not be released before the sub-range scanners are closed, and we cannot interrupt the
+            // validation threads as this would close the channels of the sstables they read from
+            long deadline = nanoTime() + TimeUnit.MINUTES.toNanos(CLOSE_TIMEOUT_MINUTES);
+            for (Subrange subrange : running)
+            {
+                if (!subrange.closed.awaitUntilUninterruptibly(deadline))
+                    throw new IllegalStateException(String.format("Timed out after %d minutes waiting for the validation of sub-range %s of %s.%s to stop, its sstables are not released",
+                                                                  CLOSE_TIMEOUT_MINUTES, subrange.range, cfs.keyspace.getName(), cfs.getTableName()));
+            }
+        }
+
+        private class Subrange implements Runnable
+        {
+            private final Range<Token> range;
+            private final BlockingQueue<Object> queue = newBlockingQueue(maxPendingPartitions);
+            // signalled once the scanners of the sub-range are closed
+            private final Condition closed = newOneTimeCondition();
+            // set while the sub-range waits for the consumer without a thread, cleared by whoever resumes it
+            private final AtomicBoolean parked = new AtomicBoolean();
+            private volatile long bytesRead;
+            private volatile boolean aborted;
+
+            // only accessed by the thread running the sub-range, or by the consumer once it could not resubmit it
+            private final List<AutoCloseable> resources = new ArrayList<>(3);
+            private CompactionIterator ci;
+            private Object next;
+
+            private Subrange(Range<Token> range)
+            {
+                this.range = range;
+            }
+
+            public void run()
+            {
+                while (!aborted)
+                {
+                    if (next == null)
+                        next = computeNext();
+
+                    if (!queue.offer(next))
+                    {
+                        if (park())
+                            return;
+                        continue;
+                    }
+
+                    // the end of the sub-range (or its failure) is the last item handed to the consumer
+                    if (!(next instanceof HashedPartition))
+                        return;
+                    next = null;
+                }
+                closeResourcesQuietly();
+            }
+
+            /**
+             * @return the next hashed partition of the sub-range, or {@link #END} or the failure that ended it, in which
+             * case the scanners of the sub-range are closed already
+             */
+            private Object computeNext()
+            {
+                try
+                {
+                    if (ci == null)
+                    {
+                        AbstractCompactionStrategy.ScannerList scanners = cfs.getCompactionStrategyManager().getScanners(sstables, Collections.singleton(range));
+                        resources.add(scanners);
+                        ValidationCompactionController controller = new ValidationCompactionController(cfs, gcBefore);
+                        resources.add(controller);
+                        ci = new ValidationCompactionIterator(scanners.scanners, controller, nowInSec, CompactionManager.instance.active, topPartitionCollector);
+                        resources.add(ci);
+                    }
+
+                    while (!aborted && ci.hasNext())
+                    {
+                        HashedPartition hashed = null;
+                        try (UnfilteredRowIterator partition = ci.next())
+                        {
+                            MerkleTree.RowHash hash = Validator.hash(partition);
+                            if (hash != null)
+                                hashed = new HashedPartition(partition.partitionKey(), hash);
+                        }
+                        bytesRead = ci.getBytesRead();
+                        if (hashed != null)
+                            return hashed;
+                    }
+                    closeResources();
+                    return END;
+                }
+                catch (Throwable t)
+                {
+                    t = Throwables.close(t, Lists.reverse(resources));
+                    resources.clear();
+                    closed.signalAll();
+                    return t;
+                }
+            }
+
+            private void closeResourcesQuietly()
+            {
+                try
+                {
+                    closeResources();
+                }
+                catch (Throwable t)
+                {
+                    logger.warn("Failed to close the validation of sub-range {} of {}.{}", range, cfs.keyspace.getName(), cfs.getTableName(), t);
+                }
+            }
+
+            private void closeResources()
+            {
+                try
+                {
+                    Throwables.maybeFail(Throwables.close(null, Lists.reverse(resources)));
+                }
+                finally
+                {
+                    resources.clear();
+                    closed.signalAll();
+                }
+            }
+
+            /**
+             * Gives the thread back until the consumer has caught up, unless it did in the meantime or the validation
+             * was aborted.
+             *
+             * @return whether the sub-range is parked, and will be resubmitted by the consumer
+             */
+            private boolean park()
+            {
+                parked.set(true);
+                return !((aborted || queue.size() <= maxPendingPartitions / 2) && parked.compareAndSet(true, false));
+            }
+
+            /**
+             * Resubmits the sub-range if it is parked and the consumer has caught up.
+             */
+            private void maybeResume()
+            {
+                if (queue.size() <= maxPendingPartitions / 2 && parked.compareAndSet(true, false))
+                    resume();
+            }
+
+            private void abort()
+            {
+                aborted = true;
+                // a parked sub-range needs a thread to close its scanners
+                if (parked.compareAndSet(true, false))
+                    resume();
+            }
+
+            /**
+             * Resubmits the parked sub-range, or stops it on the calling thread if the executor is shut down, in which
+             * case the failure is handed to the consumer.
+             */
+            private void resume()
+            {
+                try
+                {
+                    executor.execute(this);
+                }
+                catch (RejectedExecutionException e)
+                {
+                    aborted = true;
+                    closeResourcesQuietly();
+                    // the consumer only resumes the sub-range once it has room for more items
+                    queue.offer(e);
+                }
+            }
+        }
+
+        private static class HashedPartition
+        {
+            private final DecoratedKey key;
+            private final MerkleTree.RowHash hash;
+
+            private HashedPartition(DecoratedKey key, MerkleTree.RowHash hash)
+            {
+                this.key = key;
+                this.hash = hash;
+            }
+        }
+    }
+
+    /**
+     * Splits the provided ranges in token-ordered sub-ranges for a parallel validation, holding roughly the same amount
+     * of data each. The sub-range bounds are picked from a uniform sample of the index summary keys of the sstables,
+     * which works for all partitioners and follows the actual data distribution.
+     *
+     * @return about {@code parts} sub-ranges, or the normalized ranges if there are at least as many of them
+     */
+    @VisibleForTesting
+    static List<Range<Token>> splitForParallelValidation(Collection<SSTableReader> sstables, Collection<Range<Token>> ranges, int parts)
+    {
+        List<Range<Token>> normalized = Range.normalize(ranges);
+        if (normalized.size() >= parts)
+            return normalized;
+
+        int partsPerRange = (parts + normalized.size() - 1) / normalized.size();
+        int sampleSize = partsPerRange * 16;
+        List<Range<Token>> subranges = new ArrayList<>(parts);
+        for (Range<Token> range : normalized)
+        {
+            // reservoir sampling, as the number of keys in the summaries can be large
+            List<Token> sample = new ArrayList<>(sampleSize);
+            long seen = 0;
+            for (SSTableReader sstable : sstables)
+            {
+                for (DecoratedKey key : sstable.getKeySamples(range))
+                {
+                    seen++;
+                    if (sample.size() < sampleSize)
+                    {
+                        sample.add(key.getToken());
+                    }
+                    else
+                    {
+                        long index = ThreadLocalRandom.current().nextLong(seen);
+                        if (index < sampleSize)
+                            sample.set((int) index, key.getToken());
+                    }
+                }
+            }
+            Collections.sort(sample);
+
+            Token left = range.left;
+            for (int i = 1; i < partsPerRange && !sample.isEmpty(); i++)
+            {
+                Token right = sample.get(i * sample.size() / partsPerRange);
+                if (right.compareTo(left) > 0 && (range.right.isMinimum() || right.compareTo(range.right) < 0))
+                {
+                    subranges.add(new Range<>(left, right));
+                    left = right;
+                }
+            }
+            subranges.add(new Range<>(left, range.right));
+        }
+        return subranges;
+    }
+
     @VisibleForTesting
     public static synchronized Refs<SSTableReader> getSSTablesToValidate(ColumnFamilyStore cfs, Collection<Range<Token>> ranges, TimeUUID parentId, boolean isIncremental) throws NoSuchRepairSessionException
     {
@@ -168,6 +851,7 @@ public class CassandraValidationIterator extends ValidationPartitionIterator
     private final ValidationCompactionController controller;
 
     private final CompactionIterator ci;
+    private final PrecomputedHashIterator partitions;
 
     private final long estimatedBytes;
     private final long estimatedPartitions;
@@ -217,9 +901,38 @@ public class CassandraValidationIterator extends ValidationPartitionIterator
                     cfs.keyspace.getName(),
                     cfs.getTableName());
 
-        controller = new ValidationCompactionController(cfs, getDefaultGcBefore(cfs, nowInSec));
-        scanners = cfs.getCompactionStrategyManager().getScanners(sstables, ranges);
-        ci = new ValidationCompactionIterator(scanners.scanners, controller, nowInSec, CompactionManager.instance.active, topPartitionCollector);
+        int gcBefore = getDefaultGcBefore(cfs, nowInSec);
+        controller = new ValidationCompactionController(cfs, gcBefore);
+        PrecomputedHashIterator partitions = DatabaseDescriptor.getRepairPartitionHashesEnabled()
+                                             ? PartitionHashMerger.open(cfs, sstables, ranges, controller, nowInSec, topPartitionCollector)
+                                             : null;
+        if (partitions != null)
+        {
+            logger.debug("Validating {}.{} from the partition hashes of {} sstables", cfs.keyspace.getName(), cfs.getTableName(), sstables.size());
+        }
+        else
+        {
+            int parallelism = DatabaseDescriptor.getConcurrentValidationSubranges();
+            // several sub-ranges per thread, so that a sub-range holding more data than the others does not hold back the validation
+            List<Range<Token>> subranges = parallelism > 1 ? splitForParallelValidation(sstables, ranges, parallelism * 4) : null;
+            if (subranges != null && subranges.size() > 1)
+            {
+                logger.debug("Validating {}.{} in {} sub-ranges with {} threads", cfs.keyspace.getName(), cfs.getTableName(), subranges.size(), parallelism);
+                partitions = new ParallelValidation(cfs, sstables, subranges, parallelism, gcBefore, nowInSec, topPartitionCollector);
+            }
+        }
+        this.partitions = partitions;
+
+        if (partitions == null)
+        {
+            scanners = cfs.getCompactionStrategyManager().getScanners(sstables, ranges);
+            ci = new ValidationCompactionIterator(scanners.scanners, controller, nowInSec, CompactionManager.instance.active, topPartitionCollector);
+        }
+        else
+        {
+            scanners = null;
+            ci = null;
+        }
 
         long allPartitions = 0;
         rangePartitionCounts = Maps.newHashMapWithExpectedSize(ranges.size());
@@ -245,7 +958,7 @@ public class CassandraValidationIterator extends ValidationPartitionIterator
     @Override
     public long getBytesRead()
     {
-        return ci.getBytesRead();
+        return partitions != null ? partitions.getBytesRead() : ci.getBytesRead();
     }
 
     @Override
@@ -257,6 +970,9 @@ public class CassandraValidationIterator extends ValidationPartitionIterator
         if (ci != null)
             ci.close();
 
+        if (partitions != null)
+            partitions.close();
+
         if (scanners != null)
             scanners.close();
 
@@ -283,13 +999,19 @@ public class CassandraValidationIterator extends ValidationPartitionIterator
     @Override
     public boolean hasNext()
     {
-        return ci.hasNext();
+        return partitions != null ? partitions.hasNext() : ci.hasNext();
     }
 
     @Override
     public UnfilteredRowIterator next()
     {
-        return ci.next();
+        return partitions != null ? partitions.next() : ci.next();
+    }
+
+    @Override
+    public MerkleTree.RowHash precomputedHash()
+    {
+        return partitions != null ? partitions.precomputedHash() : null;
     }
 
     @Override
@@ -0,0 +1,127 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.cassandra.db.rows;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.cassandra.db.ClusteringBound;
+import org.apache.cassandra.db.ClusteringComparator;
+import org.apache.cassandra.db.DeletionTime;
+
+/**
+ * Lets the sstables iterators merged by a single partition read skip the content shadowed by the range tombstones
+ * of the other iterators of the read, rather than deserializing it only for the merge to discard it.
+ * <p>
+ * Flushes and compactions already drop the data shadowed by the range tombstones of the same sstable, but not by
+ * those of other sstables, so a partition that is repeatedly deleted by range, like a queue, ends up with the older
+ * sstables holding the content deleted by the range tombstones of the newer ones.
+ * <p>
+ * Each iterator merged publishes the deletion of the range tombstone it has open, if any, and the position up to
+ * which we know that deletion applies, that is its last returned item (which the merge has not passed yet). An
+ * sstable iterator about to read further can then skip to that position if the deletion shadows any data of its
+ * sstable, that is if it is more recent than its max timestamp. As the merge consumes the items of its iterators in
+ * clustering order, the content skipped is necessarily after the open marker of that deletion.
+ * <p>
+ * This only works for forward iteration, and is not used when tracking repaired data, as the repaired data digest
+ * includes the shadowed content.
+ */
+public class ShadowedDataSkipper
+{
+    private final ClusteringComparator comparator;
+    private final List<Source> sources = new ArrayList<>();
+
+    public ShadowedDataSkipper(ClusteringComparator comparator)
+    {
+        this.comparator = comparator;
+    }
+
+    /**
+     * Registers an iterator of the read, to be notified of each item it returns through {@link Source#onNext}.
+     */
+    public Source newSource()
+    {
+        Source source = new Source();
+        sources.add(source);
+        return source;
+    }
+
+    /**
+     * Wraps an iterator of the read to publish the range tombstones it has open.
+     */
+    public UnfilteredRowIterator track(UnfilteredRowIterator iterator)
+    {
+        Source source = newSource();
+        return new WrappingUnfilteredRowIterator(iterator)
+        {
+            @Override
+            public Unfiltered next()
+            {
+                Unfiltered next = super.next();
+                source.onNext(next);
+                return next;
+            }
+        };
+    }
+
+    /**
+     * @return the position up to which the content of an sstable of the provided max timestamp is known to be
+     * shadowed by a range tombstone of another iterator, or {@code null} if none is known.
+     */
+    public ClusteringBound<?> skipTarget(long maxTimestamp)
+    {
+        ClusteringBound<?> target = null;
+        for (Source source : sources)
+        {
+            if (source.shadowing == null || source.shadowing.markedForDeleteAt() <= maxTimestamp)
+                continue;
+
+            if (target == null || comparator.compare(source.shadowedUntil, target) > 0)
+                target = source.shadowedUntil;
+        }
+        return target;
+    }
+
+    public static class Source
+    {
+        // the deletion of the range tombstone open after the last returned item
+        private DeletionTime open;
+        // the deletion that applies up to the last returned item, and the start bound of what comes after it
+        private DeletionTime shadowing;
+        private ClusteringBound<?> shadowedUntil;
+
+        public void onNext(Unfiltered next)
+        {
+            shadowing = open;
+            if (next.isRow())
+            {
+                // the open deletion also covers the row: had it closed before the row, we would have returned that first
+                shadowedUntil = ClusteringBound.exclusiveStartOf(next.clustering());
+            }
+            else
+            {
+                RangeTombstoneMarker marker = (RangeTombstoneMarker) next;
+                shadowedUntil = marker.isClose(false) ? marker.closeBound(false).invert() : null;
+                open = marker.isOpen(false) ? marker.openDeletionTime(false) : null;
+            }
+
+            if (shadowedUntil == null)
+                shadowing = null;
+        }
+    }
+}
@@ -28,6 +28,7 @@ import java.util.List;
 import org.apache.cassandra.db.marshal.ByteBufferAccessor;
 import org.apache.cassandra.schema.TableMetadata;
 import org.apache.cassandra.db.*;
+import org.apache.cassandra.db.columniterator.AbstractSSTableIterator;
 import org.apache.cassandra.db.filter.ClusteringIndexFilter;
 import org.apache.cassandra.db.filter.ColumnFilter;
 import org.apache.cassandra.db.transform.RTBoundValidator;
@@ -35,6 +36,7 @@ import org.apache.cassandra.io.sstable.IndexInfo;
 import org.apache.cassandra.io.sstable.format.SSTableReader;
 import org.apache.cassandra.io.sstable.format.SSTableReadsListener;
 import org.apache.cassandra.io.sstable.metadata.StatsMetadata;
+import org.apache.cassandra.tracing.Tracing;
 import org.apache.cassandra.utils.IteratorWithLowerBound;
 
 /**
@@ -54,6 +56,10 @@ public class UnfilteredRowIteratorWithLowerBound extends LazilyInitializedUnfilt
     private ClusteringBound<?> lowerBound;
     private boolean firstItemRetrieved;
 
+    private ShadowedDataSkipper skipper;
+    private ShadowedDataSkipper.Source skipperSource;
+    private AbstractSSTableIterator sstableIterator;
+
     public UnfilteredRowIteratorWithLowerBound(DecoratedKey partitionKey,
                                                SSTableReader sstable,
                                                ClusteringIndexFilter filter,
@@ -81,6 +87,16 @@ public class UnfilteredRowIteratorWithLowerBound extends LazilyInitializedUnfilt
         return ret != null ? makeBound(ret) : makeBound(getMetadataLowerBound());
     }
 
+    /**
+     * Makes this iterator skip the content shadowed by the range tombstones of the other iterators of the read,
+     * and publish its own range tombstones to them.
+     */
+    public void skipShadowedData(ShadowedDataSkipper skipper)
+    {
+        this.skipper = skipper;
+        this.skipperSource = skipper.newSource();
+    }
+
     private Unfiltered makeBound(ClusteringBound<?> bound)
     {
         if (bound == null)
@@ -95,9 +111,14 @@ public class UnfilteredRowIteratorWithLowerBound extends LazilyInitializedUnfilt
     @Override
     protected UnfilteredRowIterator initializeIterator()
     {
+        @SuppressWarnings("resource") // 'iter' is added to iterators which is closed on exception, or through the closing of the final merged iterator
+        UnfilteredRowIterator sstableIter = sstable.rowIterator(partitionKey(), filter.getSlices(metadata()), selectedColumns, filter.isReversed(), listener);
+        if (sstableIter instanceof AbstractSSTableIterator)
+            sstableIterator = (AbstractSSTableIterator) sstableIter;
+
         @SuppressWarnings("resource") // 'iter' is added to iterators which is closed on exception, or through the closing of the final merged iterator
         UnfilteredRowIterator iter = RTBoundValidator.validate(
-            sstable.rowIterator(partitionKey(), filter.getSlices(metadata()), selectedColumns, filter.isReversed(), listener),
+            sstableIter,
             RTBoundValidator.Stage.SSTABLE,
             false
         );
@@ -107,7 +128,13 @@ public class UnfilteredRowIteratorWithLowerBound extends LazilyInitializedUnfilt
     @Override
     protected Unfiltered computeNext()
     {
+        if (skipper != null)
+            maybeSkipShadowedData();
+
         Unfiltered ret = super.computeNext();
+        if (skipper != null && ret != null)
+            skipperSource.onNext(ret);
+
         if (firstItemRetrieved)
             return ret;
 
@@ -123,6 +150,17 @@ public class UnfilteredRowIteratorWithLowerBound extends LazilyInitializedUnfilt
         return ret;
     }
 
+    private void maybeSkipShadowedData()
+    {
+        maybeInit();
+        if (sstableIterator == null)
+            return;
+
+        ClusteringBound<?> target = skipper.skipTarget(sstable.getMaxTimestamp());
+        if (target != null && sstableIterator.skipTo(target) && Tracing.isTracing())
+            Tracing.trace("Skipped content of sstable {} shadowed by range tombstones until {}", sstable.descriptor.id, target.toString(metadata()));
+    }
+
     private Comparator<Clusterable> comparator()
     {
         return filter.isReversed() ? metadata().comparator.reversed() : metadata().comparator;
@@ -18,7 +18,7 @@
 package org.apache.cassandra.db.streaming;
 
 import java.io.IOException;
-import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
@@ -29,7 +29,7 @@ import org.slf4j.LoggerFactory;
 import org.apache.cassandra.io.compress.CompressionMetadata;
 import org.apache.cassandra.io.sstable.Component;
 import org.apache.cassandra.io.sstable.format.SSTableReader;
-import org.apache.cassandra.io.util.ChannelProxy;
+import org.apache.cassandra.io.util.File;
 import org.apache.cassandra.streaming.ProgressInfo;
 import org.apache.cassandra.streaming.StreamingDataOutputPlus;
 import org.apache.cassandra.streaming.StreamSession;
@@ -40,7 +40,6 @@ import org.apache.cassandra.utils.FBUtilities;
  */
 public class CassandraCompressedStreamWriter extends CassandraStreamWriter
 {
-    private static final int CHUNK_SIZE = 1 << 16;
     private static final int CRC_LENGTH = 4;
 
     private static final Logger logger = LoggerFactory.getLogger(CassandraCompressedStreamWriter.class);
@@ -61,45 +60,27 @@ public class CassandraCompressedStreamWriter extends CassandraStreamWriter
         long totalSize = totalSize();
         logger.debug("[Stream #{}] Start streaming file {} to {}, repairedAt = {}, totalSize = {}", session.planId(),
                      sstable.getFilename(), session.peer, sstable.getSSTableMetadata().repairedAt, totalSize);
-        try (ChannelProxy fc = sstable.getDataChannel().newChannel())
-        {
-            long progress = 0L;
 
-            // we want to send continuous chunks together to minimise reads from disk and network writes
-            List<Section> sections = fuseAdjacentChunks(compressionInfo.chunks());
+        // we want to send continuous chunks together to minimise reads from disk and network writes
+        List<Section> sections = fuseAdjacentChunks(compressionInfo.chunks());
+        long[] starts = new long[sections.size()];
+        long[] ends = new long[sections.size()];
+        for (int i = 0; i < sections.size(); i++)
+        {
+            starts[i] = sections.get(i).start;
+            ends[i] = sections.get(i).end;
+            logger.debug("[Stream #{}] Writing section {} with length {} to stream.", session.planId(), i, ends[i] - starts[i]);
+        }
 
-            int sectionIdx = 0;
+        // the sections are sent as they are on disk, so they can be sent without copying them when possible
+        @SuppressWarnings("resource") // the channel is closed by the output
+        FileChannel channel = new File(sstable.getFilename()).newReadChannel();
+        String filename = sstable.descriptor.filenameFor(Component.DATA);
+        long bytesTransferred = out.writeFileToChannel(channel, starts, ends, limiter,
+                                                       bytes -> session.progress(filename, ProgressInfo.Direction.OUT, bytes, totalSize));
 
-            // stream each of the required sections of the file
-            for (Section section : sections)
-            {
-                // length of the section to stream
-                long length = section.end - section.start;
-
-                logger.debug("[Stream #{}] Writing section {} with length {} to stream.", session.planId(), sectionIdx++, length);
-
-                // tracks write progress
-                long bytesTransferred = 0;
-                while (bytesTransferred < length)
-                {
-                    int toTransfer = (int) Math.min(CHUNK_SIZE, length - bytesTransferred);
-                    long position = section.start + bytesTransferred;
-
-                    out.writeToChannel(bufferSupplier -> {
-                        ByteBuffer outBuffer = bufferSupplier.get(toTransfer);
-                        long read = fc.read(outBuffer, position);
-                        assert read == toTransfer : String.format("could not read required number of bytes from file to be streamed: read %d bytes, wanted %d bytes", read, toTransfer);
-                        outBuffer.flip();
-                    }, limiter);
-
-                    bytesTransferred += toTransfer;
-                    progress += toTransfer;
-                    session.progress(sstable.descriptor.filenameFor(Component.DATA), ProgressInfo.Direction.OUT, progress, totalSize);
-                }
-            }
-            logger.debug("[Stream #{}] Finished streaming file {} to {}, bytesTransferred = {}, totalSize = {}",
-                         session.planId(), sstable.getFilename(), session.peer, FBUtilities.prettyPrintMemory(progress), FBUtilities.prettyPrintMemory(totalSize));
-        }
+        logger.debug("[Stream #{}] Finished streaming file {} to {}, bytesTransferred = {}, totalSize = {}",
+                     session.planId(), sstable.getFilename(), session.peer, FBUtilities.prettyPrintMemory(bytesTransferred), FBUtilities.prettyPrintMemory(totalSize));
     }
 
     @Override
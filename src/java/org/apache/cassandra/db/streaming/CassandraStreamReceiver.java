@@ -22,9 +22,13 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Lock;
 
+import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Preconditions;
 import com.google.common.collect.Iterables;
+import com.google.common.util.concurrent.Striped;
 
 import org.apache.cassandra.db.lifecycle.LifecycleNewTracker;
 import org.apache.cassandra.io.sstable.SSTable;
@@ -39,6 +43,8 @@ import org.apache.cassandra.db.compaction.OperationType;
 import org.apache.cassandra.db.filter.ColumnFilter;
 import org.apache.cassandra.db.lifecycle.LifecycleTransaction;
 import org.apache.cassandra.db.partitions.PartitionUpdate;
+import org.apache.cassandra.db.partitions.UnfilteredPartitionIterator;
+import org.apache.cassandra.db.partitions.UnfilteredPartitionIterators;
 import org.apache.cassandra.db.rows.ThrottledUnfilteredIterator;
 import org.apache.cassandra.db.rows.UnfilteredRowIterator;
 import org.apache.cassandra.db.view.View;
@@ -47,6 +53,7 @@ import org.apache.cassandra.dht.Token;
 import org.apache.cassandra.io.sstable.ISSTableScanner;
 import org.apache.cassandra.io.sstable.SSTableMultiWriter;
 import org.apache.cassandra.io.sstable.format.SSTableReader;
+import org.apache.cassandra.schema.TableId;
 import org.apache.cassandra.streaming.IncomingStream;
 import org.apache.cassandra.streaming.StreamReceiver;
 import org.apache.cassandra.streaming.StreamSession;
@@ -54,12 +61,18 @@ import org.apache.cassandra.utils.CloseableIterator;
 import org.apache.cassandra.utils.Throwables;
 import org.apache.cassandra.utils.concurrent.Refs;
 
+import static org.apache.cassandra.utils.Clock.Global.currentTimeMillis;
+
 public class CassandraStreamReceiver implements StreamReceiver
 {
     private static final Logger logger = LoggerFactory.getLogger(CassandraStreamReceiver.class);
 
     private static final int MAX_ROWS_PER_BATCH = Integer.getInteger("cassandra.repair.mutation_repair_rows_per_batch", 100);
 
+    private static final boolean BULK_APPLY_VIEW_UPDATES = Boolean.getBoolean("cassandra.streaming.bulk_apply_view_updates");
+    private static final int MAX_VIEW_ROWS_PER_BATCH = Integer.getInteger("cassandra.streaming.view_update_rows_per_batch", 1000);
+    private static final Striped<Lock> BULK_VIEW_UPDATE_LOCKS = Striped.lazyWeakLock(64);
+
     private final ColumnFamilyStore cfs;
     private final StreamSession session;
 
@@ -180,10 +193,31 @@ public class CassandraStreamReceiver implements StreamReceiver
      *
      * For CDC-enabled tables, we want to ensure that the mutations are run through the CommitLog so they
      * can be archived by the CDC process on discard.
+     *
+     * If bulk application of view updates is enabled, tables with views only use the write path to generate their
+     * view updates, see requiresViewUpdates.
      */
     private boolean requiresWritePath(ColumnFamilyStore cfs)
     {
-        return hasCDC(cfs) || cfs.streamToMemtable() || (session.streamOperation().requiresViewBuild() && hasViews(cfs));
+        return hasCDC(cfs) || cfs.streamToMemtable() || (!BULK_APPLY_VIEW_UPDATES && requiresViewBuild(cfs));
+    }
+
+    private boolean requiresViewBuild(ColumnFamilyStore cfs)
+    {
+        return session.streamOperation().requiresViewBuild() && hasViews(cfs);
+    }
+
+    /*
+     * With -Dcassandra.streaming.bulk_apply_view_updates=true, the received sstables of a table with views are added
+     * as they are, like those of any other table, once the view updates for their content have been pushed. This
+     * spares going through the memtable and flushing again the received data, but unlike the write path, the base
+     * partitions are not locked from the generation of their view updates to the addition of the sstables, so a write
+     * racing with the stream on the same partition may leave a stale view entry behind. The sessions receiving
+     * sstables for the same table are applied one at a time though, see bulkViewUpdateLock.
+     */
+    private boolean requiresViewUpdates(ColumnFamilyStore cfs)
+    {
+        return BULK_APPLY_VIEW_UPDATES && !requiresWritePath(cfs) && requiresViewBuild(cfs);
     }
 
     private void sendThroughWritePath(ColumnFamilyStore cfs, Collection<SSTableReader> readers)
@@ -214,6 +248,59 @@ public class CassandraStreamReceiver implements StreamReceiver
         }
     }
 
+    /**
+     * Pushes the view updates for the content of the provided sstables, which have yet to be added to the table so
+     * that the updates are computed against its pre-existing content.
+     *
+     * The sstables are merged in token order, so each partition is read against the existing data once even if it was
+     * received in several sstables, and partitions are split into batches of {@link #MAX_VIEW_ROWS_PER_BATCH} rows.
+     */
+    @SuppressWarnings("resource")
+    private void pushViewUpdates(ColumnFamilyStore cfs, Collection<SSTableReader> readers, AtomicLong baseComplete)
+    {
+        if (readers.isEmpty())
+            return;
+
+        ColumnFilter filter = ColumnFilter.all(cfs.metadata());
+        List<ISSTableScanner> scanners = new ArrayList<>(readers.size());
+        try
+        {
+            for (SSTableReader reader : readers)
+                scanners.add(reader.getScanner());
+        }
+        catch (Throwable t)
+        {
+            Throwables.maybeFail(Throwables.close(t, scanners));
+        }
+
+        // closing the merged iterator closes the scanners
+        try (UnfilteredPartitionIterator partitions = UnfilteredPartitionIterators.merge(scanners, UnfilteredPartitionIterators.MergeListener.NOOP);
+             CloseableIterator<UnfilteredRowIterator> throttledPartitions = ThrottledUnfilteredIterator.throttle(partitions, MAX_VIEW_ROWS_PER_BATCH))
+        {
+            while (throttledPartitions.hasNext())
+                cfs.viewManager.pushViewReplicaUpdates(PartitionUpdate.fromIterator(throttledPartitions.next(), filter), false, baseComplete);
+        }
+    }
+
+    /**
+     * @return the lock held while the view updates of the sstables received for the table are pushed and the sstables
+     * added to the table
+     */
+    @VisibleForTesting
+    static Lock bulkViewUpdateLock(TableId tableId)
+    {
+        return BULK_VIEW_UPDATE_LOCKS.get(tableId);
+    }
+
+    private void addSSTables(Collection<SSTableReader> readers)
+    {
+        finishTransaction();
+
+        // add sstables (this will build secondary indexes too, see CASSANDRA-10130)
+        logger.debug("[Stream #{}] Received {} sstables from {} ({})", session.planId(), readers.size(), session.peer, readers);
+        cfs.addSSTables(readers);
+    }
+
     public synchronized  void finishTransaction()
     {
         txn.finish();
@@ -233,11 +320,30 @@ public class CassandraStreamReceiver implements StreamReceiver
             }
             else
             {
-                finishTransaction();
-
-                // add sstables (this will build secondary indexes too, see CASSANDRA-10130)
-                logger.debug("[Stream #{}] Received {} sstables from {} ({})", session.planId(), readers.size(), session.peer, readers);
-                cfs.addSSTables(readers);
+                if (requiresViewUpdates(cfs))
+                {
+                    // the view updates of each session must be computed against the sstables received by the sessions
+                    // that completed before it, so they are applied one session at a time for a given table
+                    Lock lock = bulkViewUpdateLock(cfs.metadata.id);
+                    lock.lock();
+                    try
+                    {
+                        AtomicLong baseComplete = new AtomicLong(Long.MAX_VALUE);
+                        pushViewUpdates(cfs, readers, baseComplete);
+                        // the local view updates were not written to the commit log
+                        cfs.viewManager.forceBlockingFlush(ColumnFamilyStore.FlushReason.STREAMS_RECEIVED);
+                        addSSTables(readers);
+                        baseComplete.set(currentTimeMillis());
+                    }
+                    finally
+                    {
+                        lock.unlock();
+                    }
+                }
+                else
+                {
+                    addSSTables(readers);
+                }
 
                 //invalidate row and counter cache
                 if (cfs.isRowCacheEnabled() || cfs.metadata().isCounter())
@@ -0,0 +1,129 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.cassandra.db.virtual;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.cassandra.db.DecoratedKey;
+import org.apache.cassandra.db.marshal.LongType;
+import org.apache.cassandra.db.marshal.UTF8Type;
+import org.apache.cassandra.dht.LocalPartitioner;
+import org.apache.cassandra.schema.TableMetadata;
+import org.apache.cassandra.utils.StackSampler;
+
+/**
+ * The samples of the {@link StackSampler}, by thread pool.
+ */
+public class StackSamplesTables
+{
+    private static final String THREAD_POOL = "thread_pool";
+    private static final String STACK = "stack";
+    private static final String SAMPLES = "samples";
+    private static final String CPU_TIME_MS = "cpu_time_ms";
+
+    private StackSamplesTables()
+    {
+    }
+
+    public static Collection<VirtualTable> getAll(String keyspace)
+    {
+        return Arrays.asList(new StackSamplesTable(keyspace, StackSampler.instance),
+                             new ThreadPoolSamplesTable(keyspace, StackSampler.instance));
+    }
+
+    /**
+     * The collapsed stacks sampled in each thread pool, and how many times each was sampled
+     */
+    static final class StackSamplesTable extends AbstractVirtualTable
+    {
+        private final StackSampler sampler;
+
+        StackSamplesTable(String keyspace, StackSampler sampler)
+        {
+            super(TableMetadata.builder(keyspace, "stack_samples")
+                               .comment("collapsed stacks of the threads of each thread pool, as sampled by the stack sampler")
+                               .kind(TableMetadata.Kind.VIRTUAL)
+                               .partitioner(new LocalPartitioner(UTF8Type.instance))
+                               .addPartitionKeyColumn(THREAD_POOL, UTF8Type.instance)
+                               .addClusteringColumn(STACK, UTF8Type.instance)
+                               .addRegularColumn(SAMPLES, LongType.instance)
+                               .build());
+            this.sampler = sampler;
+        }
+
+        @Override
+        public DataSet data(DecoratedKey partitionKey)
+        {
+            String threadPool = UTF8Type.instance.compose(partitionKey.getKey());
+            SimpleDataSet result = new SimpleDataSet(metadata());
+            StackSampler.ThreadPoolSamples samples = sampler.threadPools().get(threadPool);
+            if (samples != null)
+                addRows(result, threadPool, samples);
+            return result;
+        }
+
+        @Override
+        public DataSet data()
+        {
+            SimpleDataSet result = new SimpleDataSet(metadata());
+            sampler.threadPools().forEach((threadPool, samples) -> addRows(result, threadPool, samples));
+            return result;
+        }
+
+        private static void addRows(SimpleDataSet result, String threadPool, StackSampler.ThreadPoolSamples samples)
+        {
+            for (Map.Entry<String, Long> stack : samples.stacks().entrySet())
+                result.row(threadPool, stack.getKey()).column(SAMPLES, stack.getValue());
+        }
+    }
+
+    /**
+     * The number of stacks sampled in each thread pool, and the CPU time its threads used while sampling
+     */
+    static final class ThreadPoolSamplesTable extends AbstractVirtualTable
+    {
+        private final StackSampler sampler;
+
+        ThreadPoolSamplesTable(String keyspace, StackSampler sampler)
+        {
+            super(TableMetadata.builder(keyspace, "thread_pool_samples")
+                               .comment("stack samples and CPU time of each thread pool, as measured by the stack sampler")
+                               .kind(TableMetadata.Kind.VIRTUAL)
+                               .partitioner(new LocalPartitioner(UTF8Type.instance))
+                               .addPartitionKeyColumn(THREAD_POOL, UTF8Type.instance)
+                               .addRegularColumn(SAMPLES, LongType.instance)
+                               .addRegularColumn(CPU_TIME_MS, LongType.instance)
+                               .build());
+            this.sampler = sampler;
+        }
+
+        @Override
+        public DataSet data()
+        {
+            SimpleDataSet result = new SimpleDataSet(metadata());
+            sampler.threadPools().forEach((threadPool, samples) ->
+                                          result.row(threadPool)
+                                                .column(SAMPLES, samples.samples())
+                                                .column(CPU_TIME_MS, TimeUnit.NANOSECONDS.toMillis(samples.cpuTimeNanos())));
+            return result;
+        }
+    }
+}
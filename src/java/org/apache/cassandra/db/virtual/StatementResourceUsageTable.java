@@ -0,0 +1,95 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.cassandra.db.virtual;
+
+import java.util.concurrent.TimeUnit;
+
+import com.google.common.annotations.VisibleForTesting;
+
+import org.apache.cassandra.db.marshal.LongType;
+import org.apache.cassandra.db.marshal.UTF8Type;
+import org.apache.cassandra.dht.LocalPartitioner;
+import org.apache.cassandra.schema.TableMetadata;
+import org.apache.cassandra.service.ResourceAccounting.Resource;
+import org.apache.cassandra.service.StatementResourceUsage;
+
+/**
+ * The resources used by the executions of each prepared statement, see {@link StatementResourceUsage}
+ */
+final class StatementResourceUsageTable extends AbstractVirtualTable
+{
+    public static final String TABLE_NAME = "statement_resource_usage";
+    private static final String STATEMENT_ID = "statement_id";
+    private static final String QUERY_STRING = "query_string";
+    private static final String EXECUTIONS = "executions";
+    private static final String CPU_TIME_MICROS = "cpu_time_micros";
+    private static final String ALLOCATED_BYTES = "allocated_bytes";
+    private static final String SSTABLES_READ = "sstables_read";
+    private static final String CHUNK_CACHE_HITS = "chunk_cache_hits";
+    private static final String CHUNK_CACHE_MISSES = "chunk_cache_misses";
+    private static final String BYTES_READ_FROM_DISK = "bytes_read_from_disk";
+    private static final String TOMBSTONES_SCANNED = "tombstones_scanned";
+
+    private final StatementResourceUsage statementResourceUsage;
+
+    StatementResourceUsageTable(String keyspace)
+    {
+        this(keyspace, StatementResourceUsage.instance);
+    }
+
+    @VisibleForTesting
+    StatementResourceUsageTable(String keyspace, StatementResourceUsage statementResourceUsage)
+    {
+        super(TableMetadata.builder(keyspace, TABLE_NAME)
+                           .comment("resources used on this node by the prepared statements that used the most CPU time")
+                           .kind(TableMetadata.Kind.VIRTUAL)
+                           .partitioner(new LocalPartitioner(UTF8Type.instance))
+                           .addPartitionKeyColumn(STATEMENT_ID, UTF8Type.instance)
+                           .addRegularColumn(QUERY_STRING, UTF8Type.instance)
+                           .addRegularColumn(EXECUTIONS, LongType.instance)
+                           .addRegularColumn(CPU_TIME_MICROS, LongType.instance)
+                           .addRegularColumn(ALLOCATED_BYTES, LongType.instance)
+                           .addRegularColumn(SSTABLES_READ, LongType.instance)
+                           .addRegularColumn(CHUNK_CACHE_HITS, LongType.instance)
+                           .addRegularColumn(CHUNK_CACHE_MISSES, LongType.instance)
+                           .addRegularColumn(BYTES_READ_FROM_DISK, LongType.instance)
+                           .addRegularColumn(TOMBSTONES_SCANNED, LongType.instance)
+                           .build());
+        this.statementResourceUsage = statementResourceUsage;
+    }
+
+    @Override
+    public DataSet data()
+    {
+        SimpleDataSet result = new SimpleDataSet(metadata());
+        for (StatementResourceUsage.Usage usage : statementResourceUsage.statements())
+        {
+            result.row(usage.statementId.toString())
+                  .column(QUERY_STRING, usage.queryString)
+                  .column(EXECUTIONS, usage.executions())
+                  .column(CPU_TIME_MICROS, TimeUnit.NANOSECONDS.toMicros(usage.get(Resource.CPU_TIME)))
+                  .column(ALLOCATED_BYTES, usage.get(Resource.ALLOCATED_BYTES))
+                  .column(SSTABLES_READ, usage.get(Resource.SSTABLES_READ))
+                  .column(CHUNK_CACHE_HITS, usage.get(Resource.CHUNK_CACHE_HITS))
+                  .column(CHUNK_CACHE_MISSES, usage.get(Resource.CHUNK_CACHE_MISSES))
+                  .column(BYTES_READ_FROM_DISK, usage.get(Resource.BYTES_READ_FROM_DISK))
+                  .column(TOMBSTONES_SCANNED, usage.get(Resource.TOMBSTONES_SCANNED));
+        }
+        return result;
+    }
+}
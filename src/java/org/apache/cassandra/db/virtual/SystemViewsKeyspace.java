@@ -48,6 +48,8 @@ public final class SystemViewsKeyspace extends VirtualKeyspace
                     .add(new StreamingVirtualTable(VIRTUAL_VIEWS))
                     .add(new GossipInfoTable(VIRTUAL_VIEWS))
                     .addAll(LocalRepairTables.getAll(VIRTUAL_VIEWS))
+                    .addAll(StackSamplesTables.getAll(VIRTUAL_VIEWS))
+                    .add(new StatementResourceUsageTable(VIRTUAL_VIEWS))
                     .build());
     }
 }
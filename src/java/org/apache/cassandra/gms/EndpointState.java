@@ -50,7 +50,7 @@ public class EndpointState
     public final static IVersionedSerializer<EndpointState> nullableSerializer = NullableSerializer.wrap(serializer);
 
     private volatile HeartBeatState hbState;
-    private final AtomicReference<Map<ApplicationState, VersionedValue>> applicationState;
+    private final AtomicReference<ApplicationStates> applicationState;
 
     /* fields below do not get serialized */
     private volatile long updateTimestamp;
@@ -63,13 +63,13 @@ public class EndpointState
 
     public EndpointState(EndpointState other)
     {
-        this(new HeartBeatState(other.hbState), new EnumMap<>(other.applicationState.get()));
+        this(new HeartBeatState(other.hbState), other.applicationState.get().states);
     }
 
     EndpointState(HeartBeatState initialHbState, Map<ApplicationState, VersionedValue> states)
     {
         hbState = initialHbState;
-        applicationState = new AtomicReference<Map<ApplicationState, VersionedValue>>(new EnumMap<>(states));
+        applicationState = new AtomicReference<>(new ApplicationStates(new EnumMap<>(states)));
         updateTimestamp = nanoTime();
         isAlive = true;
     }
@@ -88,17 +88,25 @@ public class EndpointState
 
     public VersionedValue getApplicationState(ApplicationState key)
     {
-        return applicationState.get().get(key);
+        return applicationState.get().states.get(key);
     }
 
     public boolean containsApplicationState(ApplicationState key)
     {
-        return applicationState.get().containsKey(key);
+        return applicationState.get().states.containsKey(key);
     }
 
     public Set<Map.Entry<ApplicationState, VersionedValue>> states()
     {
-        return applicationState.get().entrySet();
+        return applicationState.get().states.entrySet();
+    }
+
+    /**
+     * @return the greatest version of the application states, or {@link HeartBeatState#EMPTY_VERSION} if there are none
+     */
+    public int getMaxApplicationStateVersion()
+    {
+        return applicationState.get().maxVersion;
     }
 
     public void addApplicationState(ApplicationState key, VersionedValue value)
@@ -115,13 +123,13 @@ public class EndpointState
     {
         while (true)
         {
-            Map<ApplicationState, VersionedValue> orig = applicationState.get();
-            Map<ApplicationState, VersionedValue> copy = new EnumMap<>(orig);
+            ApplicationStates orig = applicationState.get();
+            Map<ApplicationState, VersionedValue> copy = new EnumMap<>(orig.states);
 
             for (Map.Entry<ApplicationState, VersionedValue> value : values)
                 copy.put(value.getKey(), value.getValue());
 
-            if (applicationState.compareAndSet(orig, copy))
+            if (applicationState.compareAndSet(orig, new ApplicationStates(copy)))
                 return;
         }
     }
@@ -130,18 +138,18 @@ public class EndpointState
     {
         while (hasLegacyFields())
         {
-            Map<ApplicationState, VersionedValue> orig = applicationState.get();
-            Map<ApplicationState, VersionedValue> updatedStates = filterMajorVersion3LegacyApplicationStates(orig);
+            ApplicationStates orig = applicationState.get();
+            Map<ApplicationState, VersionedValue> updatedStates = filterMajorVersion3LegacyApplicationStates(orig.states);
             // avoid updating if no state is removed
-            if (orig.size() == updatedStates.size()
-                || applicationState.compareAndSet(orig, updatedStates))
+            if (orig.states.size() == updatedStates.size()
+                || applicationState.compareAndSet(orig, new ApplicationStates(updatedStates)))
                 return;
         }
     }
 
     private boolean hasLegacyFields()
     {
-        Set<ApplicationState> statesPresent = applicationState.get().keySet();
+        Set<ApplicationState> statesPresent = applicationState.get().states.keySet();
         if (statesPresent.isEmpty())
             return false;
         return (statesPresent.contains(ApplicationState.STATUS) && statesPresent.contains(ApplicationState.STATUS_WITH_PORT))
@@ -201,7 +209,7 @@ public class EndpointState
      */
     public boolean isEmptyWithoutStatus()
     {
-        Map<ApplicationState, VersionedValue> state = applicationState.get();
+        Map<ApplicationState, VersionedValue> state = applicationState.get().states;
         return hbState.isEmpty() && !(state.containsKey(ApplicationState.STATUS_WITH_PORT) || state.containsKey(ApplicationState.STATUS));
     }
 
@@ -253,7 +261,7 @@ public class EndpointState
 
     public String toString()
     {
-        return "EndpointState: HeartBeatState = " + hbState + ", AppStateMap = " + applicationState.get();
+        return "EndpointState: HeartBeatState = " + hbState + ", AppStateMap = " + applicationState.get().states;
     }
 
     public boolean isSupersededBy(EndpointState that)
@@ -269,6 +277,25 @@ public class EndpointState
 
         return Gossiper.getMaxEndpointStateVersion(that) > Gossiper.getMaxEndpointStateVersion(this);
     }
+
+    /**
+     * The application states, along with their greatest version so that comparing the versions of two states, which
+     * gossip does for every endpoint on every round, does not need to go over all the application states.
+     */
+    private static class ApplicationStates
+    {
+        private final Map<ApplicationState, VersionedValue> states;
+        private final int maxVersion;
+
+        private ApplicationStates(Map<ApplicationState, VersionedValue> states)
+        {
+            this.states = states;
+            int maxVersion = HeartBeatState.EMPTY_VERSION;
+            for (VersionedValue value : states.values())
+                maxVersion = Math.max(maxVersion, value.version);
+            this.maxVersion = maxVersion;
+        }
+    }
 }
 
 class EndpointStateSerializer implements IVersionedSerializer<EndpointState>
@@ -612,10 +612,7 @@ public class Gossiper implements IFailureDetectionEventListener, GossiperMBean
      */
     static int getMaxEndpointStateVersion(EndpointState epState)
     {
-        int maxVersion = epState.getHeartBeatState().getHeartBeatVersion();
-        for (Map.Entry<ApplicationState, VersionedValue> state : epState.states())
-            maxVersion = Math.max(maxVersion, state.getValue().version);
-        return maxVersion;
+        return Math.max(epState.getHeartBeatState().getHeartBeatVersion(), epState.getMaxApplicationStateVersion());
     }
 
     /**
@@ -1235,6 +1232,10 @@ public class Gossiper implements IFailureDetectionEventListener, GossiperMBean
                 if (logger.isTraceEnabled())
                     logger.trace("local heartbeat version {} greater than {} for {}", localHbVersion, version, forEndpoint);
             }
+            // most of the time only the heartbeat changed, in which case there is no application state to send
+            if (epState.getMaxApplicationStateVersion() <= version)
+                return reqdEndpointState;
+
             /* Accumulate all application states whose versions are greater than "version" variable */
             Map<ApplicationState, VersionedValue> states = new EnumMap<>(ApplicationState.class);
             for (Entry<ApplicationState, VersionedValue> entry : epState.states())
@@ -2352,6 +2353,31 @@ public class Gossiper implements IFailureDetectionEventListener, GossiperMBean
                upgradeInProgressPossible && !isUpgradingFromVersionLowerThan(SystemKeyspace.CURRENT_VERSION.familyLowerBound.get());
     }
 
+    /**
+     * Returns {@code false} only if the release version of each other node in the cluster is known, and at least the
+     * provided version.
+     */
+    public boolean hasNodesWithReleaseVersionLowerThan(CassandraVersion referenceVersion)
+    {
+        if (isUpgradingFromVersionLowerThan(referenceVersion))
+            return true;
+
+        if (!upgradeInProgressPossible)
+            return false;
+
+        // some nodes may not have told their version yet
+        for (InetAddressAndPort host : endpointStateMap.keySet())
+        {
+            if (host.equals(FBUtilities.getBroadcastAddressAndPort()))
+                continue;
+
+            CassandraVersion version = getReleaseVersion(host);
+            if (version == null || version.compareTo(referenceVersion) < 0)
+                return true;
+        }
+        return false;
+    }
+
     /**
      * Returns {@code true} if there are nodes on version lower than the provided version
      */
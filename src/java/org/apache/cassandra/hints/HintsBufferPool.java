@@ -21,6 +21,7 @@ import java.io.Closeable;
 import java.util.Iterator;
 import java.util.UUID;
 import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.locks.ReentrantLock;
 
 import org.apache.cassandra.config.Config;
 import org.apache.cassandra.net.MessagingService;
@@ -45,6 +46,9 @@ final class HintsBufferPool implements Closeable
     private final int bufferSize;
     private final FlushCallback flushCallback;
     private int allocatedBuffers = 0;
+    // rather than the monitor, as hints are written by the mutation stage, which may run on virtual threads that would
+    // otherwise pin their carrier thread while waiting for a reserve buffer
+    private final ReentrantLock lock = new ReentrantLock();
 
     HintsBufferPool(int bufferSize, FlushCallback flushCallback)
     {
@@ -115,33 +119,49 @@ final class HintsBufferPool implements Closeable
         return currentBuffer;
     }
 
-    private synchronized void initializeCurrentBuffer()
+    private void initializeCurrentBuffer()
     {
-        if (currentBuffer == null)
-            currentBuffer = createBuffer();
+        lock.lock();
+        try
+        {
+            if (currentBuffer == null)
+                currentBuffer = createBuffer();
+        }
+        finally
+        {
+            lock.unlock();
+        }
     }
 
-    private synchronized boolean switchCurrentBuffer(HintsBuffer previous)
+    private boolean switchCurrentBuffer(HintsBuffer previous)
     {
-        if (currentBuffer != previous)
-            return false;
-
-        HintsBuffer buffer = reserveBuffers.poll();
-        if (buffer == null && allocatedBuffers >= MAX_ALLOCATED_BUFFERS)
+        lock.lock();
+        try
         {
-            try
-            {
-                //This BlockingQueue.take is a target for byteman in HintsBufferPoolTest
-                buffer = reserveBuffers.take();
-            }
-            catch (InterruptedException e)
+            if (currentBuffer != previous)
+                return false;
+
+            HintsBuffer buffer = reserveBuffers.poll();
+            if (buffer == null && allocatedBuffers >= MAX_ALLOCATED_BUFFERS)
             {
-                throw new UncheckedInterruptedException(e);
+                try
+                {
+                    //This BlockingQueue.take is a target for byteman in HintsBufferPoolTest
+                    buffer = reserveBuffers.take();
+                }
+                catch (InterruptedException e)
+                {
+                    throw new UncheckedInterruptedException(e);
+                }
             }
-        }
-        currentBuffer = buffer == null ? createBuffer() : buffer;
+            currentBuffer = buffer == null ? createBuffer() : buffer;
 
-        return true;
+            return true;
+        }
+        finally
+        {
+            lock.unlock();
+        }
     }
 
     private HintsBuffer createBuffer()
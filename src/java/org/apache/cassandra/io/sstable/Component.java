@@ -59,6 +59,10 @@ public class Component
         SUMMARY("Summary.db"),
         // table of contents, stores the list of all components for the sstable
         TOC("TOC.txt"),
+        // token-ordered sketch of partition counts, row counts and sizes, used for read planning
+        PARTITION_STATS("PartitionStats.db"),
+        // validation hashes of the partitions, used to build merkle trees without reading the data
+        PARTITION_HASHES("PartitionHashes.db"),
         // built-in secondary index (may be multiple per sstable)
         SECONDARY_INDEX("SI_.*.db"),
         // custom component, used by e.g. custom compaction strategy
@@ -93,6 +97,8 @@ public class Component
     public final static Component CRC = new Component(Type.CRC);
     public final static Component SUMMARY = new Component(Type.SUMMARY);
     public final static Component TOC = new Component(Type.TOC);
+    public final static Component PARTITION_STATS = new Component(Type.PARTITION_STATS);
+    public final static Component PARTITION_HASHES = new Component(Type.PARTITION_HASHES);
 
     public final Type type;
     public final String name;
@@ -143,6 +149,8 @@ public class Component
             case CRC:              return Component.CRC;
             case SUMMARY:          return Component.SUMMARY;
             case TOC:              return Component.TOC;
+            case PARTITION_STATS:  return Component.PARTITION_STATS;
+            case PARTITION_HASHES: return Component.PARTITION_HASHES;
             case SECONDARY_INDEX:  return new Component(Type.SECONDARY_INDEX, name);
             case CUSTOM:           return new Component(Type.CUSTOM, name);
             default:               throw new AssertionError();
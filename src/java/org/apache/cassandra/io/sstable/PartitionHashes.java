@@ -0,0 +1,431 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.cassandra.io.sstable;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+import org.apache.cassandra.db.DecoratedKey;
+import org.apache.cassandra.db.Digest;
+import org.apache.cassandra.db.RegularAndStaticColumns;
+import org.apache.cassandra.db.rows.Cell;
+import org.apache.cassandra.db.rows.ColumnData;
+import org.apache.cassandra.db.rows.ComplexColumnData;
+import org.apache.cassandra.db.rows.RangeTombstoneMarker;
+import org.apache.cassandra.db.rows.Row;
+import org.apache.cassandra.db.rows.Rows;
+import org.apache.cassandra.db.rows.UnfilteredRowIterator;
+import org.apache.cassandra.db.transform.Transformation;
+import org.apache.cassandra.dht.IPartitioner;
+import org.apache.cassandra.dht.Range;
+import org.apache.cassandra.dht.Token;
+import org.apache.cassandra.io.FSReadError;
+import org.apache.cassandra.io.FSWriteError;
+import org.apache.cassandra.io.util.DataPosition;
+import org.apache.cassandra.io.util.File;
+import org.apache.cassandra.io.util.RandomAccessReader;
+import org.apache.cassandra.io.util.SequentialWriter;
+import org.apache.cassandra.io.util.SequentialWriterOption;
+import org.apache.cassandra.utils.AbstractIterator;
+import org.apache.cassandra.utils.ByteBufferUtil;
+import org.apache.cassandra.utils.MerkleTree;
+import org.apache.cassandra.utils.concurrent.Transactional;
+
+/**
+ * The validation hashes of the partitions of an sstable, stored in the {@link Component#PARTITION_HASHES} component.
+ *
+ * For every partition written, we record the hash repair validation would compute for it (see
+ * {@link org.apache.cassandra.repair.Validator}), its size in digest bytes, and whether the partition is "clean", that
+ * is free of any tombstone and TTL. The hash of a clean partition does not depend on when the validation runs, so a
+ * validation can use the recorded hash instead of reading the partition, as long as no other sstable contains that
+ * partition and the table columns did not change since the sstable was written. The latter is checked against the
+ * columns fingerprint stored in the header, since the table columns are part of the validation hash.
+ *
+ * The entries are followed by a sparse index of the key and position of every {@link #INDEX_INTERVAL}th entry, and the
+ * position of that index as the last 8 bytes of the component, so that a reader can seek to the first range it reads.
+ */
+public class PartitionHashes
+{
+    private static final int CURRENT_VERSION = 2;
+
+    private static final int CLEAN = 0x01;
+
+    private static final int INDEX_INTERVAL = 128;
+
+    /**
+     * @return a fingerprint of the columns a validation hash depends on
+     */
+    public static byte[] columnsFingerprint(RegularAndStaticColumns columns)
+    {
+        Digest digest = Digest.forValidator();
+        columns.regulars.digest(digest);
+        columns.statics.digest(digest);
+        return digest.digest();
+    }
+
+    public static class Entry
+    {
+        public final DecoratedKey key;
+        public final boolean isClean;
+        private final byte[] hash;
+        private final long size;
+
+        private Entry(DecoratedKey key, boolean isClean, byte[] hash, long size)
+        {
+            this.key = key;
+            this.isClean = isClean;
+            this.hash = hash;
+            this.size = size;
+        }
+
+        public MerkleTree.RowHash rowHash()
+        {
+            return new MerkleTree.RowHash(key.getToken(), hash, size);
+        }
+    }
+
+    /**
+     * Writes the component as partitions are appended to an sstable writer.
+     */
+    public static class Writer extends Transactional.AbstractTransactional implements Transactional
+    {
+        private final SequentialWriter out;
+        private final RegularAndStaticColumns columns;
+        private Hasher current;
+        private DataPosition mark;
+        private long markedEntries;
+
+        private long entries;
+        private final List<ByteBuffer> indexKeys = new ArrayList<>();
+        private final List<Long> indexPositions = new ArrayList<>();
+
+        public Writer(File file, SequentialWriterOption option, RegularAndStaticColumns columns)
+        {
+            this.out = new SequentialWriter(file, option);
+            this.columns = columns;
+            try
+            {
+                out.writeUnsignedVInt(CURRENT_VERSION);
+                ByteBufferUtil.writeWithVIntLength(ByteBuffer.wrap(columnsFingerprint(columns)), out);
+            }
+            catch (IOException e)
+            {
+                throw new FSWriteError(e, out.getPath());
+            }
+        }
+
+        /**
+         * Hashes the provided partition as it is iterated over. Its hash is recorded by the following call to
+         * {@link #append(DecoratedKey)}, once the partition has been fully consumed.
+         */
+        public UnfilteredRowIterator hashing(UnfilteredRowIterator partition)
+        {
+            current = new Hasher(partition, columns);
+            return Transformation.apply(partition, current);
+        }
+
+        public void append(DecoratedKey key)
+        {
+            assert current != null && current.key.equals(key);
+            if (entries++ % INDEX_INTERVAL == 0)
+            {
+                indexKeys.add(key.getKey());
+                indexPositions.add(out.position());
+            }
+            try
+            {
+                ByteBufferUtil.writeWithShortLength(key.getKey(), out);
+                out.writeByte(current.isClean ? CLEAN : 0);
+                ByteBufferUtil.writeWithVIntLength(ByteBuffer.wrap(current.digest.digest()), out);
+                out.writeUnsignedVInt(current.digest.inputBytes());
+            }
+            catch (IOException e)
+            {
+                throw new FSWriteError(e, out.getPath());
+            }
+            current = null;
+        }
+
+        public void mark()
+        {
+            mark = out.mark();
+            markedEntries = entries;
+        }
+
+        public void resetAndTruncate()
+        {
+            out.resetAndTruncate(mark);
+            entries = markedEntries;
+            int indexSize = (int) ((entries + INDEX_INTERVAL - 1) / INDEX_INTERVAL);
+            indexKeys.subList(indexSize, indexKeys.size()).clear();
+            indexPositions.subList(indexSize, indexPositions.size()).clear();
+        }
+
+        protected void doPrepare()
+        {
+            try
+            {
+                long indexPosition = out.position();
+                out.writeUnsignedVInt(indexKeys.size());
+                for (int i = 0; i < indexKeys.size(); i++)
+                {
+                    ByteBufferUtil.writeWithShortLength(indexKeys.get(i), out);
+                    out.writeUnsignedVInt(indexPositions.get(i));
+                }
+                out.writeLong(indexPosition);
+            }
+            catch (IOException e)
+            {
+                throw new FSWriteError(e, out.getPath());
+            }
+            out.prepareToCommit();
+        }
+
+        protected Throwable doCommit(Throwable accumulate)
+        {
+            return out.commit(accumulate);
+        }
+
+        protected Throwable doAbort(Throwable accumulate)
+        {
+            return out.abort(accumulate);
+        }
+    }
+
+    /**
+     * Computes the same digest than {@link org.apache.cassandra.db.rows.UnfilteredRowIterators#digest}, over the
+     * columns of the table rather than those of the iterator, since this is what a validation reads back.
+     */
+    private static class Hasher extends Transformation<UnfilteredRowIterator>
+    {
+        private final DecoratedKey key;
+        private final Digest digest = Digest.forValidator();
+        private boolean isClean;
+
+        private Hasher(UnfilteredRowIterator partition, RegularAndStaticColumns columns)
+        {
+            key = partition.partitionKey();
+            isClean = partition.partitionLevelDeletion().isLive();
+
+            Row staticRow = partition.staticRow().isEmpty() ? Rows.EMPTY_STATIC_ROW : partition.staticRow();
+            digest.update(key.getKey());
+            partition.partitionLevelDeletion().digest(digest);
+            columns.regulars.digest(digest);
+            if (staticRow != Rows.EMPTY_STATIC_ROW)
+                columns.statics.digest(digest);
+            digest.updateWithBoolean(partition.isReverseOrder());
+            staticRow.digest(digest);
+            isClean &= isClean(staticRow);
+        }
+
+        @Override
+        protected Row applyToRow(Row row)
+        {
+            row.digest(digest);
+            isClean &= isClean(row);
+            return row;
+        }
+
+        @Override
+        protected RangeTombstoneMarker applyToMarker(RangeTombstoneMarker marker)
+        {
+            marker.digest(digest);
+            isClean = false;
+            return marker;
+        }
+
+        private static boolean isClean(Row row)
+        {
+            if (!row.deletion().isLive() || row.primaryKeyLivenessInfo().isExpiring())
+                return false;
+
+            for (ColumnData data : row)
+            {
+                if (data.column().isComplex() && !((ComplexColumnData) data).complexDeletion().isLive())
+                    return false;
+            }
+
+            for (Cell<?> cell : row.cells())
+            {
+                if (cell.isTombstone() || cell.isExpiring())
+                    return false;
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Iterates over the entries of the component falling in the provided token ranges, in token order, seeking to the
+     * indexed entry preceding each range rather than reading the entries before it.
+     */
+    public static class Reader extends AbstractIterator<Entry>
+    {
+        private final RandomAccessReader in;
+        private final IPartitioner partitioner;
+        private final List<Range<Token>> ranges;
+        private final byte[] columnsFingerprint;
+        private final long entriesStart;
+        private final long entriesEnd;
+        private final Token[] indexTokens;
+        private final long[] indexPositions;
+        private int rangeIndex;
+        // the index of the last range we looked for a position to seek to
+        private int seekedRange;
+        private long bytesRead;
+
+        public Reader(File file, IPartitioner partitioner, Collection<Range<Token>> ranges) throws IOException
+        {
+            this.in = RandomAccessReader.open(file);
+            this.partitioner = partitioner;
+            this.ranges = Range.normalize(ranges);
+            try
+            {
+                int version = (int) in.readUnsignedVInt();
+                if (version != CURRENT_VERSION)
+                    throw new IOException("Unsupported partition hashes version " + version);
+                columnsFingerprint = ByteBufferUtil.getArray(ByteBufferUtil.readWithVIntLength(in));
+                entriesStart = in.getFilePointer();
+
+                in.seek(in.length() - Long.BYTES);
+                entriesEnd = in.readLong();
+                in.seek(entriesEnd);
+                int indexSize = (int) in.readUnsignedVInt();
+                indexTokens = new Token[indexSize];
+                indexPositions = new long[indexSize];
+                for (int i = 0; i < indexSize; i++)
+                {
+                    indexTokens[i] = partitioner.getToken(ByteBufferUtil.readWithShortLength(in));
+                    indexPositions[i] = in.readUnsignedVInt();
+                }
+                bytesRead = entriesStart + in.getFilePointer() - entriesEnd;
+
+                in.seek(this.ranges.isEmpty() ? entriesEnd : startPosition(this.ranges.get(0)));
+            }
+            catch (Throwable t)
+            {
+                in.close();
+                throw t;
+            }
+        }
+
+        /**
+         * @return whether the hashes were computed over the provided columns
+         */
+        public boolean matches(RegularAndStaticColumns columns)
+        {
+            return Arrays.equals(columnsFingerprint, columnsFingerprint(columns));
+        }
+
+        /**
+         * @return the number of bytes read from the component so far
+         */
+        public long getBytesRead()
+        {
+            return bytesRead;
+        }
+
+        protected Entry computeNext()
+        {
+            try
+            {
+                while (in.getFilePointer() < entriesEnd)
+                {
+                    long entryStart = in.getFilePointer();
+                    ByteBuffer keyBytes = ByteBufferUtil.readWithShortLength(in);
+                    boolean isClean = (in.readByte() & CLEAN) != 0;
+                    int hashLength = (int) in.readUnsignedVInt();
+                    DecoratedKey key = partitioner.decorateKey(keyBytes);
+
+                    // entries and normalized ranges are both sorted, so we can skip the ranges we are past of
+                    Token token = key.getToken();
+                    while (rangeIndex < ranges.size() && isBefore(ranges.get(rangeIndex), token))
+                        rangeIndex++;
+                    if (rangeIndex == ranges.size())
+                        return endOfData();
+
+                    Range<Token> range = ranges.get(rangeIndex);
+                    if (!range.contains(token))
+                    {
+                        // the entry is before the range, which may start far enough to seek to it
+                        long startPosition = seekedRange == rangeIndex ? -1 : startPosition(range);
+                        seekedRange = rangeIndex;
+                        if (startPosition > in.getFilePointer())
+                        {
+                            bytesRead += in.getFilePointer() - entryStart;
+                            in.seek(startPosition);
+                        }
+                        else
+                        {
+                            in.skipBytesFully(hashLength);
+                            in.readUnsignedVInt();
+                            bytesRead += in.getFilePointer() - entryStart;
+                        }
+                        continue;
+                    }
+
+                    byte[] hash = new byte[hashLength];
+                    in.readFully(hash);
+                    Entry entry = new Entry(key, isClean, hash, in.readUnsignedVInt());
+                    bytesRead += in.getFilePointer() - entryStart;
+                    return entry;
+                }
+                return endOfData();
+            }
+            catch (IOException e)
+            {
+                throw new FSReadError(e, in.getPath());
+            }
+        }
+
+        /**
+         * @return the position of the last indexed entry that is not in the range and precedes it
+         */
+        private long startPosition(Range<Token> range)
+        {
+            if (range.left.isMinimum())
+                return entriesStart;
+
+            // the index tokens are sorted, find the last one not after the range start
+            int low = 0;
+            int high = indexTokens.length - 1;
+            while (low <= high)
+            {
+                int mid = (low + high) >>> 1;
+                if (indexTokens[mid].compareTo(range.left) <= 0)
+                    low = mid + 1;
+                else
+                    high = mid - 1;
+            }
+            return high < 0 ? entriesStart : indexPositions[high];
+        }
+
+        private static boolean isBefore(Range<Token> range, Token token)
+        {
+            return !range.right.isMinimum() && range.right.compareTo(token) < 0;
+        }
+
+        public void close()
+        {
+            in.close();
+        }
+    }
+}
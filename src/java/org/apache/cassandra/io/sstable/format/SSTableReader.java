@@ -28,6 +28,8 @@ import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicLong;
 
 import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Supplier;
+import com.google.common.base.Suppliers;
 import com.google.common.collect.Iterables;
 import com.google.common.collect.Ordering;
 import com.google.common.primitives.Longs;
@@ -239,6 +241,8 @@ public abstract class SSTableReader extends SSTable implements UnfilteredSource,
 
     private volatile double crcCheckChance;
 
+    private final Supplier<PartitionStatsSketch> partitionStats = Suppliers.memoize(this::loadPartitionStats);
+
     /**
      * Calculate approximate key count.
      * If cardinality estimator is available on all given sstables, then this method use them to estimate
@@ -1877,6 +1881,53 @@ public abstract class SSTableReader extends SSTable implements UnfilteredSource,
         return sstableMetadata;
     }
 
+    /**
+     * @return the token-ordered partition statistics of this sstable, or {@code null} if this sstable was written
+     * without a {@link Component#PARTITION_STATS} component or it could not be read.
+     */
+    public PartitionStatsSketch getPartitionStats()
+    {
+        return partitionStats.get();
+    }
+
+    private PartitionStatsSketch loadPartitionStats()
+    {
+        if (!components.contains(Component.PARTITION_STATS))
+            return null;
+
+        File file = new File(descriptor.filenameFor(Component.PARTITION_STATS));
+        if (!file.exists())
+            return null;
+
+        try (FileInputStreamPlus in = file.newInputStream())
+        {
+            return PartitionStatsSketch.serializer.deserialize(in, getPartitioner());
+        }
+        catch (IOException e)
+        {
+            logger.warn("Unable to read partition statistics from {}, ignoring", file, e);
+            return null;
+        }
+    }
+
+    /**
+     * @return whether this sstable was written with a {@link Component#PARTITION_HASHES} component
+     */
+    public boolean hasPartitionHashes()
+    {
+        return components.contains(Component.PARTITION_HASHES);
+    }
+
+    /**
+     * Opens the partition hashes of this sstable that fall in the provided ranges, see {@link PartitionHashes}.
+     * Must only be called if {@link #hasPartitionHashes()}.
+     */
+    public PartitionHashes.Reader openPartitionHashes(Collection<Range<Token>> ranges) throws IOException
+    {
+        assert hasPartitionHashes();
+        return new PartitionHashes.Reader(new File(descriptor.filenameFor(Component.PARTITION_HASHES)), getPartitioner(), ranges);
+    }
+
     public RandomAccessReader openDataReader(RateLimiter limiter)
     {
         assert limiter != null;
@@ -188,7 +188,7 @@ public abstract class SSTableReaderBuilder
                                  : SSTable.estimateRowsFromIndex(primaryIndex, descriptor); // statistics is supposed to be optional
 
             if (recreateBloomFilter)
-                bf = FilterFactory.getFilter(estimatedKeys, metadata.params.bloomFilterFpChance);
+                bf = FilterFactory.getFilter(estimatedKeys, metadata.params.bloomFilterFpChance, metadata.params.bloomFilterType);
 
             try (IndexSummaryBuilder summaryBuilder = summaryLoaded ? null : new IndexSummaryBuilder(estimatedKeys, metadata.params.minIndexInterval, Downsampling.BASE_SAMPLING_LEVEL))
             {
@@ -169,7 +169,8 @@ public abstract class SSTableWriter extends SSTable implements Transactional
                 Component.STATS,
                 Component.SUMMARY,
                 Component.TOC,
-                Component.DIGEST));
+                Component.DIGEST,
+                Component.PARTITION_STATS));
 
         if (metadata.params.bloomFilterFpChance < 1.0)
             components.add(Component.FILTER);
@@ -184,6 +185,9 @@ public abstract class SSTableWriter extends SSTable implements Transactional
             // but the components are unmodifiable after construction
             components.add(Component.CRC);
         }
+
+        if (DatabaseDescriptor.getRepairPartitionHashesEnabled())
+            components.add(Component.PARTITION_HASHES);
         return components;
     }
 
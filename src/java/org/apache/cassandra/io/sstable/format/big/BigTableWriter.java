@@ -46,6 +46,7 @@ import org.apache.cassandra.io.sstable.format.SSTableWriter;
 import org.apache.cassandra.io.sstable.metadata.MetadataCollector;
 import org.apache.cassandra.io.sstable.metadata.MetadataComponent;
 import org.apache.cassandra.io.sstable.metadata.MetadataType;
+import org.apache.cassandra.io.sstable.metadata.PartitionStatsSketch;
 import org.apache.cassandra.io.sstable.metadata.StatsMetadata;
 import org.apache.cassandra.io.util.*;
 import org.apache.cassandra.schema.CompressionParams;
@@ -62,6 +63,7 @@ public class BigTableWriter extends SSTableWriter
 
     private final ColumnIndex columnIndexWriter;
     private final IndexWriter iwriter;
+    private final PartitionHashes.Writer hashWriter;
     private final FileHandle.Builder dbuilder;
     protected final SequentialWriter dataFile;
     private DecoratedKey lastWrittenKey;
@@ -110,6 +112,9 @@ public class BigTableWriter extends SSTableWriter
                                               .mmapped(DatabaseDescriptor.getDiskAccessMode() == Config.DiskAccessMode.mmap);
         chunkCache.ifPresent(dbuilder::withChunkCache);
         iwriter = new IndexWriter(keyCount);
+        hashWriter = components.contains(Component.PARTITION_HASHES)
+                     ? new PartitionHashes.Writer(new File(descriptor.filenameFor(Component.PARTITION_HASHES)), writerOption, metadata().regularAndStaticColumns())
+                     : null;
 
         columnIndexWriter = new ColumnIndex(this.header, dataFile, descriptor.version, this.observers, getRowIndexEntrySerializer().indexInfoSerializer());
     }
@@ -157,12 +162,16 @@ public class BigTableWriter extends SSTableWriter
     {
         dataMark = dataFile.mark();
         iwriter.mark();
+        if (hashWriter != null)
+            hashWriter.mark();
     }
 
     public void resetAndTruncate()
     {
         dataFile.resetAndTruncate(dataMark);
         iwriter.resetAndTruncate();
+        if (hashWriter != null)
+            hashWriter.resetAndTruncate();
     }
 
     /**
@@ -187,6 +196,8 @@ public class BigTableWriter extends SSTableWriter
         if (logger.isTraceEnabled())
             logger.trace("wrote {} at {}", decoratedKey, dataEnd);
         iwriter.append(decoratedKey, index, dataEnd, indexInfo);
+        if (hashWriter != null)
+            hashWriter.append(decoratedKey);
     }
 
     /**
@@ -217,7 +228,7 @@ public class BigTableWriter extends SSTableWriter
         //Reuse the writer for each row
         columnIndexWriter.reset();
 
-        try (UnfilteredRowIterator collecting = Transformation.apply(iterator, new StatsCollector(metadataCollector)))
+        try (UnfilteredRowIterator collecting = hashing(Transformation.apply(iterator, new StatsCollector(metadataCollector))))
         {
             columnIndexWriter.buildRowIndex(collecting);
 
@@ -239,6 +250,7 @@ public class BigTableWriter extends SSTableWriter
             maybeLogLargePartitionWarning(key, rowSize);
             maybeLogManyTombstonesWarning(key, metadataCollector.totalTombstones);
             metadataCollector.addPartitionSizeInBytes(rowSize);
+            metadataCollector.addPartitionStatistics(key.getToken(), rowSize);
             afterAppend(key, endPosition, entry, columnIndexWriter.buffer());
             return entry;
         }
@@ -252,6 +264,11 @@ public class BigTableWriter extends SSTableWriter
         }
     }
 
+    private UnfilteredRowIterator hashing(UnfilteredRowIterator iterator)
+    {
+        return hashWriter == null ? iterator : hashWriter.hashing(iterator);
+    }
+
     private RowIndexEntry.IndexSerializer<IndexInfo> getRowIndexEntrySerializer()
     {
         return (RowIndexEntry.IndexSerializer<IndexInfo>) rowIndexEntrySerializer;
@@ -466,10 +483,14 @@ public class BigTableWriter extends SSTableWriter
         protected void doPrepare()
         {
             iwriter.prepareToCommit();
+            if (hashWriter != null)
+                hashWriter.prepareToCommit();
 
             // write sstable statistics
             dataFile.prepareToCommit();
             writeMetadata(descriptor, finalizeMetadata());
+            if (components.contains(Component.PARTITION_STATS))
+                writePartitionStats(descriptor, metadataCollector.finalizePartitionStats(getPartitioner()));
 
             // save the table of components
             SSTable.appendTOC(descriptor, components);
@@ -482,6 +503,8 @@ public class BigTableWriter extends SSTableWriter
         {
             accumulate = dataFile.commit(accumulate);
             accumulate = iwriter.commit(accumulate);
+            if (hashWriter != null)
+                accumulate = hashWriter.commit(accumulate);
             return accumulate;
         }
 
@@ -495,6 +518,8 @@ public class BigTableWriter extends SSTableWriter
         protected Throwable doAbort(Throwable accumulate)
         {
             accumulate = iwriter.abort(accumulate);
+            if (hashWriter != null)
+                accumulate = hashWriter.abort(accumulate);
             accumulate = dataFile.abort(accumulate);
             return accumulate;
         }
@@ -514,6 +539,20 @@ public class BigTableWriter extends SSTableWriter
         }
     }
 
+    private void writePartitionStats(Descriptor desc, PartitionStatsSketch sketch)
+    {
+        File file = new File(desc.filenameFor(Component.PARTITION_STATS));
+        try (SequentialWriter out = new SequentialWriter(file, writerOption))
+        {
+            PartitionStatsSketch.serializer.serialize(sketch, out);
+            out.finish();
+        }
+        catch (IOException e)
+        {
+            throw new FSWriteError(e, file.path());
+        }
+    }
+
     public long getFilePointer()
     {
         return dataFile.position();
@@ -546,7 +585,7 @@ public class BigTableWriter extends SSTableWriter
             builder = new FileHandle.Builder(descriptor.filenameFor(Component.PRIMARY_INDEX)).mmapped(DatabaseDescriptor.getIndexAccessMode() == Config.DiskAccessMode.mmap);
             chunkCache.ifPresent(builder::withChunkCache);
             summary = new IndexSummaryBuilder(keyCount, metadata().params.minIndexInterval, Downsampling.BASE_SAMPLING_LEVEL);
-            bf = FilterFactory.getFilter(keyCount, metadata().params.bloomFilterFpChance);
+            bf = FilterFactory.getFilter(keyCount, metadata().params.bloomFilterFpChance, metadata().params.bloomFilterType);
             // register listeners to be alerted when the data files are flushed
             indexFile.setPostFlushListener(() -> summary.markIndexSynced(indexFile.getLastFlushOffset()));
             dataFile.setPostFlushListener(() -> summary.markDataSynced(dataFile.getLastFlushOffset()));
@@ -34,6 +34,8 @@ import org.apache.cassandra.db.commitlog.CommitLogPosition;
 import org.apache.cassandra.db.commitlog.IntervalSet;
 import org.apache.cassandra.db.partitions.PartitionStatisticsCollector;
 import org.apache.cassandra.db.rows.Cell;
+import org.apache.cassandra.dht.IPartitioner;
+import org.apache.cassandra.dht.Token;
 import org.apache.cassandra.io.sstable.SSTable;
 import org.apache.cassandra.io.sstable.format.SSTableReader;
 import org.apache.cassandra.service.ActiveRepairService;
@@ -108,6 +110,8 @@ public class MetadataCollector implements PartitionStatisticsCollector
     protected long totalColumnsSet;
     protected long totalRows;
     public int totalTombstones;
+    protected final PartitionStatsSketch.Builder partitionStats = new PartitionStatsSketch.Builder();
+    private long totalRowsAtLastPartition;
 
     /**
      * Default cardinality estimation method is to use HyperLogLog++.
@@ -163,6 +167,17 @@ public class MetadataCollector implements PartitionStatisticsCollector
         return this;
     }
 
+    /**
+     * Records the token and size of the partition that was just written, along with the rows collected for it since
+     * the previous partition. Partitions must be added in token order.
+     */
+    public MetadataCollector addPartitionStatistics(Token token, long partitionSize)
+    {
+        partitionStats.add(token, totalRows - totalRowsAtLastPartition, partitionSize);
+        totalRowsAtLastPartition = totalRows;
+        return this;
+    }
+
     public MetadataCollector addCellPerPartitionCount(long cellCount)
     {
         estimatedCellPerPartitionCount.add(cellCount);
@@ -296,6 +311,11 @@ public class MetadataCollector implements PartitionStatisticsCollector
         return components;
     }
 
+    public PartitionStatsSketch finalizePartitionStats(IPartitioner partitioner)
+    {
+        return partitionStats.build(partitioner);
+    }
+
     /**
      * Release large memory objects while keeping metrics intact
      */
@@ -0,0 +1,403 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.cassandra.io.sstable.metadata;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Preconditions;
+
+import org.apache.cassandra.db.TypeSizes;
+import org.apache.cassandra.dht.IPartitioner;
+import org.apache.cassandra.dht.Range;
+import org.apache.cassandra.dht.Token;
+import org.apache.cassandra.io.util.DataInputPlus;
+import org.apache.cassandra.io.util.DataOutputPlus;
+import org.apache.cassandra.utils.ByteBufferUtil;
+
+/**
+ * A compact, token-ordered sketch of the partitions of an sstable, stored in the
+ * {@link org.apache.cassandra.io.sstable.Component#PARTITION_STATS} component.
+ *
+ * The token space covered by the sstable is cut into at most {@link #MAX_SEGMENTS} consecutive segments holding
+ * roughly the same number of partitions. For each segment we keep the last token it covers, the number of partitions,
+ * rows and bytes it contains, and the size of its largest partition. This makes it possible to estimate how many
+ * partitions, rows and bytes a given token range holds without touching the index, which is what the read path needs
+ * to size pages and range read rounds.
+ */
+public class PartitionStatsSketch
+{
+    public static final int MAX_SEGMENTS = 128;
+
+    private static final int CURRENT_VERSION = 1;
+
+    public static final Serializer serializer = new Serializer();
+
+    private final IPartitioner partitioner;
+    private final Token firstToken;
+    private final Segment[] segments;
+
+    private final long partitions;
+    private final long rows;
+    private final long bytes;
+
+    private PartitionStatsSketch(IPartitioner partitioner, Token firstToken, Segment[] segments)
+    {
+        this.partitioner = partitioner;
+        this.firstToken = firstToken;
+        this.segments = segments;
+
+        long partitions = 0, rows = 0, bytes = 0;
+        for (Segment segment : segments)
+        {
+            partitions += segment.partitions;
+            rows += segment.rows;
+            bytes += segment.bytes;
+        }
+        this.partitions = partitions;
+        this.rows = rows;
+        this.bytes = bytes;
+    }
+
+    public long partitionCount()
+    {
+        return partitions;
+    }
+
+    public long rowCount()
+    {
+        return rows;
+    }
+
+    public long dataSize()
+    {
+        return bytes;
+    }
+
+    public int segmentCount()
+    {
+        return segments.length;
+    }
+
+    public boolean isEmpty()
+    {
+        return segments.length == 0;
+    }
+
+    /**
+     * Estimates the partitions, rows and bytes of this sstable falling in the provided token ranges.
+     *
+     * Segments fully covered by a range are counted exactly. Segments partially covered are pro-rated on the fraction
+     * of their token space the range covers, or counted for half if the partitioner cannot measure token space.
+     */
+    public Estimate estimate(Collection<Range<Token>> ranges)
+    {
+        Estimate estimate = new Estimate();
+        if (isEmpty())
+            return estimate;
+
+        boolean canMeasure = partitioner.splitter().isPresent();
+        Token left = firstToken;
+        for (Segment segment : segments)
+        {
+            double fraction = 0;
+            for (Range<Token> range : ranges)
+                fraction += coveredFraction(range, left, segment.lastToken, canMeasure);
+            fraction = Math.min(1.0, fraction);
+
+            if (fraction > 0)
+            {
+                estimate.partitions += fraction * segment.partitions;
+                estimate.rows += fraction * segment.rows;
+                estimate.bytes += fraction * segment.bytes;
+                estimate.maxPartitionSize = Math.max(estimate.maxPartitionSize, segment.maxPartitionSize);
+            }
+            left = segment.lastToken;
+        }
+        return estimate;
+    }
+
+    public Estimate estimate(Range<Token> range)
+    {
+        return estimate(Collections.singleton(range));
+    }
+
+    /**
+     * @return the fraction of the segment {@code [left, right]} that {@code range} covers
+     */
+    private static double coveredFraction(Range<Token> range, Token left, Token right, boolean canMeasure)
+    {
+        if (left.equals(right))
+            return range.contains(right) ? 1.0 : 0.0;
+
+        Range<Token> segment = new Range<>(left, right);
+        if (range.contains(segment))
+            return 1.0;
+
+        if (!range.intersects(segment))
+            return 0.0;
+
+        if (!canMeasure)
+            return 0.5;
+
+        double covered = 0;
+        for (Range<Token> intersection : segment.intersectionWith(range))
+            covered += intersection.left.size(intersection.right);
+        return Math.min(1.0, covered / left.size(right));
+    }
+
+    /**
+     * Merges the estimates of the provided sketches. Sketches may be {@code null}, in which case they are ignored.
+     */
+    public static Estimate estimate(Iterable<PartitionStatsSketch> sketches, Collection<Range<Token>> ranges)
+    {
+        Estimate total = new Estimate();
+        for (PartitionStatsSketch sketch : sketches)
+        {
+            if (sketch != null)
+                total.add(sketch.estimate(ranges));
+        }
+        return total;
+    }
+
+    /**
+     * The estimated content of a token range.
+     */
+    public static class Estimate
+    {
+        private double partitions;
+        private double rows;
+        private double bytes;
+        private long maxPartitionSize;
+
+        public long partitions()
+        {
+            return Math.round(partitions);
+        }
+
+        public long rows()
+        {
+            return Math.round(rows);
+        }
+
+        public long bytes()
+        {
+            return Math.round(bytes);
+        }
+
+        public long maxPartitionSize()
+        {
+            return maxPartitionSize;
+        }
+
+        public double meanRowsPerPartition()
+        {
+            return partitions == 0 ? 0 : rows / partitions;
+        }
+
+        public double meanPartitionSize()
+        {
+            return partitions == 0 ? 0 : bytes / partitions;
+        }
+
+        public void add(Estimate other)
+        {
+            partitions += other.partitions;
+            rows += other.rows;
+            bytes += other.bytes;
+            maxPartitionSize = Math.max(maxPartitionSize, other.maxPartitionSize);
+        }
+
+        @Override
+        public String toString()
+        {
+            return String.format("Estimate(partitions=%d, rows=%d, bytes=%d, maxPartitionSize=%d)",
+                                 partitions(), rows(), bytes(), maxPartitionSize);
+        }
+    }
+
+    private static class Segment
+    {
+        private final Token lastToken;
+        private final long partitions;
+        private final long rows;
+        private final long bytes;
+        private final long maxPartitionSize;
+
+        private Segment(Token lastToken, long partitions, long rows, long bytes, long maxPartitionSize)
+        {
+            this.lastToken = lastToken;
+            this.partitions = partitions;
+            this.rows = rows;
+            this.bytes = bytes;
+            this.maxPartitionSize = maxPartitionSize;
+        }
+
+        private Segment merge(Segment next)
+        {
+            return new Segment(next.lastToken,
+                               partitions + next.partitions,
+                               rows + next.rows,
+                               bytes + next.bytes,
+                               Math.max(maxPartitionSize, next.maxPartitionSize));
+        }
+    }
+
+    /**
+     * Builds a sketch from partitions added in token order.
+     *
+     * Segments are closed every {@code partitionsPerSegment} partitions; whenever {@link #MAX_SEGMENTS} segments have
+     * been closed, adjacent segments are merged pairwise and {@code partitionsPerSegment} doubles, so the sketch size
+     * stays bounded regardless of the number of partitions written.
+     */
+    public static class Builder
+    {
+        private final int maxSegments;
+        private final List<Segment> segments;
+
+        private Token firstToken;
+        private long partitionsPerSegment = 1;
+
+        private Token lastToken;
+        private long partitions;
+        private long rows;
+        private long bytes;
+        private long maxPartitionSize;
+
+        public Builder()
+        {
+            this(MAX_SEGMENTS);
+        }
+
+        @VisibleForTesting
+        Builder(int maxSegments)
+        {
+            Preconditions.checkArgument(maxSegments >= 2 && maxSegments % 2 == 0, "maxSegments must be an even number >= 2");
+            this.maxSegments = maxSegments;
+            this.segments = new ArrayList<>(maxSegments);
+        }
+
+        public Builder add(Token token, long rowCount, long partitionSize)
+        {
+            if (firstToken == null)
+                firstToken = token;
+
+            lastToken = token;
+            partitions++;
+            rows += rowCount;
+            bytes += partitionSize;
+            maxPartitionSize = Math.max(maxPartitionSize, partitionSize);
+
+            if (partitions >= partitionsPerSegment)
+                closeSegment();
+            return this;
+        }
+
+        private void closeSegment()
+        {
+            segments.add(new Segment(lastToken, partitions, rows, bytes, maxPartitionSize));
+            partitions = rows = bytes = maxPartitionSize = 0;
+
+            if (segments.size() == maxSegments)
+            {
+                for (int i = 0; i < maxSegments / 2; i++)
+                    segments.set(i, segments.get(2 * i).merge(segments.get(2 * i + 1)));
+                segments.subList(maxSegments / 2, maxSegments).clear();
+                partitionsPerSegment *= 2;
+            }
+        }
+
+        public PartitionStatsSketch build(IPartitioner partitioner)
+        {
+            List<Segment> built = new ArrayList<>(segments);
+            if (partitions > 0)
+                built.add(new Segment(lastToken, partitions, rows, bytes, maxPartitionSize));
+            return new PartitionStatsSketch(partitioner, firstToken, built.toArray(new Segment[0]));
+        }
+    }
+
+    public static class Serializer
+    {
+        public void serialize(PartitionStatsSketch sketch, DataOutputPlus out) throws IOException
+        {
+            out.writeUnsignedVInt(CURRENT_VERSION);
+            out.writeUnsignedVInt(sketch.segments.length);
+            if (sketch.isEmpty())
+                return;
+
+            Token.TokenFactory factory = sketch.partitioner.getTokenFactory();
+            ByteBufferUtil.writeWithShortLength(factory.toByteArray(sketch.firstToken), out);
+            for (Segment segment : sketch.segments)
+            {
+                ByteBufferUtil.writeWithShortLength(factory.toByteArray(segment.lastToken), out);
+                out.writeUnsignedVInt(segment.partitions);
+                out.writeUnsignedVInt(segment.rows);
+                out.writeUnsignedVInt(segment.bytes);
+                out.writeUnsignedVInt(segment.maxPartitionSize);
+            }
+        }
+
+        public PartitionStatsSketch deserialize(DataInputPlus in, IPartitioner partitioner) throws IOException
+        {
+            int version = (int) in.readUnsignedVInt();
+            if (version != CURRENT_VERSION)
+                throw new IOException("Unsupported partition statistics version " + version);
+
+            int count = (int) in.readUnsignedVInt();
+            Segment[] segments = new Segment[count];
+            if (count == 0)
+                return new PartitionStatsSketch(partitioner, null, segments);
+
+            Token.TokenFactory factory = partitioner.getTokenFactory();
+            Token firstToken = factory.fromByteArray(ByteBufferUtil.readWithShortLength(in));
+            for (int i = 0; i < count; i++)
+            {
+                Token lastToken = factory.fromByteArray(ByteBufferUtil.readWithShortLength(in));
+                segments[i] = new Segment(lastToken,
+                                          in.readUnsignedVInt(),
+                                          in.readUnsignedVInt(),
+                                          in.readUnsignedVInt(),
+                                          in.readUnsignedVInt());
+            }
+            return new PartitionStatsSketch(partitioner, firstToken, segments);
+        }
+
+        public long serializedSize(PartitionStatsSketch sketch)
+        {
+            long size = TypeSizes.sizeofUnsignedVInt(CURRENT_VERSION) + TypeSizes.sizeofUnsignedVInt(sketch.segments.length);
+            if (sketch.isEmpty())
+                return size;
+
+            Token.TokenFactory factory = sketch.partitioner.getTokenFactory();
+            size += ByteBufferUtil.serializedSizeWithShortLength(factory.toByteArray(sketch.firstToken));
+            for (Segment segment : sketch.segments)
+            {
+                size += ByteBufferUtil.serializedSizeWithShortLength(factory.toByteArray(segment.lastToken));
+                size += TypeSizes.sizeofUnsignedVInt(segment.partitions);
+                size += TypeSizes.sizeofUnsignedVInt(segment.rows);
+                size += TypeSizes.sizeofUnsignedVInt(segment.bytes);
+                size += TypeSizes.sizeofUnsignedVInt(segment.maxPartitionSize);
+            }
+            return size;
+        }
+    }
+}
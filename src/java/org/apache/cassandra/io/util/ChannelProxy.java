@@ -25,6 +25,8 @@ import java.nio.channels.WritableByteChannel;
 import java.nio.file.StandardOpenOption;
 
 import org.apache.cassandra.io.FSReadError;
+import org.apache.cassandra.service.ResourceAccounting;
+import org.apache.cassandra.service.ResourceAccounting.Resource;
 import org.apache.cassandra.utils.NativeLibrary;
 import org.apache.cassandra.utils.concurrent.RefCounted;
 import org.apache.cassandra.utils.concurrent.SharedCloseableImpl;
@@ -135,7 +137,10 @@ public final class ChannelProxy extends SharedCloseableImpl
         try
         {
             // FIXME: consider wrapping in a while loop
-            return channel.read(buffer, position);
+            int read = channel.read(buffer, position);
+            if (read > 0)
+                ResourceAccounting.instance.record(Resource.BYTES_READ_FROM_DISK, read);
+            return read;
         }
         catch (IOException e)
         {
@@ -20,10 +20,12 @@ package org.apache.cassandra.locator;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Map;
-import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
 import java.util.function.Supplier;
 
 import com.google.common.base.Preconditions;
@@ -46,7 +48,6 @@ import org.apache.cassandra.service.DatacenterSyncWriteResponseHandler;
 import org.apache.cassandra.service.DatacenterWriteResponseHandler;
 import org.apache.cassandra.service.WriteResponseHandler;
 import org.apache.cassandra.utils.FBUtilities;
-import org.cliffc.high_scale_lib.NonBlockingHashMap;
 
 /**
  * A abstract parent for all replication strategies.
@@ -58,7 +59,9 @@ public abstract class AbstractReplicationStrategy
     public final Map<String, String> configOptions;
     protected final String keyspaceName;
     private final TokenMetadata tokenMetadata;
-    private final ReplicaCache<Token, EndpointsForRange> replicas = new ReplicaCache<>();
+    private volatile RingSnapshot ringSnapshot;
+    private static final AtomicReferenceFieldUpdater<AbstractReplicationStrategy, RingSnapshot> ringSnapshotUpdater =
+        AtomicReferenceFieldUpdater.newUpdater(AbstractReplicationStrategy.class, RingSnapshot.class, "ringSnapshot");
     public IEndpointSnitch snitch;
 
     protected AbstractReplicationStrategy(String keyspaceName, TokenMetadata tokenMetadata, IEndpointSnitch snitch, Map<String, String> configOptions)
@@ -71,9 +74,16 @@ public abstract class AbstractReplicationStrategy
         this.keyspaceName = keyspaceName;
     }
 
+    /**
+     * @return the replicas for the provided token if they are known for the provided ring version, null otherwise
+     */
     public EndpointsForRange getCachedReplicas(long ringVersion, Token t)
     {
-        return replicas.get(ringVersion, t);
+        RingSnapshot snapshot = ringSnapshot;
+        if (snapshot == null || snapshot.ringVersion != ringVersion)
+            return null;
+
+        return snapshot.get(t);
     }
 
     /**
@@ -92,20 +102,37 @@ public abstract class AbstractReplicationStrategy
     {
         Token searchToken = searchPosition.getToken();
         long currentRingVersion = tokenMetadata.getRingVersion();
-        Token keyToken = TokenMetadata.firstToken(tokenMetadata.sortedTokens(), searchToken);
-        EndpointsForRange endpoints = getCachedReplicas(currentRingVersion, keyToken);
+        EndpointsForRange endpoints = getCachedReplicas(currentRingVersion, searchToken);
         if (endpoints == null)
         {
-            TokenMetadata tm = tokenMetadata.cachedOnlyTokenMap();
-            // if our cache got invalidated, it's possible there is a new token to account for too
-            keyToken = TokenMetadata.firstToken(tm.sortedTokens(), searchToken);
-            endpoints = calculateNaturalReplicas(searchToken, tm);
-            replicas.put(tm.getRingVersion(), keyToken, endpoints);
+            RingSnapshot snapshot = ringSnapshot;
+            // if the ring changed, it's possible there is a new token to account for too
+            if (snapshot == null || snapshot.ringVersion < currentRingVersion)
+                snapshot = maybeUpdateRingSnapshot(new RingSnapshot(tokenMetadata.cachedOnlyTokenMap()));
+
+            endpoints = snapshot.getOrCompute(searchToken, this);
         }
 
         return endpoints;
     }
 
+    /**
+     * Publishes the provided snapshot, unless a snapshot of a more recent ring has been published concurrently.
+     *
+     * @return the provided snapshot
+     */
+    private RingSnapshot maybeUpdateRingSnapshot(RingSnapshot snapshot)
+    {
+        while (true)
+        {
+            RingSnapshot current = ringSnapshot;
+            if (current != null && current.ringVersion >= snapshot.ringVersion)
+                return snapshot;
+            if (ringSnapshotUpdater.compareAndSet(this, current, snapshot))
+                return snapshot;
+        }
+    }
+
     public Replica getLocalReplicaFor(RingPosition<?> searchPosition)
     {
         return getNaturalReplicas(searchPosition)
@@ -459,63 +486,73 @@ public abstract class AbstractReplicationStrategy
         }
     }
 
-    static class ReplicaCache<K, V>
+    /**
+     * An immutable view of the ring at a given ring version, along with the replicas of each of its ranges.
+     *
+     * The tokens are kept in a sorted array, and the replicas of the range ending at {@code tokens[i]} at index
+     * {@code i} of the replica array, so that looking up the replicas of a token is a binary search on the tokens
+     * followed by an array read, without locking nor allocating. The replicas of a range are computed the first time
+     * they are requested, since computing them for every range on every ring change would be wasted on keyspaces that
+     * are rarely accessed. A ring change publishes a new snapshot, rather than clearing the replicas of the current
+     * one, so that concurrent lookups always see replicas that are consistent with the tokens they were found with.
+     */
+    static class RingSnapshot
     {
-        private final AtomicReference<ReplicaHolder<K, V>> cachedReplicas = new AtomicReference<>(new ReplicaHolder<>(0, 4));
+        final long ringVersion;
+        private final TokenMetadata tokenMetadata;
+        private final Token[] tokens;
+        private final AtomicReferenceArray<EndpointsForRange> replicas;
 
-        V get(long ringVersion, K keyToken)
+        RingSnapshot(TokenMetadata tokenMetadata)
         {
-            ReplicaHolder<K, V> replicaHolder = maybeClearAndGet(ringVersion);
-            if (replicaHolder == null)
-                return null;
-
-            return replicaHolder.replicas.get(keyToken);
+            this.ringVersion = tokenMetadata.getRingVersion();
+            this.tokenMetadata = tokenMetadata;
+            this.tokens = tokenMetadata.sortedTokens().toArray(new Token[0]);
+            this.replicas = new AtomicReferenceArray<>(tokens.length);
         }
 
-        void put(long ringVersion, K keyToken, V endpoints)
+        /**
+         * @return the index of the range containing the provided token, that is of the first token of the ring
+         * greater than or equal to it, wrapping around.
+         */
+        private int rangeIndex(Token searchToken)
         {
-            ReplicaHolder<K, V> current = maybeClearAndGet(ringVersion);
-            if (current != null)
+            int i = Arrays.binarySearch(tokens, searchToken);
+            if (i < 0)
             {
-                // if we have the same ringVersion, but already know about the keyToken the endpoints should be the same
-                current.replicas.putIfAbsent(keyToken, endpoints);
+                i = -i - 1;
+                if (i >= tokens.length)
+                    i = 0;
             }
+            return i;
         }
 
-        ReplicaHolder<K, V> maybeClearAndGet(long ringVersion)
+        /**
+         * @return the replicas of the range containing the provided token, if they have been computed already
+         */
+        EndpointsForRange get(Token searchToken)
         {
-            ReplicaHolder<K, V> current = cachedReplicas.get();
-            if (ringVersion == current.ringVersion)
-                return current;
-            else if (ringVersion < current.ringVersion) // things have already moved on
+            if (tokens.length == 0)
                 return null;
 
-            // If ring version has changed, create a fresh replica holder and try to replace the current one.
-            // This may race with other threads that have the same new ring version and one will win and the loosers
-            // will be garbage collected
-            ReplicaHolder<K, V> cleaned = new ReplicaHolder<>(ringVersion, current.replicas.size());
-            cachedReplicas.compareAndSet(current, cleaned);
-
-            // A new ring version may have come along while making the new holder, so re-check the
-            // reference and return the ring version if the same, otherwise return null as there is no point
-            // in using it.
-            current = cachedReplicas.get();
-            if (ringVersion == current.ringVersion)
-                return current;
-            else
-                return null;
+            return replicas.get(rangeIndex(searchToken));
         }
-    }
-
-    static class ReplicaHolder<K, V>
-    {
-        private final long ringVersion;
-        private final NonBlockingHashMap<K, V> replicas;
 
-        ReplicaHolder(long ringVersion, int expectedEntries)
+        EndpointsForRange getOrCompute(Token searchToken, AbstractReplicationStrategy strategy)
         {
-            this.ringVersion = ringVersion;
-            this.replicas = new NonBlockingHashMap<>(expectedEntries);
+            if (tokens.length == 0)
+                return strategy.calculateNaturalReplicas(searchToken, tokenMetadata);
+
+            int i = rangeIndex(searchToken);
+            EndpointsForRange endpoints = replicas.get(i);
+            if (endpoints != null)
+                return endpoints;
+
+            // compute the replicas for the token ending the range, so that they are valid for the whole range
+            endpoints = strategy.calculateNaturalReplicas(tokens[i], tokenMetadata);
+            // if another thread computed them concurrently, they are the same
+            replicas.compareAndSet(i, null, endpoints);
+            return endpoints;
         }
     }
 }
@@ -26,8 +26,6 @@ import java.util.concurrent.locks.ReadWriteLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 import java.util.function.Supplier;
 
-import javax.annotation.concurrent.GuardedBy;
-
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.collect.*;
 
@@ -98,6 +96,9 @@ public class TokenMetadata
     // this is a cache of the calculation from {tokenToEndpointMap, bootstrapTokens, leavingEndpoints}
     // NOTE: this may contain ranges that conflict with the those implied by sortedTokens when a range is changing its transient status
     private final ConcurrentMap<String, PendingRangeMaps> pendingRanges = new ConcurrentHashMap<String, PendingRangeMaps>();
+    // the pending replicas of the bootstrapping nodes, kept to only compute those of the nodes that started
+    // bootstrapping since the previous calculation of the pending ranges of a keyspace
+    private final ConcurrentMap<String, BootstrapReplicas> bootstrapReplicas = new ConcurrentHashMap<>();
 
     // nodes which are migrating to the new tokens in the ring
     private final Set<Pair<Token, InetAddressAndPort>> movingEndpoints = new HashSet<>();
@@ -111,8 +112,7 @@ public class TokenMetadata
     public final IPartitioner partitioner;
 
     // signals replication strategies that nodes have joined or left the ring and they need to recompute ownership
-    @GuardedBy("lock")
-    private long ringVersion = 0;
+    private volatile long ringVersion = 0; // safe to be read without a lock, as it is only increased under the write lock
 
     public TokenMetadata()
     {
@@ -904,6 +904,7 @@ public class TokenMetadata
                     if (logger.isTraceEnabled())
                         logger.trace("No bootstrapping, leaving or moving nodes -> empty pending ranges for {}", keyspaceName);
                     pendingRanges.put(keyspaceName, new PendingRangeMaps());
+                    bootstrapReplicas.remove(keyspaceName);
 
                     return;
                 }
@@ -919,8 +920,13 @@ public class TokenMetadata
             lock.readLock().unlock();
         }
 
+        BootstrapReplicas previous = bootstrapReplicas.get(keyspaceName);
+        BootstrapReplicas current = previous != null && previous.isValidFor(strategy, metadata, leavingEndpointsClone)
+                                    ? previous
+                                    : new BootstrapReplicas(strategy, metadata.getRingVersion(), leavingEndpointsClone);
         pendingRanges.put(keyspaceName, calculatePendingRanges(strategy, metadata, bootstrapTokensClone,
-                                                               leavingEndpointsClone, movingEndpointsClone));
+                                                               leavingEndpointsClone, movingEndpointsClone, current));
+        bootstrapReplicas.put(keyspaceName, current);
     }
 
     /**
@@ -930,16 +936,16 @@ public class TokenMetadata
                                                            TokenMetadata metadata,
                                                            BiMultiValMap<Token, InetAddressAndPort> bootstrapTokens,
                                                            Set<InetAddressAndPort> leavingEndpoints,
-                                                           Set<Pair<Token, InetAddressAndPort>> movingEndpoints)
+                                                           Set<Pair<Token, InetAddressAndPort>> movingEndpoints,
+                                                           BootstrapReplicas bootstrapReplicas)
     {
         PendingRangeMaps newPendingRanges = new PendingRangeMaps();
 
-        RangesByEndpoint addressRanges = strategy.getAddressReplicas(metadata);
-
         // Copy of metadata reflecting the situation after all leave operations are finished.
         TokenMetadata allLeftMetadata = removeEndpoints(metadata.cloneOnlyTokenMap(), leavingEndpoints);
 
         // get all ranges that will be affected by leaving nodes
+        RangesByEndpoint addressRanges = leavingEndpoints.isEmpty() ? null : strategy.getAddressReplicas(metadata);
         Set<Range<Token>> removeAffectedRanges = new HashSet<>();
         for (InetAddressAndPort endpoint : leavingEndpoints)
             removeAffectedRanges.addAll(addressRanges.get(endpoint).ranges());
@@ -972,13 +978,23 @@ public class TokenMetadata
         // the newly pending ranges means there are now fewer endpoints that there were originally and
         // causes its next neighbour to take over its primary range which affects the next RF endpoints
         // in the ring.
+        // As the ranges of a bootstrapping node only depend on that state and on its own tokens, they are only
+        // computed for the nodes that started bootstrapping since the last calculation, if that state did not change.
         Multimap<InetAddressAndPort, Token> bootstrapAddresses = bootstrapTokens.inverse();
+        bootstrapReplicas.retainEndpoints(bootstrapAddresses.keySet());
         for (InetAddressAndPort endpoint : bootstrapAddresses.keySet())
         {
             Collection<Token> tokens = bootstrapAddresses.get(endpoint);
-            TokenMetadata cloned = allLeftMetadata.cloneOnlyTokenMap();
-            cloned.updateNormalTokens(tokens, endpoint);
-            for (Replica replica : strategy.getAddressReplicas(cloned, endpoint))
+            RangesAtEndpoint replicas = bootstrapReplicas.get(endpoint, tokens);
+            if (replicas == null)
+            {
+                TokenMetadata cloned = allLeftMetadata.cloneOnlyTokenMap();
+                cloned.updateNormalTokens(tokens, endpoint);
+                replicas = strategy.getAddressReplicas(cloned, endpoint);
+                bootstrapReplicas.put(endpoint, tokens, replicas);
+            }
+
+            for (Replica replica : replicas)
             {
                 newPendingRanges.addPendingRange(replica.range(), replica);
             }
@@ -1237,6 +1253,7 @@ public class TokenMetadata
             bootstrapTokens.clear();
             leavingEndpoints.clear();
             pendingRanges.clear();
+            bootstrapReplicas.clear();
             movingEndpoints.clear();
             sortedTokens.clear();
             topology = Topology.empty();
@@ -1397,16 +1414,7 @@ public class TokenMetadata
 
     public long getRingVersion()
     {
-        lock.readLock().lock();
-
-        try
-        {
-            return ringVersion;
-        }
-        finally
-        {
-            lock.readLock().unlock();
-        }
+        return ringVersion;
     }
 
     public void invalidateCachedRings()
@@ -1434,6 +1442,48 @@ public class TokenMetadata
         return partitioner.decorateKey(key);
     }
 
+    /**
+     * The pending replicas of the bootstrapping nodes of a keyspace, which remain valid as long as the replication
+     * strategy, the ring and the leaving nodes they were computed with do not change.
+     */
+    private static class BootstrapReplicas
+    {
+        private final AbstractReplicationStrategy strategy;
+        private final long ringVersion;
+        private final Set<InetAddressAndPort> leavingEndpoints;
+        private final Map<InetAddressAndPort, Pair<Set<Token>, RangesAtEndpoint>> byEndpoint = new ConcurrentHashMap<>();
+
+        private BootstrapReplicas(AbstractReplicationStrategy strategy, long ringVersion, Set<InetAddressAndPort> leavingEndpoints)
+        {
+            this.strategy = strategy;
+            this.ringVersion = ringVersion;
+            this.leavingEndpoints = leavingEndpoints;
+        }
+
+        private boolean isValidFor(AbstractReplicationStrategy strategy, TokenMetadata metadata, Set<InetAddressAndPort> leavingEndpoints)
+        {
+            return this.strategy == strategy
+                   && ringVersion == metadata.getRingVersion()
+                   && this.leavingEndpoints.equals(leavingEndpoints);
+        }
+
+        private RangesAtEndpoint get(InetAddressAndPort endpoint, Collection<Token> tokens)
+        {
+            Pair<Set<Token>, RangesAtEndpoint> replicas = byEndpoint.get(endpoint);
+            return replicas != null && replicas.left.equals(new HashSet<>(tokens)) ? replicas.right : null;
+        }
+
+        private void put(InetAddressAndPort endpoint, Collection<Token> tokens, RangesAtEndpoint replicas)
+        {
+            byEndpoint.put(endpoint, Pair.create(new HashSet<>(tokens), replicas));
+        }
+
+        private void retainEndpoints(Set<InetAddressAndPort> endpoints)
+        {
+            byEndpoint.keySet().retainAll(endpoints);
+        }
+    }
+
     /**
      * Tracks the assignment of racks and endpoints in each datacenter for all the "normal" endpoints
      * in this TokenMetadata. This allows faster calculation of endpoints in NetworkTopologyStrategy.
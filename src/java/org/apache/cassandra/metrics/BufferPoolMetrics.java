@@ -44,6 +44,9 @@ public class BufferPoolMetrics
      */
     public final Gauge<Long> overflowSize;
 
+    /** The metrics of each NUMA node, if the pool has a global pool per node */
+    private final NodeMetrics[] nodes;
+
     public BufferPoolMetrics(String scope, BufferPool bufferPool)
     {
         MetricNameFactory factory = new DefaultNameFactory("BufferPool", scope);
@@ -57,6 +60,26 @@ public class BufferPoolMetrics
         usedSize = Metrics.register(factory.createMetricName("UsedSize"), bufferPool::usedSizeInBytes);
 
         size = Metrics.register(factory.createMetricName("Size"), bufferPool::sizeInBytes);
+
+        nodes = new NodeMetrics[bufferPool.nodeCount() > 1 ? bufferPool.nodeCount() : 0];
+        for (int node = 0; node < nodes.length; node++)
+            nodes[node] = new NodeMetrics(scope, bufferPool, node);
+    }
+
+    /**
+     * @return the number of chunks the global pool of the given NUMA node took from the pools of other nodes
+     */
+    public Meter remoteChunks(int node)
+    {
+        return nodes[node].remoteChunks;
+    }
+
+    /**
+     * @return the size, in bytes, of the chunks allocated by the global pool of the given NUMA node
+     */
+    public Gauge<Long> size(int node)
+    {
+        return nodes[node].size;
     }
 
     /**
@@ -68,4 +91,20 @@ public class BufferPoolMetrics
         Metrics.registerMBean(misses, legacyFactory.createMetricName("Misses").getMBeanName());
         Metrics.registerMBean(size, legacyFactory.createMetricName("Size").getMBeanName());
     }
+
+    private static class NodeMetrics
+    {
+        /** Total size, in bytes, of the chunks allocated by the global pool of the node */
+        private final Gauge<Long> size;
+
+        /** Total number of chunks the global pool of the node took from the pools of other nodes */
+        private final Meter remoteChunks;
+
+        private NodeMetrics(String scope, BufferPool bufferPool, int node)
+        {
+            MetricNameFactory factory = new DefaultNameFactory("BufferPool", scope + "-node" + node);
+            size = Metrics.register(factory.createMetricName("Size"), () -> bufferPool.sizeInBytes(node));
+            remoteChunks = Metrics.meter(factory.createMetricName("RemoteChunks"));
+        }
+    }
 }
@@ -24,6 +24,8 @@ import com.codahale.metrics.Timer;
 import com.github.benmanes.caffeine.cache.stats.CacheStats;
 import com.github.benmanes.caffeine.cache.stats.StatsCounter;
 import org.apache.cassandra.cache.ChunkCache;
+import org.apache.cassandra.service.ResourceAccounting;
+import org.apache.cassandra.service.ResourceAccounting.Resource;
 
 import static org.apache.cassandra.metrics.CassandraMetricsRegistry.Metrics;
 
@@ -51,6 +53,7 @@ public class ChunkCacheMetrics extends CacheMetrics implements StatsCounter
     {
         requests.mark(count);
         hits.mark(count);
+        ResourceAccounting.instance.record(Resource.CHUNK_CACHE_HITS, count);
     }
 
     @Override
@@ -58,6 +61,7 @@ public class ChunkCacheMetrics extends CacheMetrics implements StatsCounter
     {
         requests.mark(count);
         misses.mark(count);
+        ResourceAccounting.instance.record(Resource.CHUNK_CACHE_MISSES, count);
     }
 
     @Override
@@ -19,6 +19,7 @@ package org.apache.cassandra.metrics;
 
 import com.codahale.metrics.Gauge;
 import com.codahale.metrics.Meter;
+import com.codahale.metrics.Timer;
 import org.apache.cassandra.net.OutboundConnections;
 
 import static org.apache.cassandra.metrics.CassandraMetricsRegistry.Metrics;
@@ -36,6 +37,9 @@ public class InternodeOutboundMetrics
      * TODO this was always broken, as it never counted those messages without callbacks? So perhaps we can redefine it. */
     public static final Meter totalExpiredCallbacks = Metrics.meter(DefaultNameFactory.createMetricName(TYPE_NAME, "TotalTimeouts", null));
 
+    /** Delay between the expiration time of the callbacks and their actual expiry */
+    public static final Timer expiredCallbacksLag = Metrics.timer(DefaultNameFactory.createMetricName(TYPE_NAME, "TimeoutLag", null));
+
     /** Number of timeouts for specific IP */
     public final Meter expiredCallbacks;
 
@@ -180,12 +180,12 @@ public class TopPartitionTracker implements Closeable
                                        ranges);
         }
 
-        public void trackTombstoneCount(DecoratedKey key, long count)
+        public synchronized void trackTombstoneCount(DecoratedKey key, long count)
         {
             tombstones.track(key, count);
         }
 
-        public void trackPartitionSize(DecoratedKey key, long size)
+        public synchronized void trackPartitionSize(DecoratedKey key, long size)
         {
             sizes.track(key, size);
         }
@@ -22,6 +22,7 @@ import java.io.IOException;
 import java.nio.ByteBuffer;
 import java.nio.channels.ClosedChannelException;
 import java.nio.channels.FileChannel;
+import java.util.function.LongConsumer;
 
 import com.google.common.annotations.VisibleForTesting;
 import org.slf4j.Logger;
@@ -54,6 +55,7 @@ import static java.lang.Math.min;
 public class AsyncStreamingOutputPlus extends AsyncChannelOutputPlus implements StreamingDataOutputPlus
 {
     private static final Logger logger = LoggerFactory.getLogger(AsyncStreamingOutputPlus.class);
+    private static final LongConsumer NO_PROGRESS = bytes -> {};
 
     private final BufferPool bufferPool = BufferPools.forNetworking();
 
@@ -165,39 +167,89 @@ public class AsyncStreamingOutputPlus extends AsyncChannelOutputPlus implements
             return writeFileToChannelZeroCopy(file, limiter, 1 << 20, 1 << 20, 2 << 20);
     }
 
-    @VisibleForTesting
-    long writeFileToChannel(FileChannel fc, RateLimiter limiter, int batchSize) throws IOException
+    /**
+     * Writes the provided sections of the file channel to stream, see
+     * {@link StreamingDataOutputPlus#writeFileToChannel(FileChannel, long[], long[], RateLimiter, LongConsumer)}: <br>
+     * * For zero-copy-streaming, 1MiB at a time, with at most 2MiB in flight at once. <br>
+     * * For streaming with SSL, 64KiB at a time. <br>
+     * <p>
+     * This method takes ownership of the provided {@link FileChannel}.
+     */
+    @Override
+    public long writeFileToChannel(FileChannel file, long[] starts, long[] ends, RateLimiter limiter, LongConsumer progress) throws IOException
     {
-        final long length = fc.size();
+        if (channel.pipeline().get(SslHandler.class) != null)
+        {
+            try
+            {
+                long bytesTransferred = 0;
+                for (int i = 0; i < starts.length; i++)
+                    bytesTransferred += writeFileSectionToChannel(file, starts[i], ends[i], limiter, 1 << 16, bytesTransferred, progress);
+                return bytesTransferred;
+            }
+            finally
+            {
+                file.close();
+            }
+        }
+
         long bytesTransferred = 0;
+        final SharedFileChannel sharedFile = SharedDefaultFileRegion.share(file);
+        try
+        {
+            for (int i = 0; i < starts.length; i++)
+                bytesTransferred += writeFileSectionToChannelZeroCopy(sharedFile, starts[i], ends[i], limiter, 1 << 20, 1 << 20, 2 << 20, bytesTransferred, progress);
+            return bytesTransferred;
+        }
+        finally
+        {
+            sharedFile.release();
+        }
+    }
 
+    @VisibleForTesting
+    long writeFileToChannel(FileChannel fc, RateLimiter limiter, int batchSize) throws IOException
+    {
         try
         {
-            while (bytesTransferred < length)
-            {
-                int toWrite = (int) min(batchSize, length - bytesTransferred);
-                final long position = bytesTransferred;
-
-                writeToChannel(bufferSupplier -> {
-                    ByteBuffer outBuffer = bufferSupplier.get(toWrite);
-                    long read = fc.read(outBuffer, position);
-                    if (read != toWrite)
-                        throw new IOException(String.format("could not read required number of bytes from " +
-                                                            "file to be streamed: read %d bytes, wanted %d bytes",
-                                                            read, toWrite));
-                    outBuffer.flip();
-                }, limiter);
-
-                if (logger.isTraceEnabled())
-                    logger.trace("Writing {} bytes at position {} of {}", toWrite, bytesTransferred, length);
-                bytesTransferred += toWrite;
-            }
+            return writeFileSectionToChannel(fc, 0, fc.size(), limiter, batchSize, 0, NO_PROGRESS);
         }
         finally
         {
             // we don't need to wait until byte buffer is flushed by netty
             fc.close();
         }
+    }
+
+    /**
+     * Writes the [start, end) section of the file channel, notifying {@code progress} of the bytes written so far,
+     * starting from {@code transferred}, after each batch.
+     */
+    private long writeFileSectionToChannel(FileChannel fc, long start, long end, RateLimiter limiter, int batchSize, long transferred, LongConsumer progress) throws IOException
+    {
+        final long length = end - start;
+        long bytesTransferred = 0;
+
+        while (bytesTransferred < length)
+        {
+            int toWrite = (int) min(batchSize, length - bytesTransferred);
+            final long position = start + bytesTransferred;
+
+            writeToChannel(bufferSupplier -> {
+                ByteBuffer outBuffer = bufferSupplier.get(toWrite);
+                long read = fc.read(outBuffer, position);
+                if (read != toWrite)
+                    throw new IOException(String.format("could not read required number of bytes from " +
+                                                        "file to be streamed: read %d bytes, wanted %d bytes",
+                                                        read, toWrite));
+                outBuffer.flip();
+            }, limiter);
+
+            if (logger.isTraceEnabled())
+                logger.trace("Writing {} bytes at position {} of {}", toWrite, position, end);
+            bytesTransferred += toWrite;
+            progress.accept(transferred + bytesTransferred);
+        }
 
         return bytesTransferred;
     }
@@ -228,28 +280,10 @@ public class AsyncStreamingOutputPlus extends AsyncChannelOutputPlus implements
     private long writeFileToChannelZeroCopyThrottled(FileChannel file, RateLimiter limiter, int batchSize, int lowWaterMark, int highWaterMark) throws IOException
     {
         final long length = file.size();
-        long bytesTransferred = 0;
-
         final SharedFileChannel sharedFile = SharedDefaultFileRegion.share(file);
         try
         {
-            int toWrite;
-            while (bytesTransferred < length)
-            {
-                toWrite = (int) min(batchSize, length - bytesTransferred);
-
-                limiter.acquire(toWrite);
-                ChannelPromise promise = beginFlush(toWrite, lowWaterMark, highWaterMark);
-
-                SharedDefaultFileRegion fileRegion = new SharedDefaultFileRegion(sharedFile, bytesTransferred, toWrite);
-                channel.writeAndFlush(fileRegion, promise);
-
-                if (logger.isTraceEnabled())
-                    logger.trace("Writing {} bytes at position {} of {}", toWrite, bytesTransferred, length);
-                bytesTransferred += toWrite;
-            }
-
-            return bytesTransferred;
+            return writeFileSectionToChannelZeroCopy(sharedFile, 0, length, limiter, batchSize, lowWaterMark, highWaterMark, 0, NO_PROGRESS);
         }
         finally
         {
@@ -257,6 +291,31 @@ public class AsyncStreamingOutputPlus extends AsyncChannelOutputPlus implements
         }
     }
 
+    private long writeFileSectionToChannelZeroCopy(SharedFileChannel sharedFile, long start, long end, RateLimiter limiter, int batchSize, int lowWaterMark, int highWaterMark, long transferred, LongConsumer progress) throws IOException
+    {
+        final long length = end - start;
+        long bytesTransferred = 0;
+
+        int toWrite;
+        while (bytesTransferred < length)
+        {
+            toWrite = (int) min(batchSize, length - bytesTransferred);
+
+            limiter.acquire(toWrite);
+            ChannelPromise promise = beginFlush(toWrite, lowWaterMark, highWaterMark);
+
+            SharedDefaultFileRegion fileRegion = new SharedDefaultFileRegion(sharedFile, start + bytesTransferred, toWrite);
+            channel.writeAndFlush(fileRegion, promise);
+
+            if (logger.isTraceEnabled())
+                logger.trace("Writing {} bytes at position {} of {}", toWrite, start + bytesTransferred, end);
+            bytesTransferred += toWrite;
+            progress.accept(transferred + bytesTransferred);
+        }
+
+        return bytesTransferred;
+    }
+
     /**
      * Discard any buffered data, and the buffers that contain it.
      * May be invoked instead of {@link #close()} if we terminate exceptionally.
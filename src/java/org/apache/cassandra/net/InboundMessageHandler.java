@@ -30,6 +30,7 @@ import io.netty.channel.Channel;
 import io.netty.channel.ChannelHandlerContext;
 import org.apache.cassandra.concurrent.ExecutorLocals;
 import org.apache.cassandra.concurrent.Stage;
+import org.apache.cassandra.db.PartitionAffinity;
 import org.apache.cassandra.exceptions.IncompatibleSchemaException;
 import org.apache.cassandra.io.util.DataInputBuffer;
 import org.apache.cassandra.locator.InetAddressAndPort;
@@ -396,7 +397,11 @@ public class InboundMessageHandler extends AbstractMessageHandler
         if (state != null) state.trace("{} message received from {}", header.verb, header.from);
 
         callbacks.onDispatched(task.size(), header);
-        header.verb.stage.execute(ExecutorLocals.create(state), task);
+        // large messages are only deserialized on the stage, so they cannot be routed by partition
+        int shard = task instanceof ProcessSmallMessage
+                  ? PartitionAffinity.shard(header.verb.stage, ((ProcessSmallMessage) task).message.payload)
+                  : -1;
+        header.verb.stage.execute(ExecutorLocals.create(state), task, shard);
     }
 
     private abstract class ProcessMessage implements Runnable
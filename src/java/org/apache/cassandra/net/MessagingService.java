@@ -240,6 +240,7 @@ public class MessagingService extends MessagingServiceMBeanImpl
     public final SocketFactory socketFactory = new SocketFactory();
     public final LatencySubscribers latencySubscribers = new LatencySubscribers();
     public final RequestCallbacks callbacks = new RequestCallbacks(this);
+    private final MutationBatcher mutationBatcher = new MutationBatcher(this);
 
     // a public hook for filtering messages intended for delivery to this node
     public final InboundSink inboundSink = new InboundSink(this);
@@ -360,7 +361,8 @@ public class MessagingService extends MessagingServiceMBeanImpl
     {
         assert message.callBackOnFailure();
         callbacks.addWithExpiration(handler, message, to, handler.consistencyLevel(), allowHints);
-        send(message, to.endpoint(), null);
+        if (!mutationBatcher.maybeBatch(message, to.endpoint()))
+            send(message, to.endpoint(), null);
     }
 
     /**
@@ -520,6 +522,7 @@ public class MessagingService extends MessagingServiceMBeanImpl
         // We may need to schedule hints on the mutation stage, so it's erroneous to shut down the mutation stage first
         assert !MUTATION.executor().isShutdown();
 
+        mutationBatcher.shutdownNow();
         if (shutdownGracefully)
         {
             callbacks.shutdownGracefully();
@@ -0,0 +1,151 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.cassandra.net;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import com.google.common.annotations.VisibleForTesting;
+
+import org.apache.cassandra.concurrent.ScheduledExecutorPlus;
+import org.apache.cassandra.config.DatabaseDescriptor;
+import org.apache.cassandra.db.Mutation;
+import org.apache.cassandra.db.MutationBatch;
+import org.apache.cassandra.locator.InOurDc;
+import org.apache.cassandra.locator.InetAddressAndPort;
+
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+import static org.apache.cassandra.concurrent.ExecutorFactory.Global.executorFactory;
+import static org.apache.cassandra.concurrent.ExecutorFactory.SimulatorSemantics.DISCARD;
+
+/**
+ * Packs the mutations sent to the same replica within {@code internode_mutation_batch_window} into a single
+ * {@link Verb#MUTATION_BATCH_REQ} message, see {@link MutationBatch}.
+ *
+ * The first mutation queued for an idle replica schedules the sending of the batch at the end of the window, and the
+ * mutations queued for that replica in the meantime are sent along with it. The callbacks of the mutations are
+ * registered as usual, since each mutation is acknowledged on its own.
+ *
+ * Only the mutations sent to replicas of the local datacenter without parameters are batched: those sent with
+ * forwarding or tracing information rely on the header of their own message, and the window would add to the latency
+ * of the cross datacenter link. Batches hold at most {@link #MAX_BATCH_SIZE} mutations and {@link #MAX_BATCH_BYTES}
+ * bytes of mutations, so they are sent over the connection for small messages, and larger mutations are sent on their
+ * own right away.
+ */
+class MutationBatcher
+{
+    @VisibleForTesting
+    static final int MAX_BATCH_SIZE = 128;
+    @VisibleForTesting
+    static final int MAX_BATCH_BYTES = OutboundConnections.LARGE_MESSAGE_THRESHOLD / 2;
+
+    private final MessagingService messaging;
+    private final ScheduledExecutorPlus executor = executorFactory().scheduled("Mutation-Batcher", DISCARD);
+    private final ConcurrentMap<InetAddressAndPort, Pending> pending = new ConcurrentHashMap<>();
+
+    MutationBatcher(MessagingService messaging)
+    {
+        this.messaging = messaging;
+    }
+
+    /**
+     * Queues the provided mutation to be sent in a batch, if batching is enabled and the message can be batched.
+     *
+     * @return whether the mutation was queued, in which case it must not be sent by the caller
+     */
+    boolean maybeBatch(Message<?> message, InetAddressAndPort to)
+    {
+        long window = DatabaseDescriptor.getInternodeMutationBatchWindow(NANOSECONDS);
+        if (window <= 0 || message.verb() != Verb.MUTATION_REQ || !message.header.params().isEmpty() || executor.isShutdown())
+            return false;
+
+        @SuppressWarnings("unchecked")
+        Message<Mutation> mutation = (Message<Mutation>) message;
+        if (serializedSize(mutation) > MAX_BATCH_BYTES || !InOurDc.isInOurDc(to))
+            return false;
+
+        Pending queued = pending.computeIfAbsent(to, ignore -> new Pending());
+        queued.messages.add(mutation);
+        if (queued.scheduled.compareAndSet(false, true))
+            executor.schedule(() -> send(to, queued), window, NANOSECONDS);
+        return true;
+    }
+
+    private void send(InetAddressAndPort to, Pending queued)
+    {
+        // the mutations queued from now on schedule another batch
+        queued.scheduled.set(false);
+
+        List<Message<Mutation>> batch;
+        while (!(batch = queued.drain()).isEmpty())
+            messaging.send(batch.size() == 1 ? batch.get(0) : message(batch), to);
+    }
+
+    @VisibleForTesting
+    static Message<MutationBatch> message(List<Message<Mutation>> batch)
+    {
+        long createdAtNanos = Long.MAX_VALUE;
+        long expiresAtNanos = Long.MIN_VALUE;
+        for (Message<Mutation> message : batch)
+        {
+            createdAtNanos = Math.min(createdAtNanos, message.createdAtNanos());
+            expiresAtNanos = Math.max(expiresAtNanos, message.expiresAtNanos());
+        }
+
+        return Message.builder(Verb.MUTATION_BATCH_REQ, MutationBatch.of(batch, createdAtNanos))
+                      .withCreatedAt(createdAtNanos)
+                      .withExpiresAt(expiresAtNanos)
+                      .build();
+    }
+
+    private static int serializedSize(Message<Mutation> message)
+    {
+        return message.payload.serializedSize(MessagingService.current_version);
+    }
+
+    void shutdownNow()
+    {
+        executor.shutdownNow();
+    }
+
+    private static class Pending
+    {
+        private final Queue<Message<Mutation>> messages = new ConcurrentLinkedQueue<>();
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+
+        private List<Message<Mutation>> drain()
+        {
+            List<Message<Mutation>> drained = new ArrayList<>();
+            int bytes = 0;
+            Message<Mutation> message;
+            while (drained.size() < MAX_BATCH_SIZE && (message = messages.peek()) != null)
+            {
+                bytes += serializedSize(message);
+                if (bytes > MAX_BATCH_BYTES && !drained.isEmpty())
+                    break;
+                drained.add(messages.poll());
+            }
+            return drained;
+        }
+    }
+}
@@ -18,6 +18,7 @@
 package org.apache.cassandra.net;
 
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.TimeoutException;
@@ -34,6 +35,7 @@ import org.slf4j.LoggerFactory;
 import org.apache.cassandra.config.DatabaseDescriptor;
 import org.apache.cassandra.db.ConsistencyLevel;
 import org.apache.cassandra.db.Mutation;
+import org.apache.cassandra.db.MutationBatch;
 import org.apache.cassandra.exceptions.RequestFailureReason;
 import org.apache.cassandra.io.IVersionedAsymmetricSerializer;
 import org.apache.cassandra.locator.InetAddressAndPort;
@@ -61,6 +63,11 @@ import static org.apache.cassandra.utils.MonotonicClock.Global.preciseTime;
  *
  * Since we reuse the same request id for multiple messages now, the map is keyed by (id, peer) tuples
  * rather than just id as it used to before 4.0.
+ *
+ * Callbacks are also registered in a hashed timing wheel, in the slot of the tick their expiration time falls in,
+ * so that the reaper only goes through the callbacks of the ticks that have elapsed instead of scanning the whole map.
+ * A slot is shared by the ticks that are {@link #WHEEL_SIZE} ticks apart, so the callbacks of a slot that expire in
+ * a later round of the wheel are left in place.
  */
 public class RequestCallbacks implements OutboundMessageCallbacks
 {
@@ -70,12 +77,25 @@ public class RequestCallbacks implements OutboundMessageCallbacks
     private final ScheduledExecutorPlus executor = executorFactory().scheduled("Callback-Map-Reaper", DISCARD);
     private final ConcurrentMap<CallbackKey, CallbackInfo> callbacks = new ConcurrentHashMap<>();
 
+    private static final int WHEEL_SIZE = 1024;
+    private final long tickNanos;
+    private final Set<CallbackKey>[] wheel;
+    // the last tick whose slot the reaper started to expire; it is set before going through the slot, so that a
+    // callback added to the slot concurrently is either seen by the reaper, or sees the tick as expiring
+    private volatile long expiringTick;
+
+    @SuppressWarnings({ "unchecked", "rawtypes" })
     RequestCallbacks(MessagingService messagingService)
     {
         this.messagingService = messagingService;
 
-        long expirationInterval = defaultExpirationInterval();
-        executor.scheduleWithFixedDelay(this::expire, expirationInterval, expirationInterval, NANOSECONDS);
+        this.tickNanos = Math.max(1, defaultExpirationInterval() / 2);
+        this.wheel = new Set[WHEEL_SIZE];
+        for (int i = 0; i < WHEEL_SIZE; i++)
+            wheel[i] = ConcurrentHashMap.newKeySet();
+        this.expiringTick = tick(preciseTime.now()) - 1;
+
+        executor.scheduleWithFixedDelay(this::expire, tickNanos, tickNanos, NANOSECONDS);
     }
 
     /**
@@ -94,7 +114,11 @@ public class RequestCallbacks implements OutboundMessageCallbacks
     @VisibleForTesting
     public CallbackInfo remove(long id, InetAddressAndPort peer)
     {
-        return callbacks.remove(key(id, peer));
+        CallbackKey key = key(id, peer);
+        CallbackInfo info = callbacks.remove(key);
+        if (info != null && info.slot != null)
+            info.slot.remove(key);
+        return info;
     }
 
     /**
@@ -104,7 +128,7 @@ public class RequestCallbacks implements OutboundMessageCallbacks
     {
         // mutations need to call the overload with a ConsistencyLevel
         assert message.verb() != Verb.MUTATION_REQ && message.verb() != Verb.COUNTER_MUTATION_REQ;
-        CallbackInfo previous = callbacks.put(key(message.id(), to), new CallbackInfo(message, to, cb));
+        CallbackInfo previous = put(key(message.id(), to), new CallbackInfo(message, to, cb));
         assert previous == null : format("Callback already exists for id %d/%s! (%s)", message.id(), to, previous);
     }
 
@@ -115,10 +139,47 @@ public class RequestCallbacks implements OutboundMessageCallbacks
                                   boolean allowHints)
     {
         assert message.verb() == Verb.MUTATION_REQ || message.verb() == Verb.COUNTER_MUTATION_REQ || message.verb() == Verb.PAXOS_COMMIT_REQ;
-        CallbackInfo previous = callbacks.put(key(message.id(), to.endpoint()), new WriteCallbackInfo(message, to, cb, consistencyLevel, allowHints));
+        CallbackInfo previous = put(key(message.id(), to.endpoint()), new WriteCallbackInfo(message, to, cb, consistencyLevel, allowHints));
         assert previous == null : format("Callback already exists for id %d/%s! (%s)", message.id(), to.endpoint(), previous);
     }
 
+    private CallbackInfo put(CallbackKey key, CallbackInfo info)
+    {
+        CallbackInfo previous = callbacks.put(key, info);
+        schedule(key, info);
+        return previous;
+    }
+
+    /**
+     * Adds the callback to the slot of the tick its expiration time falls in, or of the next tick to expire if that
+     * tick is already being expired.
+     */
+    private void schedule(CallbackKey key, CallbackInfo info)
+    {
+        long tick = tick(info.expiresAtNanos);
+        while (true)
+        {
+            tick = Math.max(tick, expiringTick + 1);
+            Set<CallbackKey> slot = slot(tick);
+            info.slot = slot;
+            slot.add(key);
+
+            // if the reaper went through the slot concurrently and did not expire our callback, schedule it again
+            if (expiringTick < tick || !slot.remove(key))
+                return;
+        }
+    }
+
+    private long tick(long nanos)
+    {
+        return Math.floorDiv(nanos, tickNanos);
+    }
+
+    private Set<CallbackKey> slot(long tick)
+    {
+        return wheel[(int) Math.floorMod(tick, (long) WHEEL_SIZE)];
+    }
+
     <In,Out> IVersionedAsymmetricSerializer<In, Out> responseSerializer(long id, InetAddressAndPort peer)
     {
         CallbackInfo info = get(id, peer);
@@ -141,19 +202,39 @@ public class RequestCallbacks implements OutboundMessageCallbacks
     private void expire()
     {
         long start = preciseTime.now();
+        // only the ticks that have fully elapsed are expired, so that all the callbacks of their round are due
+        long lastTick = tick(start) - 1;
         int n = 0;
-        for (Map.Entry<CallbackKey, CallbackInfo> entry : callbacks.entrySet())
+        for (long tick = Math.max(expiringTick + 1, lastTick - WHEEL_SIZE + 1); tick <= lastTick; tick++)
+        {
+            expiringTick = tick;
+            n += expire(slot(tick), start);
+        }
+        logger.trace("Expired {} entries", n);
+    }
+
+    private int expire(Set<CallbackKey> slot, long start)
+    {
+        int n = 0;
+        for (CallbackKey key : slot)
         {
-            if (entry.getValue().isReadyToDieAt(start))
+            CallbackInfo info = callbacks.get(key);
+            // the callback was removed, or scheduled again in another slot, concurrently with its removal from this one
+            if (info == null || info.slot != slot)
             {
-                if (callbacks.remove(entry.getKey(), entry.getValue()))
-                {
-                    n++;
-                    onExpired(entry.getValue());
-                }
+                slot.remove(key);
+                continue;
+            }
+
+            if (info.isReadyToDieAt(start) && callbacks.remove(key, info))
+            {
+                slot.remove(key);
+                n++;
+                InternodeOutboundMetrics.expiredCallbacksLag.update(start - info.expiresAtNanos, NANOSECONDS);
+                onExpired(info);
             }
         }
-        logger.trace("Expired {} entries", n);
+        return n;
     }
 
     private void forceExpire()
@@ -161,6 +242,13 @@ public class RequestCallbacks implements OutboundMessageCallbacks
         for (Map.Entry<CallbackKey, CallbackInfo> entry : callbacks.entrySet())
             if (callbacks.remove(entry.getKey(), entry.getValue()))
                 onExpired(entry.getValue());
+        clearWheel();
+    }
+
+    private void clearWheel()
+    {
+        for (Set<CallbackKey> slot : wheel)
+            slot.clear();
     }
 
     private void onExpired(CallbackInfo info)
@@ -204,6 +292,7 @@ public class RequestCallbacks implements OutboundMessageCallbacks
     public void unsafeClear()
     {
         callbacks.clear();
+        clearWheel();
     }
 
     private static CallbackKey key(long id, InetAddressAndPort peer)
@@ -256,6 +345,9 @@ public class RequestCallbacks implements OutboundMessageCallbacks
         @Deprecated // for 3.0 compatibility purposes only
         public final Verb responseVerb;
 
+        // the slot of the timing wheel the callback is registered in
+        private volatile Set<CallbackKey> slot;
+
         private CallbackInfo(Message message, InetAddressAndPort peer, RequestCallback callback)
         {
             this.createdAtNanos = message.createdAtNanos();
@@ -364,6 +456,14 @@ public class RequestCallbacks implements OutboundMessageCallbacks
 
     private void removeAndExpire(Message message, InetAddressAndPort peer)
     {
+        /* the callbacks of batched mutations are registered under the ids of the mutations */
+        if (message.verb() == Verb.MUTATION_BATCH_REQ)
+        {
+            for (MutationBatch.Entry entry : ((MutationBatch) message.payload).entries)
+                removeAndExpire(entry.id, peer);
+            return;
+        }
+
         removeAndExpire(message.id(), peer);
 
         /* in case of a write sent to a different DC, also expire all forwarding targets */
@@ -130,7 +130,11 @@ public class ValidationManager
             {
                 try (UnfilteredRowIterator partition = vi.next())
                 {
-                    validator.add(partition);
+                    MerkleTree.RowHash precomputed = vi.precomputedHash();
+                    if (precomputed != null)
+                        validator.add(partition.partitionKey(), precomputed);
+                    else
+                        validator.add(partition);
                     state.partitionsProcessed++;
                     state.bytesRead = vi.getBytesRead();
                     if (state.partitionsProcessed % 1024 == 0) // update every so often
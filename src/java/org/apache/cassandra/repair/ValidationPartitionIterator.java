@@ -23,6 +23,7 @@ import java.util.Map;
 import org.apache.cassandra.db.partitions.AbstractUnfilteredPartitionIterator;
 import org.apache.cassandra.dht.Range;
 import org.apache.cassandra.dht.Token;
+import org.apache.cassandra.utils.MerkleTree;
 
 public abstract class ValidationPartitionIterator extends AbstractUnfilteredPartitionIterator
 {
@@ -30,4 +31,13 @@ public abstract class ValidationPartitionIterator extends AbstractUnfilteredPart
     public abstract long estimatedPartitions();
     public abstract long getBytesRead();
     public abstract Map<Range<Token>, Long> getRangePartitionCounts();
+
+    /**
+     * @return the hash of the partition last returned by {@link #next()} if it is already known, in which case
+     * the returned partition is empty and only provides the partition key, or {@code null} otherwise
+     */
+    public MerkleTree.RowHash precomputedHash()
+    {
+        return null;
+    }
 }
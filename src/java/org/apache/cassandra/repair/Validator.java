@@ -159,10 +159,30 @@ public class Validator implements Runnable
      */
     public void add(UnfilteredRowIterator partition)
     {
-        assert Range.isInRanges(partition.partitionKey().getToken(), desc.ranges) : partition.partitionKey().getToken() + " is not contained in " + desc.ranges;
-        assert lastKey == null || lastKey.compareTo(partition.partitionKey()) < 0
-               : "partition " + partition.partitionKey() + " received out of order wrt " + lastKey;
-        lastKey = partition.partitionKey();
+        moveTo(partition.partitionKey());
+        addHash(partition.partitionKey(), rowHash(partition));
+    }
+
+    /**
+     * Called (in order) for a partition whose hash has already been computed, see
+     * {@link ValidationPartitionIterator#precomputedHash()}.
+     *
+     * @param key the key of the partition
+     * @param rowHash the hash of the partition
+     */
+    public void add(DecoratedKey key, RowHash rowHash)
+    {
+        moveTo(key);
+        validated++;
+        addHash(key, rowHash);
+    }
+
+    private void moveTo(DecoratedKey key)
+    {
+        assert Range.isInRanges(key.getToken(), desc.ranges) : key.getToken() + " is not contained in " + desc.ranges;
+        assert lastKey == null || lastKey.compareTo(key) < 0
+               : "partition " + key + " received out of order wrt " + lastKey;
+        lastKey = key;
 
         if (range == null)
             range = ranges.next();
@@ -176,12 +196,15 @@ public class Validator implements Runnable
         }
 
         assert range.contains(lastKey.getToken()) : "Token not in MerkleTree: " + lastKey.getToken();
+    }
+
+    private void addHash(DecoratedKey key, RowHash rowHash)
+    {
         // case 3 must be true: mix in the hashed row
-        RowHash rowHash = rowHash(partition);
         if (rowHash != null)
         {
             if(topPartitionCollector != null)
-                topPartitionCollector.trackPartitionSize(partition.partitionKey(), rowHash.size);
+                topPartitionCollector.trackPartitionSize(key, rowHash.size);
             range.addHash(rowHash);
         }
     }
@@ -199,6 +222,14 @@ public class Validator implements Runnable
     private MerkleTree.RowHash rowHash(UnfilteredRowIterator partition)
     {
         validated++;
+        return hash(partition);
+    }
+
+    /**
+     * @return the hash of the provided partition, or {@code null} if it does not contribute to the merkle tree
+     */
+    public static MerkleTree.RowHash hash(UnfilteredRowIterator partition)
+    {
         // MerkleTree uses XOR internally, so we want lots of output bits here
         Digest digest = Digest.forValidator();
         UnfilteredRowIterators.digest(partition, digest, MessagingService.current_version);
@@ -212,6 +212,7 @@ public final class SchemaEvent extends DiagnosticEvent
         ret.put("defaultTimeToLive", params.defaultTimeToLive);
         ret.put("gcGraceSeconds", params.gcGraceSeconds);
         ret.put("bloomFilterFpChance", params.bloomFilterFpChance);
+        ret.put("bloomFilterType", params.bloomFilterType.toString());
         ret.put("cdc", params.cdc);
         ret.put("crcCheckChance", params.crcCheckChance);
         ret.put("memtableFlushPeriodInMs", params.memtableFlushPeriodInMs);
@@ -47,6 +47,7 @@ import org.apache.cassandra.schema.ColumnMetadata.ClusteringOrder;
 import org.apache.cassandra.schema.Keyspaces.KeyspacesDiff;
 import org.apache.cassandra.service.reads.repair.ReadRepairStrategy;
 import org.apache.cassandra.transport.ProtocolVersion;
+import org.apache.cassandra.utils.BloomFilterType;
 import org.apache.cassandra.utils.ByteBufferUtil;
 import org.apache.cassandra.utils.FBUtilities;
 import org.apache.cassandra.utils.Simulate;
@@ -101,6 +102,7 @@ public final class SchemaKeyspace
               + "keyspace_name text,"
               + "table_name text,"
               + "bloom_filter_fp_chance double,"
+              + "bloom_filter_type text,"
               + "caching frozen<map<text, text>>,"
               + "comment text,"
               + "compaction frozen<map<text, text>>,"
@@ -169,6 +171,7 @@ public final class SchemaKeyspace
               + "base_table_name text,"
               + "where_clause text,"
               + "bloom_filter_fp_chance double,"
+              + "bloom_filter_type text,"
               + "caching frozen<map<text, text>>,"
               + "comment text,"
               + "compaction frozen<map<text, text>>,"
@@ -563,6 +566,10 @@ public final class SchemaKeyspace
         // in mixed operation with pre-4.1 versioned node during upgrades.
         if (params.memtable != MemtableParams.DEFAULT)
             builder.add("memtable", params.memtable.configurationKey());
+
+        // Same for the bloom filter type, which older nodes don't know of.
+        if (params.bloomFilterType != BloomFilterType.STANDARD)
+            builder.add("bloom_filter_type", params.bloomFilterType.toString());
     }
 
     private static void addAlterTableToSchemaMutation(TableMetadata oldTable, TableMetadata newTable, Mutation.SimpleBuilder builder)
@@ -956,6 +963,7 @@ public final class SchemaKeyspace
     {
         return TableParams.builder()
                           .bloomFilterFpChance(row.getDouble("bloom_filter_fp_chance"))
+                          .bloomFilterType(row.has("bloom_filter_type") ? BloomFilterType.fromString(row.getString("bloom_filter_type")) : BloomFilterType.STANDARD)
                           .caching(CachingParams.fromMap(row.getFrozenTextMap("caching")))
                           .comment(row.getString("comment"))
                           .compaction(CompactionParams.fromMap(row.getFrozenTextMap("compaction")))
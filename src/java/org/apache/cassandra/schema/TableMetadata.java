@@ -42,6 +42,7 @@ import org.apache.cassandra.exceptions.InvalidRequestException;
 import org.apache.cassandra.service.reads.SpeculativeRetryPolicy;
 import org.apache.cassandra.transport.ProtocolVersion;
 import org.apache.cassandra.utils.AbstractIterator;
+import org.apache.cassandra.utils.BloomFilterType;
 import org.github.jamm.Unmetered;
 
 import static com.google.common.collect.Iterables.any;
@@ -783,6 +784,12 @@ public class TableMetadata implements SchemaElement
             return this;
         }
 
+        public Builder bloomFilterType(BloomFilterType val)
+        {
+            params.bloomFilterType(val);
+            return this;
+        }
+
         public Builder caching(CachingParams val)
         {
             params.caching(val);
@@ -32,6 +32,7 @@ import org.apache.cassandra.service.reads.PercentileSpeculativeRetryPolicy;
 import org.apache.cassandra.service.reads.SpeculativeRetryPolicy;
 import org.apache.cassandra.service.reads.repair.ReadRepairStrategy;
 import org.apache.cassandra.utils.BloomCalculations;
+import org.apache.cassandra.utils.BloomFilterType;
 import org.apache.cassandra.utils.ByteBufferUtil;
 
 import static java.lang.String.format;
@@ -42,6 +43,7 @@ public final class TableParams
     public enum Option
     {
         BLOOM_FILTER_FP_CHANCE,
+        BLOOM_FILTER_TYPE,
         CACHING,
         COMMENT,
         COMPACTION,
@@ -68,6 +70,7 @@ public final class TableParams
 
     public final String comment;
     public final double bloomFilterFpChance;
+    public final BloomFilterType bloomFilterType;
     public final double crcCheckChance;
     public final int gcGraceSeconds;
     public final int defaultTimeToLive;
@@ -90,6 +93,7 @@ public final class TableParams
         bloomFilterFpChance = builder.bloomFilterFpChance == null
                             ? builder.compaction.defaultBloomFilterFbChance()
                             : builder.bloomFilterFpChance;
+        bloomFilterType = builder.bloomFilterType;
         crcCheckChance = builder.crcCheckChance;
         gcGraceSeconds = builder.gcGraceSeconds;
         defaultTimeToLive = builder.defaultTimeToLive;
@@ -115,6 +119,7 @@ public final class TableParams
     public static Builder builder(TableParams params)
     {
         return new Builder().bloomFilterFpChance(params.bloomFilterFpChance)
+                            .bloomFilterType(params.bloomFilterType)
                             .caching(params.caching)
                             .comment(params.comment)
                             .compaction(params.compaction)
@@ -205,6 +210,7 @@ public final class TableParams
 
         return comment.equals(p.comment)
             && bloomFilterFpChance == p.bloomFilterFpChance
+            && bloomFilterType == p.bloomFilterType
             && crcCheckChance == p.crcCheckChance
             && gcGraceSeconds == p.gcGraceSeconds
             && defaultTimeToLive == p.defaultTimeToLive
@@ -226,6 +232,7 @@ public final class TableParams
     {
         return Objects.hashCode(comment,
                                 bloomFilterFpChance,
+                                bloomFilterType,
                                 crcCheckChance,
                                 gcGraceSeconds,
                                 defaultTimeToLive,
@@ -248,6 +255,7 @@ public final class TableParams
         return MoreObjects.toStringHelper(this)
                           .add(Option.COMMENT.toString(), comment)
                           .add(Option.BLOOM_FILTER_FP_CHANCE.toString(), bloomFilterFpChance)
+                          .add(Option.BLOOM_FILTER_TYPE.toString(), bloomFilterType)
                           .add(Option.CRC_CHECK_CHANCE.toString(), crcCheckChance)
                           .add(Option.GC_GRACE_SECONDS.toString(), gcGraceSeconds)
                           .add(Option.DEFAULT_TIME_TO_LIVE.toString(), defaultTimeToLive)
@@ -271,8 +279,16 @@ public final class TableParams
         builder.append("additional_write_policy = ").appendWithSingleQuotes(additionalWritePolicy.toString())
                .newLine()
                .append("AND bloom_filter_fp_chance = ").append(bloomFilterFpChance)
-               .newLine()
-               .append("AND caching = ").append(caching.asMap())
+               .newLine();
+
+        // only shown when set, as the tables created before the option existed have the default
+        if (bloomFilterType != BloomFilterType.STANDARD)
+        {
+            builder.append("AND bloom_filter_type = ").appendWithSingleQuotes(bloomFilterType.toString())
+                   .newLine();
+        }
+
+        builder.append("AND caching = ").append(caching.asMap())
                .newLine()
                .append("AND cdc = ").append(cdc)
                .newLine()
@@ -316,6 +332,7 @@ public final class TableParams
     {
         private String comment = "";
         private Double bloomFilterFpChance;
+        private BloomFilterType bloomFilterType = BloomFilterType.STANDARD;
         private double crcCheckChance = 1.0;
         private int gcGraceSeconds = 864000; // 10 days
         private int defaultTimeToLive = 0;
@@ -413,6 +430,12 @@ public final class TableParams
             return this;
         }
 
+        public Builder bloomFilterType(BloomFilterType val)
+        {
+            bloomFilterType = val;
+            return this;
+        }
+
         public Builder memtable(MemtableParams val)
         {
             memtable = val;
@@ -100,12 +100,19 @@ public class CacheService implements CacheServiceMBean
     {
         logger.info("Initializing key cache with capacity of {} MiBs.", DatabaseDescriptor.getKeyCacheSizeInMiB());
 
-        long keyCacheInMemoryCapacity = DatabaseDescriptor.getKeyCacheSizeInMiB() * 1024 * 1024;
+        CacheProvider<KeyCacheKey, RowIndexEntry> cacheProvider;
+        try
+        {
+            Class<CacheProvider<KeyCacheKey, RowIndexEntry>> cacheProviderClass =
+                (Class<CacheProvider<KeyCacheKey, RowIndexEntry>>) Class.forName(DatabaseDescriptor.getKeyCacheClassName());
+            cacheProvider = cacheProviderClass.newInstance();
+        }
+        catch (Exception e)
+        {
+            throw new RuntimeException("Cannot find configured key cache provider class " + DatabaseDescriptor.getKeyCacheClassName());
+        }
 
-        // as values are constant size we can use singleton weigher
-        // where 48 = 40 bytes (average size of the key) + 8 bytes (size of value)
-        ICache<KeyCacheKey, RowIndexEntry> kc;
-        kc = CaffeineCache.create(keyCacheInMemoryCapacity);
+        ICache<KeyCacheKey, RowIndexEntry> kc = cacheProvider.create();
         AutoSavingCache<KeyCacheKey, RowIndexEntry> keyCache = new AutoSavingCache<>(kc, CacheType.KEY_CACHE, new KeyCacheSerializer());
 
         int keyCacheKeysToSave = DatabaseDescriptor.getKeyCacheKeysToSave();
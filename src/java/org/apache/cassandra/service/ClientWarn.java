@@ -41,7 +41,7 @@ public class ClientWarn extends ExecutorLocals.Impl
     public void set(State value)
     {
         ExecutorLocals current = ExecutorLocals.current();
-        ExecutorLocals.Impl.set(current.traceState, value);
+        ExecutorLocals.Impl.set(current.traceState, value, current.resourceAccountingState);
     }
 
     public void warn(String text)
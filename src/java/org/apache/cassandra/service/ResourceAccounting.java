@@ -0,0 +1,221 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.cassandra.service;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import org.apache.cassandra.concurrent.ExecutorLocals;
+import org.apache.cassandra.config.DatabaseDescriptor;
+import org.apache.cassandra.tracing.Tracing;
+import org.apache.cassandra.utils.Closeable;
+import org.apache.cassandra.utils.FBUtilities;
+import org.apache.cassandra.utils.MD5Digest;
+
+/**
+ * Accounts the resources used on this node by the client requests it coordinates, when
+ * {@code resource_accounting_enabled} is set.
+ *
+ * The accounting state of a request is carried by the {@link ExecutorLocals} of the tasks executed on its behalf, so the
+ * resources used by the local replica work of the request, on other stages, are accounted along with those of the
+ * coordinator thread. The work done on behalf of the request by other replicas is not.
+ *
+ * The resources used are traced when the request completes, and are aggregated by prepared statement in
+ * {@link StatementResourceUsage}.
+ */
+@SuppressWarnings("resource")
+public class ResourceAccounting extends ExecutorLocals.Impl
+{
+    public static final ResourceAccounting instance = new ResourceAccounting();
+
+    private static final ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+
+    public enum Resource
+    {
+        /** CPU time used by the threads working for the request, in nanoseconds */
+        CPU_TIME,
+        /** Heap memory allocated by the threads working for the request, in bytes */
+        ALLOCATED_BYTES,
+        /** Number of SSTables read from */
+        SSTABLES_READ,
+        /** Number of chunks read from the chunk cache */
+        CHUNK_CACHE_HITS,
+        /** Number of chunks missing from the chunk cache, and so read from disk */
+        CHUNK_CACHE_MISSES,
+        /** Number of bytes read from disk, not counting the reads of memory-mapped files */
+        BYTES_READ_FROM_DISK,
+        /** Number of tombstones scanned by reads */
+        TOMBSTONES_SCANNED
+    }
+
+    private static final Resource[] RESOURCES = Resource.values();
+
+    private ResourceAccounting()
+    {
+    }
+
+    public State get()
+    {
+        return ExecutorLocals.current().resourceAccountingState;
+    }
+
+    public void set(State value)
+    {
+        ExecutorLocals current = ExecutorLocals.current();
+        ExecutorLocals.Impl.set(current.traceState, current.clientWarnState, value);
+    }
+
+    /**
+     * Starts accounting the resources used by the request executed by the current thread, if enabled
+     */
+    public void startAccounting()
+    {
+        if (DatabaseDescriptor.isResourceAccountingEnabled())
+            set(new State());
+    }
+
+    /**
+     * Sets the prepared statement executed by the request, if its resources are accounted
+     */
+    public void setStatement(MD5Digest statementId, String queryString)
+    {
+        State state = get();
+        if (state != null)
+        {
+            state.statementId = statementId;
+            state.queryString = queryString;
+        }
+    }
+
+    /**
+     * Adds to the resources used by the request executed by the current thread, if accounted
+     */
+    public void record(Resource resource, long amount)
+    {
+        State state = get();
+        if (state != null)
+            state.add(resource, amount);
+    }
+
+    /**
+     * Traces the resources used so far by the request executed by the current thread, if accounted and traced
+     */
+    public void traceUsage()
+    {
+        State state = get();
+        if (state == null || !Tracing.isTracing())
+            return;
+
+        long[] usage = state.usage();
+        Tracing.trace("Used {} microseconds of CPU time and allocated {}, read {} sstables with {} chunk cache hits, {} misses and {} read from disk, scanned {} tombstones",
+                      TimeUnit.NANOSECONDS.toMicros(usage[Resource.CPU_TIME.ordinal()]),
+                      FBUtilities.prettyPrintMemory(usage[Resource.ALLOCATED_BYTES.ordinal()]),
+                      usage[Resource.SSTABLES_READ.ordinal()],
+                      usage[Resource.CHUNK_CACHE_HITS.ordinal()],
+                      usage[Resource.CHUNK_CACHE_MISSES.ordinal()],
+                      FBUtilities.prettyPrintMemory(usage[Resource.BYTES_READ_FROM_DISK.ordinal()]),
+                      usage[Resource.TOMBSTONES_SCANNED.ordinal()]);
+    }
+
+    /**
+     * Stops accounting the resources used by the request executed by the current thread, and adds them to the usage
+     * of its prepared statement, if any
+     */
+    public void stopAccounting()
+    {
+        State state = get();
+        if (state == null)
+            return;
+
+        set(null);
+        if (state.statementId != null)
+            StatementResourceUsage.instance.record(state.statementId, state.queryString, state.usage());
+    }
+
+    private static long currentThreadCpuTime()
+    {
+        return threadMXBean.isCurrentThreadCpuTimeSupported() ? threadMXBean.getCurrentThreadCpuTime() : 0;
+    }
+
+    private static long currentThreadAllocatedBytes()
+    {
+        if (threadMXBean instanceof com.sun.management.ThreadMXBean)
+        {
+            com.sun.management.ThreadMXBean bean = (com.sun.management.ThreadMXBean) threadMXBean;
+            if (bean.isThreadAllocatedMemorySupported())
+                return bean.getThreadAllocatedBytes(Thread.currentThread().getId());
+        }
+        return 0;
+    }
+
+    /**
+     * The resources used by a request
+     */
+    public static class State
+    {
+        private final AtomicLongArray usage = new AtomicLongArray(RESOURCES.length);
+
+        // the thread that started accounting, and its CPU time and allocated bytes at that time
+        private final Thread owner = Thread.currentThread();
+        private final long ownerCpuTime = currentThreadCpuTime();
+        private final long ownerAllocatedBytes = currentThreadAllocatedBytes();
+
+        private volatile MD5Digest statementId;
+        private volatile String queryString;
+
+        private void add(Resource resource, long amount)
+        {
+            usage.addAndGet(resource.ordinal(), amount);
+        }
+
+        /**
+         * Measures the CPU time and allocated bytes of the current thread until the returned {@link Closeable} is
+         * closed, which then closes {@code onClose}
+         */
+        public Closeable measure(Closeable onClose)
+        {
+            long cpuTime = currentThreadCpuTime();
+            long allocatedBytes = currentThreadAllocatedBytes();
+            return () -> {
+                add(Resource.CPU_TIME, currentThreadCpuTime() - cpuTime);
+                add(Resource.ALLOCATED_BYTES, currentThreadAllocatedBytes() - allocatedBytes);
+                onClose.close();
+            };
+        }
+
+        /**
+         * @return the resources used so far, indexed by {@link Resource#ordinal()}, including those of the thread
+         * that started accounting if called from it
+         */
+        long[] usage()
+        {
+            long[] values = new long[RESOURCES.length];
+            for (int i = 0; i < values.length; i++)
+                values[i] = usage.get(i);
+
+            if (Thread.currentThread() == owner)
+            {
+                values[Resource.CPU_TIME.ordinal()] += currentThreadCpuTime() - ownerCpuTime;
+                values[Resource.ALLOCATED_BYTES.ordinal()] += currentThreadAllocatedBytes() - ownerAllocatedBytes;
+            }
+            return values;
+        }
+    }
+}
@@ -0,0 +1,249 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.cassandra.service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.apache.cassandra.config.DatabaseDescriptor;
+import org.apache.cassandra.service.ResourceAccounting.Resource;
+import org.apache.cassandra.utils.MD5Digest;
+
+/**
+ * The resources used by the executions of each prepared statement, as accounted by {@link ResourceAccounting}.
+ *
+ * Only the {@code resource_accounting_tracked_statements} statements that used the most CPU time are tracked, using the
+ * space-saving algorithm: when a statement that is not tracked is executed and the limit is reached, it replaces the
+ * tracked statement with the least CPU time, whose CPU time it inherits in the ranking of the statements, so that it is
+ * not evicted in turn by the next new statement. The CPU time of a statement is thus overestimated by the CPU time it
+ * inherited, but any statement that used more than a {@code 1 / resource_accounting_tracked_statements} share of the
+ * CPU time of all statements is guaranteed to be tracked.
+ *
+ * The statements are split between shards, each tracking its share of the statements, so that recording the usage of
+ * a tracked statement takes no lock and a new statement only locks its shard to replace another. The statements
+ * tracked are thus the top ones of each shard, which each track at least a few statements to stay close to the top
+ * ones overall.
+ */
+public class StatementResourceUsage
+{
+    public static final StatementResourceUsage instance = new StatementResourceUsage();
+
+    private static final Resource[] RESOURCES = Resource.values();
+
+    private static final int MAX_SHARDS = 16;
+    // the least number of statements tracked by each shard, so that the statements tracked are close to the top ones
+    private static final int MIN_SHARD_STATEMENTS = 8;
+
+    private volatile Shards shards = new Shards(0);
+
+    /**
+     * The resources used by the executions of a prepared statement
+     */
+    public static class Usage
+    {
+        public final MD5Digest statementId;
+        public final String queryString;
+
+        // the CPU time of the statement it replaced, see StatementResourceUsage
+        private final long inheritedCpuTime;
+        private final LongAdder executions = new LongAdder();
+        private final LongAdder[] resources = new LongAdder[RESOURCES.length];
+
+        private Usage(MD5Digest statementId, String queryString, long inheritedCpuTime)
+        {
+            this.statementId = statementId;
+            this.queryString = queryString;
+            this.inheritedCpuTime = inheritedCpuTime;
+            for (int i = 0; i < resources.length; i++)
+                resources[i] = new LongAdder();
+        }
+
+        private void add(long[] usage)
+        {
+            executions.increment();
+            for (int i = 0; i < resources.length; i++)
+            {
+                if (usage[i] != 0)
+                    resources[i].add(usage[i]);
+            }
+        }
+
+        public long executions()
+        {
+            return executions.sum();
+        }
+
+        public long get(Resource resource)
+        {
+            return resources[resource.ordinal()].sum();
+        }
+
+        /**
+         * @return the CPU time the statement is ranked by, which is overestimated by the CPU time of the statement
+         * it replaced
+         */
+        private long rankedCpuTime()
+        {
+            return inheritedCpuTime + get(Resource.CPU_TIME);
+        }
+    }
+
+    /**
+     * The statements tracked by each shard
+     */
+    private static class Shards
+    {
+        private final int trackedStatements;
+        private final Shard[] shards;
+
+        private Shards(int trackedStatements)
+        {
+            this.trackedStatements = trackedStatements;
+            int shardCount = Math.max(1, Math.min(MAX_SHARDS, trackedStatements / MIN_SHARD_STATEMENTS));
+            shards = new Shard[trackedStatements == 0 ? 0 : shardCount];
+            for (int i = 0; i < shards.length; i++)
+                shards[i] = new Shard(trackedStatements / shardCount + (i < trackedStatements % shardCount ? 1 : 0));
+        }
+
+        private Shard shard(MD5Digest statementId)
+        {
+            return shards[Math.floorMod(statementId.hashCode(), shards.length)];
+        }
+    }
+
+    private static class Shard
+    {
+        private final int capacity;
+        private final ConcurrentMap<MD5Digest, Usage> statements = new ConcurrentHashMap<>();
+
+        private Shard(int capacity)
+        {
+            this.capacity = capacity;
+        }
+
+        private synchronized Usage track(MD5Digest statementId, String queryString)
+        {
+            Usage statement = statements.get(statementId);
+            if (statement != null)
+                return statement;
+
+            long inheritedCpuTime = 0;
+            if (statements.size() >= capacity)
+            {
+                Usage leastCpuTime = leastCpuTime();
+                statements.remove(leastCpuTime.statementId);
+                inheritedCpuTime = leastCpuTime.rankedCpuTime();
+            }
+
+            statement = new Usage(statementId, queryString, inheritedCpuTime);
+            statements.put(statementId, statement);
+            return statement;
+        }
+
+        /**
+         * Keeps tracking a statement of another shard, if there is room for it or if it ranks above the statement
+         * with the least CPU time of this shard
+         */
+        private synchronized void keep(Usage statement)
+        {
+            if (statements.size() >= capacity)
+            {
+                Usage leastCpuTime = leastCpuTime();
+                if (leastCpuTime.rankedCpuTime() >= statement.rankedCpuTime())
+                    return;
+                statements.remove(leastCpuTime.statementId);
+            }
+            statements.put(statement.statementId, statement);
+        }
+
+        private Usage leastCpuTime()
+        {
+            Usage leastCpuTime = null;
+            for (Usage candidate : statements.values())
+            {
+                if (leastCpuTime == null || candidate.rankedCpuTime() < leastCpuTime.rankedCpuTime())
+                    leastCpuTime = candidate;
+            }
+            return leastCpuTime;
+        }
+    }
+
+    /**
+     * Adds the resources used by an execution of a prepared statement, indexed by {@link Resource#ordinal()}
+     */
+    void record(MD5Digest statementId, String queryString, long[] usage)
+    {
+        Shard shard = shards().shard(statementId);
+        Usage statement = shard.statements.get(statementId);
+        if (statement == null)
+            statement = shard.track(statementId, queryString);
+        // the statement may just have been replaced, in which case this execution is not accounted
+        statement.add(usage);
+    }
+
+    private Shards shards()
+    {
+        Shards shards = this.shards;
+        return shards.trackedStatements == DatabaseDescriptor.getResourceAccountingTrackedStatements() ? shards : resize();
+    }
+
+    /**
+     * Splits the statements between as many shards as suit the number of statements to track, keeping the statements
+     * that used the most CPU time
+     */
+    private synchronized Shards resize()
+    {
+        int trackedStatements = DatabaseDescriptor.getResourceAccountingTrackedStatements();
+        Shards shards = this.shards;
+        if (shards.trackedStatements == trackedStatements)
+            return shards;
+
+        Shards resized = new Shards(trackedStatements);
+        for (Shard shard : shards.shards)
+        {
+            for (Usage statement : shard.statements.values())
+                resized.shard(statement.statementId).keep(statement);
+        }
+        this.shards = resized;
+        return resized;
+    }
+
+    /**
+     * @return the usage of the tracked statements
+     */
+    public Collection<Usage> statements()
+    {
+        List<Usage> statements = new ArrayList<>();
+        for (Shard shard : shards.shards)
+            statements.addAll(shard.statements.values());
+        return Collections.unmodifiableCollection(statements);
+    }
+
+    /**
+     * Discards the usage of all the statements
+     */
+    public synchronized void reset()
+    {
+        shards = new Shards(0);
+    }
+}
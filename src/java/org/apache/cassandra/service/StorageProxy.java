@@ -75,6 +75,7 @@ import org.apache.cassandra.db.RejectException;
 import org.apache.cassandra.db.SinglePartitionReadCommand;
 import org.apache.cassandra.db.TruncateRequest;
 import org.apache.cassandra.db.WriteType;
+import org.apache.cassandra.db.aggregation.PartialAggregation;
 import org.apache.cassandra.db.filter.TombstoneOverwhelmingException;
 import org.apache.cassandra.db.partitions.FilteredPartition;
 import org.apache.cassandra.db.partitions.PartitionIterator;
@@ -1788,6 +1789,16 @@ public class StorageProxy implements StorageProxyMBean
      */
     public static PartitionIterator read(SinglePartitionReadCommand.Group group, ConsistencyLevel consistencyLevel, long queryStartNanoTime)
     throws UnavailableException, IsBootstrappingException, ReadFailureException, ReadTimeoutException, InvalidRequestException
+    {
+        checkReadable(group, consistencyLevel);
+
+        return consistencyLevel.isSerialConsistency()
+             ? readWithPaxos(group, consistencyLevel, queryStartNanoTime)
+             : readRegular(group, consistencyLevel, queryStartNanoTime);
+    }
+
+    private static void checkReadable(SinglePartitionReadCommand.Group group, ConsistencyLevel consistencyLevel)
+    throws IsBootstrappingException, InvalidRequestException
     {
         if (StorageService.instance.isBootstrapMode() && !systemKeyspaceQuery(group.queries))
         {
@@ -1810,10 +1821,80 @@ public class StorageProxy implements StorageProxyMBean
                 }
             }
         }
+    }
 
-        return consistencyLevel.isSerialConsistency()
-             ? readWithPaxos(group, consistencyLevel, queryStartNanoTime)
-             : readRegular(group, consistencyLevel, queryStartNanoTime);
+    /**
+     * Reads the aggregates of the rows of a single partition, that the replicas compute in place of returning the
+     * rows, as set by the partial aggregation of the command.
+     * <p>
+     * If the digests of the replicas don't match the one of the rows aggregated, this reads the rows instead,
+     * repairing them as any read would, and aggregates them here.
+     */
+    public static PartialAggregation.Result readPartialAggregation(SinglePartitionReadCommand command, ConsistencyLevel consistencyLevel, long queryStartNanoTime)
+    throws UnavailableException, IsBootstrappingException, ReadFailureException, ReadTimeoutException, InvalidRequestException
+    {
+        assert command.partialAggregation() != null && !consistencyLevel.isSerialConsistency();
+        SinglePartitionReadCommand.Group group = SinglePartitionReadCommand.Group.one(command);
+        checkReadable(group, consistencyLevel);
+
+        PartialAggregation.Result result = readRegularPartialAggregation(group, consistencyLevel, queryStartNanoTime);
+        if (result != null)
+            return result;
+
+        try (PartitionIterator partitions = readRegular(SinglePartitionReadCommand.Group.one(command.copy()), consistencyLevel, queryStartNanoTime))
+        {
+            return command.partialAggregation().aggregate(partitions, command.metadata());
+        }
+    }
+
+    private static PartialAggregation.Result readRegularPartialAggregation(SinglePartitionReadCommand.Group group, ConsistencyLevel consistencyLevel, long queryStartNanoTime)
+    throws UnavailableException, ReadFailureException, ReadTimeoutException
+    {
+        long start = nanoTime();
+        try
+        {
+            AbstractReadExecutor read = AbstractReadExecutor.getReadExecutor(group.queries.get(0), consistencyLevel, queryStartNanoTime);
+            if (read.hasLocalRead())
+                readMetrics.localRequests.mark();
+            else
+                readMetrics.remoteRequests.mark();
+
+            read.executeAsync();
+            read.maybeTryAdditionalReplicas();
+            return read.awaitPartialAggregation();
+        }
+        catch (UnavailableException e)
+        {
+            readMetrics.unavailables.mark();
+            readMetricsForLevel(consistencyLevel).unavailables.mark();
+            logRequestException(e, group.queries);
+            throw e;
+        }
+        catch (ReadTimeoutException e)
+        {
+            readMetrics.timeouts.mark();
+            readMetricsForLevel(consistencyLevel).timeouts.mark();
+            logRequestException(e, group.queries);
+            throw e;
+        }
+        catch (ReadAbortException e)
+        {
+            recordReadRegularAbort(consistencyLevel, e);
+            throw e;
+        }
+        catch (ReadFailureException e)
+        {
+            readMetrics.failures.mark();
+            readMetricsForLevel(consistencyLevel).failures.mark();
+            throw e;
+        }
+        finally
+        {
+            long latency = nanoTime() - start;
+            readMetrics.addNano(latency);
+            readMetricsForLevel(consistencyLevel).addNano(latency);
+            Keyspace.openAndGetStore(group.metadata()).metric.coordinatorReadLatency.update(latency, TimeUnit.NANOSECONDS);
+        }
     }
 
     private static PartitionIterator readWithPaxos(SinglePartitionReadCommand.Group group, ConsistencyLevel consistencyLevel, long queryStartNanoTime)
@@ -1595,6 +1595,20 @@ public class StorageService extends NotificationBroadcasterSupport implements IE
         return DatabaseDescriptor.getEntireSSTableInterDCStreamThroughputOutboundMebibytesPerSecAsInt();
     }
 
+    public void setPeerStreamThroughputMebibytesPerSec(int value)
+    {
+        int oldValue = DatabaseDescriptor.getPeerStreamThroughputOutboundMebibytesPerSecAsInt();
+        DatabaseDescriptor.setPeerStreamThroughputOutboundMebibytesPerSec(value);
+        StreamManager.StreamRateLimiter.updatePeerThroughput();
+        logger.info("setstreamthroughput (per peer): throttle set to {}{} MiB/s (was {} MiB/s)",
+                    value, value <= 0 ? " (unlimited)" : "", oldValue);
+    }
+
+    public int getPeerStreamThroughputMebibytesPerSec()
+    {
+        return DatabaseDescriptor.getPeerStreamThroughputOutboundMebibytesPerSecAsInt();
+    }
+
     public int getCompactionThroughputMbPerSec()
     {
         return DatabaseDescriptor.getCompactionThroughputMebibytesPerSecAsInt();
@@ -2019,6 +2033,74 @@ public class StorageService extends NotificationBroadcasterSupport implements IE
         stage.setMaximumPoolSize(newMaximumPoolSize);
     }
 
+    public void setStackSamplerIntervalInMs(int intervalInMs)
+    {
+        if (intervalInMs < 0)
+            throw new IllegalArgumentException("The stack sampler interval must not be negative, but was " + intervalInMs);
+
+        DatabaseDescriptor.setStackSamplerInterval(intervalInMs, MILLISECONDS);
+        StackSampler.instance.setInterval(intervalInMs, MILLISECONDS);
+        logger.info("Set stack sampler interval to {}ms", intervalInMs);
+    }
+
+    public int getStackSamplerIntervalInMs()
+    {
+        return (int) StackSampler.instance.getInterval(MILLISECONDS);
+    }
+
+    public Map<String, List<Long>> getThreadPoolSamples()
+    {
+        Map<String, List<Long>> threadPools = new HashMap<>();
+        StackSampler.instance.threadPools().forEach((threadPool, samples) ->
+                                                    threadPools.put(threadPool, Arrays.asList(samples.samples(), NANOSECONDS.toMillis(samples.cpuTimeNanos()))));
+        return threadPools;
+    }
+
+    public List<String> getCollapsedStackSamples(String threadPool)
+    {
+        List<String> stacks = new ArrayList<>();
+        StackSampler.instance.threadPools().forEach((pool, samples) -> {
+            if (threadPool == null || threadPool.equals(pool))
+                samples.stacks().forEach((stack, count) -> stacks.add(pool + ';' + stack + ' ' + count));
+        });
+        return stacks;
+    }
+
+    public void resetStackSamples()
+    {
+        StackSampler.instance.reset();
+    }
+
+    public void setResourceAccountingEnabled(boolean enabled)
+    {
+        DatabaseDescriptor.setResourceAccountingEnabled(enabled);
+        logger.info("Resource accounting is {}", enabled ? "enabled" : "disabled");
+    }
+
+    public boolean isResourceAccountingEnabled()
+    {
+        return DatabaseDescriptor.isResourceAccountingEnabled();
+    }
+
+    public void setResourceAccountingTrackedStatements(int trackedStatements)
+    {
+        if (trackedStatements < 1)
+            throw new IllegalArgumentException("The number of tracked statements must be at least 1, but was " + trackedStatements);
+
+        DatabaseDescriptor.setResourceAccountingTrackedStatements(trackedStatements);
+        logger.info("Set resource accounting tracked statements to {}", trackedStatements);
+    }
+
+    public int getResourceAccountingTrackedStatements()
+    {
+        return DatabaseDescriptor.getResourceAccountingTrackedStatements();
+    }
+
+    public void resetStatementResourceUsage()
+    {
+        StatementResourceUsage.instance.reset();
+    }
+
     public boolean isBootstrapMode()
     {
         return isBootstrapMode;
@@ -645,6 +645,9 @@ public interface StorageServiceMBean extends NotificationEmitter
     public void setEntireSSTableInterDCStreamThroughputMebibytesPerSec(int value);
     public int getEntireSSTableInterDCStreamThroughputMebibytesPerSec();
 
+    public void setPeerStreamThroughputMebibytesPerSec(int value);
+    public int getPeerStreamThroughputMebibytesPerSec();
+
     public int getCompactionThroughputMbPerSec();
     public void setCompactionThroughputMbPerSec(int value);
 
@@ -831,6 +834,34 @@ public interface StorageServiceMBean extends NotificationEmitter
     /** Sets the concurrency setting for processing stages */
     public void setConcurrency(String threadPoolName, int newCorePoolSize, int newMaximumPoolSize);
 
+    /** Sets the interval between two samples of the thread stacks, 0 to stop sampling */
+    public void setStackSamplerIntervalInMs(int intervalInMs);
+    public int getStackSamplerIntervalInMs();
+
+    /** Returns the number of stacks sampled and the CPU time used, in milliseconds, by the threads of each thread pool */
+    public Map<String, List<Long>> getThreadPoolSamples();
+
+    /**
+     * Returns the sampled stacks of the given thread pool, or of all the pools if null, in the collapsed format of
+     * flame graph tools: the name of the pool and the frames of the stack separated by semicolons, then the number
+     * of samples of the stack.
+     */
+    public List<String> getCollapsedStackSamples(String threadPool);
+
+    /** Discards the thread stacks sampled so far */
+    public void resetStackSamples();
+
+    /** Enables or disables the accounting of the resources used by client requests */
+    public void setResourceAccountingEnabled(boolean enabled);
+    public boolean isResourceAccountingEnabled();
+
+    /** Sets the number of prepared statements whose resource usage is tracked */
+    public void setResourceAccountingTrackedStatements(int trackedStatements);
+    public int getResourceAccountingTrackedStatements();
+
+    /** Discards the resource usage of the prepared statements accounted so far */
+    public void resetStatementResourceUsage();
+
     /** Clears the history of clients that have connected in the past **/
     void clearConnectionHistory();
     public void disableAuditLog();
@@ -24,6 +24,8 @@ import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.function.BiFunction;
 import java.util.function.Consumer;
 import java.util.stream.Collectors;
@@ -74,7 +76,6 @@ import static org.apache.cassandra.utils.CollectionSerializer.deserializeMap;
 import static org.apache.cassandra.utils.CollectionSerializer.newHashMap;
 import static org.apache.cassandra.utils.CollectionSerializer.serializeMap;
 import static org.apache.cassandra.utils.CollectionSerializer.serializedSizeMap;
-import static org.apache.cassandra.utils.concurrent.Awaitable.SyncAwaitable.waitUntil;
 
 /**
  * Perform one paxos "prepare" attempt, with various optimisations.
@@ -296,6 +297,11 @@ public class PaxosPrepare extends PaxosRequestCallback<PaxosPrepare.Response> im
     private Status outcome;
     private final Consumer<Status> onDone;
 
+    // guards the state of the prepare, rather than its monitor, so that a coordinator running on a virtual thread
+    // does not pin its carrier thread while awaiting the outcome, see VirtualThreadFactory
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition outcomeSignalled = lock.newCondition();
+
     private PaxosPrepareRefresh refreshStaleParticipants;
     private boolean linearizabilityViolationDetected = false;
 
@@ -384,13 +390,14 @@ public class PaxosPrepare extends PaxosRequestCallback<PaxosPrepare.Response> im
             send.verb().stage.execute(() -> prepare.executeOnSelf(send.payload, selfHandler));
     }
 
-    // TODO: extend Sync?
-    public synchronized Status awaitUntil(long deadline)
+    public Status awaitUntil(long deadline)
     {
+        lock.lock();
         try
         {
-            //noinspection StatementWithEmptyBody
-            while (!isDone() && waitUntil(this, deadline)) {}
+            long wait;
+            while (!isDone() && (wait = deadline - nanoTime()) > 0)
+                outcomeSignalled.awaitNanos(wait);
 
             if (!isDone())
                 signalDone(MAYBE_FAILURE);
@@ -403,6 +410,10 @@ public class PaxosPrepare extends PaxosRequestCallback<PaxosPrepare.Response> im
             Thread.currentThread().interrupt();
             return new MaybeFailure(new Paxos.MaybeFailure(true, participants.sizeOfPoll(), participants.sizeOfConsensusQuorum, 0, emptyMap()), participants);
         }
+        finally
+        {
+            lock.unlock();
+        }
     }
 
     private boolean isDone()
@@ -438,61 +449,77 @@ public class PaxosPrepare extends PaxosRequestCallback<PaxosPrepare.Response> im
         return false;
     }
 
-    public synchronized void onResponse(Response response, InetAddressAndPort from)
+    public void onResponse(Response response, InetAddressAndPort from)
     {
-        if (logger.isTraceEnabled())
-            logger.trace("{} for {} from {}", response, request.ballot, from);
-
-        if (isDone())
+        lock.lock();
+        try
         {
-            maybeCheckForLinearizabilityViolation(response, from);
-            return;
-        }
+            if (logger.isTraceEnabled())
+                logger.trace("{} for {} from {}", response, request.ballot, from);
+
+            if (isDone())
+            {
+                maybeCheckForLinearizabilityViolation(response, from);
+                return;
+            }
+
+            if (response.isRejected())
+            {
+                Rejected rejected = response.rejected();
+                supersededBy = rejected.supersededBy;
+                signalDone(SUPERSEDED);
+                return;
+            }
 
-        if (response.isRejected())
+            Permitted permitted = response.permitted();
+            if (permitted.gossipInfo.isEmpty())
+                // we agree about the electorate, so can simply accept the promise/permission
+                permitted(permitted, from);
+            else if (!needsGossipUpdate(permitted.gossipInfo))
+                // our gossip is up-to-date, but our original electorate could have been built with stale gossip, so verify it
+                permittedOrTerminateIfElectorateMismatch(permitted, from);
+            else
+                // otherwise our beliefs about the ring potentially diverge, so update gossip with the peer's information
+                Stage.GOSSIP.executor().execute(() -> {
+                    Gossiper.instance.notifyFailureDetector(permitted.gossipInfo);
+                    Gossiper.instance.applyStateLocally(permitted.gossipInfo);
+
+                    // TODO: We should also wait for schema pulls/pushes, however this would be quite an involved change to MigrationManager
+                    //       (which currently drops some migration tasks on the floor).
+                    //       Note it would be fine for us to fail to complete the migration task and simply treat this response as a failure/timeout.
+
+                    // once any pending ranges have been calculated, refresh our Participants list and submit the promise
+                    PendingRangeCalculatorService.instance.executeWhenFinished(() -> permittedOrTerminateIfElectorateMismatch(permitted, from));
+                });
+        }
+        finally
         {
-            Rejected rejected = response.rejected();
-            supersededBy = rejected.supersededBy;
-            signalDone(SUPERSEDED);
-            return;
+            lock.unlock();
         }
-
-        Permitted permitted = response.permitted();
-        if (permitted.gossipInfo.isEmpty())
-            // we agree about the electorate, so can simply accept the promise/permission
-            permitted(permitted, from);
-        else if (!needsGossipUpdate(permitted.gossipInfo))
-            // our gossip is up-to-date, but our original electorate could have been built with stale gossip, so verify it
-            permittedOrTerminateIfElectorateMismatch(permitted, from);
-        else
-            // otherwise our beliefs about the ring potentially diverge, so update gossip with the peer's information
-            Stage.GOSSIP.executor().execute(() -> {
-                Gossiper.instance.notifyFailureDetector(permitted.gossipInfo);
-                Gossiper.instance.applyStateLocally(permitted.gossipInfo);
-
-                // TODO: We should also wait for schema pulls/pushes, however this would be quite an involved change to MigrationManager
-                //       (which currently drops some migration tasks on the floor).
-                //       Note it would be fine for us to fail to complete the migration task and simply treat this response as a failure/timeout.
-
-                // once any pending ranges have been calculated, refresh our Participants list and submit the promise
-                PendingRangeCalculatorService.instance.executeWhenFinished(() -> permittedOrTerminateIfElectorateMismatch(permitted, from));
-            });
     }
 
-    private synchronized void permittedOrTerminateIfElectorateMismatch(Permitted permitted, InetAddressAndPort from)
+    private void permittedOrTerminateIfElectorateMismatch(Permitted permitted, InetAddressAndPort from)
     {
-        if (isDone()) // this execution is asynchronous wrt promise arrival, so must recheck done status
-            return;
+        lock.lock();
+        try
+        {
+            if (isDone()) // this execution is asynchronous wrt promise arrival, so must recheck done status
+                return;
 
-        // if the electorate has changed, finish so we can retry with the updated view of the ring
-        if (!Electorate.get(request.table, request.partitionKey, consistency(request.ballot)).equals(participants.electorate))
+            // if the electorate has changed, finish so we can retry with the updated view of the ring
+            if (!Electorate.get(request.table, request.partitionKey, consistency(request.ballot)).equals(participants.electorate))
+            {
+                signalDone(ELECTORATE_MISMATCH);
+                return;
+            }
+
+            // otherwise continue as normal
+            permitted(permitted, from);
+        }
+        finally
         {
-            signalDone(ELECTORATE_MISMATCH);
-            return;
+            lock.unlock();
         }
-
-        // otherwise continue as normal
-        permitted(permitted, from);
     }
 
     private void permitted(Permitted permitted, InetAddressAndPort from)
@@ -772,19 +799,27 @@ public class PaxosPrepare extends PaxosRequestCallback<PaxosPrepare.Response> im
     }
 
     @Override
-    public synchronized void onFailure(InetAddressAndPort from, RequestFailureReason reason)
+    public void onFailure(InetAddressAndPort from, RequestFailureReason reason)
     {
-        if (logger.isTraceEnabled())
-            logger.trace("{} {} failure from {}", request, reason, from);
+        lock.lock();
+        try
+        {
+            if (logger.isTraceEnabled())
+                logger.trace("{} {} failure from {}", request, reason, from);
 
-        if (isDone())
-            return;
+            if (isDone())
+                return;
 
-        super.onFailureWithMutex(from, reason);
-        ++failures;
+            super.onFailureWithMutex(from, reason);
+            ++failures;
 
-        if (failures + participants.sizeOfConsensusQuorum == 1 + participants.sizeOfPoll())
-            signalDone(MAYBE_FAILURE);
+            if (failures + participants.sizeOfConsensusQuorum == 1 + participants.sizeOfPoll())
+                signalDone(MAYBE_FAILURE);
+        }
+        finally
+        {
+            lock.unlock();
+        }
     }
 
     private void signalDone(Outcome kindOfOutcome)
@@ -800,7 +835,7 @@ public class PaxosPrepare extends PaxosRequestCallback<PaxosPrepare.Response> im
         this.outcome = status;
         if (onDone != null)
             onDone.accept(outcome);
-        notifyAll();
+        outcomeSignalled.signalAll();
     }
 
     private Status toStatus(Outcome outcome)
@@ -848,25 +883,33 @@ public class PaxosPrepare extends PaxosRequestCallback<PaxosPrepare.Response> im
         onFailure(from, reason);
     }
 
-    public synchronized void onRefreshSuccess(Ballot isSupersededBy, InetAddressAndPort from)
+    public void onRefreshSuccess(Ballot isSupersededBy, InetAddressAndPort from)
     {
-        if (logger.isTraceEnabled())
-            logger.trace("Refresh {} from {}", isSupersededBy == null ? "Success" : "SupersededBy(" + isSupersededBy + ')', from);
+        lock.lock();
+        try
+        {
+            if (logger.isTraceEnabled())
+                logger.trace("Refresh {} from {}", isSupersededBy == null ? "Success" : "SupersededBy(" + isSupersededBy + ')', from);
 
-        if (isDone())
-            return;
+            if (isDone())
+                return;
 
-        if (isSupersededBy != null)
-        {
-            supersededBy = isSupersededBy;
-            if (hasProposalStability) signalDone(Outcome.READ_PERMITTED);
-            else signalDone(SUPERSEDED);
+            if (isSupersededBy != null)
+            {
+                supersededBy = isSupersededBy;
+                if (hasProposalStability) signalDone(Outcome.READ_PERMITTED);
+                else signalDone(SUPERSEDED);
+            }
+            else
+            {
+                withLatest.add(from);
+                if (withLatest.size() >= participants.sizeOfConsensusQuorum)
+                    signalDone(hasOnlyPromises ? Outcome.PROMISED : Outcome.READ_PERMITTED);
+            }
         }
-        else
+        finally
         {
-            withLatest.add(from);
-            if (withLatest.size() >= participants.sizeOfConsensusQuorum)
-                signalDone(hasOnlyPromises ? Outcome.PROMISED : Outcome.READ_PERMITTED);
+            lock.unlock();
         }
     }
 
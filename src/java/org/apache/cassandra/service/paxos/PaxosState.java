@@ -24,6 +24,8 @@ import java.io.IOException;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.function.BiConsumer;
 import java.util.function.Function;
 
@@ -330,6 +332,12 @@ public class PaxosState implements PaxosOperationLock
     @Nemesis private volatile Thread lockedBy;
     @Nemesis private volatile int waiting;
 
+    // the state is loaded and its lock awaited under these rather than a monitor, so that the request stages running
+    // on virtual threads do not pin their carrier thread while blocked, see VirtualThreadFactory
+    private final ReentrantLock monitor = new ReentrantLock();
+    private final Condition unlocked = monitor.newCondition();
+    private final ReentrantLock legacyLock = new ReentrantLock();
+
     private static final AtomicReferenceFieldUpdater<PaxosState, Thread> lockedByUpdater = AtomicReferenceFieldUpdater.newUpdater(PaxosState.class, Thread.class, "lockedBy");
 
     private PaxosState(Key key, Snapshot current)
@@ -427,7 +435,8 @@ public class PaxosState implements PaxosOperationLock
             Snapshot current = this.current;
             if (current == null || current instanceof UnsafeSnapshot)
             {
-                synchronized (this)
+                monitor.lock();
+                try
                 {
                     current = this.current;
                     if (current == null || current instanceof UnsafeSnapshot)
@@ -436,6 +445,10 @@ public class PaxosState implements PaxosOperationLock
                         currentUpdater.accumulateAndGet(this, snapshot, Snapshot::merge);
                     }
                 }
+                finally
+                {
+                    monitor.unlock();
+                }
             }
         }
         catch (Throwable t)
@@ -455,7 +468,8 @@ public class PaxosState implements PaxosOperationLock
             if (lockedByUpdater.compareAndSet(this, null, thread))
                 return true;
 
-            synchronized (this)
+            monitor.lock();
+            try
             {
                 waiting++;
 
@@ -472,7 +486,7 @@ public class PaxosState implements PaxosOperationLock
                             if (now >= deadline)
                                 return false;
 
-                            wait(1 + ((deadline - now) - 1) / 1000000);
+                            unlocked.awaitNanos(deadline - now);
                         }
                     }
                 }
@@ -481,6 +495,10 @@ public class PaxosState implements PaxosOperationLock
                     waiting--;
                 }
             }
+            finally
+            {
+                monitor.unlock();
+            }
         }
         catch (InterruptedException e)
         {
@@ -502,9 +520,14 @@ public class PaxosState implements PaxosOperationLock
             lockedBy = null;
             if (waiting > 0)
             {
-                synchronized (this)
+                monitor.lock();
+                try
                 {
-                    notify();
+                    unlocked.signal();
+                }
+                finally
+                {
+                    monitor.unlock();
                 }
             }
         }
@@ -721,7 +744,8 @@ public class PaxosState implements PaxosOperationLock
         long start = nanoTime();
         try (PaxosState unsafeState = getUnsafe(toPrepare))
         {
-            synchronized (unsafeState.key)
+            unsafeState.legacyLock.lock();
+            try
             {
                 unsafeState.maybeLoad();
                 assert unsafeState.current != null;
@@ -753,6 +777,10 @@ public class PaxosState implements PaxosOperationLock
                     }
                 }
             }
+            finally
+            {
+                unsafeState.legacyLock.unlock();
+            }
         }
         finally
         {
@@ -768,7 +796,8 @@ public class PaxosState implements PaxosOperationLock
         long start = nanoTime();
         try (PaxosState unsafeState = getUnsafe(proposal))
         {
-            synchronized (unsafeState.key)
+            unsafeState.legacyLock.lock();
+            try
             {
                 unsafeState.maybeLoad();
                 assert unsafeState.current != null;
@@ -797,6 +826,10 @@ public class PaxosState implements PaxosOperationLock
                     }
                 }
             }
+            finally
+            {
+                unsafeState.legacyLock.unlock();
+            }
         }
         finally
         {
@@ -28,6 +28,7 @@ import org.apache.cassandra.db.DecoratedKey;
 import org.apache.cassandra.db.Keyspace;
 import org.apache.cassandra.db.ReadCommand;
 import org.apache.cassandra.db.SinglePartitionReadCommand;
+import org.apache.cassandra.db.aggregation.PartialAggregation;
 import org.apache.cassandra.db.partitions.PartitionIterator;
 import org.apache.cassandra.db.transform.DuplicateRowChecker;
 import org.apache.cassandra.exceptions.ReadFailureException;
@@ -412,6 +413,50 @@ public abstract class AbstractReadExecutor
         }
     }
 
+    /**
+     * Wait for the CL to be satisfied by the responses to a command with a partial aggregation, and returns the
+     * aggregates of the data response if the responses match.
+     *
+     * @return the aggregates of the data response, or {@code null} if the responses don't match, in which case the
+     * rows must be read, and repaired, instead.
+     */
+    public PartialAggregation.Result awaitPartialAggregation() throws ReadTimeoutException
+    {
+        assert command.partialAggregation() != null;
+        try
+        {
+            handler.awaitResults();
+            assert digestResolver.isDataPresent() : "awaitResults returned with no data present.";
+        }
+        catch (ReadTimeoutException e)
+        {
+            try
+            {
+                onReadTimeout();
+            }
+            finally
+            {
+                throw e;
+            }
+        }
+
+        // the transient replicas return rows, that we would have to reconcile with the aggregated ones
+        if (digestResolver.hasTransientResponse())
+        {
+            Tracing.trace("Transient response for key {} on partial aggregation, reading the rows", getKey());
+            return null;
+        }
+
+        if (!digestResolver.responsesMatch())
+        {
+            Tracing.trace("Digest mismatch: Mismatch for key {} on partial aggregation", getKey());
+            return null;
+        }
+
+        Tracing.trace("Digests match for key {}, using the partial aggregation of the data response", getKey());
+        return digestResolver.getPartialAggregation();
+    }
+
     public void awaitReadRepair() throws ReadTimeoutException
     {
         try
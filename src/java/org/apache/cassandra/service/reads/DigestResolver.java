@@ -27,6 +27,7 @@ import com.google.common.base.Preconditions;
 import org.apache.cassandra.db.ReadCommand;
 import org.apache.cassandra.db.ReadResponse;
 import org.apache.cassandra.db.SinglePartitionReadCommand;
+import org.apache.cassandra.db.aggregation.PartialAggregation;
 import org.apache.cassandra.db.partitions.PartitionIterator;
 import org.apache.cassandra.db.partitions.UnfilteredPartitionIterators;
 import org.apache.cassandra.locator.Endpoints;
@@ -101,6 +102,15 @@ public class DigestResolver<E extends Endpoints<E>, P extends ReplicaPlan.ForRea
         }
     }
 
+    /**
+     * Returns the aggregates returned by the data response, in place of the rows, to a command with a partial
+     * aggregation.
+     */
+    public PartialAggregation.Result getPartialAggregation()
+    {
+        return dataResponse.payload.partialAggregation(command);
+    }
+
     public boolean responsesMatch()
     {
         long start = nanoTime();
@@ -42,7 +42,7 @@ import org.apache.cassandra.exceptions.UnavailableException;
 import org.apache.cassandra.locator.EndpointsForRange;
 import org.apache.cassandra.locator.Replica;
 import org.apache.cassandra.locator.ReplicaPlan;
-import org.apache.cassandra.metrics.ClientRequestMetrics;
+import org.apache.cassandra.metrics.ClientRangeRequestMetrics;
 import org.apache.cassandra.net.Message;
 import org.apache.cassandra.net.MessagingService;
 import org.apache.cassandra.service.StorageProxy;
@@ -60,7 +60,7 @@ public class RangeCommandIterator extends AbstractIterator<RowIterator> implemen
 {
     private static final Logger logger = LoggerFactory.getLogger(RangeCommandIterator.class);
 
-    private static final ClientRequestMetrics rangeMetrics = new ClientRequestMetrics("RangeSlice");
+    private static final ClientRangeRequestMetrics rangeMetrics = new ClientRangeRequestMetrics("RangeSlice");
 
     private final CloseableIterator<ReplicaPlan.ForRangeRead> replicaPlans;
     private final int totalRangeCount;
@@ -112,7 +112,6 @@ public class RangeCommandIterator extends AbstractIterator<RowIterator> implemen
                 // else, sends the next batch of concurrent queries (after having close the previous iterator)
                 if (sentQueryIterator != null)
                 {
-                    liveReturned += counter.counted();
                     sentQueryIterator.close();
 
                     // It's not the first batch of queries and we're not done, so we we can use what has been
@@ -168,9 +167,12 @@ public class RangeCommandIterator extends AbstractIterator<RowIterator> implemen
 
         // Otherwise, compute how many rows per range we got on average and pick a concurrency factor
         // that should allow us to fetch all remaining rows with the next batch of (concurrent) queries.
+        // As for the initial estimate, we underestimate the rows we will get per range, so that noise in
+        // what we've observed so far doesn't make us fall just short of the limit and need yet another round.
         int remainingRows = limit - liveReturned;
         float rowsPerRange = (float) liveReturned / (float) rangesQueried;
-        int concurrencyFactor = Math.max(1, Math.min(maxConcurrencyFactor, Math.round(remainingRows / rowsPerRange)));
+        rowsPerRange -= rowsPerRange * RangeCommands.CONCURRENT_SUBREQUESTS_MARGIN;
+        int concurrencyFactor = Math.max(1, Math.min(maxConcurrencyFactor, (int) Math.ceil(remainingRows / rowsPerRange)));
         logger.trace("Didn't get enough response rows; actual rows per range: {}; remaining rows: {}, new concurrent requests: {}",
                      rowsPerRange, remainingRows, concurrencyFactor);
         return concurrencyFactor;
@@ -270,6 +272,7 @@ public class RangeCommandIterator extends AbstractIterator<RowIterator> implemen
         {
             long latency = nanoTime() - startTime;
             rangeMetrics.addNano(latency);
+            rangeMetrics.roundsPerQuery.update(batchesRequested);
             Keyspace.openAndGetStore(command.metadata()).metric.coordinatorScanLatency.update(latency, TimeUnit.NANOSECONDS);
         }
     }
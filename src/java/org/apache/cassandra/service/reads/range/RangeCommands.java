@@ -40,7 +40,7 @@ public class RangeCommands
 {
     private static final Logger logger = LoggerFactory.getLogger(RangeCommandIterator.class);
 
-    private static final double CONCURRENT_SUBREQUESTS_MARGIN = 0.10;
+    static final float CONCURRENT_SUBREQUESTS_MARGIN = 0.10f;
 
     /**
      * Introduce a maximum number of sub-ranges that the coordinator can request in parallel for range queries. Previously
@@ -21,6 +21,8 @@ import java.util.Collection;
 import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.CopyOnWriteArrayList;
 import javax.management.ListenerNotFoundException;
 import javax.management.MBeanNotificationInfo;
@@ -42,6 +44,8 @@ import org.slf4j.LoggerFactory;
 
 import org.apache.cassandra.config.DatabaseDescriptor;
 import org.apache.cassandra.config.DurationSpec;
+import org.apache.cassandra.gms.Gossiper;
+import org.apache.cassandra.gms.IEndpointStateChangeSubscriber;
 import org.apache.cassandra.locator.InetAddressAndPort;
 import org.apache.cassandra.streaming.management.StreamEventJMXNotifier;
 import org.apache.cassandra.streaming.management.StreamStateCompositeData;
@@ -71,6 +75,7 @@ public class StreamManager implements StreamManagerMBean
         return new StreamRateLimiter(peer,
                                      StreamRateLimiter.LIMITER,
                                      StreamRateLimiter.INTER_DC_LIMITER,
+                                     StreamRateLimiter.getPeerLimiter(peer),
                                      DatabaseDescriptor.getStreamThroughputOutboundMebibytesPerSec(),
                                      DatabaseDescriptor.getInterDCStreamThroughputOutboundMebibytesPerSec());
     }
@@ -90,6 +95,7 @@ public class StreamManager implements StreamManagerMBean
         return new StreamRateLimiter(peer,
                                      StreamRateLimiter.ENTIRE_SSTABLE_LIMITER,
                                      StreamRateLimiter.ENTIRE_SSTABLE_INTER_DC_LIMITER,
+                                     StreamRateLimiter.getPeerLimiter(peer),
                                      DatabaseDescriptor.getEntireSSTableStreamThroughputOutboundMebibytesPerSec(),
                                      DatabaseDescriptor.getEntireSSTableInterDCStreamThroughputOutboundMebibytesPerSec());
     }
@@ -101,19 +107,25 @@ public class StreamManager implements StreamManagerMBean
         private static final RateLimiter INTER_DC_LIMITER = RateLimiter.create(calculateInterDCRateInBytes());
         private static final RateLimiter ENTIRE_SSTABLE_LIMITER = RateLimiter.create(calculateEntireSSTableRateInBytes());
         private static final RateLimiter ENTIRE_SSTABLE_INTER_DC_LIMITER = RateLimiter.create(calculateEntireSSTableInterDCRateInBytes());
+        // shared by the entire SSTable and regular streams to a peer, removed once the peer leaves the ring
+        private static final ConcurrentMap<InetAddressAndPort, RateLimiter> PEER_LIMITERS = new ConcurrentHashMap<>();
 
         private final RateLimiter limiter;
         private final RateLimiter interDCLimiter;
+        private final RateLimiter peerLimiter;
         private final boolean isLocalDC;
         private final double throughput;
         private final double interDCThroughput;
+        private final double peerThroughput;
 
-        private StreamRateLimiter(InetAddressAndPort peer, RateLimiter limiter, RateLimiter interDCLimiter, double throughput, double interDCThroughput)
+        private StreamRateLimiter(InetAddressAndPort peer, RateLimiter limiter, RateLimiter interDCLimiter, RateLimiter peerLimiter, double throughput, double interDCThroughput)
         {
             this.limiter = limiter;
             this.interDCLimiter = interDCLimiter;
+            this.peerLimiter = peerLimiter;
             this.throughput = throughput;
             this.interDCThroughput = interDCThroughput;
+            this.peerThroughput = DatabaseDescriptor.getPeerStreamThroughputOutboundMebibytesPerSec();
             if (DatabaseDescriptor.getLocalDataCenter() != null && DatabaseDescriptor.getEndpointSnitch() != null)
                 isLocalDC = DatabaseDescriptor.getLocalDataCenter().equals(
                 DatabaseDescriptor.getEndpointSnitch().getDatacenter(peer));
@@ -127,6 +139,7 @@ public class StreamManager implements StreamManagerMBean
             limiter.acquire(toTransfer);
             if (!isLocalDC)
                 interDCLimiter.acquire(toTransfer);
+            peerLimiter.acquire(toTransfer);
         }
 
         @Override
@@ -134,7 +147,17 @@ public class StreamManager implements StreamManagerMBean
         {
             // Rate limiting is enabled when throughput greater than 0.
             // If the peer is not local, also check whether inter-DC rate limiting is enabled.
-            return throughput > 0 || (!isLocalDC && interDCThroughput > 0);
+            return throughput > 0 || (!isLocalDC && interDCThroughput > 0) || peerThroughput > 0;
+        }
+
+        private static RateLimiter getPeerLimiter(InetAddressAndPort peer)
+        {
+            return PEER_LIMITERS.computeIfAbsent(peer, p -> RateLimiter.create(calculatePeerRateInBytes()));
+        }
+
+        private static void removePeerLimiter(InetAddressAndPort peer)
+        {
+            PEER_LIMITERS.remove(peer);
         }
 
         public static void updateThroughput()
@@ -157,6 +180,13 @@ public class StreamManager implements StreamManagerMBean
             ENTIRE_SSTABLE_INTER_DC_LIMITER.setRate(calculateEntireSSTableInterDCRateInBytes());
         }
 
+        public static void updatePeerThroughput()
+        {
+            double rate = calculatePeerRateInBytes();
+            for (RateLimiter peerLimiter : PEER_LIMITERS.values())
+                peerLimiter.setRate(rate);
+        }
+
         private static double calculateRateInBytes()
         {
             double throughput = DatabaseDescriptor.getStreamThroughputOutboundMebibytesPerSec();
@@ -181,6 +211,12 @@ public class StreamManager implements StreamManagerMBean
             return calculateEffectiveRateInBytes(throughput);
         }
 
+        private static double calculatePeerRateInBytes()
+        {
+            double throughput = DatabaseDescriptor.getPeerStreamThroughputOutboundMebibytesPerSec();
+            return calculateEffectiveRateInBytes(throughput);
+        }
+
         @VisibleForTesting
         public static double getRateLimiterRateInBytes()
         {
@@ -205,6 +241,13 @@ public class StreamManager implements StreamManagerMBean
             return ENTIRE_SSTABLE_INTER_DC_LIMITER.getRate();
         }
 
+        @VisibleForTesting
+        public static double getPeerRateLimiterRateInBytes(InetAddressAndPort peer)
+        {
+            RateLimiter peerLimiter = PEER_LIMITERS.get(peer);
+            return peerLimiter == null ? Double.MAX_VALUE : peerLimiter.getRate();
+        }
+
         private static double calculateEffectiveRateInBytes(double throughput)
         {
             // if throughput is set to 0, throttling is disabled
@@ -251,6 +294,16 @@ public class StreamManager implements StreamManagerMBean
         }
     };
 
+    @VisibleForTesting
+    final IEndpointStateChangeSubscriber peerLimiterRemover = new IEndpointStateChangeSubscriber()
+    {
+        @Override
+        public void onRemove(InetAddressAndPort endpoint)
+        {
+            StreamRateLimiter.removePeerLimiter(endpoint);
+        }
+    };
+
     public StreamManager()
     {
         DurationSpec duration = DatabaseDescriptor.getStreamingStateExpires();
@@ -266,11 +319,13 @@ public class StreamManager implements StreamManagerMBean
     public void start()
     {
         addListener(listener);
+        Gossiper.instance.register(peerLimiterRemover);
     }
 
     public void stop()
     {
         removeListener(listener);
+        Gossiper.instance.unregister(peerLimiterRemover);
     }
 
     public Collection<StreamingState> getStreamingStates()
@@ -22,6 +22,7 @@ import java.net.SocketTimeoutException;
 import java.nio.channels.ClosedChannelException;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
@@ -1012,23 +1013,26 @@ public class StreamSession implements IEndpointStateChangeSubscriber
 
         state(State.STREAMING);
 
+        List<OutgoingStreamMessage> messages = new ArrayList<>();
         for (StreamTransferTask task : transfers.values())
         {
-            Collection<OutgoingStreamMessage> messages = task.getFileMessages();
-            if (!messages.isEmpty())
-            {
-                for (OutgoingStreamMessage ofm : messages)
-                {
-                    // pass the session planId/index to the OFM (which is only set at init(), after the transfers have already been created)
-                    ofm.header.addSessionInfo(this);
-                    // do not sync here as this does disk access
-                    channel.sendControlMessage(ofm);
-                }
-            }
+            Collection<OutgoingStreamMessage> taskMessages = task.getFileMessages();
+            if (!taskMessages.isEmpty())
+                messages.addAll(taskMessages);
             else
-            {
                 taskCompleted(task); // there are no files to send
-            }
+        }
+
+        // the streams are sent in parallel over several channels, so start with the largest ones: the session then
+        // ends with small streams filling in the channels that are done, rather than with a large stream being
+        // sent alone on a single channel
+        messages.sort(Comparator.comparingLong((OutgoingStreamMessage ofm) -> ofm.stream.getEstimatedSize()).reversed());
+        for (OutgoingStreamMessage ofm : messages)
+        {
+            // pass the session planId/index to the OFM (which is only set at init(), after the transfers have already been created)
+            ofm.header.addSessionInfo(this);
+            // do not sync here as this does disk access
+            channel.sendControlMessage(ofm);
         }
         maybeCompleted();
     }
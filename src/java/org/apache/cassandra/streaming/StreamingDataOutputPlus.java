@@ -22,6 +22,7 @@ import java.io.Closeable;
 import java.io.IOException;
 import java.nio.ByteBuffer;
 import java.nio.channels.FileChannel;
+import java.util.function.LongConsumer;
 
 import io.netty.channel.FileRegion;
 import org.apache.cassandra.io.util.DataOutputPlus;
@@ -83,5 +84,15 @@ public interface StreamingDataOutputPlus extends DataOutputPlus, Closeable
      */
     long writeFileToChannel(FileChannel file, RateLimiter limiter) throws IOException;
 
+    /**
+     * Writes the sections of the file channel between each {@code starts[i]} (inclusive) and {@code ends[i]}
+     * (exclusive) to stream, in order, the same way than {@link #writeFileToChannel(FileChannel, RateLimiter)}
+     * writes a whole file, so zero-copy is used if possible. The bytes written so far are reported to
+     * {@code progress} as the sections are written, batch by batch.
+     * <p>
+     * This method takes ownership of the provided {@link FileChannel}.
+     */
+    long writeFileToChannel(FileChannel file, long[] starts, long[] ends, RateLimiter limiter, LongConsumer progress) throws IOException;
+
     default void flush() throws IOException {}
 }
@@ -18,9 +18,11 @@
 
 package org.apache.cassandra.streaming;
 
+import java.io.EOFException;
 import java.io.IOException;
 import java.nio.ByteBuffer;
 import java.nio.channels.FileChannel;
+import java.util.function.LongConsumer;
 
 import org.apache.cassandra.io.util.DataOutputBufferFixed;
 
@@ -47,4 +49,29 @@ public class StreamingDataOutputPlusFixed extends DataOutputBufferFixed implemen
         while (0 <= (tmp = file.read(buffer))) count += tmp;
         return count;
     }
+
+    @Override
+    public long writeFileToChannel(FileChannel file, long[] starts, long[] ends, RateLimiter limiter, LongConsumer progress) throws IOException
+    {
+        try (FileChannel fc = file)
+        {
+            long count = 0;
+            for (int i = 0; i < starts.length; i++)
+            {
+                int limit = buffer.limit();
+                buffer.limit(buffer.position() + Math.toIntExact(ends[i] - starts[i]));
+                for (long position = starts[i]; buffer.hasRemaining(); )
+                {
+                    int read = fc.read(buffer, position);
+                    if (read < 0)
+                        throw new EOFException();
+                    position += read;
+                }
+                buffer.limit(limit);
+                count += ends[i] - starts[i];
+                progress.accept(count);
+            }
+            return count;
+        }
+    }
 }
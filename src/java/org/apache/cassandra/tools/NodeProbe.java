@@ -1931,6 +1931,31 @@ public class NodeProbe implements AutoCloseable
         ssProxy.setConcurrency(stageName, coreThreads, maxConcurrency);
     }
 
+    public void setStackSamplerInterval(int intervalInMs)
+    {
+        ssProxy.setStackSamplerIntervalInMs(intervalInMs);
+    }
+
+    public int getStackSamplerInterval()
+    {
+        return ssProxy.getStackSamplerIntervalInMs();
+    }
+
+    public Map<String, List<Long>> getThreadPoolSamples()
+    {
+        return ssProxy.getThreadPoolSamples();
+    }
+
+    public List<String> getCollapsedStackSamples(String threadPool)
+    {
+        return ssProxy.getCollapsedStackSamples(threadPool);
+    }
+
+    public void resetStackSamples()
+    {
+        ssProxy.resetStackSamples();
+    }
+
     public void replayBatchlog() throws IOException
     {
         try
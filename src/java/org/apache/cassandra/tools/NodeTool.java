@@ -209,6 +209,7 @@ public class NodeTool
                 SetTraceProbability.class,
                 Sjk.class,
                 Snapshot.class,
+                StackSamples.class,
                 Status.class,
                 StatusAutoCompaction.class,
                 StatusBackup.class,
@@ -0,0 +1,87 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.cassandra.tools.nodetool;
+
+import java.io.PrintStream;
+import java.util.List;
+import java.util.Map;
+
+import io.airlift.airline.Command;
+import io.airlift.airline.Option;
+import org.apache.cassandra.tools.NodeProbe;
+import org.apache.cassandra.tools.NodeTool.NodeToolCmd;
+
+@Command(name = "stacksamples", description = "Print the thread stacks sampled by the stack sampler")
+public class StackSamples extends NodeToolCmd
+{
+    @Option(title = "thread_pool",
+            name = {"-p", "--pool"},
+            description = "Only print the samples of this thread pool")
+    private String threadPool = null;
+
+    @Option(title = "collapsed",
+            name = {"-c", "--collapsed"},
+            description = "Print the sampled stacks in the collapsed format of flame graph tools, rather than the samples of each thread pool")
+    private boolean collapsed = false;
+
+    @Option(title = "interval",
+            name = {"-i", "--interval"},
+            description = "Set the interval between samples, in milliseconds, 0 to stop sampling")
+    private Integer interval = null;
+
+    @Option(title = "reset",
+            name = {"-r", "--reset"},
+            description = "Discard the samples after printing them")
+    private boolean reset = false;
+
+    @Override
+    public void execute(NodeProbe probe)
+    {
+        PrintStream out = probe.output().out;
+        if (interval != null)
+        {
+            probe.setStackSamplerInterval(interval);
+            return;
+        }
+
+        if (collapsed)
+        {
+            probe.getCollapsedStackSamples(threadPool).stream().sorted().forEach(out::println);
+        }
+        else
+        {
+            if (probe.getStackSamplerInterval() == 0)
+                out.println("Stack sampling is disabled, enable it with --interval or stack_sampler_interval");
+
+            Map<String, List<Long>> threadPools = probe.getThreadPoolSamples();
+            long totalCpuTime = threadPools.values().stream().mapToLong(samples -> samples.get(1)).sum();
+            out.printf("%-40s%16s%16s%8s%n", "Pool Name", "Samples", "CPU Time (ms)", "CPU %");
+            threadPools.entrySet().stream()
+                       .filter(entry -> threadPool == null || threadPool.equals(entry.getKey()))
+                       .sorted((a, b) -> Long.compare(b.getValue().get(1), a.getValue().get(1)))
+                       .forEach(entry -> out.printf("%-40s%16d%16d%8.1f%n",
+                                                    entry.getKey(),
+                                                    entry.getValue().get(0),
+                                                    entry.getValue().get(1),
+                                                    totalCpuTime == 0 ? 0.0 : 100.0 * entry.getValue().get(1) / totalCpuTime));
+        }
+
+        if (reset)
+            probe.resetStackSamples();
+    }
+}
@@ -229,7 +229,7 @@ public abstract class Tracing extends ExecutorLocals.Impl
     {
         @SuppressWarnings("resource")
         ExecutorLocals current = ExecutorLocals.current();
-        ExecutorLocals.Impl.set(tls, current.clientWarnState);
+        ExecutorLocals.Impl.set(tls, current.clientWarnState, current.resourceAccountingState);
     }
 
     public TraceState begin(final String request, final Map<String, String> parameters)
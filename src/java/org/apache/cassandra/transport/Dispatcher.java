@@ -36,6 +36,7 @@ import org.apache.cassandra.config.DatabaseDescriptor;
 import org.apache.cassandra.net.FrameEncoder;
 import org.apache.cassandra.service.ClientWarn;
 import org.apache.cassandra.service.QueryState;
+import org.apache.cassandra.service.ResourceAccounting;
 import org.apache.cassandra.service.reads.thresholds.CoordinatorWarnings;
 import org.apache.cassandra.transport.ClientResourceLimits.Overload;
 import org.apache.cassandra.transport.Flusher.FlushItem;
@@ -44,6 +45,7 @@ import org.apache.cassandra.transport.messages.EventMessage;
 import org.apache.cassandra.utils.JVMStabilityInspector;
 import org.apache.cassandra.utils.NoSpamLogger;
 
+import static org.apache.cassandra.concurrent.ExecutorFactory.Global.executorFactory;
 import static org.apache.cassandra.concurrent.SharedExecutorPool.SHARED;
 import static org.apache.cassandra.utils.Clock.Global.nanoTime;
 
@@ -51,10 +53,7 @@ public class Dispatcher
 {
     private static final Logger logger = LoggerFactory.getLogger(Dispatcher.class);
     
-    private static final LocalAwareExecutorPlus requestExecutor = SHARED.newExecutor(DatabaseDescriptor.getNativeTransportMaxThreads(),
-                                                                                     DatabaseDescriptor::setNativeTransportMaxThreads,
-                                                                                     "transport",
-                                                                                     "Native-Transport-Requests");
+    private static final LocalAwareExecutorPlus requestExecutor = newRequestExecutor("Native-Transport-Requests");
 
     private static final ConcurrentMap<EventLoop, Flusher> flusherLookup = new ConcurrentHashMap<>();
     private final boolean useLegacyFlusher;
@@ -72,6 +71,19 @@ public class Dispatcher
         FlushItem<?> toFlushItem(Channel channel, Message.Request request, Message.Response response);
     }
 
+    private static LocalAwareExecutorPlus newRequestExecutor(String name)
+    {
+        if (DatabaseDescriptor.useVirtualThreads(name))
+            return executorFactory().localAware()
+                                    .withJmx("transport")
+                                    .virtual(name, DatabaseDescriptor.getNativeTransportMaxThreads(), DatabaseDescriptor::setNativeTransportMaxThreads);
+
+        return SHARED.newExecutor(DatabaseDescriptor.getNativeTransportMaxThreads(),
+                                  DatabaseDescriptor::setNativeTransportMaxThreads,
+                                  "transport",
+                                  name);
+    }
+
     public Dispatcher(boolean useLegacyFlusher)
     {
         this.useLegacyFlusher = useLegacyFlusher;
@@ -96,7 +108,10 @@ public class Dispatcher
         // even if ClientWarn is disabled, still setup CoordinatorTrackWarnings, as this will populate metrics and
         // emit logs on the server; the warnings will just be ignored and not sent to the client
         if (request.isTrackable())
+        {
             CoordinatorWarnings.init();
+            ResourceAccounting.instance.startAccounting();
+        }
 
         if (backpressure == Overload.REQUESTS)
         {
@@ -157,6 +172,7 @@ public class Dispatcher
         {
             CoordinatorWarnings.reset();
             ClientWarn.instance.resetWarnings();
+            ResourceAccounting.instance.stopAccounting();
         }
     }
 
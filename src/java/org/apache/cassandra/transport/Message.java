@@ -36,6 +36,7 @@ import org.apache.cassandra.service.StorageService;
 import org.apache.cassandra.tracing.Tracing;
 import org.apache.cassandra.transport.messages.*;
 import org.apache.cassandra.service.QueryState;
+import org.apache.cassandra.service.ResourceAccounting;
 import org.apache.cassandra.utils.TimeUUID;
 
 import static org.apache.cassandra.utils.TimeUUID.Generator.nextTimeUUID;
@@ -256,7 +257,10 @@ public abstract class Message
             finally
             {
                 if (shouldTrace)
+                {
+                    ResourceAccounting.instance.traceUsage();
                     Tracing.instance.stopSession();
+                }
             }
 
             if (isTraceable() && isTracingRequested())
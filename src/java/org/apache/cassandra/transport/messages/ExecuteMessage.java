@@ -33,6 +33,7 @@ import org.apache.cassandra.cql3.statements.BatchStatement;
 import org.apache.cassandra.exceptions.PreparedQueryNotFoundException;
 import org.apache.cassandra.service.ClientState;
 import org.apache.cassandra.service.QueryState;
+import org.apache.cassandra.service.ResourceAccounting;
 import org.apache.cassandra.tracing.Tracing;
 import org.apache.cassandra.transport.CBUtil;
 import org.apache.cassandra.transport.Message;
@@ -135,6 +136,8 @@ public class ExecuteMessage extends Message.Request
             if (prepared == null)
                 throw new PreparedQueryNotFoundException(statementId);
 
+            ResourceAccounting.instance.setStatement(statementId, prepared.rawCQLStatement);
+
             if (!prepared.fullyQualified
                 && !Objects.equals(state.getClientState().getRawKeyspace(), prepared.keyspace)
                 // We can not reliably detect inconsistencies for batches yet
@@ -0,0 +1,105 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.cassandra.utils;
+
+import io.netty.util.concurrent.FastThreadLocal;
+import org.apache.cassandra.utils.obs.IBitSet;
+
+/**
+ * A bloom filter whose bitset is split in blocks of the size of a cache line, and that sets all the bits of a key
+ * within the same block.
+ * <p>
+ * A lookup in a standard {@link BloomFilter} touches a different cache line, and often a different page, for each of
+ * its hashes, while a lookup in a blocked filter touches one or two (the bitset is not aligned on cache lines), which
+ * makes it cheaper when the filter does not fit in the CPU caches. In exchange the keys are less evenly spread over
+ * the bits, so a blocked filter needs a few more bits per key for the same false positive rate (see
+ * {@link BloomCalculations#computeBlockedBloomSpec}).
+ * <p>
+ * The first hash of the key picks the block, and the second one the bits within it: each bit is given by the top bits
+ * of that hash, which is then remixed by multiplying it by the golden ratio. Deriving the bits by double hashing, as
+ * the standard filter does, would leave too few distinct combinations of bits within a block.
+ */
+public class BlockedBloomFilter extends BloomFilter
+{
+    public static final int BLOCK_BITS = 512;
+    private static final int BLOCK_SHIFT = 9;
+    // the bit of a hash within its block is given by its top bits
+    private static final int BIT_SHIFT = Long.SIZE - BLOCK_SHIFT;
+    private static final long GOLDEN_RATIO = 0x9E3779B97F4A7C15L;
+
+    private final static FastThreadLocal<long[]> reusableHash = new FastThreadLocal<long[]>()
+    {
+        protected long[] initialValue()
+        {
+            return new long[2];
+        }
+    };
+
+    private final long numBlocks;
+
+    BlockedBloomFilter(int hashCount, IBitSet bitset)
+    {
+        super(hashCount, bitset);
+        assert bitset.capacity() % BLOCK_BITS == 0 : bitset.capacity();
+        this.numBlocks = bitset.capacity() >> BLOCK_SHIFT;
+    }
+
+    private BlockedBloomFilter(BlockedBloomFilter copy)
+    {
+        super(copy);
+        this.numBlocks = copy.numBlocks;
+    }
+
+    public void add(FilterKey key)
+    {
+        long[] hash = reusableHash.get();
+        key.filterHash(hash);
+        long offset = FBUtilities.abs(hash[1] % numBlocks) << BLOCK_SHIFT;
+        long h = hash[0];
+        for (int i = 0; i < hashCount; i++)
+        {
+            bitset.set(offset + (h >>> BIT_SHIFT));
+            h *= GOLDEN_RATIO;
+        }
+    }
+
+    public boolean isPresent(FilterKey key)
+    {
+        long[] hash = reusableHash.get();
+        key.filterHash(hash);
+        long offset = FBUtilities.abs(hash[1] % numBlocks) << BLOCK_SHIFT;
+        long h = hash[0];
+        for (int i = 0; i < hashCount; i++)
+        {
+            if (!bitset.get(offset + (h >>> BIT_SHIFT)))
+                return false;
+            h *= GOLDEN_RATIO;
+        }
+        return true;
+    }
+
+    public IFilter sharedCopy()
+    {
+        return new BlockedBloomFilter(this);
+    }
+
+    public String toString()
+    {
+        return "BlockedBloomFilter[hashCount=" + hashCount + ";capacity=" + bitset.capacity() + ']';
+    }
+}
@@ -17,6 +17,8 @@
  */
 package org.apache.cassandra.utils;
 
+import com.google.common.annotations.VisibleForTesting;
+
 /**
  * The following calculations are taken from:
  * http://www.cs.wisc.edu/~cao/papers/summary-cache/node8.html
@@ -88,6 +90,54 @@ public class BloomCalculations
         }
     }
 
+    /**
+     * The false positive rates of a {@link BlockedBloomFilter}, laid out as {@link #probs}. The keys of a blocked
+     * filter are not spread evenly over the blocks, so it needs a few more buckets per element than a standard
+     * filter for the same rate, hence the larger maximum.
+     */
+    @VisibleForTesting
+    static final double[][] blockedProbs = new double[33][];
+    private static final int maxBlockedK = 20;
+    private static final int[] optKPerBlockedBuckets = new int[blockedProbs.length];
+
+    static
+    {
+        blockedProbs[0] = new double[]{ 1.0 };
+        blockedProbs[1] = new double[]{ 1.0, 1.0 };
+        for (int i = minBuckets; i < blockedProbs.length; i++)
+        {
+            blockedProbs[i] = new double[maxBlockedK + 1];
+            blockedProbs[i][0] = 1.0;
+            for (int j = minK; j <= maxBlockedK; j++)
+            {
+                blockedProbs[i][j] = blockedFalsePositiveRate(i, j);
+                if (blockedProbs[i][j] < blockedProbs[i][optKPerBlockedBuckets[i]])
+                    optKPerBlockedBuckets[i] = j;
+            }
+        }
+    }
+
+    /**
+     * The number of keys in a block follows a Poisson distribution of mean the number of keys per block, so the false
+     * positive rate is the average, over the number of keys in the block of the lookup, of the rate of a standard
+     * filter of the size of a block.
+     */
+    private static double blockedFalsePositiveRate(int bucketsPerElement, int k)
+    {
+        double keysPerBlock = (double) BlockedBloomFilter.BLOCK_BITS / bucketsPerElement;
+        double keysProbability = Math.exp(-keysPerBlock);
+        double keyUnsetProbability = Math.pow(1 - 1.0 / BlockedBloomFilter.BLOCK_BITS, k);
+        double unsetProbability = 1.0;
+        double rate = 0;
+        for (int keys = 0; keys <= keysPerBlock + 20 * Math.sqrt(keysPerBlock) + 50; keys++)
+        {
+            rate += keysProbability * Math.pow(1 - unsetProbability, k);
+            keysProbability *= keysPerBlock / (keys + 1);
+            unsetProbability *= keyUnsetProbability;
+        }
+        return rate;
+    }
+
     /**
      * Given the number of buckets that can be used per element, return a
      * specification that minimizes the false positive rate.
@@ -172,12 +222,58 @@ public class BloomCalculations
         return new BloomSpecification(K, bucketsPerElement);
     }
 
+    /**
+     * Same as {@link #computeBloomSpec(int, double)}, for a {@link BlockedBloomFilter}.
+     *
+     * @param maxBucketsPerElement The maximum number of buckets available for the filter.
+     * @param maxFalsePosProb The maximum tolerable false positive rate.
+     * @return A Bloom Specification which would result in a false positive rate
+     * less than specified by the function call
+     * @throws UnsupportedOperationException if a filter satisfying the parameters cannot be met
+     */
+    public static BloomSpecification computeBlockedBloomSpec(int maxBucketsPerElement, double maxFalsePosProb)
+    {
+        assert maxBucketsPerElement >= 1;
+
+        int bucketsPerElement = minBuckets;
+        int K = optKPerBlockedBuckets[bucketsPerElement];
+        while (blockedProbs[bucketsPerElement][K] > maxFalsePosProb)
+        {
+            if (bucketsPerElement == maxBucketsPerElement)
+            {
+                throw new UnsupportedOperationException(String.format("Unable to satisfy %s with %s buckets per element",
+                                                                      maxFalsePosProb, maxBucketsPerElement));
+            }
+            bucketsPerElement++;
+            K = optKPerBlockedBuckets[bucketsPerElement];
+        }
+        while (K > minK && blockedProbs[bucketsPerElement][K - 1] <= maxFalsePosProb)
+        {
+            K--;
+        }
+
+        return new BloomSpecification(K, bucketsPerElement);
+    }
+
     /**
      * Calculates the maximum number of buckets per element that this implementation
      * can support.  Crucially, it will lower the bucket count if necessary to meet
      * BitSet's size restrictions.
      */
     public static int maxBucketsPerElement(long numElements)
+    {
+        return maxBucketsPerElement(numElements, probs);
+    }
+
+    /**
+     * Same as {@link #maxBucketsPerElement(long)}, for a {@link BlockedBloomFilter}.
+     */
+    public static int maxBlockedBucketsPerElement(long numElements)
+    {
+        return maxBucketsPerElement(numElements, blockedProbs);
+    }
+
+    private static int maxBucketsPerElement(long numElements, double[][] probs)
     {
         numElements = Math.max(1, numElements);
         double v = (Long.MAX_VALUE - EXCESS) / (double)numElements;
@@ -185,7 +281,7 @@ public class BloomCalculations
         {
             throw new UnsupportedOperationException("Cannot compute probabilities for " + numElements + " elements.");
         }
-        return Math.min(BloomCalculations.probs.length - 1, (int)v);
+        return Math.min(probs.length - 1, (int)v);
     }
 
     /**
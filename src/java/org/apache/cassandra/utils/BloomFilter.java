@@ -45,7 +45,7 @@ public class BloomFilter extends WrappedSharedCloseable implements IFilter
         this.bitset = bitset;
     }
 
-    private BloomFilter(BloomFilter copy)
+    protected BloomFilter(BloomFilter copy)
     {
         super(copy);
         this.hashCount = copy.hashCount;
@@ -110,7 +110,7 @@ public class BloomFilter extends WrappedSharedCloseable implements IFilter
         }
     }
 
-    public final boolean isPresent(FilterKey key)
+    public boolean isPresent(FilterKey key)
     {
         long[] indexes = indexes(key);
         for (int i = 0; i < hashCount; i++)
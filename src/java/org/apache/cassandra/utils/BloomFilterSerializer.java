@@ -28,12 +28,20 @@ import org.apache.cassandra.utils.obs.OffHeapBitSet;
 
 public final class BloomFilterSerializer
 {
+    /**
+     * Written before the hash count of a {@link BlockedBloomFilter}. The filters serialized before it existed start
+     * with their hash count, which is never negative, so are still read as standard filters.
+     */
+    private static final int BLOCKED_VERSION = -1;
+
     private BloomFilterSerializer()
     {
     }
 
     public static void serialize(BloomFilter bf, DataOutputPlus out) throws IOException
     {
+        if (bf instanceof BlockedBloomFilter)
+            out.writeInt(BLOCKED_VERSION);
         out.writeInt(bf.hashCount);
         bf.bitset.serialize(out);
     }
@@ -42,9 +50,17 @@ public final class BloomFilterSerializer
     public static <I extends InputStream & DataInput> BloomFilter deserialize(I in, boolean oldBfFormat) throws IOException
     {
         int hashes = in.readInt();
+        boolean blocked = false;
+        if (hashes < 0)
+        {
+            if (hashes != BLOCKED_VERSION)
+                throw new IOException("Unknown bloom filter version " + hashes);
+            blocked = true;
+            hashes = in.readInt();
+        }
         IBitSet bs = OffHeapBitSet.deserialize(in, oldBfFormat);
 
-        return new BloomFilter(hashes, bs);
+        return blocked ? new BlockedBloomFilter(hashes, bs) : new BloomFilter(hashes, bs);
     }
 
     /**
@@ -57,6 +73,8 @@ public final class BloomFilterSerializer
     public static long serializedSize(BloomFilter bf)
     {
         int size = TypeSizes.sizeof(bf.hashCount); // hash count
+        if (bf instanceof BlockedBloomFilter)
+            size += TypeSizes.sizeof(BLOCKED_VERSION);
         size += bf.bitset.serializedSize();
         return size;
     }
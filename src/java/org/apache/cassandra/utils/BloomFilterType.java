@@ -0,0 +1,51 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.cassandra.utils;
+
+import org.apache.cassandra.exceptions.ConfigurationException;
+
+import static java.lang.String.format;
+
+/**
+ * The layout of the bloom filters of the sstables of a table.
+ */
+public enum BloomFilterType
+{
+    /** A {@link BloomFilter}, whose hashes are spread over the whole bitset. */
+    STANDARD,
+    /** A {@link BlockedBloomFilter}, whose hashes of a key are within a single cache line of the bitset. */
+    BLOCKED;
+
+    public static BloomFilterType fromString(String name)
+    {
+        try
+        {
+            return valueOf(name.toUpperCase());
+        }
+        catch (IllegalArgumentException e)
+        {
+            throw new ConfigurationException(format("Invalid bloom filter type '%s', must be one of 'standard' or 'blocked'", name));
+        }
+    }
+
+    @Override
+    public String toString()
+    {
+        return name().toLowerCase();
+    }
+}
@@ -54,10 +54,25 @@ public class FilterFactory
      *         filter.
      */
     public static IFilter getFilter(long numElements, double maxFalsePosProbability)
+    {
+        return getFilter(numElements, maxFalsePosProbability, BloomFilterType.STANDARD);
+    }
+
+    /**
+     * @return The smallest bloom filter of the given type that can provide the given false
+     *         positive probability rate for the given number of elements.
+     */
+    public static IFilter getFilter(long numElements, double maxFalsePosProbability, BloomFilterType type)
     {
         assert maxFalsePosProbability <= 1.0 : "Invalid probability";
         if (maxFalsePosProbability == 1.0)
             return new AlwaysPresentFilter();
+        if (type == BloomFilterType.BLOCKED)
+        {
+            int bucketsPerElement = BloomCalculations.maxBlockedBucketsPerElement(numElements);
+            BloomCalculations.BloomSpecification spec = BloomCalculations.computeBlockedBloomSpec(bucketsPerElement, maxFalsePosProbability);
+            return createBlockedFilter(spec.K, numElements, spec.bucketsPerElement);
+        }
         int bucketsPerElement = BloomCalculations.maxBucketsPerElement(numElements);
         BloomCalculations.BloomSpecification spec = BloomCalculations.computeBloomSpec(bucketsPerElement, maxFalsePosProbability);
         return createFilter(spec.K, numElements, spec.bucketsPerElement);
@@ -70,4 +85,13 @@ public class FilterFactory
         IBitSet bitset = new OffHeapBitSet(numBits);
         return new BloomFilter(hash, bitset);
     }
+
+    @SuppressWarnings("resource")
+    private static IFilter createBlockedFilter(int hash, long numElements, int bucketsPer)
+    {
+        // rounded up to a whole number of blocks, with at least one
+        long numBlocks = (numElements * bucketsPer + BITSET_EXCESS + BlockedBloomFilter.BLOCK_BITS - 1) / BlockedBloomFilter.BLOCK_BITS;
+        IBitSet bitset = new OffHeapBitSet(numBlocks * BlockedBloomFilter.BLOCK_BITS);
+        return new BlockedBloomFilter(hash, bitset);
+    }
 }
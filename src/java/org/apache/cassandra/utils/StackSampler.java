@@ -0,0 +1,341 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.cassandra.utils;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadInfo;
+import java.lang.management.ThreadMXBean;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Pattern;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.ImmutableSet;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.apache.cassandra.concurrent.ScheduledExecutorPlus;
+import org.apache.cassandra.config.DatabaseDescriptor;
+
+import static org.apache.cassandra.concurrent.ExecutorFactory.Global.executorFactory;
+import static org.apache.cassandra.concurrent.ExecutorFactory.SimulatorSemantics.DISCARD;
+
+/**
+ * Continuously samples the stacks of the running threads of the node, at the low frequency set by
+ * {@code stack_sampler_interval}, and aggregates them by thread pool into collapsed stacks, the input format of
+ * flame graph tools. Each collapsed stack is the list of its frames, from the root, separated by semicolons.
+ *
+ * The pool of a thread is its name without the trailing worker numbers, e.g. {@code ReadStage} for
+ * {@code ReadStage-12} or {@code Messaging-EventLoop} for {@code Messaging-EventLoop-3-1}. The workers of the
+ * shared pool are named after the stage of the task they are executing, so their samples are attributed to it.
+ *
+ * Only the threads that are runnable, and not just waiting for IO readiness or connections, are sampled. The CPU time
+ * the threads used since the previous sample is attributed to the pool they belong to at sampling time, which is
+ * exact for dedicated threads and an approximation for the workers of the shared pool.
+ */
+public class StackSampler
+{
+    private static final Logger logger = LoggerFactory.getLogger(StackSampler.class);
+
+    public static final StackSampler instance = new StackSampler();
+
+    /** The deepest frames of a stack that are sampled */
+    private static final int MAX_STACK_DEPTH = 128;
+
+    /**
+     * The distinct stacks, and the heap used by them, beyond which new stacks are counted as {@link #OTHER_STACK}, to
+     * bound memory usage: a collapsed stack of {@link #MAX_STACK_DEPTH} frames takes several kilobytes.
+     */
+    @VisibleForTesting
+    static final int MAX_STACKS = 10000;
+    private static final long MAX_STACKS_BYTES = 8L << 20;
+    @VisibleForTesting
+    static final String OTHER_STACK = "[other]";
+
+    // the heap used by the counter of each stack besides the stack itself, ignoring the node of the map
+    private static final long EMPTY_STACK_COUNTER_SIZE = ObjectSizes.measure(new LongAdder());
+
+    // the native methods in which threads that are runnable are in fact idle, waiting for events
+    private static final ImmutableSet<String> IDLE_FRAMES = ImmutableSet.of("sun.nio.ch.EPoll.wait",
+                                                                            "sun.nio.ch.EPollArrayWrapper.epollWait",
+                                                                            "sun.nio.ch.KQueue.poll",
+                                                                            "sun.nio.ch.KQueueArrayWrapper.kevent0",
+                                                                            "sun.nio.ch.Net.poll",
+                                                                            "sun.nio.ch.Net.accept",
+                                                                            "sun.nio.ch.ServerSocketChannelImpl.accept0",
+                                                                            "io.netty.channel.epoll.Native.epollWait",
+                                                                            "io.netty.channel.epoll.Native.epollWait0",
+                                                                            "io.netty.channel.epoll.Native.epollBusyWait0",
+                                                                            "io.netty.channel.kqueue.Native.keventWait",
+                                                                            "java.net.PlainSocketImpl.socketAccept",
+                                                                            "java.net.SocketInputStream.socketRead0",
+                                                                            "java.net.SocketInputStream.socketRead");
+
+    private static final Pattern WORKER_SUFFIX = Pattern.compile("([-:]\\d+)+$");
+
+    private final ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+    private final ScheduledExecutorPlus executor = executorFactory().scheduled(false, "StackSampler", Thread.MIN_PRIORITY, DISCARD);
+
+    private final ConcurrentMap<String, ThreadPoolSamples> threadPools = new ConcurrentHashMap<>();
+    private final AtomicInteger stackCount = new AtomicInteger();
+    private final AtomicLong stackBytes = new AtomicLong();
+    private final long maxStackBytes;
+
+    // the CPU time of each thread at the previous sample, or null before the first sample
+    private Map<Long, Long> previousCpuTimes;
+
+    private ScheduledFuture<?> sampling;
+    private long intervalMillis;
+
+    public StackSampler()
+    {
+        this(MAX_STACKS_BYTES);
+    }
+
+    @VisibleForTesting
+    StackSampler(long maxStackBytes)
+    {
+        this.maxStackBytes = maxStackBytes;
+    }
+
+    /**
+     * The samples of a thread pool
+     */
+    public static class ThreadPoolSamples
+    {
+        private final LongAdder samples = new LongAdder();
+        private final LongAdder cpuTimeNanos = new LongAdder();
+        private final ConcurrentMap<String, LongAdder> stacks = new ConcurrentHashMap<>();
+
+        /**
+         * @return the number of stacks sampled
+         */
+        public long samples()
+        {
+            return samples.sum();
+        }
+
+        /**
+         * @return the CPU time used by the threads of the pool while sampling, in nanoseconds
+         */
+        public long cpuTimeNanos()
+        {
+            return cpuTimeNanos.sum();
+        }
+
+        /**
+         * @return the number of times each collapsed stack was sampled
+         */
+        public Map<String, Long> stacks()
+        {
+            Map<String, Long> counts = new HashMap<>();
+            stacks.forEach((stack, count) -> counts.put(stack, count.sum()));
+            return counts;
+        }
+    }
+
+    /**
+     * Starts sampling at the interval set by {@code stack_sampler_interval}, if set
+     */
+    public void start()
+    {
+        setInterval(DatabaseDescriptor.getStackSamplerInterval(TimeUnit.MILLISECONDS), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Sets the interval between samples, or stops sampling if 0, keeping the samples taken so far.
+     */
+    public synchronized void setInterval(long interval, TimeUnit unit)
+    {
+        long intervalMillis = unit.toMillis(interval);
+        if (intervalMillis == this.intervalMillis)
+            return;
+
+        if (sampling != null)
+            sampling.cancel(false);
+        sampling = null;
+
+        if (intervalMillis > 0)
+        {
+            previousCpuTimes = null;
+            if (threadMXBean.isThreadCpuTimeSupported() && !threadMXBean.isThreadCpuTimeEnabled())
+                threadMXBean.setThreadCpuTimeEnabled(true);
+            sampling = executor.scheduleWithFixedDelay(this::sample, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+            logger.info("Sampling thread stacks every {}ms", intervalMillis);
+        }
+        this.intervalMillis = intervalMillis;
+    }
+
+    public synchronized long getInterval(TimeUnit unit)
+    {
+        return unit.convert(intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * @return the samples of each thread pool
+     */
+    public Map<String, ThreadPoolSamples> threadPools()
+    {
+        return threadPools;
+    }
+
+    /**
+     * Discards the samples taken so far
+     */
+    public void reset()
+    {
+        threadPools.clear();
+        stackCount.set(0);
+        stackBytes.set(0);
+    }
+
+    /**
+     * @return the heap used by the distinct stacks sampled, approximately
+     */
+    public long stackBytes()
+    {
+        return stackBytes.get();
+    }
+
+    /**
+     * Samples the stacks of the running threads once
+     */
+    @VisibleForTesting
+    public synchronized void sample()
+    {
+        try
+        {
+            boolean cpuTime = threadMXBean.isThreadCpuTimeSupported() && threadMXBean.isThreadCpuTimeEnabled();
+            Map<Long, Long> cpuTimes = new HashMap<>();
+            // getting the stacks of threads pauses the JVM for longer the more threads there are, so they are only
+            // taken for the threads that are runnable, most threads of the node being parked at any time
+            long[] threadIds = threadMXBean.getAllThreadIds();
+            long[] runnable = new long[threadIds.length];
+            int runnableCount = 0;
+            for (ThreadInfo thread : threadMXBean.getThreadInfo(threadIds, 0))
+            {
+                // the threads that terminated since listing them have no info
+                if (thread == null)
+                    continue;
+
+                if (cpuTime)
+                {
+                    long cpuTimeNanos = threadMXBean.getThreadCpuTime(thread.getThreadId());
+                    if (cpuTimeNanos >= 0)
+                    {
+                        cpuTimes.put(thread.getThreadId(), cpuTimeNanos);
+                        // the threads started since the previous sample used all their CPU time since then
+                        long previous = previousCpuTimes == null ? cpuTimeNanos : previousCpuTimes.getOrDefault(thread.getThreadId(), 0L);
+                        if (cpuTimeNanos > previous)
+                            threadPool(thread).cpuTimeNanos.add(cpuTimeNanos - previous);
+                    }
+                }
+
+                if (thread.getThreadState() == Thread.State.RUNNABLE)
+                    runnable[runnableCount++] = thread.getThreadId();
+            }
+
+            for (ThreadInfo thread : threadMXBean.getThreadInfo(Arrays.copyOf(runnable, runnableCount), MAX_STACK_DEPTH))
+            {
+                if (thread == null || thread.getThreadState() != Thread.State.RUNNABLE || isIdle(thread.getStackTrace()))
+                    continue;
+
+                record(threadPool(thread), collapsedStack(thread.getStackTrace()));
+            }
+            previousCpuTimes = cpuTimes;
+        }
+        catch (Throwable t)
+        {
+            JVMStabilityInspector.inspectThrowable(t);
+            logger.error("Unable to sample thread stacks", t);
+        }
+    }
+
+    private ThreadPoolSamples threadPool(ThreadInfo thread)
+    {
+        return threadPool(thread.getThreadName());
+    }
+
+    @VisibleForTesting
+    ThreadPoolSamples threadPool(String threadName)
+    {
+        return threadPools.computeIfAbsent(threadPoolName(threadName), ignore -> new ThreadPoolSamples());
+    }
+
+    /**
+     * Counts a sample of {@code stack} in {@code pool}, or of {@link #OTHER_STACK} if it is a new stack that would
+     * take the stacks kept beyond their bounds. Only invoked by the sampling thread.
+     */
+    @VisibleForTesting
+    void record(ThreadPoolSamples pool, String stack)
+    {
+        if (!pool.stacks.containsKey(stack))
+        {
+            long bytes = ObjectSizes.sizeOf(stack) + EMPTY_STACK_COUNTER_SIZE;
+            if (stackCount.get() >= MAX_STACKS || stackBytes.get() + bytes > maxStackBytes)
+            {
+                stack = OTHER_STACK;
+            }
+            else
+            {
+                stackCount.incrementAndGet();
+                stackBytes.addAndGet(bytes);
+            }
+        }
+        pool.samples.increment();
+        pool.stacks.computeIfAbsent(stack, ignore -> new LongAdder()).increment();
+    }
+
+    @VisibleForTesting
+    static String threadPoolName(String threadName)
+    {
+        String name = WORKER_SUFFIX.matcher(threadName).replaceFirst("");
+        return name.isEmpty() ? threadName : name;
+    }
+
+    private static boolean isIdle(StackTraceElement[] stack)
+    {
+        return stack.length == 0 || IDLE_FRAMES.contains(frame(stack[0]));
+    }
+
+    @VisibleForTesting
+    static String collapsedStack(StackTraceElement[] stack)
+    {
+        StringBuilder collapsed = new StringBuilder();
+        for (int i = stack.length - 1; i >= 0; i--)
+        {
+            collapsed.append(frame(stack[i]));
+            if (i > 0)
+                collapsed.append(';');
+        }
+        return collapsed.toString();
+    }
+
+    private static String frame(StackTraceElement element)
+    {
+        return element.getClassName() + '.' + element.getMethodName();
+    }
+}
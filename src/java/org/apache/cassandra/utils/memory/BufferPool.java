@@ -106,6 +106,15 @@ import static org.apache.cassandra.utils.memory.MemoryUtil.isExactlyDirect;
  *
  * Note: even though partially freed chunks improves cache utilization when chunk cache holds outstanding buffer for
  * arbitrary period, there is still fragmentation in the partially freed chunk because of non-uniform allocation size.
+ *
+ * <p/>
+ *
+ * On hosts with several NUMA nodes, a {@link BufferPool} may be given the {@link NumaTopology} of the host, in which
+ * case it has one {@link GlobalPool} per node. Each {@link LocalPool} takes its chunks from the pool of the node its
+ * thread runs on when it is created, and the macro chunks of a pool are allocated, and so first touched, by the threads
+ * of its node, so that the memory of its chunks is local to them. Chunks are always recycled to the pool that allocated
+ * them, whichever thread frees them, and a pool only takes chunks from the pools of other nodes when it cannot
+ * allocate more memory.
  */
 public class BufferPool
 {
@@ -143,8 +152,9 @@ public class BufferPool
      */
     private final AtomicLong memoryAllocated = new AtomicLong();
 
-    /** A global pool of chunks (page aligned buffers) */
-    private final GlobalPool globalPool;
+    /** The global pools of chunks (page aligned buffers), one per NUMA node */
+    private final GlobalPool[] globalPools;
+    private final NumaTopology topology;
 
     /** Allow partially freed chunk to be recycled for allocation*/
     private final boolean recyclePartially;
@@ -170,11 +180,19 @@ public class BufferPool
     private final Shutdownable localPoolCleaner;
 
     public BufferPool(String name, long memoryUsageThreshold, boolean recyclePartially)
+    {
+        this(name, memoryUsageThreshold, recyclePartially, NumaTopology.SINGLE_NODE);
+    }
+
+    public BufferPool(String name, long memoryUsageThreshold, boolean recyclePartially, NumaTopology topology)
     {
         this.name = name;
         this.memoryUsageThreshold = memoryUsageThreshold;
         this.readableMemoryUsageThreshold = prettyPrintMemory(memoryUsageThreshold);
-        this.globalPool = new GlobalPool();
+        this.topology = topology;
+        this.globalPools = new GlobalPool[topology.nodeCount()];
+        for (int node = 0; node < globalPools.length; node++)
+            globalPools[node] = new GlobalPool(node);
         this.metrics = new BufferPoolMetrics(name, this);
         this.recyclePartially = recyclePartially;
         this.localPoolCleaner = executorFactory().infiniteLoop("LocalPool-Cleaner-" + name, this::cleanupOneReference, UNSAFE);
@@ -285,10 +303,32 @@ public class BufferPool
         return memoryUsageThreshold;
     }
 
+    /**
+     * @return the number of global pools, one per NUMA node
+     */
+    public int nodeCount()
+    {
+        return globalPools.length;
+    }
+
+    /**
+     * @return the size, in bytes, of the macro chunks allocated by the global pool of the given NUMA node
+     */
+    public long sizeInBytes(int node)
+    {
+        return globalPools[node].sizeInBytes();
+    }
+
     @VisibleForTesting
     public GlobalPool globalPool()
     {
-        return globalPool;
+        return globalPools[0];
+    }
+
+    @VisibleForTesting
+    GlobalPool globalPool(int node)
+    {
+        return globalPools[node];
     }
 
     interface Debug
@@ -363,12 +403,19 @@ public class BufferPool
         // Note: fragmentation still exists, as holes are with different sizes.
         private final Queue<Chunk> partiallyFreedChunks = new ConcurrentLinkedQueue<>();
 
+        /** The NUMA node of the pool */
+        private final int node;
+
+        /** Size of the macro chunks allocated by this pool, in bytes */
+        private final AtomicLong nodeMemoryAllocated = new AtomicLong();
+
         /** Used in logging statements to lazily build a human-readable current memory usage. */
         private final Object readableMemoryUsage =
-            new Object() { @Override public String toString() { return prettyPrintMemory(sizeInBytes()); } };
+            new Object() { @Override public String toString() { return prettyPrintMemory(BufferPool.this.sizeInBytes()); } };
 
-        public GlobalPool()
+        GlobalPool(int node)
         {
+            this.node = node;
             assert Integer.bitCount(NORMAL_CHUNK_SIZE) == 1; // must be a power of 2
             assert Integer.bitCount(MACRO_CHUNK_SIZE) == 1; // must be a power of 2
             assert MACRO_CHUNK_SIZE % NORMAL_CHUNK_SIZE == 0; // must be a multiple
@@ -376,6 +423,23 @@ public class BufferPool
 
         /** Return a chunk, the caller will take owership of the parent chunk. */
         public Chunk get()
+        {
+            Chunk chunk = getLocal();
+            if (chunk != null || globalPools.length == 1)
+                return chunk;
+
+            // we cannot allocate more memory, so borrow a chunk from another node; it will be recycled to its own pool
+            for (int i = 1; i < globalPools.length && chunk == null; i++)
+                chunk = globalPools[(node + i) % globalPools.length].chunks.poll();
+            for (int i = 1; i < globalPools.length && chunk == null; i++)
+                chunk = globalPools[(node + i) % globalPools.length].partiallyFreedChunks.poll();
+
+            if (chunk != null)
+                metrics.remoteChunks(node).mark();
+            return chunk;
+        }
+
+        private Chunk getLocal()
         {
             Chunk chunk = chunks.poll();
             if (chunk != null)
@@ -413,6 +477,7 @@ public class BufferPool
                 if (memoryAllocated.compareAndSet(cur, cur + MACRO_CHUNK_SIZE))
                     break;
             }
+            nodeMemoryAllocated.addAndGet(MACRO_CHUNK_SIZE);
 
             // allocate a large chunk
             Chunk chunk;
@@ -476,6 +541,13 @@ public class BufferPool
 
             while (!macroChunks.isEmpty())
                 macroChunks.poll().unsafeFree();
+
+            nodeMemoryAllocated.set(0);
+        }
+
+        long sizeInBytes()
+        {
+            return nodeMemoryAllocated.get();
         }
 
         @VisibleForTesting
@@ -738,7 +810,8 @@ public class BufferPool
 
         public LocalPool()
         {
-            this.parent = globalPool;
+            // the memory of the chunks of the pool of our node is local to this thread, as long as it does not migrate
+            this.parent = globalPools[topology.currentNode()];
             this.tinyLimit = TINY_ALLOCATION_LIMIT;
             this.reuseObjects = new ArrayDeque<>();
             localPoolReferences.add(leakRef = new LocalPoolRef(this, localPoolRefQueue));
@@ -1502,7 +1575,8 @@ public class BufferPool
         memoryInUse.reset();
         memoryAllocated.set(0);
         localPool.get().unsafeRecycle();
-        globalPool.unsafeFree();
+        for (GlobalPool globalPool : globalPools)
+            globalPool.unsafeFree();
     }
 
     @VisibleForTesting
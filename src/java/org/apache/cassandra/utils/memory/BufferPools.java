@@ -32,25 +32,28 @@ public class BufferPools
 {
     private static final Logger logger = LoggerFactory.getLogger(BufferPools.class);
 
+    private static final NumaTopology TOPOLOGY = DatabaseDescriptor.getBufferPoolNumaAware() ? NumaTopology.load() : NumaTopology.SINGLE_NODE;
+
     /**
      * Used by chunk cache to store decompressed data and buffers may be held by chunk cache for arbitrary period.
      */
     private static final long FILE_MEMORY_USAGE_THRESHOLD = DatabaseDescriptor.getFileCacheSizeInMiB() * 1024L * 1024L;
-    private static final BufferPool CHUNK_CACHE_POOL = new BufferPool("chunk-cache", FILE_MEMORY_USAGE_THRESHOLD, true);
+    private static final BufferPool CHUNK_CACHE_POOL = new BufferPool("chunk-cache", FILE_MEMORY_USAGE_THRESHOLD, true, TOPOLOGY);
 
     /**
      * Used by client-server or inter-node requests, buffers should be released immediately after use.
      */
     private static final long NETWORKING_MEMORY_USAGE_THRESHOLD = DatabaseDescriptor.getNetworkingCacheSizeInMiB() * 1024L * 1024L;
-    private static final BufferPool NETWORKING_POOL = new BufferPool("networking", NETWORKING_MEMORY_USAGE_THRESHOLD, false);
+    private static final BufferPool NETWORKING_POOL = new BufferPool("networking", NETWORKING_MEMORY_USAGE_THRESHOLD, false, TOPOLOGY);
 
     static
     {
-        logger.info("Global buffer pool limit is {} for {} and {} for {}",
+        logger.info("Global buffer pool limit is {} for {} and {} for {}, across {}",
                     prettyPrintMemory(FILE_MEMORY_USAGE_THRESHOLD),
                     CHUNK_CACHE_POOL.name,
                     prettyPrintMemory(NETWORKING_MEMORY_USAGE_THRESHOLD),
-                    NETWORKING_POOL.name);
+                    NETWORKING_POOL.name,
+                    TOPOLOGY);
 
         CHUNK_CACHE_POOL.metrics().register3xAlias();
     }
@@ -0,0 +1,162 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.cassandra.utils.memory;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.function.IntSupplier;
+import java.util.stream.IntStream;
+
+import com.google.common.annotations.VisibleForTesting;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The NUMA nodes of the host and the CPUs that belong to each, as reported by Linux in {@code /sys/devices/system/node}.
+ *
+ * The JVM does not tell on which node a thread runs, so {@link #currentNode()} reads the CPU the current thread last
+ * ran on from {@code /proc/thread-self/stat}. This is only accurate until the thread migrates to another node, which
+ * the scheduler avoids, and so is only meant to be called when binding long-lived, per-thread state to a node.
+ */
+public class NumaTopology
+{
+    private static final Logger logger = LoggerFactory.getLogger(NumaTopology.class);
+
+    private static final Path NODES_PATH = Paths.get("/sys/devices/system/node");
+    private static final Path THREAD_STAT_PATH = Paths.get("/proc/thread-self/stat");
+
+    // the 39th field of /proc/[pid]/stat is the CPU the thread last ran on, see proc(5)
+    private static final int PROCESSOR_FIELD = 39;
+
+    /** A topology of a single node, for hosts without NUMA or when NUMA awareness is disabled */
+    public static final NumaTopology SINGLE_NODE = new NumaTopology(new int[0], 1, () -> -1);
+
+    private final int[] nodeOfCpu;
+    private final int nodeCount;
+    private final IntSupplier currentCpu;
+
+    @VisibleForTesting
+    NumaTopology(int[] nodeOfCpu, int nodeCount, IntSupplier currentCpu)
+    {
+        this.nodeOfCpu = nodeOfCpu;
+        this.nodeCount = nodeCount;
+        this.currentCpu = currentCpu;
+    }
+
+    /**
+     * @return the topology of the host, or {@link #SINGLE_NODE} if it has a single node or cannot be read
+     */
+    public static NumaTopology load()
+    {
+        try
+        {
+            int[] nodeOfCpu = new int[0];
+            int nodeCount = 0;
+            try (DirectoryStream<Path> nodes = Files.newDirectoryStream(NODES_PATH, "node[0-9]*"))
+            {
+                for (Path node : nodes)
+                {
+                    int id = Integer.parseInt(node.getFileName().toString().substring("node".length()));
+                    for (int cpu : parseCpuList(new String(Files.readAllBytes(node.resolve("cpulist"))).trim()))
+                    {
+                        if (cpu >= nodeOfCpu.length)
+                            nodeOfCpu = Arrays.copyOf(nodeOfCpu, cpu + 1);
+                        nodeOfCpu[cpu] = id;
+                    }
+                    nodeCount = Math.max(nodeCount, id + 1);
+                }
+            }
+
+            if (nodeCount <= 1 || readCurrentCpu() < 0)
+                return SINGLE_NODE;
+
+            return new NumaTopology(nodeOfCpu, nodeCount, NumaTopology::readCurrentCpu);
+        }
+        catch (IOException | RuntimeException e)
+        {
+            logger.warn("Unable to read the NUMA topology of the host from {}, assuming a single node", NODES_PATH, e);
+            return SINGLE_NODE;
+        }
+    }
+
+    /**
+     * @return the number of nodes, numbered from 0
+     */
+    public int nodeCount()
+    {
+        return nodeCount;
+    }
+
+    /**
+     * @return the node of the CPU the current thread runs on, or 0 if unknown
+     */
+    public int currentNode()
+    {
+        if (nodeCount == 1)
+            return 0;
+
+        int cpu = currentCpu.getAsInt();
+        return cpu >= 0 && cpu < nodeOfCpu.length ? nodeOfCpu[cpu] : 0;
+    }
+
+    /**
+     * Parses a list of CPUs in the format of the cpulist files of sysfs, e.g. {@code 0-3,8-11,16}
+     */
+    @VisibleForTesting
+    static int[] parseCpuList(String cpuList)
+    {
+        if (cpuList.isEmpty())
+            return new int[0];
+
+        return Arrays.stream(cpuList.split(","))
+                     .flatMapToInt(range -> {
+                         int dash = range.indexOf('-');
+                         if (dash < 0)
+                             return IntStream.of(Integer.parseInt(range));
+                         return IntStream.rangeClosed(Integer.parseInt(range.substring(0, dash)),
+                                                      Integer.parseInt(range.substring(dash + 1)));
+                     })
+                     .toArray();
+    }
+
+    private static int readCurrentCpu()
+    {
+        try
+        {
+            String stat = new String(Files.readAllBytes(THREAD_STAT_PATH));
+            // the second field, the command, is parenthesized and may contain spaces
+            String[] fields = stat.substring(stat.lastIndexOf(')') + 2).split(" ");
+            // fields are now numbered from the third one, the state
+            return Integer.parseInt(fields[PROCESSOR_FIELD - 3]);
+        }
+        catch (IOException | RuntimeException e)
+        {
+            return -1;
+        }
+    }
+
+    @Override
+    public String toString()
+    {
+        return nodeCount + " NUMA node(s)";
+    }
+}
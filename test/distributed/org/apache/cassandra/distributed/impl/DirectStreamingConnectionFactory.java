@@ -18,6 +18,7 @@
 
 package org.apache.cassandra.distributed.impl;
 
+import java.io.EOFException;
 import java.io.IOException;
 import java.net.InetSocketAddress;
 import java.nio.ByteBuffer;
@@ -28,6 +29,7 @@ import java.util.Queue;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Function;
 import java.util.function.IntFunction;
+import java.util.function.LongConsumer;
 
 import io.netty.util.concurrent.Future;
 import org.apache.cassandra.distributed.api.ICluster;
@@ -168,6 +170,31 @@ public class DirectStreamingConnectionFactory
                     }
                     return count;
                 }
+
+                @Override
+                public long writeFileToChannel(FileChannel file, long[] starts, long[] ends, RateLimiter limiter, LongConsumer progress) throws IOException
+                {
+                    try (FileChannel fc = file)
+                    {
+                        long count = 0;
+                        for (int i = 0; i < starts.length; i++)
+                        {
+                            for (long position = starts[i]; position < ends[i]; )
+                            {
+                                buffer.limit((int) Math.min(buffer.capacity(), buffer.position() + ends[i] - position));
+                                int read = fc.read(buffer, position);
+                                if (read < 0)
+                                    throw new EOFException();
+                                position += read;
+                                count += read;
+                                doFlush(0);
+                            }
+                            buffer.limit(buffer.capacity());
+                            progress.accept(count);
+                        }
+                        return count;
+                    }
+                }
             }
 
             class In extends RebufferingInputStream implements StreamingDataInputPlus
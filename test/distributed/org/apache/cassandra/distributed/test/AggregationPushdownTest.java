@@ -0,0 +1,190 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.cassandra.distributed.test;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import org.awaitility.Awaitility;
+import org.junit.Assert;
+import org.junit.Test;
+
+import org.apache.cassandra.db.ColumnFamilyStore;
+import org.apache.cassandra.db.Keyspace;
+import org.apache.cassandra.db.marshal.Int32Type;
+import org.apache.cassandra.dht.Token;
+import org.apache.cassandra.distributed.Cluster;
+import org.apache.cassandra.distributed.api.ConsistencyLevel;
+import org.apache.cassandra.distributed.api.ICoordinator;
+import org.apache.cassandra.distributed.api.IInstance;
+import org.apache.cassandra.distributed.api.IInvokableInstance;
+import org.apache.cassandra.gms.Gossiper;
+import org.apache.cassandra.locator.InetAddressAndPort;
+import org.apache.cassandra.locator.Replica;
+import org.apache.cassandra.locator.ReplicaPlans;
+import org.apache.cassandra.utils.TimeUUID;
+
+import static org.apache.cassandra.distributed.shared.AssertUtils.assertRows;
+import static org.apache.cassandra.distributed.shared.AssertUtils.row;
+
+public class AggregationPushdownTest extends TestBaseImpl
+{
+    private static final String TRANSIENT_KEYSPACE = "transient_ks";
+    private static final String CREATE_TABLE = "CREATE TABLE %s.t (pk int, ck int, v int, PRIMARY KEY (pk, ck)) " +
+                                               "WITH speculative_retry = 'NEVER' AND read_repair = '%s'";
+    private static final String INSERT = "INSERT INTO %s.t (pk, ck, v) VALUES (?, ?, ?)";
+    private static final String AGGREGATE = "SELECT count(*), sum(v), max(v) FROM %s.t WHERE pk = ?";
+    private static final String SELECT_TRACE = "SELECT activity FROM system_traces.events WHERE session_id = ? AND source = ? ALLOW FILTERING";
+
+    @Test
+    public void testQuorumReads() throws IOException
+    {
+        try (Cluster cluster = init(builder().withNodes(3)
+                                             .withConfig(config -> config.set("aggregation_pushdown_enabled", true)
+                                                                         .set("dynamic_snitch", false))
+                                             .start()))
+        {
+            cluster.schemaChange(String.format(CREATE_TABLE, KEYSPACE, "BLOCKING"));
+            ICoordinator coordinator = cluster.coordinator(1);
+            for (int ck = 0; ck < 10; ck++)
+                coordinator.execute(String.format(INSERT, KEYSPACE), ConsistencyLevel.ALL, 1, ck, ck);
+
+            // the replicas agree, so the coordinator returns the aggregates of the data replica
+            assertAggregate(coordinator, KEYSPACE, 1, row(10L, 45, 9), "Digests match for key");
+
+            // a row that only one of the replicas read by the coordinator has
+            IInvokableInstance replica = null;
+            for (int i = 1; i <= 3 && replica == null; i++)
+            {
+                if (isQuorumReadContact(cluster.get(1), cluster.get(i), KEYSPACE, 1))
+                    replica = cluster.get(i);
+            }
+            Assert.assertNotNull(replica);
+            replica.executeInternal(String.format(INSERT, KEYSPACE), 1, 10, 10);
+
+            // the digests mismatch, so the coordinator reads the rows, repairing them, and aggregates them itself
+            assertAggregate(coordinator, KEYSPACE, 1, row(11L, 55, 10), "Digest mismatch: Mismatch for key");
+            int repaired = 0;
+            for (int i = 1; i <= 3; i++)
+            {
+                Object[][] rows = cluster.get(i).executeInternal(withKeyspace("SELECT v FROM %s.t WHERE pk = 1 AND ck = 10"));
+                if (rows.length == 1)
+                    repaired++;
+            }
+            Assert.assertEquals(2, repaired);
+
+            // the replicas read agree again
+            assertAggregate(coordinator, KEYSPACE, 1, row(11L, 55, 10), "Digests match for key");
+        }
+    }
+
+    @Test
+    public void testTransientReplica() throws IOException
+    {
+        try (Cluster cluster = init(builder().withNodes(3)
+                                             .withConfig(config -> config.set("aggregation_pushdown_enabled", true)
+                                                                         .set("transient_replication_enabled", true)
+                                                                         .set("dynamic_snitch", false))
+                                             .start()))
+        {
+            cluster.schemaChange("CREATE KEYSPACE " + TRANSIENT_KEYSPACE + " WITH replication = " +
+                                 "{'class': 'SimpleStrategy', 'replication_factor': '3/1'}");
+            cluster.schemaChange(String.format(CREATE_TABLE, TRANSIENT_KEYSPACE, "NONE"));
+
+            // a partition the coordinator is a full replica of
+            int pk = 0;
+            while (!isFullReplica(cluster.get(1), cluster.get(1), TRANSIENT_KEYSPACE, pk))
+                pk++;
+
+            ICoordinator coordinator = cluster.coordinator(1);
+            for (int ck = 0; ck < 10; ck++)
+                coordinator.execute(String.format(INSERT, TRANSIENT_KEYSPACE), ConsistencyLevel.QUORUM, pk, ck, ck);
+
+            // with the other full replica down, the coordinator reads from the transient replica too
+            for (int i = 2; i <= 3; i++)
+            {
+                if (isFullReplica(cluster.get(1), cluster.get(i), TRANSIENT_KEYSPACE, pk))
+                {
+                    InetSocketAddress address = cluster.get(i).broadcastAddress();
+                    cluster.get(1).runOnInstance(() -> Gossiper.instance.convict(InetAddressAndPort.getByAddress(address), 1.0));
+                }
+            }
+
+            // the transient replica returns rows, so the coordinator aggregates them itself
+            assertAggregate(coordinator, TRANSIENT_KEYSPACE, pk, row(10L, 45, 9), "Transient response for key");
+        }
+    }
+
+    /**
+     * Checks the aggregates of the partition read at QUORUM, and that the coordinator traced the expected activity.
+     */
+    private static void assertAggregate(ICoordinator coordinator, String keyspace, int pk, Object[] row, String activity)
+    {
+        UUID sessionId = TimeUUID.Generator.nextTimeUUID().asUUID();
+        assertRows(coordinator.executeWithTracing(sessionId, String.format(AGGREGATE, keyspace), ConsistencyLevel.QUORUM, pk), row);
+
+        Awaitility.await("For the tracing of the aggregation to persist")
+                  .pollInterval(100, TimeUnit.MILLISECONDS)
+                  .atMost(30, TimeUnit.SECONDS)
+                  .untilAsserted(() -> {
+                      boolean found = false;
+                      for (Object[] event : coordinator.execute(SELECT_TRACE,
+                                                                ConsistencyLevel.ALL,
+                                                                sessionId,
+                                                                coordinator.instance().broadcastAddress().getAddress()))
+                          found |= ((String) event[0]).startsWith(activity);
+                      Assert.assertTrue("Expected the activity " + activity, found);
+                  });
+    }
+
+    /**
+     * Checks if the coordinator reads the partition from the replica at QUORUM.
+     */
+    private static boolean isQuorumReadContact(IInvokableInstance coordinator, IInstance replica, String keyspace, int pk)
+    {
+        InetSocketAddress address = replica.broadcastAddress();
+        return coordinator.callOnInstance(() -> {
+            Keyspace ks = Keyspace.open(keyspace);
+            ColumnFamilyStore cfs = ks.getColumnFamilyStore("t");
+            Token token = cfs.getPartitioner().getToken(Int32Type.instance.decompose(pk));
+            return ReplicaPlans.forRead(ks, token, org.apache.cassandra.db.ConsistencyLevel.QUORUM, cfs.metadata().params.speculativeRetry)
+                               .contacts()
+                               .contains(InetAddressAndPort.getByAddress(address));
+        });
+    }
+
+    /**
+     * Checks if the replica is a full replica of the partition, as the coordinator sees it.
+     */
+    private static boolean isFullReplica(IInvokableInstance coordinator, IInstance replica, String keyspace, int pk)
+    {
+        InetSocketAddress address = replica.broadcastAddress();
+        return coordinator.callOnInstance(() -> {
+            Keyspace ks = Keyspace.open(keyspace);
+            Token token = ks.getColumnFamilyStore("t").getPartitioner().getToken(Int32Type.instance.decompose(pk));
+            Replica r = ks.getReplicationStrategy()
+                          .getNaturalReplicasForToken(token)
+                          .byEndpoint()
+                          .get(InetAddressAndPort.getByAddress(address));
+            return r != null && r.isFull();
+        });
+    }
+}
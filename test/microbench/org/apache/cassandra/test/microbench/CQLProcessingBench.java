@@ -0,0 +1,218 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.cassandra.test.microbench;
+
+import java.nio.ByteBuffer;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import org.apache.cassandra.cql3.CQLStatement;
+import org.apache.cassandra.cql3.CQLTester;
+import org.apache.cassandra.cql3.QueryOptions;
+import org.apache.cassandra.cql3.QueryProcessor;
+import org.apache.cassandra.db.ConsistencyLevel;
+import org.apache.cassandra.db.commitlog.CommitLog;
+import org.apache.cassandra.db.marshal.Int32Type;
+import org.apache.cassandra.service.ClientState;
+import org.apache.cassandra.service.QueryState;
+import org.apache.cassandra.transport.ProtocolVersion;
+import org.apache.cassandra.transport.messages.ExecuteMessage;
+import org.apache.cassandra.transport.messages.QueryMessage;
+import org.apache.cassandra.transport.messages.ResultMessage;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import static org.apache.cassandra.utils.Clock.Global.nanoTime;
+
+/**
+ * Benchmarks the coordinator-side processing of CQL statements, phase by phase: parsing, preparation (which builds the
+ * restrictions of the statement), execution of the prepared statement, encoding of its result, and the processing of
+ * unprepared QUERY and prepared EXECUTE requests by the query handler. The data is kept in memtables, so that the cost
+ * of the CQL layer dominates that of the storage.
+ *
+ * Run with the GC profiler, as {@link #main} does, to get the bytes allocated by each phase (gc.alloc.rate.norm).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 2, timeUnit = TimeUnit.SECONDS)
+@Fork(value = 1, jvmArgsAppend = "-Xmx512M")
+@Threads(1)
+@State(Scope.Benchmark)
+public class CQLProcessingBench extends CQLTester
+{
+    private static final String BENCH_KEYSPACE = "cql_bench";
+    private static final int ROWS_PER_PARTITION = 100;
+    private static final int PARTITIONS = 10;
+
+    /**
+     * The shapes of the benchmarked statements, with a single bind marker for the partition key
+     */
+    public enum Shape
+    {
+        POINT_SELECT("SELECT * FROM %s.wide WHERE pk = ? AND ck = 5"),
+        SLICE_SELECT("SELECT ck, v FROM %s.wide WHERE pk = ? AND ck >= 10 AND ck < 60"),
+        IN_SELECT("SELECT pk, ck, v FROM %s.wide WHERE pk IN (?, 2, 3) AND ck IN (1, 2, 3)"),
+        COLLECTION_SELECT("SELECT * FROM %s.collections WHERE pk = ?"),
+        UDT_SELECT("SELECT pk, address, address.city FROM %s.udts WHERE pk = ?"),
+        INSERT("INSERT INTO %s.wide (pk, ck, v) VALUES (?, 1, 'value') USING TTL 86400"),
+        COLLECTION_UPDATE("UPDATE %s.collections SET m = m + {'k': 1}, s = s + {4}, l = ['a', 'b'] WHERE pk = ?"),
+        UDT_INSERT("INSERT INTO %s.udts (pk, address) VALUES (?, {street: '1 Main St', city: 'Springfield', zip: 12345})");
+
+        private final String query;
+
+        Shape(String query)
+        {
+            this.query = String.format(query, BENCH_KEYSPACE);
+        }
+    }
+
+    @Param({ "POINT_SELECT", "SLICE_SELECT", "IN_SELECT", "COLLECTION_SELECT", "UDT_SELECT", "INSERT", "COLLECTION_UPDATE", "UDT_INSERT" })
+    Shape shape;
+
+    private final int partitionKey = 1;
+
+    private String preparedQuery;
+    private String unpreparedQuery;
+    private QueryState queryState;
+    private QueryOptions preparedOptions;
+    private QueryOptions unpreparedOptions;
+    private CQLStatement preparedStatement;
+    private ResultMessage.Prepared prepared;
+    private ResultMessage result;
+    private ByteBuf encoded;
+
+    @Setup(Level.Trial)
+    public void setup() throws Throwable
+    {
+        CQLTester.setUpClass();
+        CQLTester.prepareServer();
+        // joins the ring, so that the statements can be executed at CL.ONE like client requests
+        CQLTester.requireNetwork();
+
+        schemaChange("CREATE KEYSPACE " + BENCH_KEYSPACE + " WITH replication = { 'class' : 'SimpleStrategy', 'replication_factor' : 1 } AND durable_writes = false");
+        schemaChange("CREATE TYPE " + BENCH_KEYSPACE + ".address (street text, city text, zip int)");
+        schemaChange("CREATE TABLE " + BENCH_KEYSPACE + ".wide (pk int, ck int, v text, PRIMARY KEY (pk, ck))");
+        schemaChange("CREATE TABLE " + BENCH_KEYSPACE + ".collections (pk int PRIMARY KEY, m map<text, int>, s set<int>, l list<text>)");
+        schemaChange("CREATE TABLE " + BENCH_KEYSPACE + ".udts (pk int PRIMARY KEY, address frozen<address>)");
+
+        for (int pk = 0; pk < PARTITIONS; pk++)
+        {
+            for (int ck = 0; ck < ROWS_PER_PARTITION; ck++)
+                executeFormattedQuery("INSERT INTO " + BENCH_KEYSPACE + ".wide (pk, ck, v) VALUES (?, ?, ?)", pk, ck, "value " + ck);
+            executeFormattedQuery("INSERT INTO " + BENCH_KEYSPACE + ".collections (pk, m, s, l) VALUES (?, {'a': 1, 'b': 2, 'c': 3}, {1, 2, 3}, ['x', 'y', 'z'])", pk);
+            executeFormattedQuery("INSERT INTO " + BENCH_KEYSPACE + ".udts (pk, address) VALUES (?, {street: '1 Main St', city: 'Springfield', zip: 12345})", pk);
+        }
+
+        preparedQuery = shape.query;
+        unpreparedQuery = shape.query.replace("?", Integer.toString(partitionKey));
+        queryState = new QueryState(ClientState.forInternalCalls());
+
+        List<ByteBuffer> values = Collections.singletonList(Int32Type.instance.decompose(partitionKey));
+        preparedOptions = options(values);
+        unpreparedOptions = options(Collections.emptyList());
+
+        prepared = QueryProcessor.instance.prepare(preparedQuery, queryState.getClientState());
+        preparedStatement = QueryProcessor.getStatement(preparedQuery, queryState.getClientState());
+        result = preparedStatement.execute(queryState, preparedOptions, nanoTime());
+        // like QueryProcessor, modifications return no result but are answered with a void one
+        if (result == null)
+            result = new ResultMessage.Void();
+        encoded = Unpooled.buffer(ResultMessage.codec.encodedSize(result, ProtocolVersion.CURRENT));
+    }
+
+    private static QueryOptions options(List<ByteBuffer> values)
+    {
+        return QueryOptions.create(ConsistencyLevel.ONE, values, false, 5000, null, null, ProtocolVersion.CURRENT, null);
+    }
+
+    @TearDown(Level.Trial)
+    public void teardown() throws InterruptedException
+    {
+        encoded.release();
+        CommitLog.instance.shutdownBlocking();
+        CQLTester.tearDownClass();
+        CQLTester.cleanup();
+    }
+
+    @Benchmark
+    public Object parse()
+    {
+        return QueryProcessor.parseStatement(unpreparedQuery);
+    }
+
+    @Benchmark
+    public Object parseAndPrepare()
+    {
+        return QueryProcessor.getStatement(preparedQuery, queryState.getClientState());
+    }
+
+    @Benchmark
+    public Object execute()
+    {
+        return preparedStatement.execute(queryState, preparedOptions, nanoTime());
+    }
+
+    @Benchmark
+    public Object encodeResult()
+    {
+        encoded.clear();
+        ResultMessage.codec.encode(result, encoded, ProtocolVersion.CURRENT);
+        return encoded;
+    }
+
+    @Benchmark
+    public Object processUnprepared()
+    {
+        return new QueryMessage(unpreparedQuery, unpreparedOptions).execute(queryState, nanoTime());
+    }
+
+    @Benchmark
+    public Object processPrepared()
+    {
+        return new ExecuteMessage(prepared.statementId, prepared.resultMetadataId, preparedOptions).execute(queryState, nanoTime());
+    }
+
+    public static void main(String... args) throws Exception
+    {
+        Options options = new OptionsBuilder()
+                          .include(".*" + CQLProcessingBench.class.getSimpleName() + ".*")
+                          .addProfiler(GCProfiler.class)
+                          .build();
+        new Runner(options).run();
+    }
+}
@@ -22,19 +22,32 @@ import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.NavigableSet;
+import java.util.TreeSet;
 
 import org.junit.BeforeClass;
 import org.junit.Test;
 
 import com.github.benmanes.caffeine.cache.Weigher;
 import org.apache.cassandra.SchemaLoader;
+import org.apache.cassandra.Util;
 import org.apache.cassandra.concurrent.NamedThreadFactory;
+import org.apache.cassandra.db.Clustering;
+import org.apache.cassandra.db.ColumnFamilyStore;
 import org.apache.cassandra.db.Digest;
+import org.apache.cassandra.db.Keyspace;
+import org.apache.cassandra.db.RegularAndStaticColumns;
 import org.apache.cassandra.db.RowUpdateBuilder;
+import org.apache.cassandra.db.Slice;
+import org.apache.cassandra.db.Slices;
+import org.apache.cassandra.db.filter.ColumnFilter;
 import org.apache.cassandra.db.marshal.AsciiType;
+import org.apache.cassandra.db.marshal.Int32Type;
 import org.apache.cassandra.db.marshal.UTF8Type;
 import org.apache.cassandra.db.partitions.CachedBTreePartition;
 import org.apache.cassandra.db.partitions.PartitionUpdate;
+import org.apache.cassandra.db.partitions.SerializedCachedPartition;
+import org.apache.cassandra.db.rows.UnfilteredRowIterator;
 import org.apache.cassandra.db.rows.UnfilteredRowIterators;
 import org.apache.cassandra.exceptions.ConfigurationException;
 import org.apache.cassandra.net.MessagingService;
@@ -43,13 +56,17 @@ import org.apache.cassandra.schema.Indexes;
 import org.apache.cassandra.schema.KeyspaceParams;
 import org.apache.cassandra.schema.TableId;
 import org.apache.cassandra.schema.TableMetadata;
+import org.apache.cassandra.utils.ByteBufferUtil;
 import org.apache.cassandra.utils.FBUtilities;
+import org.apache.cassandra.utils.concurrent.OpOrder;
 
 import static org.apache.cassandra.utils.Clock.Global.currentTimeMillis;
 import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 
 public class CacheProviderTest
@@ -62,8 +79,10 @@ public class CacheProviderTest
     private static final long CAPACITY = 4;
     private static final String KEYSPACE1 = "CacheProviderTest1";
     private static final String CF_STANDARD1 = "Standard1";
+    private static final String CF_CLUSTERING = "Clustering1";
 
     private static TableMetadata cfm;
+    private static TableMetadata clusteringCfm;
 
     @BeforeClass
     public static void defineSchema() throws ConfigurationException
@@ -76,7 +95,15 @@ public class CacheProviderTest
                          .addRegularColumn("col1", AsciiType.instance)
                          .build();
 
-        SchemaLoader.createKeyspace(KEYSPACE1, KeyspaceParams.simple(1), cfm);
+        clusteringCfm =
+            TableMetadata.builder(KEYSPACE1, CF_CLUSTERING)
+                         .addPartitionKeyColumn("pKey", AsciiType.instance)
+                         .addClusteringColumn("ck", Int32Type.instance)
+                         .addRegularColumn("col1", AsciiType.instance)
+                         .addRegularColumn("col2", AsciiType.instance)
+                         .build();
+
+        SchemaLoader.createKeyspace(KEYSPACE1, KeyspaceParams.simple(1), cfm, clusteringCfm);
     }
 
     private CachedBTreePartition createPartition()
@@ -152,6 +179,100 @@ public class CacheProviderTest
         concurrentCase(partition, cache);
     }
 
+    @Test
+    public void testSerializedPartitionCache()
+    {
+        SerializedPartitionCacheProvider.SerializedPartitionCache cache = new SerializedPartitionCacheProvider.SerializedPartitionCache(1 << 20);
+
+        long timestamp = currentTimeMillis();
+        PartitionUpdate.SimpleBuilder builder = PartitionUpdate.simpleBuilder(clusteringCfm, "key1").timestamp(timestamp);
+        for (int i = 0; i < 10; i++)
+            builder.row(i).add("col1", "val" + i).add("col2", "other" + i);
+        CachedBTreePartition partition = CachedBTreePartition.create(builder.build().unfilteredIterator(), FBUtilities.nowInSeconds());
+        RowCacheKey key = new RowCacheKey(clusteringCfm, partition.partitionKey());
+
+        // the sentinel dance of the read path
+        RowCacheSentinel sentinel = new RowCacheSentinel();
+        assertTrue(cache.putIfAbsent(key, sentinel));
+        assertEquals(sentinel, cache.get(key));
+        assertTrue(cache.replace(key, sentinel, partition));
+
+        IRowCacheEntry cached = cache.get(key);
+        assertTrue(cached instanceof SerializedCachedPartition);
+        SerializedCachedPartition serialized = (SerializedCachedPartition) cached;
+        assertEquals(partition.partitionKey(), serialized.partitionKey());
+        assertEquals(10, serialized.rowCount());
+        assertEquals(partition.cachedLiveRows(), serialized.cachedLiveRows());
+        assertEquals(partition.lastRow().clustering(), serialized.lastRow().clustering());
+        assertEquals(partition.getRow(Clustering.make(ByteBufferUtil.bytes(4))), serialized.getRow(Clustering.make(ByteBufferUtil.bytes(4))));
+
+        ColumnFilter all = ColumnFilter.all(clusteringCfm);
+        ColumnFilter col1 = ColumnFilter.selection(RegularAndStaticColumns.of(clusteringCfm.getColumn(ByteBufferUtil.bytes("col1"))));
+        Slices slices = Slices.with(clusteringCfm.comparator, Slice.make(Clustering.make(ByteBufferUtil.bytes(3)), Clustering.make(ByteBufferUtil.bytes(5))));
+        NavigableSet<Clustering<?>> names = new TreeSet<>(clusteringCfm.comparator);
+        names.add(Clustering.make(ByteBufferUtil.bytes(2)));
+        names.add(Clustering.make(ByteBufferUtil.bytes(7)));
+        names.add(Clustering.make(ByteBufferUtil.bytes(42)));
+
+        assertDigests(partition.unfilteredIterator(), serialized.unfilteredIterator());
+        for (boolean reversed : new boolean[]{ false, true })
+        {
+            for (ColumnFilter selection : new ColumnFilter[]{ all, col1 })
+            {
+                assertDigests(partition.unfilteredIterator(selection, slices, reversed), serialized.unfilteredIterator(selection, slices, reversed));
+                assertDigests(partition.unfilteredIterator(selection, names, reversed), serialized.unfilteredIterator(selection, names, reversed));
+            }
+        }
+
+        // the view is reused as long as the table does not change
+        assertSame(serialized, cache.get(key));
+
+        cache.remove(key);
+        assertNull(cache.get(key));
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void testSerializedPartitionCacheReleaseAfterReads()
+    {
+        SerializedPartitionCacheProvider.SerializedPartitionCache cache = new SerializedPartitionCacheProvider.SerializedPartitionCache(1 << 20);
+        SerializedPartitionCacheProvider.SerializedPartitionCache.PendingReleases pending = SerializedPartitionCacheProvider.SerializedPartitionCache.PendingReleases.instance;
+
+        PartitionUpdate.SimpleBuilder builder = PartitionUpdate.simpleBuilder(clusteringCfm, "key2");
+        builder.row(1).add("col1", "val1");
+        CachedBTreePartition partition = CachedBTreePartition.create(builder.build().unfilteredIterator(), FBUtilities.nowInSeconds());
+        RowCacheKey key = new RowCacheKey(clusteringCfm, partition.partitionKey());
+
+        // without reads in progress, the memory is freed right away
+        cache.put(key, partition);
+        cache.remove(key);
+        assertEquals(0, pending.size());
+
+        // otherwise it waits for the reads, without blocking the caller
+        cache.put(key, partition);
+        ColumnFamilyStore cfs = Keyspace.open(KEYSPACE1).getColumnFamilyStore(CF_CLUSTERING);
+        try (OpOrder.Group read = cfs.readOrdering.start())
+        {
+            SerializedCachedPartition serialized = (SerializedCachedPartition) cache.get(key);
+            cache.remove(key);
+            assertEquals(1, pending.size());
+            assertEquals(1, serialized.rowCount());
+        }
+        Util.spinAssertEquals(0, pending::size, 10);
+    }
+
+    private void assertDigests(UnfilteredRowIterator one, UnfilteredRowIterator two)
+    {
+        Digest d1 = Digest.forReadResponse();
+        Digest d2 = Digest.forReadResponse();
+        try (UnfilteredRowIterator iter1 = one; UnfilteredRowIterator iter2 = two)
+        {
+            UnfilteredRowIterators.digest(iter1, d1, MessagingService.current_version);
+            UnfilteredRowIterators.digest(iter2, d2, MessagingService.current_version);
+        }
+        assertArrayEquals(d1.digest(), d2.digest());
+    }
+
     @Test
     public void testKeys()
     {
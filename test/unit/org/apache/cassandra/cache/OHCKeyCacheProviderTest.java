@@ -0,0 +1,176 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.cassandra.cache;
+
+import java.io.IOException;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Set;
+
+import com.google.common.collect.ImmutableSet;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import org.apache.cassandra.config.DatabaseDescriptor;
+import org.apache.cassandra.db.DeletionTime;
+import org.apache.cassandra.db.RowIndexEntry;
+import org.apache.cassandra.db.marshal.UTF8Type;
+import org.apache.cassandra.io.sstable.Component;
+import org.apache.cassandra.io.sstable.Descriptor;
+import org.apache.cassandra.io.sstable.SequenceBasedSSTableId;
+import org.apache.cassandra.io.util.DataOutputBuffer;
+import org.apache.cassandra.io.util.File;
+import org.apache.cassandra.io.util.FileUtils;
+import org.apache.cassandra.schema.TableMetadata;
+import org.apache.cassandra.utils.ByteBufferUtil;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class OHCKeyCacheProviderTest
+{
+    private static TableMetadata metadata;
+
+    @BeforeClass
+    public static void setup()
+    {
+        DatabaseDescriptor.daemonInitialization();
+        metadata = TableMetadata.builder("ks", "tbl").addPartitionKeyColumn("pk", UTF8Type.instance).build();
+    }
+
+    @Test
+    public void testEntries() throws IOException
+    {
+        OHCKeyCacheProvider.OHCKeyCache cache = new OHCKeyCacheProvider.OHCKeyCache(1024 * 1024);
+        Descriptor desc = descriptor(1, true);
+
+        RowIndexEntry<?> notIndexed = new RowIndexEntry<>(42);
+        RowIndexEntry<?> shallow = RowIndexEntry.create(1L << 40, 1L << 35, new DeletionTime(123456789L, 42), 17, 3, 200, null, null, null);
+        cache.put(key(desc, "a"), notIndexed);
+        cache.put(key(desc, "b"), shallow);
+
+        assertEntry(notIndexed, cache.get(key(desc, "a")));
+        assertEntry(shallow, cache.get(key(desc, "b")));
+        assertNull(cache.get(key(desc, "c")));
+        assertNull(cache.get(key(descriptor(2, true), "a")));
+        assertEquals(2, cache.size());
+
+        assertEquals(ImmutableSet.of(key(desc, "a"), key(desc, "b")), keys(cache.keyIterator()));
+        assertEquals(ImmutableSet.of(key(desc, "a"), key(desc, "b")), keys(cache.hotKeyIterator(10)));
+
+        cache.remove(key(desc, "a"));
+        assertFalse(cache.containsKey(key(desc, "a")));
+        assertTrue(cache.containsKey(key(desc, "b")));
+    }
+
+    @Test
+    public void testReplace() throws IOException
+    {
+        OHCKeyCacheProvider.OHCKeyCache cache = new OHCKeyCacheProvider.OHCKeyCache(1024 * 1024);
+        Descriptor desc = descriptor(1, true);
+
+        RowIndexEntry<?> first = new RowIndexEntry<>(1);
+        RowIndexEntry<?> second = new RowIndexEntry<>(2);
+        cache.put(key(desc, "a"), first);
+        assertFalse(cache.putIfAbsent(key(desc, "a"), second));
+
+        // the old value is compared with the cached one in its serialized form, prefixed with the sstable id
+        assertFalse(cache.replace(key(desc, "a"), second, second));
+        assertTrue(cache.replace(key(desc, "a"), first, second));
+        assertEntry(second, cache.get(key(desc, "a")));
+    }
+
+    @Test
+    public void testPruneSSTableIds()
+    {
+        OHCKeyCacheProvider.SSTableIds sstables = new OHCKeyCacheProvider.SSTableIds(2);
+        OHCKeyCacheProvider.OHCKeyCache cache = new OHCKeyCacheProvider.OHCKeyCache(1024 * 1024, sstables);
+        Descriptor live = descriptor(1, true);
+        Descriptor gone = descriptor(2, false);
+
+        cache.put(key(live, "a"), new RowIndexEntry<>(1));
+        cache.put(key(gone, "a"), new RowIndexEntry<>(2));
+        // registering the second sstable reaches the threshold, and drops the id of the sstable that is gone
+        assertEquals(1, sstables.size());
+        assertNull(cache.get(key(gone, "a")));
+        assertEquals(ImmutableSet.of(key(live, "a")), keys(cache.keyIterator()));
+
+        // the unreachable entry is still there until evicted
+        assertEquals(2, cache.size());
+    }
+
+    @Test
+    public void testKeyIteratorRemove()
+    {
+        OHCKeyCacheProvider.OHCKeyCache cache = new OHCKeyCacheProvider.OHCKeyCache(1024 * 1024);
+        Descriptor desc = descriptor(1, true);
+        for (int i = 0; i < 100; i++)
+            cache.put(key(desc, "key" + i), new RowIndexEntry<>(i));
+
+        for (Iterator<KeyCacheKey> iter = cache.keyIterator(); iter.hasNext();)
+        {
+            if (iter.next().key.length == 4)
+                iter.remove();
+        }
+        assertEquals(90, cache.size());
+        assertNull(cache.get(key(desc, "key5")));
+        assertEquals(50, cache.get(key(desc, "key50")).position);
+    }
+
+    private static void assertEntry(RowIndexEntry<?> expected, RowIndexEntry<?> actual) throws IOException
+    {
+        try (DataOutputBuffer expectedOut = new DataOutputBuffer(); DataOutputBuffer actualOut = new DataOutputBuffer())
+        {
+            expected.serializeForCache(expectedOut);
+            actual.serializeForCache(actualOut);
+            assertEquals(expectedOut.buffer(), actualOut.buffer());
+        }
+    }
+
+    private static Set<KeyCacheKey> keys(Iterator<KeyCacheKey> iter)
+    {
+        Set<KeyCacheKey> keys = new HashSet<>();
+        iter.forEachRemaining(keys::add);
+        return keys;
+    }
+
+    private static KeyCacheKey key(Descriptor desc, String key)
+    {
+        return new KeyCacheKey(metadata, desc, ByteBufferUtil.bytes(key));
+    }
+
+    private static Descriptor descriptor(int generation, boolean exists)
+    {
+        File directory = new File(FileUtils.getTempDir(), "OHCKeyCacheProviderTest");
+        directory.createDirectoriesIfNotExists();
+        Descriptor desc = new Descriptor(directory, "ks", "tbl", new SequenceBasedSSTableId(generation));
+        File data = desc.fileFor(Component.DATA);
+        if (exists)
+        {
+            data.createFileIfNotExists();
+            data.deleteOnExit();
+        }
+        else
+        {
+            data.tryDelete();
+        }
+        return desc;
+    }
+}
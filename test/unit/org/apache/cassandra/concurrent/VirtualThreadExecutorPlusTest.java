@@ -0,0 +1,186 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.cassandra.concurrent;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Assert;
+import org.junit.Assume;
+import org.junit.Test;
+
+import io.netty.util.concurrent.FastThreadLocal;
+import org.apache.cassandra.Util;
+import org.apache.cassandra.utils.JVMStabilityInspector;
+import org.apache.cassandra.utils.concurrent.CountDownLatch;
+import org.apache.cassandra.utils.concurrent.Future;
+
+import static org.apache.cassandra.concurrent.ExecutorFactory.Global.executorFactory;
+
+public class VirtualThreadExecutorPlusTest extends AbstractExecutorPlusTest
+{
+    final ExecutorLocals locals = new ExecutorLocals(null, null, null);
+
+    @Test
+    public void testPooled() throws Throwable
+    {
+        Assume.assumeTrue(VirtualThreadFactory.isSupported());
+        locals.get();
+        testPooled(() -> builder("test", 2).withVirtualThreads());
+    }
+
+    @Test
+    public void testPooledOnPlatformThreads() throws Throwable
+    {
+        // the executor itself behaves the same whatever its threads
+        locals.get();
+        testPooled(() -> builder("test", 2));
+    }
+
+    @Test
+    public void testConcurrency() throws Throwable
+    {
+        VirtualThreadExecutorPlus executor = builder("test", 2).build();
+        try
+        {
+            AtomicInteger running = new AtomicInteger();
+            AtomicInteger maxRunning = new AtomicInteger();
+            CountDownLatch release = CountDownLatch.newCountDownLatch(1);
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < 8; i++)
+            {
+                futures.add(executor.submit(() -> {
+                    maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                    release.awaitUninterruptibly();
+                    running.decrementAndGet();
+                }));
+            }
+
+            // the tasks beyond the concurrency are queued, and run once the concurrency is raised
+            Util.spinAssertEquals(2, running::get, 60);
+            Assert.assertEquals(6, executor.getPendingTaskCount());
+            executor.setMaximumPoolSize(4);
+            Util.spinAssertEquals(4, running::get, 60);
+            Assert.assertEquals(4, executor.getPendingTaskCount());
+
+            release.decrement();
+            for (Future<?> future : futures)
+                future.get();
+            Assert.assertEquals(4, maxRunning.get());
+        }
+        finally
+        {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testThreadMembership()
+    {
+        VirtualThreadFactory factory = new VirtualThreadFactory("test", null, null, JVMStabilityInspector::uncaughtException);
+        VirtualThreadFactory other = new VirtualThreadFactory("other", null, null, JVMStabilityInspector::uncaughtException);
+        FastThreadLocal<String> local = new FastThreadLocal<>();
+
+        // the tasks of a factory are its members while they run, and their fast thread locals are removed on exit
+        factory.wrap(() -> {
+            Assert.assertTrue(factory.isCurrentThreadMember());
+            Assert.assertFalse(other.isCurrentThreadMember());
+            local.set("value");
+        }).run();
+        Assert.assertFalse(factory.isCurrentThreadMember());
+        Assert.assertFalse(local.isSet());
+    }
+
+    @Test
+    public void testFallback()
+    {
+        LocalAwareExecutorPlus executor = executorFactory().localAware().withJmx("test").virtual("VirtualThreadExecutorPlusTest", 2, ignore -> {});
+        try
+        {
+            // without virtual threads the pool is a shared one, as if virtual threads were not asked for
+            Assert.assertEquals(VirtualThreadFactory.isSupported(), executor instanceof VirtualThreadExecutorPlus);
+            Assert.assertEquals(VirtualThreadFactory.isSupported(), !(executor instanceof SEPExecutor));
+            Assert.assertEquals(2, executor.getMaximumPoolSize());
+        }
+        finally
+        {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testInExecutor() throws Throwable
+    {
+        Assume.assumeTrue(VirtualThreadFactory.isSupported());
+        VirtualThreadExecutorPlus executor = builder("test", 2).withVirtualThreads().build();
+        try
+        {
+            Assert.assertFalse(executor.inExecutor());
+            Assert.assertTrue(executor.submit(executor::inExecutor).get());
+            Assert.assertTrue(executor.submit(() -> Thread.currentThread().getName()).get().startsWith("test:"));
+        }
+        finally
+        {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testSetMaximumPoolSize()
+    {
+        AtomicInteger maximumPoolSize = new AtomicInteger();
+        VirtualThreadExecutorPlus executor = builder("test", 8, maximumPoolSize::set).build();
+        try
+        {
+            executor.setMaximumPoolSize(4);
+            Assert.assertEquals(4, executor.getCorePoolSize());
+            Assert.assertEquals(4, executor.getMaximumPoolSize());
+            Assert.assertEquals(4, maximumPoolSize.get());
+
+            executor.setMaximumPoolSize(16);
+            Assert.assertEquals(16, executor.getCorePoolSize());
+            Assert.assertEquals(16, executor.getMaximumPoolSize());
+            Assert.assertEquals(16, maximumPoolSize.get());
+        }
+        finally
+        {
+            executor.shutdownNow();
+        }
+    }
+
+    private static ThreadPoolExecutorBuilder<VirtualThreadExecutorPlus> builder(String name, int concurrency)
+    {
+        return builder(name, concurrency, ignore -> {});
+    }
+
+    private static ThreadPoolExecutorBuilder<VirtualThreadExecutorPlus> builder(String name, int concurrency, ExecutorPlus.MaximumPoolSizeListener listener)
+    {
+        return new ThreadPoolExecutorBuilder<>(builder -> new VirtualThreadExecutorPlus(builder, listener), null, null, JVMStabilityInspector::uncaughtException, name, concurrency);
+    }
+
+    @Override
+    Runnable wrapSubmit(Runnable submit)
+    {
+        return () -> {
+            Assert.assertEquals(locals, ExecutorLocals.current());
+            submit.run();
+        };
+    }
+}
@@ -422,6 +422,40 @@ public class GcCompactionTest extends CQLTester
         assertEquals(Collections.singleton(newTable), getCurrentColumnFamilyStore().getLiveSSTables());
     }
 
+    @Test
+    public void testPurgeWithOlderDataInOtherPartitions() throws Throwable
+    {
+        createTable("CREATE TABLE %s (k int, c int, v int, PRIMARY KEY (k, c)) WITH gc_grace_seconds = 0 " +
+                    "AND compaction = { 'class' : 'SizeTieredCompactionStrategy', 'provide_overlapping_tombstones' : 'row' }");
+        ColumnFamilyStore cfs = getCurrentColumnFamilyStore();
+        cfs.disableAutoCompaction();
+        Set<SSTableReader> readers = new HashSet<>();
+
+        // the overlapping sstable has old data, but only in other partitions than the first one
+        execute("INSERT INTO %s (k, c, v) VALUES (1, 1, 1) USING TIMESTAMP 1000");
+        execute("INSERT INTO %s (k, c, v) VALUES (2, 1, 1) USING TIMESTAMP 100");
+        execute("INSERT INTO %s (k, c, v) VALUES (3, 1, 1) USING TIMESTAMP 10");
+        flush();
+        SSTableReader overlapping = getNewTable(readers);
+        assertEquals(10, overlapping.getMinTimestamp());
+
+        execute("DELETE FROM %s USING TIMESTAMP 500 WHERE k = 1 AND c = 2");
+        execute("DELETE FROM %s USING TIMESTAMP 500 WHERE k = 2 AND c = 2");
+        flush();
+        SSTableReader deletions = getNewTable(readers);
+        assertEquals(2, countTombstoneMarkers(deletions));
+
+        // Wait a little to make sure nowInSeconds is greater than gcBefore
+        Thread.sleep(1000);
+        CompactionManager.instance.forceUserDefinedCompaction(deletions.getFilename());
+
+        // the deletion of the first partition is purged as nothing older remains in it, not the one of the second
+        SSTableReader compacted = getNewTable(readers);
+        assertEquals(1, countTombstoneMarkers(compacted));
+        assertEquals(2, cfs.getLiveSSTables().size());
+        assertRows(execute("SELECT k, c FROM %s WHERE k IN (1, 2, 3)"), row(1, 1), row(2, 1), row(3, 1));
+    }
+
     private SSTableReader getNewTable(Set<SSTableReader> readers)
     {
         Set<SSTableReader> newOnes = new HashSet<>(getCurrentColumnFamilyStore().getLiveSSTables());
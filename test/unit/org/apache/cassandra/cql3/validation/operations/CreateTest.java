@@ -38,6 +38,7 @@ import org.apache.cassandra.db.partitions.Partition;
 import org.apache.cassandra.exceptions.ConfigurationException;
 import org.apache.cassandra.exceptions.InvalidRequestException;
 import org.apache.cassandra.exceptions.SyntaxException;
+import org.apache.cassandra.io.sstable.format.SSTableReader;
 import org.apache.cassandra.io.util.DataOutputBuffer;
 import org.apache.cassandra.locator.AbstractEndpointSnitch;
 import org.apache.cassandra.locator.IEndpointSnitch;
@@ -50,6 +51,8 @@ import org.apache.cassandra.schema.SchemaKeyspaceTables;
 import org.apache.cassandra.schema.TableMetadata;
 import org.apache.cassandra.service.StorageService;
 import org.apache.cassandra.triggers.ITrigger;
+import org.apache.cassandra.utils.BlockedBloomFilter;
+import org.apache.cassandra.utils.BloomFilterType;
 import org.apache.cassandra.utils.ByteBufferUtil;
 
 import static java.lang.String.format;
@@ -648,6 +651,35 @@ public class CreateTest extends CQLTester
         assertSchemaOption("memtable", MemtableParams.DEFAULT.configurationKey().equals(memtableConfig) ? null : memtableConfig);
     }
 
+    @Test
+    public void testCreateTableWithBloomFilterType() throws Throwable
+    {
+        createTable("CREATE TABLE %s (a text, b int, c int, primary key (a, b))");
+        assertEquals(BloomFilterType.STANDARD, getCurrentColumnFamilyStore().metadata().params.bloomFilterType);
+        assertSchemaOption("bloom_filter_type", null);
+
+        createTable("CREATE TABLE %s (a text, b int, c int, primary key (a, b)) WITH bloom_filter_type = 'blocked'");
+        assertEquals(BloomFilterType.BLOCKED, getCurrentColumnFamilyStore().metadata().params.bloomFilterType);
+        assertSchemaOption("bloom_filter_type", "blocked");
+
+        for (int i = 0; i < 100; i++)
+            execute("INSERT INTO %s (a, b, c) VALUES (?, ?, ?)", "k" + i, i, i);
+        flush();
+        SSTableReader sstable = getCurrentColumnFamilyStore().getLiveSSTables().iterator().next();
+        assertTrue(sstable.getBloomFilter() instanceof BlockedBloomFilter);
+        for (int i = 0; i < 100; i++)
+            assertRows(execute("SELECT c FROM %s WHERE a = ?", "k" + i), row(i));
+        assertEmpty(execute("SELECT c FROM %s WHERE a = ?", "k100"));
+
+        execute("ALTER TABLE %s WITH bloom_filter_type = 'standard'");
+        assertEquals(BloomFilterType.STANDARD, getCurrentColumnFamilyStore().metadata().params.bloomFilterType);
+        assertSchemaOption("bloom_filter_type", null);
+
+        assertThrowsConfigurationException("Invalid bloom filter type 'unknown', must be one of 'standard' or 'blocked'",
+                                           "CREATE TABLE %s (a text, b int, c int, primary key (a, b))"
+                                           + " WITH bloom_filter_type = 'unknown';");
+    }
+
     void assertSchemaOption(String option, Object expected) throws Throwable
     {
         assertRows(execute(format("SELECT " + option + " FROM %s.%s WHERE keyspace_name = ? and table_name = ?;",
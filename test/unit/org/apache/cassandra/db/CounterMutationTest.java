@@ -17,17 +17,25 @@
  */
 package org.apache.cassandra.db;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
 import org.junit.BeforeClass;
 import org.junit.Test;
 
 import org.apache.cassandra.Util;
 import org.apache.cassandra.schema.ColumnMetadata;
 import org.apache.cassandra.SchemaLoader;
+import org.apache.cassandra.config.DatabaseDescriptor;
 import org.apache.cassandra.db.rows.Row;
 import org.apache.cassandra.db.context.CounterContext;
 import org.apache.cassandra.exceptions.ConfigurationException;
 import org.apache.cassandra.exceptions.WriteTimeoutException;
 import org.apache.cassandra.schema.KeyspaceParams;
+import org.apache.cassandra.service.CacheService;
 import org.apache.cassandra.utils.ByteBufferUtil;
 
 import static org.junit.Assert.assertEquals;
@@ -215,4 +223,71 @@ public class CounterMutationTest
             ConsistencyLevel.ONE).apply();
         Util.assertEmpty(Util.cmd(cfs).includeRow("cc").columns("val", "val2").build());
     }
+
+    @Test
+    public void testApplyGroupWithoutCache() throws WriteTimeoutException
+    {
+        ColumnFamilyStore cfs = Keyspace.open(KEYSPACE1).getColumnFamilyStore(CF1);
+        cfs.truncateBlocking();
+        ColumnMetadata cDef = cfs.metadata().getColumn(ByteBufferUtil.bytes("val"));
+
+        long capacity = CacheService.instance.counterCache.getCapacity();
+        CacheService.instance.setCounterCacheCapacityInMB(0);
+        try
+        {
+            // each mutation of the group must build on the value written by the previous ones, not on the CF
+            List<CounterMutation> group = new ArrayList<>();
+            for (long i = 1; i <= 4; i++)
+                group.add(new CounterMutation(new RowUpdateBuilder(cfs.metadata(), 5, "key1").clustering("cc").add("val", i).build(), ConsistencyLevel.ONE));
+
+            List<Mutation> results = CounterMutation.applyCounterMutations(group);
+            assertEquals(4, results.size());
+            long expected = 0;
+            for (int i = 0; i < results.size(); i++)
+            {
+                expected += i + 1;
+                Row row = results.get(i).getPartitionUpdate(cfs.metadata()).getRow(Clustering.make(ByteBufferUtil.bytes("cc")));
+                assertEquals(expected, CounterContext.instance().total(row.getCell(cDef)));
+            }
+
+            Row row = Util.getOnlyRow(Util.cmd(cfs).includeRow("cc").columns("val").build());
+            assertEquals(10L, CounterContext.instance().total(row.getCell(cDef)));
+        }
+        finally
+        {
+            CacheService.instance.setCounterCacheCapacityInMB(capacity / 1024 / 1024);
+        }
+    }
+
+    @Test
+    public void testCombinedConcurrentIncrements() throws Throwable
+    {
+        ColumnFamilyStore cfs = Keyspace.open(KEYSPACE1).getColumnFamilyStore(CF1);
+        cfs.truncateBlocking();
+        ColumnMetadata cDef = cfs.metadata().getColumn(ByteBufferUtil.bytes("val"));
+
+        DatabaseDescriptor.setCounterWriteCombiningEnabled(true);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try
+        {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < 1000; i++)
+            {
+                futures.add(executor.submit(() -> {
+                    Mutation m = new RowUpdateBuilder(cfs.metadata(), 5, "key1").clustering("cc").add("val", 1L).build();
+                    new CounterMutation(m, ConsistencyLevel.ONE).apply();
+                }));
+            }
+            for (Future<?> future : futures)
+                future.get();
+        }
+        finally
+        {
+            executor.shutdown();
+            DatabaseDescriptor.setCounterWriteCombiningEnabled(false);
+        }
+
+        Row row = Util.getOnlyRow(Util.cmd(cfs).includeRow("cc").columns("val").build());
+        assertEquals(1000L, CounterContext.instance().total(row.getCell(cDef)));
+    }
 }
@@ -0,0 +1,37 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.cassandra.db;
+
+import org.junit.BeforeClass;
+
+import org.apache.cassandra.cache.OHCKeyCacheProvider;
+import org.apache.cassandra.config.OverrideConfigurationLoader;
+import org.apache.cassandra.exceptions.ConfigurationException;
+
+/**
+ * Runs the key cache tests against the off-heap key cache.
+ */
+public class OHCKeyCacheTest extends KeyCacheTest
+{
+    @BeforeClass
+    public static void defineSchema() throws ConfigurationException
+    {
+        OverrideConfigurationLoader.override(config -> config.key_cache_class_name = OHCKeyCacheProvider.class.getName());
+        KeyCacheTest.defineSchema();
+    }
+}
@@ -0,0 +1,99 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.cassandra.db;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import org.apache.cassandra.Util;
+import org.apache.cassandra.concurrent.ExecutorLocals;
+import org.apache.cassandra.concurrent.Stage;
+import org.apache.cassandra.config.DatabaseDescriptor;
+import org.apache.cassandra.cql3.CQLTester;
+import org.apache.cassandra.db.memtable.ShardBoundaries;
+import org.apache.cassandra.schema.SchemaConstants;
+import org.apache.cassandra.utils.FBUtilities;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class PartitionAffinityTest extends CQLTester
+{
+    private static final int SHARDS = 4;
+
+    @BeforeClass
+    public static void enablePartitionAffinity()
+    {
+        FBUtilities.setAvailableProcessors(SHARDS);
+        DatabaseDescriptor.setPartitionAffineStagesEnabled(true);
+    }
+
+    @AfterClass
+    public static void disablePartitionAffinity()
+    {
+        DatabaseDescriptor.setPartitionAffineStagesEnabled(false);
+    }
+
+    @Test
+    public void testShard() throws Throwable
+    {
+        createTable("CREATE TABLE %s (k int PRIMARY KEY, v int)");
+        ColumnFamilyStore cfs = getCurrentColumnFamilyStore();
+        assertEquals(SHARDS, Stage.MUTATION.shardCount());
+        assertEquals(SHARDS, Stage.READ.shardCount());
+        assertEquals(0, Stage.COUNTER_MUTATION.shardCount());
+
+        ShardBoundaries boundaries = cfs.partitionAffinitySplits(SHARDS);
+        assertEquals(cfs.localRangeSplits(SHARDS), boundaries);
+        // the splits are kept apart from the memtable ones, which may use another number of shards
+        cfs.localRangeSplits(SHARDS + 1);
+        assertSame(boundaries, cfs.partitionAffinitySplits(SHARDS));
+        Set<Integer> shards = new HashSet<>();
+        for (int k = 0; k < 100; k++)
+        {
+            Mutation mutation = new RowUpdateBuilder(cfs.metadata(), 0, k).add("v", k).build();
+            int shard = PartitionAffinity.shard(Stage.MUTATION, mutation);
+            assertEquals(boundaries.getShardForKey(mutation.key()), shard);
+
+            // reads on the partition are executed on the thread of the same shard
+            SinglePartitionReadCommand command = (SinglePartitionReadCommand) Util.cmd(cfs, k).build();
+            assertEquals(shard, PartitionAffinity.shard(Stage.READ, command));
+            shards.add(shard);
+        }
+        assertEquals(SHARDS, shards.size());
+
+        // requests on system tables are not sharded
+        Mutation local = new RowUpdateBuilder(Keyspace.open(SchemaConstants.SYSTEM_KEYSPACE_NAME).getColumnFamilyStore(SystemKeyspace.LOCAL).metadata(), 0, "local").build();
+        assertEquals(-1, PartitionAffinity.shard(Stage.MUTATION, local));
+
+        // requests of a shard are executed by the thread of the shard
+        for (int shard = 0; shard < SHARDS; shard++)
+        {
+            CompletableFuture<String> thread = new CompletableFuture<>();
+            Stage.MUTATION.execute(ExecutorLocals.current(), () -> thread.complete(Thread.currentThread().getName()), shard);
+            assertTrue(thread.get(1, TimeUnit.MINUTES).startsWith("MutationStage-Shard-" + shard));
+        }
+    }
+}
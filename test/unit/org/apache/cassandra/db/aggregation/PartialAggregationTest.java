@@ -0,0 +1,297 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.cassandra.db.aggregation;
+
+import java.nio.ByteBuffer;
+import java.util.Date;
+
+import org.junit.After;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import org.apache.cassandra.Util;
+import org.apache.cassandra.config.DatabaseDescriptor;
+import org.apache.cassandra.cql3.CQLTester;
+import org.apache.cassandra.cql3.QueryOptions;
+import org.apache.cassandra.cql3.QueryProcessor;
+import org.apache.cassandra.cql3.statements.SelectStatement;
+import org.apache.cassandra.db.ReadCommand;
+import org.apache.cassandra.db.SystemKeyspace;
+import org.apache.cassandra.gms.Gossiper;
+import org.apache.cassandra.io.util.DataInputBuffer;
+import org.apache.cassandra.io.util.DataOutputBuffer;
+import org.apache.cassandra.net.MessagingService;
+import org.apache.cassandra.serializers.TimestampSerializer;
+import org.apache.cassandra.service.ClientState;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+public class PartialAggregationTest extends CQLTester
+{
+    @BeforeClass
+    public static void setUp()
+    {
+        requireNetwork();
+    }
+
+    @After
+    public void disablePushdown()
+    {
+        DatabaseDescriptor.setAggregationPushdownEnabled(false);
+    }
+
+    @Test
+    public void testAggregates() throws Throwable
+    {
+        createTable("CREATE TABLE %s (pk int, ck int, s int static, v int, b bigint, t text, d double, PRIMARY KEY (pk, ck))");
+
+        for (int ck = 0; ck < 25; ck++)
+        {
+            if (ck % 5 == 0)
+                execute("INSERT INTO %s (pk, ck) VALUES (0, ?)", ck);
+            else
+                execute("INSERT INTO %s (pk, ck, v, b, t, d) VALUES (0, ?, ?, ?, ?, ?)", ck, ck, (long) ck * 10, "t" + ck, ck / 2.0);
+            if (ck == 12)
+                flush();
+        }
+        execute("UPDATE %s SET s = 7 WHERE pk = 0");
+        execute("DELETE FROM %s WHERE pk = 0 AND ck >= 20 AND ck < 23");
+        execute("UPDATE %s SET s = 3 WHERE pk = 1");
+        execute("INSERT INTO %s (pk, ck, v) VALUES (2, 0, -5)");
+        execute("DELETE v FROM %s WHERE pk = 2 AND ck = 0");
+
+        for (int pageSize : new int[]{ 3, 5, 100 })
+        {
+            // 22 rows, of which 18 have values
+            assertPushedDown(pageSize, "SELECT count(*) FROM %s WHERE pk = 0", row(22L));
+            assertPushedDown(pageSize, "SELECT count(v), sum(v), min(v), max(v) FROM %s WHERE pk = 0",
+                             row(18L, 207, 1, 24));
+            assertPushedDown(pageSize, "SELECT sum(b), max(t), min(ck), max(pk), max(s), count(s) FROM %s WHERE pk = 0",
+                             row(2070L, "t9", 0, 0, 7, 22L));
+            assertPushedDown(pageSize, "SELECT count(*), max(v) FROM %s WHERE pk = 0 AND ck > 3 AND ck < 21",
+                             row(16L, 19));
+            assertPushedDown(pageSize, "SELECT count(*), min(ck) FROM %s WHERE pk = 0 AND ck > 3 ORDER BY ck DESC",
+                             row(18L, 4));
+
+            // a partition with only static content counts as one row, unless the clustering columns are restricted
+            assertPushedDown(pageSize, "SELECT count(*), max(s), max(v) FROM %s WHERE pk = 1", row(1L, 3, null));
+            assertPushedDown(pageSize, "SELECT count(*), max(v) FROM %s WHERE pk = 1 AND ck > 0", row(0L, null));
+            assertPushedDown(pageSize, "SELECT count(*), count(v), sum(v) FROM %s WHERE pk = 2", row(1L, 0L, 0));
+            assertPushedDown(pageSize, "SELECT count(*), max(v) FROM %s WHERE pk = 3", row(0L, null));
+
+            assertPushedDown(pageSize, "SELECT count(*), sum(v), max(s) FROM %s WHERE pk IN (0, 1, 2, 3)",
+                             row(24L, 207, 7));
+            assertPushedDown(pageSize, "SELECT count(*) AS c, max(v) FROM %s WHERE pk = 0 LIMIT 1", row(22L, 24));
+        }
+
+        // the columns take the value of the first row
+        assertPushedDown(5, "SELECT count(*), ck, v FROM %s WHERE pk = 0 AND ck > 3", row(18L, 4, 4));
+
+        // the aggregates that can't be merged, or combined with other selectors, are computed by the coordinator
+        assertNotPushedDown("SELECT avg(v) FROM %s WHERE pk = 0", row(11));
+        assertNotPushedDown("SELECT sum(d) FROM %s WHERE pk = 0", row(103.5));
+        assertNotPushedDown("SELECT max(v) + 1 FROM %s WHERE pk = 0", row(25));
+        assertNotPushedDown("SELECT max(writetime(v)) FROM %s WHERE pk = 0", null);
+    }
+
+    @Test
+    public void testGroupBy() throws Throwable
+    {
+        createTable("CREATE TABLE %s (pk int, c1 int, c2 int, s int static, v int, PRIMARY KEY (pk, c1, c2))");
+
+        for (int c1 = 0; c1 < 4; c1++)
+        {
+            for (int c2 = 0; c2 < 3; c2++)
+            {
+                if (c1 == 1 && c2 == 1)
+                    execute("INSERT INTO %s (pk, c1, c2) VALUES (0, ?, ?)", c1, c2);
+                else
+                    execute("INSERT INTO %s (pk, c1, c2, v) VALUES (0, ?, ?, ?)", c1, c2, c1 * 3 + c2);
+            }
+            if (c1 == 1)
+                flush();
+        }
+        execute("UPDATE %s SET s = 7 WHERE pk = 0");
+        execute("DELETE FROM %s WHERE pk = 0 AND c1 = 3 AND c2 = 2");
+        execute("UPDATE %s SET s = 3 WHERE pk = 1");
+        execute("INSERT INTO %s (pk, c1, c2, v) VALUES (2, 0, 0, -5)");
+
+        for (int pageSize : new int[]{ 2, 3, 100 })
+        {
+            assertPushedDown(pageSize, "SELECT pk, c1, count(*), sum(v), max(s) FROM %s WHERE pk = 0 GROUP BY pk, c1",
+                             row(0, 0, 3L, 3, 7),
+                             row(0, 1, 3L, 8, 7),
+                             row(0, 2, 3L, 21, 7),
+                             row(0, 3, 2L, 19, 7));
+            assertPushedDown(pageSize, "SELECT pk, c1, count(*), sum(v) FROM %s WHERE pk = 0 GROUP BY pk, c1 ORDER BY c1 DESC",
+                             row(0, 3, 2L, 19),
+                             row(0, 2, 3L, 21),
+                             row(0, 1, 3L, 8),
+                             row(0, 0, 3L, 3));
+            assertPushedDown(pageSize, "SELECT pk, c1, count(*), sum(v) FROM %s WHERE pk = 0 GROUP BY pk, c1 LIMIT 2",
+                             row(0, 0, 3L, 3),
+                             row(0, 1, 3L, 8));
+            assertPushedDown(pageSize, "SELECT c1, c2, count(*), v FROM %s WHERE pk = 0 AND c1 > 0 GROUP BY pk, c1, c2 LIMIT 3",
+                             row(1, 0, 1L, 3),
+                             row(1, 1, 1L, null),
+                             row(1, 2, 1L, 5));
+
+            // a partition with only static content is a group
+            assertPushedDown(pageSize, "SELECT pk, count(*), sum(v), max(s) FROM %s WHERE pk IN (0, 1, 2, 3) GROUP BY pk",
+                             row(0, 11L, 51, 7),
+                             row(1, 1L, 0, 3),
+                             row(2, 1L, -5, null));
+            assertPushedDown(pageSize, "SELECT pk, c1, count(*) FROM %s WHERE pk IN (0, 1, 2) GROUP BY pk, c1 PER PARTITION LIMIT 1",
+                             row(0, 0, 3L),
+                             row(1, null, 1L),
+                             row(2, 0, 1L));
+            assertPushedDown(pageSize, "SELECT pk, c1, count(*) FROM %s WHERE pk IN (0, 1, 2) GROUP BY pk, c1 LIMIT 5",
+                             row(0, 0, 3L),
+                             row(0, 1, 3L),
+                             row(0, 2, 3L),
+                             row(0, 3, 2L),
+                             row(1, null, 1L));
+            assertPushedDown(pageSize, "SELECT pk, count(*) FROM %s WHERE pk = 3 GROUP BY pk");
+        }
+
+        // the selectors of the groups are computed by the coordinator
+        assertNotPushedDown("SELECT pk, c1 + 1, count(*) FROM %s WHERE pk = 0 GROUP BY pk, c1 LIMIT 1", row(0, 1, 3L));
+    }
+
+    @Test
+    public void testGroupByTimeRanges() throws Throwable
+    {
+        createTable("CREATE TABLE %s (pk int, time timestamp, v int, PRIMARY KEY (pk, time))");
+
+        execute("INSERT INTO %s (pk, time, v) VALUES (1, '2016-09-27 16:10:00 UTC', 1)");
+        execute("INSERT INTO %s (pk, time, v) VALUES (1, '2016-09-27 16:12:00 UTC', 2)");
+        execute("INSERT INTO %s (pk, time, v) VALUES (1, '2016-09-27 16:14:00 UTC', 3)");
+        execute("INSERT INTO %s (pk, time, v) VALUES (1, '2016-09-27 16:15:00 UTC', 4)");
+        execute("INSERT INTO %s (pk, time, v) VALUES (1, '2016-09-27 16:21:00 UTC', 5)");
+        execute("INSERT INTO %s (pk, time, v) VALUES (1, '2016-09-27 16:22:00 UTC', 6)");
+        execute("INSERT INTO %s (pk, time, v) VALUES (1, '2016-09-27 16:26:00 UTC', 7)");
+        execute("INSERT INTO %s (pk, time, v) VALUES (1, '2016-09-27 16:26:20 UTC', 8)");
+        execute("INSERT INTO %s (pk, time, v) VALUES (2, '2016-09-27 16:26:20 UTC', 10)");
+        execute("INSERT INTO %s (pk, time, v) VALUES (2, '2016-09-27 16:30:00 UTC', 11)");
+
+        for (int pageSize : new int[]{ 1, 3, 100 })
+        {
+            assertPushedDown(pageSize, "SELECT pk, time, min(v), max(v), count(v) FROM %s WHERE pk IN (1, 2) GROUP BY pk, floor(time, 5m)",
+                             row(1, toTimestamp("2016-09-27 16:10:00 UTC"), 1, 3, 3L),
+                             row(1, toTimestamp("2016-09-27 16:15:00 UTC"), 4, 4, 1L),
+                             row(1, toTimestamp("2016-09-27 16:21:00 UTC"), 5, 6, 2L),
+                             row(1, toTimestamp("2016-09-27 16:26:00 UTC"), 7, 8, 2L),
+                             row(2, toTimestamp("2016-09-27 16:26:20 UTC"), 10, 10, 1L),
+                             row(2, toTimestamp("2016-09-27 16:30:00 UTC"), 11, 11, 1L));
+        }
+    }
+
+    @Test
+    public void testCounters() throws Throwable
+    {
+        createTable("CREATE TABLE %s (pk int, ck int, c counter, PRIMARY KEY (pk, ck))");
+        for (int ck = 0; ck < 10; ck++)
+        {
+            execute("UPDATE %s SET c = c + ? WHERE pk = 0 AND ck = ?", (long) ck, ck);
+            execute("UPDATE %s SET c = c + 1 WHERE pk = 0 AND ck = ?", ck);
+        }
+
+        assertPushedDown(3, "SELECT count(c), sum(c), min(c), max(c) FROM %s WHERE pk = 0", row(10L, 55L, 1L, 10L));
+    }
+
+    @Test
+    public void testSerialization() throws Throwable
+    {
+        createTable("CREATE TABLE %s (pk int, ck int, v int, t text, PRIMARY KEY (pk, ck))");
+        PartialAggregation aggregation = partialAggregation("SELECT count(*), sum(v), max(t), min(ck) FROM %s WHERE pk = 0");
+        assertNotNull(aggregation);
+
+        ReadCommand command = Util.cmd(getCurrentColumnFamilyStore(), 0).build();
+        command.setDigestVersion(MessagingService.current_version);
+        command.setPartialAggregation(aggregation);
+
+        int version = MessagingService.current_version;
+        ByteBuffer serialized;
+        try (DataOutputBuffer out = new DataOutputBuffer())
+        {
+            ReadCommand.serializer.serialize(command, out, version);
+            assertEquals(ReadCommand.serializer.serializedSize(command, version), out.getLength());
+            serialized = out.buffer();
+        }
+
+        ReadCommand deserialized;
+        try (DataInputBuffer in = new DataInputBuffer(serialized, true))
+        {
+            deserialized = ReadCommand.serializer.deserialize(in, version);
+        }
+        assertNotNull(deserialized.partialAggregation());
+        assertEquals(command.digestVersion(), deserialized.digestVersion());
+
+        try (DataOutputBuffer out = new DataOutputBuffer())
+        {
+            ReadCommand.serializer.serialize(deserialized, out, version);
+            assertEquals(serialized, out.buffer());
+        }
+
+        // the digest requests made from the command return the digest of the rows
+        assertNull(command.copy().partialAggregation());
+    }
+
+    /**
+     * Checks that the query, which the replicas can aggregate, returns the expected rows with and without pushdown.
+     */
+    private void assertPushedDown(int pageSize, String query, Object[]... rows) throws Throwable
+    {
+        assertNotNull(partialAggregation(query));
+        // as the coordinator only pushes the aggregates down if all the nodes can compute them
+        assertFalse(Gossiper.instance.hasNodesWithReleaseVersionLowerThan(SystemKeyspace.CURRENT_VERSION.familyLowerBound.get()));
+        assertRowsWithAndWithoutPushdown(pageSize, query, rows);
+    }
+
+    private void assertNotPushedDown(String query, Object[] row) throws Throwable
+    {
+        assertNull(partialAggregation(query));
+        if (row != null)
+            assertRowsWithAndWithoutPushdown(5, query, row);
+    }
+
+    private void assertRowsWithAndWithoutPushdown(int pageSize, String query, Object[]... rows) throws Throwable
+    {
+        DatabaseDescriptor.setAggregationPushdownEnabled(false);
+        assertRowsNet(executeNetWithPaging(query, pageSize), rows);
+        DatabaseDescriptor.setAggregationPushdownEnabled(true);
+        assertRowsNet(executeNetWithPaging(query, pageSize), rows);
+    }
+
+    private PartialAggregation partialAggregation(String query)
+    {
+        SelectStatement statement = (SelectStatement) QueryProcessor.parseStatement(formatQuery(query), ClientState.forInternalCalls());
+        AggregationSpecification aggregationSpec = statement.getAggregationSpec(QueryOptions.DEFAULT);
+        return aggregationSpec == null
+             ? null
+             : statement.getSelection().newPartialAggregation(QueryOptions.DEFAULT, aggregationSpec, true);
+    }
+
+    private static Date toTimestamp(String timestampAsString)
+    {
+        return new Date(TimestampSerializer.dateStringToTimestamp(timestampAsString));
+    }
+}
@@ -0,0 +1,245 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.cassandra.db.rows;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import com.google.common.base.Strings;
+import org.junit.After;
+import org.junit.Test;
+
+import org.apache.cassandra.config.DatabaseDescriptor;
+import org.apache.cassandra.cql3.CQLTester;
+import org.apache.cassandra.db.Clustering;
+import org.apache.cassandra.db.ClusteringBound;
+import org.apache.cassandra.db.ClusteringComparator;
+import org.apache.cassandra.db.ColumnFamilyStore;
+import org.apache.cassandra.db.DeletionTime;
+import org.apache.cassandra.db.Slice;
+import org.apache.cassandra.db.Slices;
+import org.apache.cassandra.db.columniterator.AbstractSSTableIterator;
+import org.apache.cassandra.db.filter.ColumnFilter;
+import org.apache.cassandra.db.marshal.Int32Type;
+import org.apache.cassandra.io.sstable.format.SSTableReader;
+import org.apache.cassandra.io.sstable.format.SSTableReadsListener;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class ShadowedDataSkipperTest extends CQLTester
+{
+    private static final ClusteringComparator COMPARATOR = new ClusteringComparator(Int32Type.instance);
+    private static final String VALUE = Strings.repeat("v", 100);
+
+    private final int columnIndexSize = DatabaseDescriptor.getColumnIndexSizeInKiB();
+
+    @After
+    public void resetColumnIndexSize()
+    {
+        DatabaseDescriptor.setColumnIndexSize(columnIndexSize);
+    }
+
+    @Test
+    public void testSkipTarget()
+    {
+        ShadowedDataSkipper skipper = new ShadowedDataSkipper(COMPARATOR);
+        ShadowedDataSkipper.Source older = skipper.newSource();
+        ShadowedDataSkipper.Source newer = skipper.newSource();
+
+        older.onNext(new RangeTombstoneBoundMarker(ClusteringBound.inclusiveStartOf(clustering(0)), new DeletionTime(10, 0)));
+        newer.onNext(new RangeTombstoneBoundMarker(ClusteringBound.inclusiveStartOf(clustering(5)), new DeletionTime(100, 0)));
+        // nothing is known to be shadowed until the markers are followed by something
+        assertNull(skipper.skipTarget(0));
+
+        older.onNext(BTreeRow.emptyRow(clustering(30)));
+        newer.onNext(BTreeRow.emptyRow(clustering(20)));
+        assertBound(ClusteringBound.exclusiveStartOf(clustering(30)), skipper.skipTarget(9));
+        assertBound(ClusteringBound.exclusiveStartOf(clustering(20)), skipper.skipTarget(10));
+        assertNull(skipper.skipTarget(100));
+
+        newer.onNext(new RangeTombstoneBoundMarker(ClusteringBound.exclusiveEndOf(clustering(40)), new DeletionTime(100, 0)));
+        assertBound(ClusteringBound.inclusiveStartOf(clustering(40)), skipper.skipTarget(10));
+
+        // once closed, the deletion no longer applies to what comes next
+        newer.onNext(BTreeRow.emptyRow(clustering(50)));
+        assertNull(skipper.skipTarget(10));
+    }
+
+    @Test
+    public void testSSTableIteratorSkipTo() throws Throwable
+    {
+        testSSTableIteratorSkipTo(false);
+    }
+
+    @Test
+    public void testIndexedSSTableIteratorSkipTo() throws Throwable
+    {
+        testSSTableIteratorSkipTo(true);
+    }
+
+    private void testSSTableIteratorSkipTo(boolean indexed) throws Throwable
+    {
+        DatabaseDescriptor.setColumnIndexSize(indexed ? 1 : 1024);
+        createTable("CREATE TABLE %s (pk int, ck int, v text, PRIMARY KEY (pk, ck))");
+        for (int ck = 0; ck < 1000; ck++)
+            execute("INSERT INTO %s (pk, ck, v) VALUES (0, ?, ?) USING TIMESTAMP 1", ck, VALUE);
+        execute("DELETE FROM %s USING TIMESTAMP 2 WHERE pk = 0 AND ck >= 400 AND ck < 600");
+        flush();
+
+        ColumnFamilyStore cfs = getCurrentColumnFamilyStore();
+        SSTableReader sstable = cfs.getLiveSSTables().iterator().next();
+        assertEquals(indexed, sstable.getPosition(cfs.decorateKey(Int32Type.instance.decompose(0)), SSTableReader.Operator.EQ).isIndexed());
+
+        try (AbstractSSTableIterator iter = iterator(cfs, sstable, Slices.ALL))
+        {
+            assertClustering(0, iter.next());
+
+            // rows are skipped without the range tombstone being open
+            assertTrue(iter.skipTo(ClusteringBound.inclusiveStartOf(clustering(200))));
+            assertClustering(200, iter.next());
+            assertFalse(iter.skipTo(ClusteringBound.inclusiveStartOf(clustering(100))));
+
+            // skipping into a range tombstone opens it at the bound
+            assertTrue(iter.skipTo(ClusteringBound.inclusiveStartOf(clustering(500))));
+            Unfiltered open = iter.next();
+            assertTrue(open.isRangeTombstoneMarker());
+            assertBound(ClusteringBound.inclusiveStartOf(clustering(500)), (ClusteringBound<?>) open.clustering());
+            assertEquals(2, ((RangeTombstoneMarker) open).openDeletionTime(false).markedForDeleteAt());
+
+            // we don't skip while it is open
+            assertFalse(iter.skipTo(ClusteringBound.inclusiveStartOf(clustering(800))));
+            Unfiltered close = iter.next();
+            assertTrue(close.isRangeTombstoneMarker() && ((RangeTombstoneMarker) close).isClose(false));
+            assertClustering(600, iter.next());
+
+            assertTrue(iter.skipTo(ClusteringBound.exclusiveStartOf(clustering(900))));
+            int remaining = 0;
+            while (iter.hasNext())
+            {
+                assertClustering(901 + remaining, iter.next());
+                remaining++;
+            }
+            assertEquals(99, remaining);
+        }
+
+        // skipping past the end of the slice ends it
+        Slices slices = Slices.with(COMPARATOR, Slice.make(ClusteringBound.inclusiveStartOf(clustering(100)),
+                                                           ClusteringBound.inclusiveEndOf(clustering(300))));
+        try (AbstractSSTableIterator iter = iterator(cfs, sstable, slices))
+        {
+            assertClustering(100, iter.next());
+            assertTrue(iter.skipTo(ClusteringBound.inclusiveStartOf(clustering(700))));
+            assertFalse(iter.hasNext());
+        }
+    }
+
+    @Test
+    public void testQueue() throws Throwable
+    {
+        testQueue(false);
+    }
+
+    @Test
+    public void testIndexedQueue() throws Throwable
+    {
+        testQueue(true);
+    }
+
+    /**
+     * Consumes a queue by deleting its head, in the memtable and in several sstables, and checks that reads,
+     * that skip what the newer deletions shadow in the older sstables, return what they should.
+     */
+    private void testQueue(boolean indexed) throws Throwable
+    {
+        DatabaseDescriptor.setColumnIndexSize(indexed ? 1 : 1024);
+        createTable("CREATE TABLE %s (pk int, ck int, v text, PRIMARY KEY (pk, ck))");
+        disableCompaction();
+
+        int head = 0;
+        for (int batch = 0; batch < 5; batch++)
+        {
+            for (int ck = batch * 200; ck < (batch + 1) * 200; ck++)
+                execute("INSERT INTO %s (pk, ck, v) VALUES (0, ?, ?)", ck, VALUE);
+            head += 150;
+            execute("DELETE FROM %s WHERE pk = 0 AND ck < ?", head);
+            // a deleted range in the middle of the older sstables, and a row overwritten after its deletion
+            execute("DELETE FROM %s WHERE pk = 0 AND ck > ? AND ck < ?", head + 10, head + 20);
+            execute("INSERT INTO %s (pk, ck, v) VALUES (0, ?, ?)", head + 15, VALUE);
+            if (batch < 4)
+                flush();
+        }
+
+        List<Integer> live = new ArrayList<>();
+        for (int ck = head; ck < 1000; ck++)
+        {
+            boolean deleted = false;
+            for (int deletedHead = 150; deletedHead <= head; deletedHead += 150)
+                deleted |= ck > deletedHead + 10 && ck < deletedHead + 20 && ck != deletedHead + 15;
+            if (!deleted)
+                live.add(ck);
+        }
+
+        assertRows(execute("SELECT ck FROM %s WHERE pk = 0"), rows(live));
+        assertRows(execute("SELECT ck FROM %s WHERE pk = 0 LIMIT 10"), rows(live.subList(0, 10)));
+        assertRows(execute("SELECT ck FROM %s WHERE pk = 0 AND ck >= 100 AND ck < 900"),
+                   rows(live.subList(0, live.indexOf(899) + 1)));
+        assertRows(execute("SELECT ck FROM %s WHERE pk = 0 AND ck IN (0, 600, 760, 765, 999)"), row(760), row(765), row(999));
+
+        List<Integer> reversed = new ArrayList<>(live);
+        Collections.reverse(reversed);
+        assertRows(execute("SELECT ck FROM %s WHERE pk = 0 ORDER BY ck DESC"), rows(reversed));
+    }
+
+    private static Object[][] rows(List<Integer> clusterings)
+    {
+        Object[][] rows = new Object[clusterings.size()][];
+        for (int i = 0; i < rows.length; i++)
+            rows[i] = row(clusterings.get(i));
+        return rows;
+    }
+
+    @SuppressWarnings("resource")
+    private static AbstractSSTableIterator iterator(ColumnFamilyStore cfs, SSTableReader sstable, Slices slices)
+    {
+        return (AbstractSSTableIterator) sstable.rowIterator(cfs.decorateKey(Int32Type.instance.decompose(0)),
+                                                             slices,
+                                                             ColumnFilter.all(cfs.metadata()),
+                                                             false,
+                                                             SSTableReadsListener.NOOP_LISTENER);
+    }
+
+    private static Clustering<?> clustering(int ck)
+    {
+        return Clustering.make(Int32Type.instance.decompose(ck));
+    }
+
+    private static void assertClustering(int expected, Unfiltered unfiltered)
+    {
+        assertTrue(unfiltered.isRow());
+        assertEquals(0, COMPARATOR.compare(clustering(expected), unfiltered.clustering()));
+    }
+
+    private static void assertBound(ClusteringBound<?> expected, ClusteringBound<?> actual)
+    {
+        assertEquals(expected.toString(COMPARATOR), 0, COMPARATOR.compare(expected, actual));
+    }
+}
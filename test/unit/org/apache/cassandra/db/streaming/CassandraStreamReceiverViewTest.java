@@ -0,0 +1,140 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.cassandra.db.streaming;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Future;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+import com.google.common.collect.Iterables;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import org.apache.cassandra.Util;
+import org.apache.cassandra.cql3.CQLTester;
+import org.apache.cassandra.db.ColumnFamilyStore;
+import org.apache.cassandra.db.Keyspace;
+import org.apache.cassandra.dht.Range;
+import org.apache.cassandra.dht.Token;
+import org.apache.cassandra.io.sstable.format.SSTableReader;
+import org.apache.cassandra.streaming.StreamOperation;
+import org.apache.cassandra.streaming.StreamPlan;
+import org.apache.cassandra.streaming.StreamState;
+import org.apache.cassandra.utils.FBUtilities;
+import org.apache.cassandra.utils.concurrent.Refs;
+
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests the bulk application of the view updates of the sstables received for a table with views.
+ */
+public class CassandraStreamReceiverViewTest extends CQLTester
+{
+    static
+    {
+        System.setProperty("cassandra.streaming.bulk_apply_view_updates", "true");
+    }
+
+    @BeforeClass
+    public static void setUp()
+    {
+        requireNetwork();
+    }
+
+    @Test
+    public void testViewUpdatesAgainstReceivedData() throws Throwable
+    {
+        createTable("CREATE TABLE %s (k int, c int, v int, PRIMARY KEY (k, c))");
+        String view = createView("CREATE MATERIALIZED VIEW %s AS SELECT * FROM %s WHERE k IS NOT NULL AND c IS NOT NULL AND v IS NOT NULL PRIMARY KEY (v, k, c)");
+
+        SSTableReader newer = receivableSSTable(view, "INSERT INTO %s (k, c, v) VALUES (0, 0, 2) USING TIMESTAMP 2");
+        SSTableReader older = receivableSSTable(view, "INSERT INTO %s (k, c, v) VALUES (0, 0, 1) USING TIMESTAMP 1");
+        execute("INSERT INTO %s (k, c, v) VALUES (0, 0, 0) USING TIMESTAMP 0");
+        execute("INSERT INTO %s (k, c, v) VALUES (1, 0, 0) USING TIMESTAMP 0");
+
+        transfer(newer).get();
+        transfer(older).get();
+
+        assertRowsIgnoringOrder(execute("SELECT k, c, v FROM %s"), row(0, 0, 2), row(1, 0, 0));
+        assertRowsIgnoringOrder(execute("SELECT v, k, c FROM " + KEYSPACE + '.' + view), row(0, 1, 0), row(2, 0, 0));
+    }
+
+    @Test
+    public void testConcurrentSessionsOfSameTable() throws Throwable
+    {
+        createTable("CREATE TABLE %s (k int, c int, v int, PRIMARY KEY (k, c))");
+        String view = createView("CREATE MATERIALIZED VIEW %s AS SELECT * FROM %s WHERE k IS NOT NULL AND c IS NOT NULL AND v IS NOT NULL PRIMARY KEY (v, k, c)");
+        ColumnFamilyStore cfs = getCurrentColumnFamilyStore();
+
+        SSTableReader older = receivableSSTable(view, "INSERT INTO %s (k, c, v) VALUES (0, 0, 1) USING TIMESTAMP 1");
+        SSTableReader newer = receivableSSTable(view, "INSERT INTO %s (k, c, v) VALUES (0, 0, 2) USING TIMESTAMP 2");
+
+        // hold both sessions before they push their view updates, then let them go at once: if the second session
+        // did not see the sstables of the first one, the view would keep the entry of the older value
+        Lock lock = CassandraStreamReceiver.bulkViewUpdateLock(cfs.metadata.id);
+        Future<StreamState> olderSession;
+        Future<StreamState> newerSession;
+        lock.lock();
+        try
+        {
+            olderSession = transfer(older);
+            newerSession = transfer(newer);
+            Util.spinAssertEquals(2, ((ReentrantLock) lock)::getQueueLength, 60);
+            assertTrue(cfs.getLiveSSTables().isEmpty());
+        }
+        finally
+        {
+            lock.unlock();
+        }
+        olderSession.get();
+        newerSession.get();
+
+        assertRows(execute("SELECT k, c, v FROM %s"), row(0, 0, 2));
+        assertRows(execute("SELECT v, k, c FROM " + KEYSPACE + '.' + view), row(2, 0, 0));
+    }
+
+    /**
+     * @return the sstable holding the data written by {@code query}, which is removed from the table and its view,
+     * both expected to be empty beforehand
+     */
+    private SSTableReader receivableSSTable(String view, String query) throws Throwable
+    {
+        ColumnFamilyStore cfs = getCurrentColumnFamilyStore();
+        execute(query);
+        flush();
+        SSTableReader sstable = Iterables.getOnlyElement(cfs.getLiveSSTables());
+        cfs.clearUnsafe();
+        Keyspace.open(KEYSPACE).getColumnFamilyStore(view).clearUnsafe();
+        return sstable;
+    }
+
+    private static Future<StreamState> transfer(SSTableReader sstable)
+    {
+        Token minimum = sstable.getPartitioner().getMinimumToken();
+        List<Range<Token>> ranges = Collections.singletonList(new Range<>(minimum, minimum));
+        CassandraOutgoingFile stream = new CassandraOutgoingFile(StreamOperation.OTHER,
+                                                                 Refs.tryRef(Collections.singletonList(sstable)).get(sstable),
+                                                                 sstable.getPositionsForRanges(ranges),
+                                                                 ranges,
+                                                                 sstable.estimatedKeysForRanges(ranges));
+        return new StreamPlan(StreamOperation.OTHER).transferStreams(FBUtilities.getBroadcastAddressAndPort(), Collections.singletonList(stream))
+                                                    .execute();
+    }
+}
@@ -0,0 +1,62 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.cassandra.db.virtual;
+
+import com.google.common.collect.ImmutableList;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import org.apache.cassandra.cql3.CQLTester;
+import org.apache.cassandra.utils.StackSampler;
+
+public class StackSamplesTablesTest extends CQLTester
+{
+    private static final String KS_NAME = "vts";
+
+    @BeforeClass
+    public static void setUpClass()
+    {
+        CQLTester.setUpClass();
+    }
+
+    @Before
+    public void config()
+    {
+        StackSampler.instance.reset();
+        VirtualKeyspaceRegistry.instance.register(new VirtualKeyspace(KS_NAME, ImmutableList.copyOf(StackSamplesTables.getAll(KS_NAME))));
+    }
+
+    @Test
+    public void testSelectAll() throws Throwable
+    {
+        assertEmpty(execute("SELECT * FROM vts.stack_samples"));
+        assertEmpty(execute("SELECT * FROM vts.thread_pool_samples"));
+
+        // the current thread is runnable while sampling, so is always sampled
+        StackSampler.instance.sample();
+        String threadPool = StackSampler.instance.threadPools().entrySet().stream()
+                                                .filter(entry -> entry.getValue().samples() > 0)
+                                                .findAny().get().getKey();
+        StackSampler.ThreadPoolSamples samples = StackSampler.instance.threadPools().get(threadPool);
+
+        assertRowsIgnoringOrderAndExtra(execute("SELECT thread_pool, samples FROM vts.thread_pool_samples"),
+                                        row(threadPool, samples.samples()));
+        assertRowCount(execute("SELECT * FROM vts.stack_samples WHERE thread_pool = ?", threadPool), samples.stacks().size());
+    }
+}
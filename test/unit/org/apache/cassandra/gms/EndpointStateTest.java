@@ -164,5 +164,30 @@ public class EndpointStateTest
         assertTrue(values.containsKey(ApplicationState.TOKENS));
         assertTrue(values.containsKey(ApplicationState.INTERNAL_IP));
         assertTrue(values.containsKey(ApplicationState.HOST_ID));
+
+        int maxVersion = HeartBeatState.EMPTY_VERSION;
+        for (VersionedValue value : values.values())
+            maxVersion = Math.max(maxVersion, value.version);
+        assertEquals(maxVersion, state.getMaxApplicationStateVersion());
+    }
+
+    @Test
+    public void testMaxApplicationStateVersion()
+    {
+        EndpointState state = new EndpointState(new HeartBeatState(0));
+        assertEquals(HeartBeatState.EMPTY_VERSION, state.getMaxApplicationStateVersion());
+
+        VersionedValue load = valueFactory.load(1.0);
+        VersionedValue schema = valueFactory.schema(UUID.randomUUID());
+        state.addApplicationState(ApplicationState.LOAD, load);
+        state.addApplicationState(ApplicationState.SCHEMA, schema);
+        assertEquals(schema.version, state.getMaxApplicationStateVersion());
+
+        // the heartbeat is not an application state
+        state.getHeartBeatState().updateHeartBeat();
+        assertEquals(schema.version, state.getMaxApplicationStateVersion());
+        assertEquals(Math.max(schema.version, state.getHeartBeatState().getHeartBeatVersion()), Gossiper.getMaxEndpointStateVersion(state));
+
+        assertEquals(schema.version, new EndpointState(state).getMaxApplicationStateVersion());
     }
 }
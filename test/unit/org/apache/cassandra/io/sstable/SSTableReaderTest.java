@@ -50,6 +50,7 @@ import org.apache.cassandra.dht.Token;
 import org.apache.cassandra.index.Index;
 import org.apache.cassandra.io.FSReadError;
 import org.apache.cassandra.io.sstable.format.SSTableReader;
+import org.apache.cassandra.io.sstable.metadata.PartitionStatsSketch;
 import org.apache.cassandra.io.util.FileDataInput;
 import org.apache.cassandra.io.util.MmappedRegions;
 import org.apache.cassandra.schema.CachingParams;
@@ -214,6 +215,39 @@ public class SSTableReaderTest
         assert store.metric.maxPartitionSize.getValue() != 0;
     }
 
+    @Test
+    public void testPartitionStats()
+    {
+        ColumnFamilyStore store = discardSSTables(KEYSPACE1, CF_STANDARD3);
+        partitioner = store.getPartitioner();
+
+        for (int j = 0; j < 100; j++)
+        {
+            for (int c = 0; c < 3; c++)
+            {
+                new RowUpdateBuilder(store.metadata(), j, String.valueOf(j))
+                .clustering(String.valueOf(c))
+                .add("val", ByteBufferUtil.EMPTY_BYTE_BUFFER)
+                .build()
+                .applyUnsafe();
+            }
+        }
+        Util.flush(store);
+
+        SSTableReader sstable = store.getLiveSSTables().iterator().next();
+        assertTrue(sstable.components.contains(Component.PARTITION_STATS));
+        PartitionStatsSketch stats = sstable.getPartitionStats();
+        assertNotNull(stats);
+        assertEquals(100, stats.partitionCount());
+        assertEquals(300, stats.rowCount());
+        assertEquals(100, stats.estimate(new Range<>(partitioner.getMinimumToken(), partitioner.getMinimumToken())).partitions());
+
+        // the sketch survives a reload from disk
+        clearAndLoad(store);
+        sstable = store.getLiveSSTables().iterator().next();
+        assertEquals(300, sstable.getPartitionStats().rowCount());
+    }
+
     private void clearAndLoad(ColumnFamilyStore cfs)
     {
         cfs.clearUnsafe();
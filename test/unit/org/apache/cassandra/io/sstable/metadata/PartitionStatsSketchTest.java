@@ -0,0 +1,118 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.cassandra.io.sstable.metadata;
+
+import java.io.IOException;
+
+import org.junit.Test;
+
+import org.apache.cassandra.dht.Murmur3Partitioner;
+import org.apache.cassandra.dht.Range;
+import org.apache.cassandra.dht.Token;
+import org.apache.cassandra.io.util.DataInputBuffer;
+import org.apache.cassandra.io.util.DataOutputBuffer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class PartitionStatsSketchTest
+{
+    private static final Murmur3Partitioner partitioner = Murmur3Partitioner.instance;
+
+    private static Token token(long value)
+    {
+        return new Murmur3Partitioner.LongToken(value);
+    }
+
+    private static PartitionStatsSketch build(int maxSegments, int partitions)
+    {
+        PartitionStatsSketch.Builder builder = new PartitionStatsSketch.Builder(maxSegments);
+        // evenly spread tokens, 2 rows of 100 bytes each per partition
+        long step = Long.MAX_VALUE / partitions;
+        for (int i = 0; i < partitions; i++)
+            builder.add(token(i * step), 2, 200);
+        return builder.build(partitioner);
+    }
+
+    @Test
+    public void testTotals()
+    {
+        PartitionStatsSketch sketch = build(8, 1000);
+        assertEquals(1000, sketch.partitionCount());
+        assertEquals(2000, sketch.rowCount());
+        assertEquals(200000, sketch.dataSize());
+        assertTrue(sketch.segmentCount() <= 8);
+    }
+
+    @Test
+    public void testEmpty() throws IOException
+    {
+        PartitionStatsSketch sketch = new PartitionStatsSketch.Builder().build(partitioner);
+        assertTrue(sketch.isEmpty());
+        assertEquals(0, sketch.estimate(new Range<>(token(0), token(100))).partitions());
+        assertEquals(0, roundTrip(sketch).partitionCount());
+    }
+
+    @Test
+    public void testRangeEstimate()
+    {
+        PartitionStatsSketch sketch = build(16, 1000);
+
+        PartitionStatsSketch.Estimate full = sketch.estimate(new Range<>(partitioner.getMinimumToken(), partitioner.getMinimumToken()));
+        assertEquals(1000, full.partitions());
+        assertEquals(2000, full.rows());
+        assertEquals(200, full.maxPartitionSize());
+        assertEquals(2.0, full.meanRowsPerPartition(), 0.001);
+
+        // the sstable covers [0, Long.MAX_VALUE), half of it should hold about half the partitions
+        PartitionStatsSketch.Estimate half = sketch.estimate(new Range<>(token(-1), token(Long.MAX_VALUE / 2)));
+        assertEquals(500, half.partitions(), 50);
+        assertEquals(1000, half.rows(), 100);
+
+        // nothing before the first token
+        assertEquals(0, sketch.estimate(new Range<>(token(Long.MIN_VALUE), token(-1))).partitions());
+    }
+
+    @Test
+    public void testSerialization() throws IOException
+    {
+        PartitionStatsSketch sketch = build(PartitionStatsSketch.MAX_SEGMENTS, 10000);
+        PartitionStatsSketch deserialized = roundTrip(sketch);
+
+        assertEquals(sketch.segmentCount(), deserialized.segmentCount());
+        assertEquals(sketch.partitionCount(), deserialized.partitionCount());
+        assertEquals(sketch.rowCount(), deserialized.rowCount());
+        assertEquals(sketch.dataSize(), deserialized.dataSize());
+
+        Range<Token> range = new Range<>(token(Long.MAX_VALUE / 4), token(Long.MAX_VALUE / 3));
+        assertEquals(sketch.estimate(range).rows(), deserialized.estimate(range).rows());
+    }
+
+    private static PartitionStatsSketch roundTrip(PartitionStatsSketch sketch) throws IOException
+    {
+        try (DataOutputBuffer out = new DataOutputBuffer())
+        {
+            PartitionStatsSketch.serializer.serialize(sketch, out);
+            assertEquals(PartitionStatsSketch.serializer.serializedSize(sketch), out.getLength());
+            try (DataInputBuffer in = new DataInputBuffer(out.buffer(), false))
+            {
+                return PartitionStatsSketch.serializer.deserialize(in, partitioner);
+            }
+        }
+    }
+}
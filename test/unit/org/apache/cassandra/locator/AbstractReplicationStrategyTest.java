@@ -18,28 +18,63 @@
 
 package org.apache.cassandra.locator;
 
+import java.util.Collections;
+
+import org.junit.BeforeClass;
 import org.junit.Test;
 
+import org.apache.cassandra.config.DatabaseDescriptor;
+import org.apache.cassandra.dht.Murmur3Partitioner.LongToken;
+import org.apache.cassandra.dht.Token;
+
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 
 public class AbstractReplicationStrategyTest
 {
+    @BeforeClass
+    public static void setup()
+    {
+        DatabaseDescriptor.daemonInitialization();
+    }
+
     @Test
-    public void testReplicaCache()
+    public void testRingSnapshot() throws Exception
+    {
+        InetAddressAndPort ep1 = InetAddressAndPort.getByName("127.0.0.1");
+        InetAddressAndPort ep2 = InetAddressAndPort.getByName("127.0.0.2");
+        InetAddressAndPort ep3 = InetAddressAndPort.getByName("127.0.0.3");
+
+        TokenMetadata metadata = new TokenMetadata();
+        metadata.updateNormalToken(tk(100), ep1);
+        metadata.updateNormalToken(tk(200), ep2);
+        SimpleStrategy strategy = new SimpleStrategy("ks", metadata, new SimpleSnitch(), Collections.singletonMap("replication_factor", "1"));
+
+        long ringVersion = metadata.getRingVersion();
+        assertNull(strategy.getCachedReplicas(ringVersion, tk(150)));
+
+        EndpointsForRange replicas = strategy.getNaturalReplicas(tk(150));
+        assertEquals(ep2, replicas.get(0).endpoint());
+        // the replicas are shared by the tokens of the same range, including the token ending it
+        assertSame(replicas, strategy.getCachedReplicas(ringVersion, tk(101)));
+        assertSame(replicas, strategy.getCachedReplicas(ringVersion, tk(200)));
+        assertNull(strategy.getCachedReplicas(ringVersion, tk(100)));
+        // wrapping around the ring
+        assertEquals(ep1, strategy.getNaturalReplicas(tk(250)).get(0).endpoint());
+        assertSame(strategy.getCachedReplicas(ringVersion, tk(250)), strategy.getCachedReplicas(ringVersion, tk(50)));
+
+        // a ring change is picked up by the next lookup
+        metadata.updateNormalToken(tk(175), ep3);
+        assertNull(strategy.getCachedReplicas(metadata.getRingVersion(), tk(150)));
+        assertEquals(ep3, strategy.getNaturalReplicas(tk(150)).get(0).endpoint());
+        assertEquals(ep2, strategy.getNaturalReplicas(tk(180)).get(0).endpoint());
+        assertNotNull(strategy.getCachedReplicas(metadata.getRingVersion(), tk(150)));
+    }
+
+    private static Token tk(long token)
     {
-        AbstractReplicationStrategy.ReplicaCache<Integer, Integer> cache = new AbstractReplicationStrategy.ReplicaCache<>();
-
-        cache.put(10, 1, 1);
-        assertEquals(1, (int)cache.get(10, 1));
-        assertNull(cache.get(9,1)); // get with old ringversion, return null to force a recalculation
-        assertNull(cache.get(11,1)); // newer ringVersion - cache gets cleared
-        assertNull(cache.get(10,1)); // and make sure the map got cleared
-
-        cache.put(11, 1, 100);
-        cache.put(10, 1, 99);
-        assertEquals(100, (int)cache.get(11, 1));
-        assertNull(cache.get(12, 55));
-        assertNull(cache.get(11, 1));
+        return new LongToken(token);
     }
 }
@@ -250,6 +250,43 @@ public class PendingRangesTest
                                tm.getPendingRanges(KEYSPACE, node4));
     }
 
+    @Test
+    public void testIncrementalBootstrapPendingRanges()
+    {
+        TokenMetadata tm = new TokenMetadata();
+        AbstractReplicationStrategy strategy = simpleStrategy(tm, 3);
+        for (int i = 1; i <= 6; i++)
+            tm.updateNormalTokens(Arrays.asList(token(i * 100), token(i * 100 + 50)), peer(i));
+
+        // nodes start bootstrapping one after the other, and only the new one has its ranges computed each time
+        for (int i = 7; i <= 10; i++)
+        {
+            tm.addBootstrapTokens(Arrays.asList(token(i * 100 - 625), token(i * 100 - 610)), peer(i));
+            assertSamePendingRanges(tm, strategy);
+        }
+
+        // the pending ranges of the bootstrapping nodes change when another node leaves or completes bootstrapping
+        tm.addLeavingEndpoint(peer(2));
+        assertSamePendingRanges(tm, strategy);
+        tm.updateNormalTokens(tm.getBootstrapTokens().inverse().get(peer(7)), peer(7));
+        assertSamePendingRanges(tm, strategy);
+        tm.removeEndpoint(peer(8));
+        assertSamePendingRanges(tm, strategy);
+    }
+
+    /**
+     * Checks that the pending ranges computed on top of the previous calculation are the same as when computed from
+     * scratch, that is for a keyspace they were never computed for.
+     */
+    private static void assertSamePendingRanges(TokenMetadata tm, AbstractReplicationStrategy strategy)
+    {
+        tm.calculatePendingRanges(strategy, KEYSPACE);
+        String fullKeyspace = KEYSPACE + "_full";
+        tm.calculatePendingRanges(simpleStrategy(tm, 3), fullKeyspace);
+        assertEquals(Sets.newHashSet(tm.getPendingRangesMM(fullKeyspace).flattenEntries()),
+                     Sets.newHashSet(tm.getPendingRangesMM(KEYSPACE).flattenEntries()));
+    }
+
     @Test
     public void testBootstrapLeaveAndMovePermutationsWithoutVnodes()
     {
@@ -22,6 +22,9 @@ import java.io.IOException;
 import java.nio.ByteBuffer;
 import java.nio.channels.FileChannel;
 import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Random;
 
 import org.apache.cassandra.io.util.File;
@@ -174,6 +177,30 @@ public class AsyncStreamingOutputPlusTest
         }
     }
 
+    @Test
+    public void testWriteFileSectionsToChannel() throws IOException
+    {
+        File file = populateTempData("zero_copy_sections");
+
+        EmbeddedChannel channel = new TestChannel(4);
+        StreamManager.StreamRateLimiter limiter = StreamManager.getRateLimiter(FBUtilities.getBroadcastAddressAndPort());
+
+        try (FileChannel fileChannel = file.newReadChannel();
+             AsyncStreamingOutputPlus out = new AsyncStreamingOutputPlus(channel))
+        {
+            List<Long> progress = new ArrayList<>();
+            long written = out.writeFileToChannel(fileChannel, new long[]{ 0, 8 }, new long[]{ 4, 16 }, limiter, progress::add);
+
+            assertEquals(12, written);
+            assertEquals(Arrays.asList(4L, 12L), progress);
+            assertEquals(12, out.flushed());
+            assertEquals(12, out.position());
+
+            assertEquals(12, out.flushedToNetwork());
+            assertFalse(fileChannel.isOpen());
+        }
+    }
+
     private File populateTempData(String name) throws IOException
     {
         File file = new File(Files.createTempFile(name, ".txt"));
@@ -0,0 +1,254 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.cassandra.net;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import com.google.common.base.Strings;
+import org.junit.After;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import org.apache.cassandra.SchemaLoader;
+import org.apache.cassandra.Util;
+import org.apache.cassandra.config.DatabaseDescriptor;
+import org.apache.cassandra.db.ColumnFamilyStore;
+import org.apache.cassandra.db.Keyspace;
+import org.apache.cassandra.db.Mutation;
+import org.apache.cassandra.db.MutationBatch;
+import org.apache.cassandra.db.MutationBatchVerbHandler;
+import org.apache.cassandra.db.RowUpdateBuilder;
+import org.apache.cassandra.io.util.DataInputBuffer;
+import org.apache.cassandra.io.util.DataOutputBuffer;
+import org.apache.cassandra.locator.InetAddressAndPort;
+import org.apache.cassandra.schema.KeyspaceParams;
+import org.apache.cassandra.schema.TableMetadata;
+import org.apache.cassandra.utils.FBUtilities;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static org.apache.cassandra.net.MessagingService.current_version;
+import static org.apache.cassandra.utils.Clock.Global.nanoTime;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class MutationBatcherTest
+{
+    private static final String KEYSPACE = "MutationBatcherTest";
+    private static final String TABLE = "Standard1";
+    private static final long WINDOW_MILLIS = 500;
+
+    @BeforeClass
+    public static void defineSchema()
+    {
+        SchemaLoader.prepareServer();
+        SchemaLoader.createKeyspace(KEYSPACE,
+                                    KeyspaceParams.simple(1),
+                                    SchemaLoader.standardCFMD(KEYSPACE, TABLE));
+    }
+
+    @After
+    public void reset()
+    {
+        MessagingService.instance().outboundSink.clear();
+        DatabaseDescriptor.setInternodeMutationBatchWindow(0, MILLISECONDS);
+    }
+
+    @Test
+    public void testBatchWindow() throws Throwable
+    {
+        InetAddressAndPort peer = InetAddressAndPort.getByName("127.0.0.2");
+        BlockingQueue<Message<?>> sent = captureMutations();
+        MutationBatcher batcher = new MutationBatcher(MessagingService.instance());
+        DatabaseDescriptor.setInternodeMutationBatchWindow(WINDOW_MILLIS, MILLISECONDS);
+        try
+        {
+            // the mutations queued within the window are sent in a single batch at its end
+            long start = nanoTime();
+            List<Message<Mutation>> mutations = mutations(3, 10);
+            for (Message<Mutation> mutation : mutations)
+                assertTrue(batcher.maybeBatch(mutation, peer));
+
+            Message<?> batch = sent.poll(1, TimeUnit.MINUTES);
+            assertTrue(nanoTime() - start >= MILLISECONDS.toNanos(WINDOW_MILLIS));
+            assertBatchOf(mutations, batch);
+            assertNull(sent.poll(WINDOW_MILLIS, MILLISECONDS));
+
+            // a mutation queued once the batch is sent starts another window, and is sent as it is if alone
+            Message<Mutation> mutation = mutations(1, 10).get(0);
+            assertTrue(batcher.maybeBatch(mutation, peer));
+            assertSame(mutation, sent.poll(1, TimeUnit.MINUTES));
+        }
+        finally
+        {
+            batcher.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testMessagesNotBatched() throws Throwable
+    {
+        InetAddressAndPort peer = InetAddressAndPort.getByName("127.0.0.2");
+        MutationBatcher batcher = new MutationBatcher(MessagingService.instance());
+        try
+        {
+            Message<Mutation> mutation = mutations(1, 10).get(0);
+            assertFalse(batcher.maybeBatch(mutation, peer));
+
+            DatabaseDescriptor.setInternodeMutationBatchWindow(WINDOW_MILLIS, MILLISECONDS);
+            assertFalse(batcher.maybeBatch(Message.out(Verb.ECHO_REQ, NoPayload.noPayload), peer));
+            // forwarded or traced mutations rely on the parameters of their own message
+            Message<Mutation> forwarded = Message.builder(mutation)
+                                                 .withParam(ParamType.RESPOND_TO, FBUtilities.getBroadcastAddressAndPort())
+                                                 .build();
+            assertFalse(batcher.maybeBatch(forwarded, peer));
+            // large mutations are sent right away
+            assertFalse(batcher.maybeBatch(mutations(1, MutationBatcher.MAX_BATCH_BYTES).get(0), peer));
+        }
+        finally
+        {
+            batcher.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testBatchSplitting() throws Throwable
+    {
+        InetAddressAndPort peer = InetAddressAndPort.getByName("127.0.0.2");
+        BlockingQueue<Message<?>> sent = captureMutations();
+        MutationBatcher batcher = new MutationBatcher(MessagingService.instance());
+        DatabaseDescriptor.setInternodeMutationBatchWindow(WINDOW_MILLIS, MILLISECONDS);
+        try
+        {
+            // by number of mutations
+            List<Message<Mutation>> mutations = mutations(MutationBatcher.MAX_BATCH_SIZE + 1, 10);
+            for (Message<Mutation> mutation : mutations)
+                assertTrue(batcher.maybeBatch(mutation, peer));
+            assertBatchOf(mutations.subList(0, MutationBatcher.MAX_BATCH_SIZE), sent.poll(1, TimeUnit.MINUTES));
+            assertSame(mutations.get(MutationBatcher.MAX_BATCH_SIZE), sent.poll(1, TimeUnit.MINUTES));
+
+            // by size of mutations
+            mutations = mutations(5, MutationBatcher.MAX_BATCH_BYTES / 3);
+            for (Message<Mutation> mutation : mutations)
+                assertTrue(batcher.maybeBatch(mutation, peer));
+            assertBatchOf(mutations.subList(0, 2), sent.poll(1, TimeUnit.MINUTES));
+            assertBatchOf(mutations.subList(2, 4), sent.poll(1, TimeUnit.MINUTES));
+            assertSame(mutations.get(4), sent.poll(1, TimeUnit.MINUTES));
+            assertNull(sent.poll(WINDOW_MILLIS, MILLISECONDS));
+        }
+        finally
+        {
+            batcher.shutdownNow();
+        }
+    }
+
+    private static List<Message<Mutation>> mutations(int count, int valueSize)
+    {
+        TableMetadata metadata = Keyspace.open(KEYSPACE).getColumnFamilyStore(TABLE).metadata();
+        List<Message<Mutation>> mutations = new ArrayList<>(count);
+        for (int i = 0; i < count; i++)
+        {
+            Mutation mutation = new RowUpdateBuilder(metadata, 0, "key" + i).clustering("c").add("val", Strings.repeat("v", valueSize)).build();
+            mutations.add(Message.outWithFlag(Verb.MUTATION_REQ, mutation, MessageFlag.CALL_BACK_ON_FAILURE));
+        }
+        return mutations;
+    }
+
+    private static BlockingQueue<Message<?>> captureMutations()
+    {
+        BlockingQueue<Message<?>> sent = new LinkedBlockingQueue<>();
+        MessagingService.instance().outboundSink.add((message, to) -> {
+            if (message.verb() == Verb.MUTATION_REQ || message.verb() == Verb.MUTATION_BATCH_REQ)
+                sent.add(message);
+            return false;
+        });
+        return sent;
+    }
+
+    private static void assertBatchOf(List<Message<Mutation>> mutations, Message<?> message)
+    {
+        assertNotNull(message);
+        assertEquals(Verb.MUTATION_BATCH_REQ, message.verb());
+        List<MutationBatch.Entry> entries = ((MutationBatch) message.payload).entries;
+        assertEquals(mutations.size(), entries.size());
+        for (int i = 0; i < mutations.size(); i++)
+            assertEquals(mutations.get(i).id(), entries.get(i).id);
+    }
+
+    @Test
+    public void testApplyBatch() throws Throwable
+    {
+        ColumnFamilyStore cfs = Keyspace.open(KEYSPACE).getColumnFamilyStore(TABLE);
+        TableMetadata metadata = cfs.metadata();
+        InetAddressAndPort peer = InetAddressAndPort.getByName("127.0.0.2");
+
+        List<Message<Mutation>> mutations = new ArrayList<>();
+        for (int i = 0; i < 3; i++)
+        {
+            Mutation mutation = new RowUpdateBuilder(metadata, 0, "key" + i).clustering("c").add("val", "v" + i).build();
+            mutations.add(Message.outWithFlag(Verb.MUTATION_REQ, mutation, MessageFlag.CALL_BACK_ON_FAILURE));
+        }
+
+        Message<MutationBatch> batch = MutationBatcher.message(mutations);
+        Message<MutationBatch> received;
+        try (DataOutputBuffer out = new DataOutputBuffer())
+        {
+            Message.serializer.serialize(batch, out, current_version);
+            assertEquals(batch.serializedSize(current_version), out.getLength());
+            try (DataInputBuffer in = new DataInputBuffer(out.buffer(), true))
+            {
+                received = Message.serializer.deserialize(in, peer, current_version);
+            }
+        }
+        assertEquals(Verb.MUTATION_BATCH_REQ, received.verb());
+        assertEquals(mutations.size(), received.payload.entries.size());
+
+        BlockingQueue<Message<?>> responses = new LinkedBlockingQueue<>();
+        MessagingService.instance().outboundSink.add((message, to) -> {
+            if (message.verb() == Verb.MUTATION_RSP)
+                responses.add(message);
+            return false;
+        });
+
+        MutationBatchVerbHandler.instance.doVerb(received);
+
+        // each mutation is acknowledged under the id of its own message
+        Set<Long> expected = new HashSet<>();
+        Set<Long> acknowledged = new HashSet<>();
+        for (Message<Mutation> mutation : mutations)
+        {
+            expected.add(mutation.id());
+            Message<?> response = responses.poll(1, TimeUnit.MINUTES);
+            assertNotNull(response);
+            acknowledged.add(response.id());
+        }
+        assertEquals(expected, acknowledged);
+
+        for (int i = 0; i < mutations.size(); i++)
+            assertNotNull(Util.getOnlyRow(Util.cmd(cfs, "key" + i).build()));
+    }
+}
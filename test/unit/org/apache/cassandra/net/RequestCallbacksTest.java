@@ -0,0 +1,101 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.cassandra.net;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import org.apache.cassandra.config.DatabaseDescriptor;
+import org.apache.cassandra.exceptions.RequestFailureReason;
+import org.apache.cassandra.locator.InetAddressAndPort;
+
+import static java.util.concurrent.TimeUnit.HOURS;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static org.apache.cassandra.net.NoPayload.noPayload;
+import static org.apache.cassandra.utils.MonotonicClock.Global.preciseTime;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class RequestCallbacksTest
+{
+    @BeforeClass
+    public static void initDD()
+    {
+        DatabaseDescriptor.daemonInitialization();
+    }
+
+    @Test
+    public void testExpiration() throws Throwable
+    {
+        RequestCallbacks callbacks = new RequestCallbacks(MessagingService.instance());
+        try
+        {
+            InetAddressAndPort peer = InetAddressAndPort.getByName("127.0.0.2");
+            AtomicInteger responses = new AtomicInteger();
+            CountDownLatch timeouts = new CountDownLatch(1);
+            RequestCallback<?> callback = new RequestCallback<Object>()
+            {
+                public void onResponse(Message<Object> msg)
+                {
+                    responses.incrementAndGet();
+                }
+
+                public void onFailure(InetAddressAndPort from, RequestFailureReason failureReason)
+                {
+                    assertEquals(RequestFailureReason.TIMEOUT, failureReason);
+                    timeouts.countDown();
+                }
+
+                public boolean invokeOnFailure()
+                {
+                    return true;
+                }
+            };
+
+            Message<?> expiring = Message.out(Verb.ECHO_REQ, noPayload, preciseTime.now() + MILLISECONDS.toNanos(100));
+            Message<?> responded = Message.out(Verb.ECHO_REQ, noPayload, preciseTime.now() + MILLISECONDS.toNanos(100));
+            // expires in a later round of the wheel
+            Message<?> later = Message.out(Verb.ECHO_REQ, noPayload, preciseTime.now() + HOURS.toNanos(1));
+            callbacks.addWithExpiration(callback, expiring, peer);
+            callbacks.addWithExpiration(callback, responded, peer);
+            callbacks.addWithExpiration(callback, later, peer);
+
+            callbacks.removeAndRespond(responded.id(), peer, responded);
+            assertEquals(1, responses.get());
+            assertNull(callbacks.get(responded.id(), peer));
+
+            assertTrue(timeouts.await(1, TimeUnit.MINUTES));
+            assertNull(callbacks.get(expiring.id(), peer));
+
+            assertNotNull(callbacks.get(later.id(), peer));
+            assertNotNull(callbacks.remove(later.id(), peer));
+            assertNull(callbacks.get(later.id(), peer));
+            assertEquals(1, responses.get());
+        }
+        finally
+        {
+            callbacks.shutdownNow(false);
+        }
+    }
+}
@@ -24,12 +24,21 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.TimeUnit;
 
+import com.google.common.collect.Iterables;
+import com.google.common.collect.Iterators;
+
 import org.apache.cassandra.Util;
+import org.apache.cassandra.concurrent.ExecutorPlus;
 import org.apache.cassandra.config.DatabaseDescriptor;
+import org.apache.cassandra.db.compaction.CompactionManager;
 import org.apache.cassandra.db.compaction.CompactionsTest;
+import org.apache.cassandra.db.repair.CassandraValidationIterator;
+import org.apache.cassandra.io.sstable.Component;
 import org.apache.cassandra.io.sstable.format.SSTableReader;
+import org.apache.cassandra.io.util.File;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.BeforeClass;
@@ -44,6 +53,8 @@ import org.apache.cassandra.db.BufferDecoratedKey;
 import org.apache.cassandra.db.ColumnFamilyStore;
 import org.apache.cassandra.db.EmptyIterators;
 import org.apache.cassandra.db.Keyspace;
+import org.apache.cassandra.db.RowUpdateBuilder;
+import org.apache.cassandra.db.rows.UnfilteredRowIterator;
 import org.apache.cassandra.dht.IPartitioner;
 import org.apache.cassandra.dht.Range;
 import org.apache.cassandra.dht.Token;
@@ -54,17 +65,20 @@ import org.apache.cassandra.schema.KeyspaceParams;
 import org.apache.cassandra.service.ActiveRepairService;
 import org.apache.cassandra.streaming.PreviewKind;
 import org.apache.cassandra.utils.ByteBufferUtil;
+import org.apache.cassandra.utils.FBUtilities;
 import org.apache.cassandra.utils.MerkleTree;
 import org.apache.cassandra.utils.MerkleTrees;
 import org.apache.cassandra.utils.TimeUUID;
 
 import static java.util.Collections.singletonList;
+import static org.apache.cassandra.concurrent.ExecutorFactory.Global.executorFactory;
 import static org.apache.cassandra.utils.TimeUUID.Generator.nextTimeUUID;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
 public class ValidatorTest
 {
@@ -224,6 +238,231 @@ public class ValidatorTest
         assertEquals(m.trees.rowCount(), n);
     }
 
+    @Test
+    public void testPartitionHashes() throws Exception
+    {
+        Keyspace ks = Keyspace.open(keyspace);
+        ColumnFamilyStore cfs = ks.getColumnFamilyStore(columnFamily);
+        cfs.clearUnsafe();
+        cfs.disableAutoCompaction();
+
+        boolean enabled = DatabaseDescriptor.getRepairPartitionHashesEnabled();
+        DatabaseDescriptor.setRepairPartitionHashesEnabled(true);
+        try
+        {
+            // clean partitions, some of which are overwritten in a second sstable
+            for (int i = 0; i < 100; i++)
+                new RowUpdateBuilder(cfs.metadata(), 1, "key" + i).clustering("c").add("val", "v" + i).build().applyUnsafe();
+            Util.flush(cfs);
+            for (int i = 90; i < 110; i++)
+                new RowUpdateBuilder(cfs.metadata(), 2, "key" + i).clustering("c").add("val", "w" + i).build().applyUnsafe();
+            // partitions with a tombstone or a ttl
+            for (int i = 110; i < 120; i++)
+                RowUpdateBuilder.deleteRow(cfs.metadata(), 3, "key" + i, "c").applyUnsafe();
+            for (int i = 120; i < 130; i++)
+                new RowUpdateBuilder(cfs.metadata(), 3L, 3600, "key" + i).clustering("c").add("val", "t" + i).build().applyUnsafe();
+            Util.flush(cfs);
+
+            assertEquals(2, cfs.getLiveSSTables().size());
+            for (SSTableReader sstable : cfs.getLiveSSTables())
+                assertTrue(sstable.hasPartitionHashes());
+
+            Range<Token> fullRange = new Range<>(partitioner.getMinimumToken(), partitioner.getMinimumToken());
+            MerkleTrees fromHashes = validate(cfs, fullRange);
+            // only the partitions in a single sstable and free of tombstones and ttls are not read
+            try (CassandraValidationIterator validation = validationIterator(cfs, fullRange))
+            {
+                assertEquals(100, precomputedPartitions(validation));
+            }
+            DatabaseDescriptor.setRepairPartitionHashesEnabled(false);
+            MerkleTrees fromData = validate(cfs, fullRange);
+
+            assertEquals(fromData.rowCount(), fromHashes.rowCount());
+            assertEquals(130, fromData.rowCount());
+            assertTrue(MerkleTrees.difference(fromData, fromHashes).isEmpty());
+        }
+        finally
+        {
+            DatabaseDescriptor.setRepairPartitionHashesEnabled(enabled);
+        }
+    }
+
+    @Test
+    public void testPartitionHashesOfSubrange() throws Exception
+    {
+        Keyspace ks = Keyspace.open(keyspace);
+        ColumnFamilyStore cfs = ks.getColumnFamilyStore(columnFamily);
+        cfs.clearUnsafe();
+        cfs.disableAutoCompaction();
+
+        boolean enabled = DatabaseDescriptor.getRepairPartitionHashesEnabled();
+        DatabaseDescriptor.setRepairPartitionHashesEnabled(true);
+        try
+        {
+            List<Token> tokens = new ArrayList<>();
+            for (int i = 0; i < 4000; i++)
+            {
+                new RowUpdateBuilder(cfs.metadata(), 1, "key" + i).clustering("c").add("val", "v" + i).build().applyUnsafe();
+                tokens.add(Util.dk("key" + i).getToken());
+            }
+            Util.flush(cfs);
+            Collections.sort(tokens);
+            SSTableReader sstable = Iterables.getOnlyElement(cfs.getLiveSSTables());
+
+            // the entries before the range are skipped by seeking to the indexed entry preceding it
+            try (CassandraValidationIterator validation = validationIterator(cfs, new Range<>(tokens.get(2000), tokens.get(2400))))
+            {
+                assertEquals(400, precomputedPartitions(validation));
+                long componentSize = new File(sstable.descriptor.filenameFor(Component.PARTITION_HASHES)).length();
+                assertTrue(validation.getBytesRead() + " of " + componentSize, validation.getBytesRead() < componentSize / 4);
+            }
+        }
+        finally
+        {
+            DatabaseDescriptor.setRepairPartitionHashesEnabled(enabled);
+        }
+    }
+
+    /**
+     * @return the number of partitions of the validation returned with their precomputed hash, checking that the
+     * validation does not read anything else
+     */
+    private static int precomputedPartitions(CassandraValidationIterator validation)
+    {
+        int partitions = 0;
+        while (validation.hasNext())
+        {
+            try (UnfilteredRowIterator partition = validation.next())
+            {
+                if (validation.precomputedHash() != null)
+                    partitions++;
+            }
+        }
+        return partitions;
+    }
+
+    @Test
+    public void testParallelValidation() throws Exception
+    {
+        Keyspace ks = Keyspace.open(keyspace);
+        ColumnFamilyStore cfs = ks.getColumnFamilyStore(columnFamily);
+        cfs.clearUnsafe();
+        cfs.disableAutoCompaction();
+
+        for (int i = 0; i < 1000; i++)
+            new RowUpdateBuilder(cfs.metadata(), 1, "key" + i).clustering("c").add("val", "v" + i).build().applyUnsafe();
+        Util.flush(cfs);
+        for (int i = 0; i < 1000; i += 3)
+            RowUpdateBuilder.deleteRow(cfs.metadata(), 2, "key" + i, "c").applyUnsafe();
+        Util.flush(cfs);
+
+        int subranges = DatabaseDescriptor.getConcurrentValidationSubranges();
+        try
+        {
+            Range<Token> fullRange = new Range<>(partitioner.getMinimumToken(), partitioner.getMinimumToken());
+            MerkleTrees sequential = validate(cfs, fullRange);
+            CompactionManager.instance.setConcurrentValidationSubranges(4);
+            MerkleTrees parallel = validate(cfs, fullRange);
+
+            assertEquals(1000, sequential.rowCount());
+            assertEquals(sequential.rowCount(), parallel.rowCount());
+            assertTrue(MerkleTrees.difference(sequential, parallel).isEmpty());
+
+            // sub-ranges that get too far ahead of the validation give their thread back until it catches up
+            CassandraValidationIterator.setMaxPendingSubrangePartitions(4);
+            parallel = validate(cfs, fullRange);
+            assertEquals(sequential.rowCount(), parallel.rowCount());
+            assertTrue(MerkleTrees.difference(sequential, parallel).isEmpty());
+        }
+        finally
+        {
+            CassandraValidationIterator.setMaxPendingSubrangePartitions(0);
+            CompactionManager.instance.setConcurrentValidationSubranges(subranges);
+        }
+    }
+
+    @Test
+    public void testParallelValidationAfterShutdown() throws Exception
+    {
+        Keyspace ks = Keyspace.open(keyspace);
+        ColumnFamilyStore cfs = ks.getColumnFamilyStore(columnFamily);
+        cfs.clearUnsafe();
+        cfs.disableAutoCompaction();
+
+        for (int i = 0; i < 1000; i++)
+            new RowUpdateBuilder(cfs.metadata(), 1, "key" + i).clustering("c").add("val", "v" + i).build().applyUnsafe();
+        Util.flush(cfs);
+        SSTableReader sstable = Iterables.getOnlyElement(cfs.getLiveSSTables());
+        int refs = sstable.selfRef().globalCount();
+
+        int subranges = DatabaseDescriptor.getConcurrentValidationSubranges();
+        try
+        {
+            CompactionManager.instance.setConcurrentValidationSubranges(4);
+            CassandraValidationIterator.setMaxPendingSubrangePartitions(4);
+
+            // the parked sub-ranges are closed by the validation aborted once the executor is shut down
+            startParallelValidation(cfs).close();
+            assertEquals(refs, sstable.selfRef().globalCount());
+
+            // the validation fails once it needs to resume a parked sub-range
+            try (CassandraValidationIterator validation = startParallelValidation(cfs))
+            {
+                assertThatThrownBy(() -> Iterators.size(validation)).isInstanceOf(RejectedExecutionException.class);
+            }
+            assertEquals(refs, sstable.selfRef().globalCount());
+        }
+        finally
+        {
+            CassandraValidationIterator.setSubrangeExecutor(null);
+            CassandraValidationIterator.setMaxPendingSubrangePartitions(0);
+            CompactionManager.instance.setConcurrentValidationSubranges(subranges);
+        }
+    }
+
+    /**
+     * @return a parallel validation of the whole ring whose sub-ranges are parked, on an executor that is shut down
+     */
+    private CassandraValidationIterator startParallelValidation(ColumnFamilyStore cfs) throws Exception
+    {
+        ExecutorPlus executor = executorFactory().pooled("ValidatorTest", 4);
+        CassandraValidationIterator.setSubrangeExecutor(executor);
+
+        Range<Token> fullRange = new Range<>(partitioner.getMinimumToken(), partitioner.getMinimumToken());
+        CassandraValidationIterator validation = validationIterator(cfs, fullRange);
+        validation.next().close();
+        Util.spinAssertEquals(0, executor::getActiveTaskCount, 10);
+        executor.shutdown();
+        return validation;
+    }
+
+    private static CassandraValidationIterator validationIterator(ColumnFamilyStore cfs, Range<Token> range) throws Exception
+    {
+        TimeUUID repairSessionId = nextTimeUUID();
+        ActiveRepairService.instance.registerParentRepairSession(repairSessionId, InetAddressAndPort.getByName("127.0.0.2"),
+                                                                 Collections.singletonList(cfs), singletonList(range), false, ActiveRepairService.UNREPAIRED_SSTABLE,
+                                                                 false, PreviewKind.NONE);
+        return new CassandraValidationIterator(cfs, singletonList(range), repairSessionId, nextTimeUUID(), false, FBUtilities.nowInSeconds(), null);
+    }
+
+    private MerkleTrees validate(ColumnFamilyStore cfs, Range<Token> range) throws Exception
+    {
+        TimeUUID repairSessionId = nextTimeUUID();
+        RepairJobDesc desc = new RepairJobDesc(repairSessionId, nextTimeUUID(), cfs.keyspace.getName(), cfs.getTableName(), singletonList(range));
+        InetAddressAndPort host = InetAddressAndPort.getByName("127.0.0.2");
+        ActiveRepairService.instance.registerParentRepairSession(repairSessionId, host,
+                                                                 Collections.singletonList(cfs), desc.ranges, false, ActiveRepairService.UNREPAIRED_SSTABLE,
+                                                                 false, PreviewKind.NONE);
+
+        MessagingService.instance().outboundSink.clear();
+        CompletableFuture<Message> outgoingMessageSink = registerOutgoingMessageSink();
+        ValidationManager.instance.submitValidation(cfs, new Validator(new ValidationState(desc, host), 0, true, false, PreviewKind.NONE));
+
+        ValidationResponse response = (ValidationResponse) outgoingMessageSink.get(TEST_TIMEOUT, TimeUnit.SECONDS).payload;
+        assertTrue(response.success());
+        return response.trees;
+    }
+
     /*
      * Test for CASSANDRA-14096 size limiting. We:
      * 1. Limit the size of a repair session
@@ -0,0 +1,191 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.cassandra.service;
+
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import com.datastax.driver.core.PreparedStatement;
+import com.datastax.driver.core.QueryTrace;
+import com.datastax.driver.core.Session;
+import org.apache.cassandra.config.DatabaseDescriptor;
+import org.apache.cassandra.cql3.CQLTester;
+import org.apache.cassandra.service.ResourceAccounting.Resource;
+import org.apache.cassandra.tracing.TraceStateImpl;
+import org.apache.cassandra.utils.MD5Digest;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ResourceAccountingTest extends CQLTester
+{
+    static int DEFAULT_WAIT_FOR_PENDING_EVENTS_TIMEOUT_SECS;
+
+    @BeforeClass
+    public static void setUp()
+    {
+        requireNetwork();
+        DEFAULT_WAIT_FOR_PENDING_EVENTS_TIMEOUT_SECS = TraceStateImpl.WAIT_FOR_PENDING_EVENTS_TIMEOUT_SECS;
+        TraceStateImpl.WAIT_FOR_PENDING_EVENTS_TIMEOUT_SECS = 5;
+        DatabaseDescriptor.setResourceAccountingEnabled(true);
+    }
+
+    @AfterClass
+    public static void tearDown()
+    {
+        TraceStateImpl.WAIT_FOR_PENDING_EVENTS_TIMEOUT_SECS = DEFAULT_WAIT_FOR_PENDING_EVENTS_TIMEOUT_SECS;
+        DatabaseDescriptor.setResourceAccountingEnabled(false);
+    }
+
+    @Before
+    public void reset()
+    {
+        DatabaseDescriptor.setResourceAccountingTrackedStatements(100);
+        StatementResourceUsage.instance.reset();
+    }
+
+    @Test
+    public void testPreparedStatementUsage() throws Throwable
+    {
+        createTable("CREATE TABLE %s (k int, c int, v text, PRIMARY KEY (k, c))");
+        for (int c = 0; c < 10; c++)
+            execute("INSERT INTO %s (k, c, v) VALUES (?, ?, ?)", 1, c, "value");
+        execute("DELETE FROM %s WHERE k = ? AND c = ?", 1, 0);
+        flush();
+
+        String query = "SELECT * FROM " + KEYSPACE + '.' + currentTable() + " WHERE k = ?";
+        Session session = sessionNet();
+        PreparedStatement statement = session.prepare(query);
+        for (int i = 0; i < 5; i++)
+            session.execute(statement.bind(1));
+
+        StatementResourceUsage.Usage usage = usage(query);
+        assertThat(usage.executions()).isEqualTo(5);
+        assertThat(usage.get(Resource.CPU_TIME)).isPositive();
+        assertThat(usage.get(Resource.ALLOCATED_BYTES)).isPositive();
+        assertThat(usage.get(Resource.SSTABLES_READ)).isEqualTo(5);
+        assertThat(usage.get(Resource.TOMBSTONES_SCANNED)).isEqualTo(5);
+        assertThat(usage.get(Resource.CHUNK_CACHE_HITS) + usage.get(Resource.CHUNK_CACHE_MISSES)).isPositive();
+    }
+
+    @Test
+    public void testTracedUsage() throws Throwable
+    {
+        createTable("CREATE TABLE %s (k int PRIMARY KEY, v text)");
+        execute("INSERT INTO %s (k, v) VALUES (?, ?)", 1, "value");
+        flush();
+
+        Session session = sessionNet();
+        PreparedStatement statement = session.prepare("SELECT * FROM " + KEYSPACE + '.' + currentTable() + " WHERE k = ?")
+                                             .enableTracing();
+        QueryTrace trace = session.execute(statement.bind(1)).getExecutionInfo().getQueryTrace();
+        assertThat(trace.getEvents()).anyMatch(event -> event.getDescription().startsWith("Used ")
+                                                        && event.getDescription().contains(", read 1 sstables"));
+    }
+
+    @Test
+    public void testDisabled() throws Throwable
+    {
+        createTable("CREATE TABLE %s (k int PRIMARY KEY, v text)");
+        String query = "SELECT * FROM " + KEYSPACE + '.' + currentTable() + " WHERE k = ?";
+        DatabaseDescriptor.setResourceAccountingEnabled(false);
+        try
+        {
+            sessionNet().execute(sessionNet().prepare(query).bind(1));
+        }
+        finally
+        {
+            DatabaseDescriptor.setResourceAccountingEnabled(true);
+        }
+        assertThat(StatementResourceUsage.instance.statements()).noneMatch(usage -> query.equals(usage.queryString));
+    }
+
+    @Test
+    public void testTopStatements()
+    {
+        DatabaseDescriptor.setResourceAccountingTrackedStatements(2);
+        MD5Digest first = MD5Digest.compute("first");
+        MD5Digest second = MD5Digest.compute("second");
+        MD5Digest third = MD5Digest.compute("third");
+
+        StatementResourceUsage.instance.record(first, "first", usage(300));
+        StatementResourceUsage.instance.record(second, "second", usage(100));
+        StatementResourceUsage.instance.record(first, "first", usage(300));
+        // evicts the statement that used the least CPU time
+        StatementResourceUsage.instance.record(third, "third", usage(200));
+
+        assertThat(StatementResourceUsage.instance.statements()).extracting(usage -> usage.queryString)
+                                                                .containsExactlyInAnyOrder("first", "third");
+        assertThat(usage("first").executions()).isEqualTo(2);
+        assertThat(usage("first").get(Resource.CPU_TIME)).isEqualTo(600);
+    }
+
+    @Test
+    public void testInheritedCpuTime()
+    {
+        DatabaseDescriptor.setResourceAccountingTrackedStatements(2);
+        StatementResourceUsage.instance.record(MD5Digest.compute("A"), "A", usage(25));
+        StatementResourceUsage.instance.record(MD5Digest.compute("B"), "B", usage(10));
+        // replaces B, inheriting its CPU time so that it ranks above A
+        StatementResourceUsage.instance.record(MD5Digest.compute("C"), "C", usage(20));
+        StatementResourceUsage.instance.record(MD5Digest.compute("D"), "D", usage(1));
+
+        assertThat(StatementResourceUsage.instance.statements()).extracting(usage -> usage.queryString)
+                                                                .containsExactlyInAnyOrder("C", "D");
+        assertThat(usage("C").get(Resource.CPU_TIME)).isEqualTo(20);
+    }
+
+    @Test
+    public void testHeavyHitters()
+    {
+        DatabaseDescriptor.setResourceAccountingTrackedStatements(64);
+        MD5Digest heavy = MD5Digest.compute("heavy");
+        for (int i = 0; i < 10000; i++)
+        {
+            StatementResourceUsage.instance.record(MD5Digest.compute("light" + i), "light" + i, usage(10));
+            if (i % 10 == 0)
+                StatementResourceUsage.instance.record(heavy, "heavy", usage(10));
+        }
+
+        assertThat(StatementResourceUsage.instance.statements()).hasSize(64);
+        assertThat(usage("heavy").executions()).isEqualTo(1000);
+
+        // keeps the statements that used the most CPU time when tracking fewer statements
+        DatabaseDescriptor.setResourceAccountingTrackedStatements(8);
+        StatementResourceUsage.instance.record(heavy, "heavy", usage(10));
+        assertThat(StatementResourceUsage.instance.statements()).hasSize(8);
+        assertThat(usage("heavy").executions()).isEqualTo(1001);
+    }
+
+    private static long[] usage(long cpuTime)
+    {
+        long[] usage = new long[Resource.values().length];
+        usage[Resource.CPU_TIME.ordinal()] = cpuTime;
+        return usage;
+    }
+
+    private static StatementResourceUsage.Usage usage(String queryString)
+    {
+        return StatementResourceUsage.instance.statements()
+                                              .stream()
+                                              .filter(usage -> queryString.equals(usage.queryString))
+                                              .findAny()
+                                              .orElseThrow(AssertionError::new);
+    }
+}
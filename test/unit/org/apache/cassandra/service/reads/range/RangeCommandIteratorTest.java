@@ -146,9 +146,13 @@ public class RangeCommandIteratorTest
         cf = RangeCommandIterator.computeConcurrencyFactor(100, 60, maxConcurrentRangeRequest, 480, 240);
         assertEquals(maxConcurrentRangeRequest, cf); // because 60 > maxConccurrentRangeRequest
 
-        // returned half rows, fetch rangesQueried again
-        cf = RangeCommandIterator.computeConcurrencyFactor(100, 30, maxConcurrentRangeRequest, 480, 240);
-        assertEquals(30, cf); // because 30 < maxConccurrentRangeRequest
+        // returned half rows, fetch rangesQueried again plus a margin against falling just short of the limit
+        cf = RangeCommandIterator.computeConcurrencyFactor(100, 20, maxConcurrentRangeRequest, 480, 240);
+        assertEquals(23, cf); // because ceil(240 / (12 * 0.9)) = 23 < maxConccurrentRangeRequest
+
+        // returned a third of the rows, exactly 20 more ranges would be needed but the margin asks for a few more
+        cf = RangeCommandIterator.computeConcurrencyFactor(100, 10, maxConcurrentRangeRequest, 300, 100);
+        assertEquals(23, cf); // because ceil(200 / (10 * 0.9)) = 23 < maxConccurrentRangeRequest
 
         // returned most of rows, 1 more range to fetch
         cf = RangeCommandIterator.computeConcurrencyFactor(100, 1, maxConcurrentRangeRequest, 480, 479);
@@ -36,11 +36,14 @@ import org.apache.cassandra.db.filter.DataLimits;
 import org.apache.cassandra.db.partitions.CachedPartition;
 import org.apache.cassandra.exceptions.ConfigurationException;
 import org.apache.cassandra.index.StubIndex;
+import org.apache.cassandra.io.sstable.metadata.PartitionStatsSketch;
 import org.apache.cassandra.schema.IndexMetadata;
 
 import static org.apache.cassandra.db.ConsistencyLevel.ONE;
 import static org.apache.cassandra.utils.Clock.Global.nanoTime;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
 
 /**
  * Tests for {@link RangeCommands}.
@@ -147,6 +150,32 @@ public class RangeCommandsTest extends CQLTester
         testEstimateResultsPerRange(keyspace, cfs, rf, 100, 1000, 200);
     }
 
+    @Test
+    public void testEstimateTotalResultsFromPartitionStats() throws Throwable
+    {
+        // a table without regular columns, for which the number of cells says nothing about the number of rows
+        String table = createTable("CREATE TABLE %s (k int, c int, PRIMARY KEY (k, c))");
+        ColumnFamilyStore cfs = Keyspace.open(KEYSPACE).getColumnFamilyStore(table);
+
+        for (int k = 0; k < 10; k++)
+            for (int c = 0; c < 5; c++)
+                execute("INSERT INTO %s (k, c) VALUES (?, ?)", k, c);
+        flush();
+
+        float keys = cfs.estimateKeys();
+        assertEquals(5 * keys, DataLimits.cqlLimits(100).estimateTotalResults(cfs), 0.01);
+        assertEquals(2 * keys, DataLimits.cqlLimits(100, 2).estimateTotalResults(cfs), 0.01);
+
+        // the table statistics are only recomputed once the sstables change
+        PartitionStatsSketch.Estimate stats = cfs.estimateTablePartitionStats();
+        assertSame(stats, cfs.estimateTablePartitionStats());
+        for (int c = 0; c < 15; c++)
+            execute("INSERT INTO %s (k, c) VALUES (?, ?)", 10, c);
+        flush();
+        assertNotSame(stats, cfs.estimateTablePartitionStats());
+        assertEquals(65, cfs.estimateTablePartitionStats().rows());
+    }
+
     private static void testEstimateResultsPerRange(Keyspace keyspace,
                                                     ColumnFamilyStore cfs,
                                                     int rf,
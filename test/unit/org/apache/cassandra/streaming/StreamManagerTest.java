@@ -18,17 +18,22 @@
 
 package org.apache.cassandra.streaming;
 
+import java.net.UnknownHostException;
+
 import org.junit.BeforeClass;
 import org.junit.Test;
 
 import org.apache.cassandra.config.Config;
 import org.apache.cassandra.config.DataRateSpec;
 import org.apache.cassandra.config.DatabaseDescriptor;
+import org.apache.cassandra.locator.InetAddressAndPort;
 import org.apache.cassandra.service.StorageService;
 
 import static org.apache.cassandra.streaming.StreamManager.StreamRateLimiter;
 import static org.apache.cassandra.streaming.StreamManager.StreamRateLimiter.BYTES_PER_MEBIBYTE;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
 
 public class StreamManagerTest
 {
@@ -131,4 +136,49 @@ public class StreamManagerTest
         StorageService.instance.setEntireSSTableInterDCStreamThroughputMebibytesPerSec(0);
         assertEquals(Double.MAX_VALUE, StreamRateLimiter.getEntireSSTableInterDCRateLimiterRateInBytes(), 0);
     }
+
+    @Test
+    public void testUpdatePeerStreamThroughput() throws UnknownHostException
+    {
+        InetAddressAndPort peer = InetAddressAndPort.getByName("127.0.0.2");
+        int streamThroughput = StorageService.instance.getStreamThroughputMbitPerSec();
+        int entireSSTableStreamThroughput = StorageService.instance.getEntireSSTableStreamThroughputMebibytesPerSec();
+        StorageService.instance.setStreamThroughputMbitPerSec(0);
+        StorageService.instance.setEntireSSTableStreamThroughputMebibytesPerSec(0);
+
+        // Disabled by default
+        assertEquals(0, StorageService.instance.getPeerStreamThroughputMebibytesPerSec());
+        assertFalse(StreamManager.getRateLimiter(peer).isRateLimited());
+        assertFalse(StreamManager.getEntireSSTableRateLimiter(peer).isRateLimited());
+
+        // Positive value check, shared by regular and entire SSTable streaming
+        StorageService.instance.setPeerStreamThroughputMebibytesPerSec(100);
+        assertTrue(StreamManager.getRateLimiter(peer).isRateLimited());
+        assertTrue(StreamManager.getEntireSSTableRateLimiter(peer).isRateLimited());
+        assertEquals(100d * BYTES_PER_MEBIBYTE, StreamRateLimiter.getPeerRateLimiterRateInBytes(peer), 0);
+
+        // Existing limiters are updated
+        StorageService.instance.setPeerStreamThroughputMebibytesPerSec(200);
+        assertEquals(200d * BYTES_PER_MEBIBYTE, StreamRateLimiter.getPeerRateLimiterRateInBytes(peer), 0);
+
+        // Zero value check
+        StorageService.instance.setPeerStreamThroughputMebibytesPerSec(0);
+        assertFalse(StreamManager.getRateLimiter(peer).isRateLimited());
+        assertEquals(Double.MAX_VALUE, StreamRateLimiter.getPeerRateLimiterRateInBytes(peer), 0);
+
+        // The limiters created while disabled are updated too
+        InetAddressAndPort otherPeer = InetAddressAndPort.getByName("127.0.0.3");
+        StreamManager.getRateLimiter(otherPeer);
+        StorageService.instance.setPeerStreamThroughputMebibytesPerSec(50);
+        assertEquals(50d * BYTES_PER_MEBIBYTE, StreamRateLimiter.getPeerRateLimiterRateInBytes(otherPeer), 0);
+
+        // The limiter of a peer is dropped once it leaves the ring
+        StreamManager.instance.peerLimiterRemover.onRemove(otherPeer);
+        assertEquals(Double.MAX_VALUE, StreamRateLimiter.getPeerRateLimiterRateInBytes(otherPeer), 0);
+        assertEquals(50d * BYTES_PER_MEBIBYTE, StreamRateLimiter.getPeerRateLimiterRateInBytes(peer), 0);
+        StorageService.instance.setPeerStreamThroughputMebibytesPerSec(0);
+
+        StorageService.instance.setStreamThroughputMbitPerSec(streamThroughput);
+        StorageService.instance.setEntireSSTableStreamThroughputMebibytesPerSec(entireSSTableStreamThroughput);
+    }
 }
\ No newline at end of file
@@ -140,6 +140,67 @@ public class BloomFilterTest
         BloomFilterTest.testSerialize(bfInvHashes, false).close();
     }
 
+    @Test
+    public void testBlockedSerialize() throws IOException
+    {
+        try (IFilter blocked = FilterFactory.getFilter(FilterTestHelper.ELEMENTS, 0.01, BloomFilterType.BLOCKED);
+             IFilter deserialized = BloomFilterTest.testSerialize(blocked, false))
+        {
+            Assert.assertTrue(deserialized instanceof BlockedBloomFilter);
+            Assert.assertEquals(((BloomFilter) blocked).hashCount, ((BloomFilter) deserialized).hashCount);
+            compare(((BloomFilter) blocked).bitset, ((BloomFilter) deserialized).bitset);
+            Assert.assertEquals(blocked.serializedSize(), deserialized.serializedSize());
+        }
+    }
+
+    @Test
+    public void testBlockedFalsePositives()
+    {
+        int keyCount = FilterTestHelper.ELEMENTS * 10;
+        Random random = new Random(42);
+        for (double fpChance : new double[]{ 0.1, 0.01, 0.001 })
+        {
+            try (BloomFilter blocked = (BloomFilter) FilterFactory.getFilter(keyCount, fpChance, BloomFilterType.BLOCKED))
+            {
+                Assert.assertEquals(0, blocked.bitset.capacity() % BlockedBloomFilter.BLOCK_BITS);
+
+                Iterator<ByteBuffer> keys = new KeyGenerator.RandomStringGenerator(random.nextInt(), keyCount);
+                while (keys.hasNext())
+                    blocked.add(FilterTestHelper.wrap(keys.next()));
+
+                keys = new KeyGenerator.RandomStringGenerator(random.nextInt(), keyCount);
+                int falsePositives = 0;
+                while (keys.hasNext())
+                {
+                    if (blocked.isPresent(FilterTestHelper.wrap(keys.next())))
+                        falsePositives++;
+                }
+
+                // the false positives of the absent keys follow a binomial distribution of the expected rate, which
+                // is the rate of the filter's specification, at most fpChance
+                BloomCalculations.BloomSpecification spec = BloomCalculations.computeBlockedBloomSpec(BloomCalculations.maxBlockedBucketsPerElement(keyCount), fpChance);
+                double expected = BloomCalculations.blockedProbs[spec.bucketsPerElement][spec.K];
+                Assert.assertTrue(expected <= fpChance);
+                double sigma = Math.sqrt(keyCount * expected * (1 - expected));
+                Assert.assertTrue(fpChance + ": " + falsePositives + " false positives, " + keyCount * expected + " expected",
+                                  falsePositives < keyCount * expected + 6 * sigma);
+            }
+        }
+    }
+
+    @Test
+    public void testBlockedBloomSpec()
+    {
+        for (double fpChance : new double[]{ 0.1, 0.01, 0.001, BloomCalculations.minSupportedBloomFilterFpChance() * 1.01 })
+        {
+            BloomCalculations.BloomSpecification standard = BloomCalculations.computeBloomSpec(BloomCalculations.maxBucketsPerElement(1), fpChance);
+            BloomCalculations.BloomSpecification blocked = BloomCalculations.computeBlockedBloomSpec(BloomCalculations.maxBlockedBucketsPerElement(1), fpChance);
+            Assert.assertTrue(BloomCalculations.blockedProbs[blocked.bucketsPerElement][blocked.K] <= fpChance);
+            // the keys are less evenly spread, so never fewer buckets than the standard filter
+            Assert.assertTrue(blocked.bucketsPerElement >= standard.bucketsPerElement);
+        }
+    }
+
     @Test
     @Ignore
     public void testManyRandom()
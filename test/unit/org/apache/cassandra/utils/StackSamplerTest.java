@@ -0,0 +1,147 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.cassandra.utils;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import org.apache.cassandra.config.DatabaseDescriptor;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.entry;
+
+public class StackSamplerTest
+{
+    @BeforeClass
+    public static void setupClass()
+    {
+        DatabaseDescriptor.daemonInitialization();
+    }
+
+    @Test
+    public void testThreadPoolName()
+    {
+        assertThat(StackSampler.threadPoolName("ReadStage-12")).isEqualTo("ReadStage");
+        assertThat(StackSampler.threadPoolName("Messaging-EventLoop-3-1")).isEqualTo("Messaging-EventLoop");
+        assertThat(StackSampler.threadPoolName("MutationStage-Shard-2:1")).isEqualTo("MutationStage-Shard");
+        assertThat(StackSampler.threadPoolName("CompactionExecutor:4")).isEqualTo("CompactionExecutor");
+        assertThat(StackSampler.threadPoolName("ScheduledTasks")).isEqualTo("ScheduledTasks");
+        assertThat(StackSampler.threadPoolName("12")).isEqualTo("12");
+    }
+
+    @Test
+    public void testCollapsedStack()
+    {
+        StackTraceElement[] stack = { new StackTraceElement("a.B", "leaf", "B.java", 2),
+                                      new StackTraceElement("a.C", "root", "C.java", 1) };
+        assertThat(StackSampler.collapsedStack(stack)).isEqualTo("a.C.root;a.B.leaf");
+        assertThat(StackSampler.collapsedStack(new StackTraceElement[0])).isEmpty();
+    }
+
+    @Test
+    public void testSample() throws InterruptedException
+    {
+        StackSampler sampler = new StackSampler();
+        AtomicBoolean running = new AtomicBoolean(true);
+        Thread busy = new Thread(() -> {
+            while (running.get())
+                spin();
+        }, "BusyTestPool-1");
+        busy.start();
+        try
+        {
+            sampler.sample();
+            for (int i = 0; i < 100 && !sampler.threadPools().containsKey("BusyTestPool"); i++)
+            {
+                Thread.sleep(10);
+                sampler.sample();
+            }
+        }
+        finally
+        {
+            running.set(false);
+            busy.join();
+        }
+
+        StackSampler.ThreadPoolSamples samples = sampler.threadPools().get("BusyTestPool");
+        assertThat(samples).isNotNull();
+        assertThat(samples.samples()).isPositive();
+        assertThat(samples.stacks().keySet()).allMatch(stack -> stack.startsWith("java.lang.Thread.run;"));
+        assertThat(samples.stacks().values().stream().mapToLong(Long::longValue).sum()).isEqualTo(samples.samples());
+
+        sampler.reset();
+        assertThat(sampler.threadPools()).isEmpty();
+    }
+
+    @Test
+    public void testStacksBound()
+    {
+        String stack = "a.C.root;a.B.leaf";
+        long stackBytes = ObjectSizes.sizeOf(stack) + ObjectSizes.measure(new LongAdder());
+        StackSampler sampler = new StackSampler(2 * stackBytes);
+        StackSampler.ThreadPoolSamples pool = sampler.threadPool("TestPool-1");
+
+        // the stacks that would take more heap than the bound are counted as other stacks
+        sampler.record(pool, stack + 1);
+        sampler.record(pool, stack + 2);
+        sampler.record(pool, stack + 3);
+        sampler.record(pool, stack + 1);
+        sampler.record(pool, stack + 3);
+        assertThat(pool.stacks()).containsOnly(entry(stack + 1, 2L), entry(stack + 2, 1L), entry(StackSampler.OTHER_STACK, 2L));
+        assertThat(pool.samples()).isEqualTo(5);
+        assertThat(sampler.stackBytes()).isEqualTo(2 * stackBytes);
+
+        // a smaller stack may still fit
+        String longer = stack + ";a.D.longer";
+        long longerBytes = ObjectSizes.sizeOf(longer) + ObjectSizes.measure(new LongAdder());
+        sampler = new StackSampler(stackBytes + longerBytes);
+        pool = sampler.threadPool("TestPool-1");
+        sampler.record(pool, longer);
+        sampler.record(pool, longer + ";a.E.longest");
+        sampler.record(pool, stack);
+        assertThat(pool.stacks()).containsOnlyKeys(longer, stack, StackSampler.OTHER_STACK);
+        assertThat(sampler.stackBytes()).isEqualTo(stackBytes + longerBytes);
+
+        sampler.reset();
+        assertThat(sampler.stackBytes()).isZero();
+    }
+
+    @Test
+    public void testSetInterval()
+    {
+        StackSampler sampler = new StackSampler();
+        assertThat(sampler.getInterval(TimeUnit.MILLISECONDS)).isZero();
+        sampler.setInterval(1, TimeUnit.SECONDS);
+        assertThat(sampler.getInterval(TimeUnit.MILLISECONDS)).isEqualTo(1000);
+        sampler.setInterval(0, TimeUnit.SECONDS);
+        assertThat(sampler.getInterval(TimeUnit.MILLISECONDS)).isZero();
+    }
+
+    private static void spin()
+    {
+        long x = 0;
+        for (int i = 0; i < 1000; i++)
+            x += i * 31L;
+        if (x == 42)
+            throw new AssertionError();
+    }
+}
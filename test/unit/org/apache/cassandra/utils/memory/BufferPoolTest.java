@@ -22,6 +22,7 @@ package org.apache.cassandra.utils.memory;
 import java.nio.ByteBuffer;
 import java.util.*;
 import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicReference;
 
 import com.google.common.collect.Iterables;
 import org.junit.Before;
@@ -964,6 +965,47 @@ public class BufferPoolTest
             bufferPool.put(buffer);
     }
 
+    @Test
+    public void testNumaNodes() throws Throwable
+    {
+        // the current thread runs on node 0, and the threads we start on node 1
+        Thread current = Thread.currentThread();
+        NumaTopology topology = new NumaTopology(new int[]{ 0, 1 }, 2, () -> Thread.currentThread() == current ? 0 : 1);
+        BufferPool pool = new BufferPool("test_numa_pool", BufferPool.GlobalPool.MACRO_CHUNK_SIZE, false, topology);
+        final int size = BufferPool.NORMAL_CHUNK_SIZE / 2;
+
+        ByteBuffer buffer0 = pool.get(size, BufferType.OFF_HEAP);
+        assertEquals(BufferPool.GlobalPool.MACRO_CHUNK_SIZE, pool.sizeInBytes(0));
+        assertEquals(0, pool.sizeInBytes(1));
+
+        // node 1 cannot allocate more memory, so it borrows a chunk from node 0, and recycles it to node 0
+        AtomicReference<BufferPool.Chunk> remoteChunk = new AtomicReference<>();
+        Thread thread = new Thread(() -> {
+            ByteBuffer buffer1 = pool.get(size, BufferType.OFF_HEAP);
+            remoteChunk.set(BufferPool.Chunk.getParentChunk(buffer1));
+            pool.put(buffer1);
+        });
+        thread.start();
+        thread.join();
+        assertNotNull(remoteChunk.get());
+        assertNotEquals(BufferPool.Chunk.getParentChunk(buffer0), remoteChunk.get());
+        assertEquals(0, pool.sizeInBytes(1));
+        assertEquals(1, pool.metrics().remoteChunks(1).getCount());
+        assertEquals(0, pool.metrics().remoteChunks(0).getCount());
+        assertEquals(BufferPool.GlobalPool.MACRO_CHUNK_SIZE, (long) pool.metrics().size(0).getValue());
+
+        // all the chunks but the one used by the current thread are back in the pool of node 0
+        List<BufferPool.Chunk> chunks = new ArrayList<>();
+        BufferPool.Chunk chunk;
+        while ((chunk = pool.globalPool(0).get()) != null)
+            chunks.add(chunk);
+        assertEquals(BufferPool.GlobalPool.MACRO_CHUNK_SIZE / BufferPool.NORMAL_CHUNK_SIZE - 1, chunks.size());
+        assertNull(pool.globalPool(1).get());
+
+        chunks.forEach(BufferPool.Chunk::release);
+        pool.put(buffer0);
+    }
+
     private BufferPool.Chunk allocate(int num, int bufferSize, List<ByteBuffer> buffers)
     {
         for (int i = 0; i < num; i++)
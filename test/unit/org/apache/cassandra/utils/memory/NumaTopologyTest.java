@@ -0,0 +1,63 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.cassandra.utils.memory;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class NumaTopologyTest
+{
+    @Test
+    public void testParseCpuList()
+    {
+        assertArrayEquals(new int[0], NumaTopology.parseCpuList(""));
+        assertArrayEquals(new int[]{ 4 }, NumaTopology.parseCpuList("4"));
+        assertArrayEquals(new int[]{ 0, 1, 2, 3, 8, 9, 16 }, NumaTopology.parseCpuList("0-3,8-9,16"));
+    }
+
+    @Test
+    public void testCurrentNode()
+    {
+        AtomicInteger cpu = new AtomicInteger();
+        NumaTopology topology = new NumaTopology(new int[]{ 0, 0, 1, 1 }, 2, cpu::get);
+        assertEquals(2, topology.nodeCount());
+        assertEquals(0, topology.currentNode());
+        cpu.set(3);
+        assertEquals(1, topology.currentNode());
+
+        // unknown CPUs are considered part of the first node
+        cpu.set(-1);
+        assertEquals(0, topology.currentNode());
+        cpu.set(4);
+        assertEquals(0, topology.currentNode());
+
+        assertEquals(0, NumaTopology.SINGLE_NODE.currentNode());
+    }
+
+    @Test
+    public void testLoad()
+    {
+        NumaTopology topology = NumaTopology.load();
+        assertTrue(topology.currentNode() >= 0 && topology.currentNode() < topology.nodeCount());
+    }
+}